@@ -0,0 +1,98 @@
+package com.tienda.donarosa.admision;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Control de admisión de las pantallas y la API.
+ *
+ * Cada petición ocupa un lugar en el límite de su clase (lecturas o escrituras)
+ * mientras se atiende. Sin lugar libre responde enseguida 503 con Retry-After,
+ * en vez de esperar un hilo de Tomcat o el bloqueo del archivo H2 detrás de
+ * todas las demás. Los recursos estáticos, el login y la consola H2 no se limitan.
+ */
+public class AdmisionFilter extends OncePerRequestFilter {
+
+    private static final String[] RUTAS_LIMITADAS = {"/productos", "/reportes", "/api/"};
+
+    // Pantallas que modifican datos aunque se pidan con GET
+    private static final String[] ESCRITURAS_POR_GET = {"/productos/eliminar/", "/productos/datos-iniciales"};
+
+    private final ControlAdmision control;
+    private final long reintentarEnSegundos;
+
+    public AdmisionFilter(ControlAdmision control, long reintentarEnSegundos) {
+        this.control = control;
+        this.reintentarEnSegundos = reintentarEnSegundos;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String ruta = ruta(request);
+        if (ruta.equals("/")) {
+            return false;
+        }
+        for (String limitada : RUTAS_LIMITADAS) {
+            if (ruta.startsWith(limitada)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        LimiteAdaptativo limite = control.limite(clasificar(request));
+        if (!limite.entrar()) {
+            rechazar(request, response);
+            return;
+        }
+        long inicio = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            limite.salir(System.nanoTime() - inicio);
+        }
+    }
+
+    static ClaseEndpoint clasificar(HttpServletRequest request) {
+        String metodo = request.getMethod();
+        if (!"GET".equals(metodo) && !"HEAD".equals(metodo) && !"OPTIONS".equals(metodo)) {
+            return ClaseEndpoint.ESCRITURA;
+        }
+        String ruta = ruta(request);
+        for (String escritura : ESCRITURAS_POR_GET) {
+            if (ruta.startsWith(escritura)) {
+                return ClaseEndpoint.ESCRITURA;
+            }
+        }
+        return ClaseEndpoint.LECTURA;
+    }
+
+    private void rechazar(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(reintentarEnSegundos));
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        if (ruta(request).startsWith("/api/")) {
+            response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+            response.getWriter().write("{\"type\":\"about:blank\",\"title\":\"Service Unavailable\",\"status\":503," +
+                    "\"detail\":\"La tienda está atendiendo muchas operaciones; intente de nuevo en unos segundos\"}");
+        } else {
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write("La tienda está atendiendo muchas operaciones; intente de nuevo en unos segundos");
+        }
+    }
+
+    private static String ruta(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
@@ -0,0 +1,9 @@
+package com.tienda.donarosa.admision;
+
+/**
+ * Presupuestos de concurrencia separados: una ráfaga de escrituras no deja sin
+ * lugar a quien solo consulta reportes, y viceversa
+ */
+public enum ClaseEndpoint {
+    LECTURA, ESCRITURA
+}
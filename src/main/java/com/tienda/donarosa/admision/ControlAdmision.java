@@ -0,0 +1,26 @@
+package com.tienda.donarosa.admision;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Límites de concurrencia por clase de endpoint
+ */
+public class ControlAdmision {
+
+    private final Map<ClaseEndpoint, LimiteAdaptativo> limites = new EnumMap<>(ClaseEndpoint.class);
+
+    public ControlAdmision(LimiteAdaptativo lecturas, LimiteAdaptativo escrituras) {
+        limites.put(ClaseEndpoint.LECTURA, lecturas);
+        limites.put(ClaseEndpoint.ESCRITURA, escrituras);
+    }
+
+    public LimiteAdaptativo limite(ClaseEndpoint clase) {
+        return limites.get(clase);
+    }
+
+    public Map<ClaseEndpoint, LimiteAdaptativo> limites() {
+        return Collections.unmodifiableMap(limites);
+    }
+}
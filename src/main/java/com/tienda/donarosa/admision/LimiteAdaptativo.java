@@ -0,0 +1,116 @@
+package com.tienda.donarosa.admision;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Límite de peticiones simultáneas que se ajusta según la latencia observada.
+ *
+ * Compara la latencia reciente (promedio móvil rápido) con la latencia de
+ * referencia (promedio móvil lento): si la reciente supera la referencia por
+ * más de la tolerancia, hay cola en algún lado (hilos, bloqueo del archivo H2)
+ * y el límite baja en proporción; si no, sube de a poco. Solo sube cuando el
+ * límite se está usando, para no crecer sin medir.
+ *
+ * entrar() no espera: si no hay lugar devuelve false y la petición se rechaza.
+ */
+public class LimiteAdaptativo {
+
+    private static final double PESO_RECIENTE = 0.1;
+    private static final double PESO_REFERENCIA = 1.0 / 500;
+    private static final double SUAVIZADO = 0.2;
+
+    private final int minimo;
+    private final int maximo;
+    private final double tolerancia;
+
+    private final AtomicInteger enCurso = new AtomicInteger();
+    private final LongAdder aceptadas = new LongAdder();
+    private final LongAdder rechazadas = new LongAdder();
+
+    private volatile double limite;
+    private double latenciaReciente;
+    private double latenciaReferencia;
+
+    public LimiteAdaptativo(int inicial, int minimo, int maximo, double tolerancia) {
+        if (minimo < 1 || minimo > maximo || inicial < minimo || inicial > maximo) {
+            throw new IllegalArgumentException("Límites inválidos: inicial " + inicial + ", mínimo " + minimo + ", máximo " + maximo);
+        }
+        if (tolerancia < 1) {
+            throw new IllegalArgumentException("La tolerancia debe ser al menos 1: " + tolerancia);
+        }
+        this.limite = inicial;
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.tolerancia = tolerancia;
+    }
+
+    /**
+     * Ocupa un lugar si hay; quien recibe true debe llamar a salir()
+     */
+    public boolean entrar() {
+        while (true) {
+            int actuales = enCurso.get();
+            if (actuales >= (int) limite) {
+                rechazadas.increment();
+                return false;
+            }
+            if (enCurso.compareAndSet(actuales, actuales + 1)) {
+                aceptadas.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libera el lugar y registra cuánto tardó la petición
+     */
+    public void salir(long nanos) {
+        int actuales = enCurso.getAndDecrement();
+        ajustar(nanos, actuales);
+    }
+
+    private synchronized void ajustar(long nanos, int enCursoAlSalir) {
+        if (latenciaReferencia == 0) {
+            latenciaReciente = nanos;
+            latenciaReferencia = nanos;
+            return;
+        }
+        latenciaReciente += (nanos - latenciaReciente) * PESO_RECIENTE;
+        latenciaReferencia += (nanos - latenciaReferencia) * PESO_REFERENCIA;
+        // Pasada una congestión, la referencia (que subió con ella) vuelve a bajar más rápido
+        if (latenciaReferencia > 2 * latenciaReciente) {
+            latenciaReferencia *= 0.95;
+        }
+
+        if (enCursoAlSalir < limite / 2) {
+            return;
+        }
+        double gradiente = Math.max(0.5, Math.min(1.0, tolerancia * latenciaReferencia / latenciaReciente));
+        double nuevo = limite * gradiente + Math.sqrt(limite);
+        limite = Math.max(minimo, Math.min(maximo, limite * (1 - SUAVIZADO) + nuevo * SUAVIZADO));
+    }
+
+    public int getLimite() {
+        return (int) limite;
+    }
+
+    public int getEnCurso() {
+        return enCurso.get();
+    }
+
+    public long getAceptadas() {
+        return aceptadas.sum();
+    }
+
+    public long getRechazadas() {
+        return rechazadas.sum();
+    }
+
+    /**
+     * Latencia reciente en milisegundos
+     */
+    public synchronized double getLatenciaMs() {
+        return latenciaReciente / 1_000_000.0;
+    }
+}
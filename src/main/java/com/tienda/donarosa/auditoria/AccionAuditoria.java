@@ -0,0 +1,13 @@
+package com.tienda.donarosa.auditoria;
+
+/**
+ * Operaciones que quedan en la auditoría
+ */
+public enum AccionAuditoria {
+    CREAR,
+    EDITAR,
+    ELIMINAR,
+    CAMBIO_CANTIDAD,
+    VENTA,
+    CAMBIO_PRECIOS
+}
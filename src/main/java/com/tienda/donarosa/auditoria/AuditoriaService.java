@@ -0,0 +1,209 @@
+package com.tienda.donarosa.auditoria;
+
+import com.tienda.donarosa.model.RegistroAuditoria;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import com.tienda.donarosa.repository.RegistroAuditoriaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Auditoría asíncrona de los cambios de productos.
+ *
+ * La petición solo copia el evento en el BufferAuditoria (sin bloqueos ni
+ * escrituras a la base de datos); un hilo en segundo plano lo vacía por lotes
+ * con inserciones JDBC en la tabla auditoria. Dentro de una transacción el
+ * evento se publica al confirmarla, para no auditar cambios revertidos.
+ *
+ * Configuración (tienda.auditoria.*): capacidad del buffer, tamaño del lote,
+ * política de desborde (DESCARTAR o ESPERAR) y espera máxima.
+ */
+@Service
+public class AuditoriaService implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditoriaService.class);
+
+    private static final String INSERTAR =
+            "INSERT INTO auditoria (tienda_id, fecha, usuario, accion, producto_id, cantidad_anterior, cantidad_nueva, detalle) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final long PAUSA_MAXIMA_NANOS = Duration.ofMillis(50).toNanos();
+    private static final int LARGO_DETALLE = 500;
+
+    private final BufferAuditoria buffer;
+    private final JdbcTemplate jdbcTemplate;
+    private final RegistroAuditoriaRepository registroAuditoriaRepository;
+    private final int tamanoLote;
+
+    private final LongAdder escritos = new LongAdder();
+    private final LongAdder fallidos = new LongAdder();
+
+    private volatile boolean activo;
+    private Thread consumidor;
+
+    @Autowired
+    public AuditoriaService(JdbcTemplate jdbcTemplate,
+                            RegistroAuditoriaRepository registroAuditoriaRepository,
+                            @Value("${tienda.auditoria.capacidad:8192}") int capacidad,
+                            @Value("${tienda.auditoria.lote:256}") int tamanoLote,
+                            @Value("${tienda.auditoria.politica:DESCARTAR}") BufferAuditoria.PoliticaDesborde politica,
+                            @Value("${tienda.auditoria.espera-maxima:5ms}") Duration esperaMaxima) {
+        this.buffer = new BufferAuditoria(capacidad, politica, esperaMaxima.toNanos());
+        this.jdbcTemplate = jdbcTemplate;
+        this.registroAuditoriaRepository = registroAuditoriaRepository;
+        this.tamanoLote = tamanoLote;
+    }
+
+    /**
+     * Registra una operación sobre un producto con el usuario y la tienda actuales
+     */
+    public void registrar(AccionAuditoria accion, Long productoId, Integer cantidadAnterior, Integer cantidadNueva, String detalle) {
+        long instante = System.currentTimeMillis();
+        String usuario = usuarioActual();
+        String tienda = TiendaContexto.actual();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    buffer.publicar(instante, usuario, tienda, accion, productoId, cantidadAnterior, cantidadNueva, detalle);
+                }
+            });
+        } else {
+            buffer.publicar(instante, usuario, tienda, accion, productoId, cantidadAnterior, cantidadNueva, detalle);
+        }
+    }
+
+    /**
+     * Entradas más recientes de la tienda actual, opcionalmente de un solo producto
+     */
+    @Transactional(readOnly = true)
+    public List<RegistroAuditoria> obtenerRecientes(Long productoId, int limite) {
+        return productoId == null
+                ? registroAuditoriaRepository.findAllByOrderByIdDesc(Limit.of(limite))
+                : registroAuditoriaRepository.findByProductoIdOrderByIdDesc(productoId, Limit.of(limite));
+    }
+
+    /**
+     * Escribe un lote del buffer; devuelve el número de eventos leídos.
+     * Solo lo llama el hilo consumidor.
+     */
+    private int vaciar() {
+        Map<String, List<Object[]>> porTienda = new HashMap<>();
+        int leidos = buffer.drenar(evento -> porTienda.computeIfAbsent(evento.getTienda(), t -> new ArrayList<>()).add(new Object[]{
+                evento.getTienda(),
+                new Timestamp(evento.getInstante()),
+                evento.getUsuario(),
+                evento.getAccion().name(),
+                evento.getProductoId(),
+                evento.getCantidadAnterior(),
+                evento.getCantidadNueva(),
+                recortar(evento.getDetalle())
+        }), tamanoLote);
+
+        // Cada tienda en su conexión, por si tiene esquema propio
+        porTienda.forEach((tienda, filas) -> {
+            try {
+                TiendaContexto.ejecutarComo(tienda, () -> jdbcTemplate.batchUpdate(INSERTAR, filas));
+                escritos.add(filas.size());
+            } catch (RuntimeException e) {
+                fallidos.add(filas.size());
+                log.error("No se pudieron escribir {} eventos de auditoría de la tienda {}", filas.size(), tienda, e);
+            }
+        });
+        return leidos;
+    }
+
+    private void consumir() {
+        long pausa = 1_000_000;
+        while (activo) {
+            if (vaciar() > 0) {
+                pausa = 1_000_000;
+            } else {
+                LockSupport.parkNanos(pausa);
+                pausa = Math.min(pausa * 2, PAUSA_MAXIMA_NANOS);
+            }
+        }
+        // Al detenerse escribe lo que quedó pendiente
+        while (vaciar() > 0) {
+            // sigue vaciando
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (activo) {
+            return;
+        }
+        activo = true;
+        consumidor = new Thread(this::consumir, "auditoria-consumidor");
+        consumidor.setDaemon(true);
+        consumidor.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        activo = false;
+        if (consumidor != null) {
+            LockSupport.unpark(consumidor);
+            try {
+                consumidor.join(Duration.ofSeconds(10).toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            consumidor = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return activo;
+    }
+
+    /**
+     * Se detiene antes que el DataSource para poder escribir lo pendiente
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 1_000;
+    }
+
+    public BufferAuditoria getBuffer() {
+        return buffer;
+    }
+
+    public long getEscritos() {
+        return escritos.sum();
+    }
+
+    public long getFallidos() {
+        return fallidos.sum();
+    }
+
+    private static String usuarioActual() {
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        return autenticacion != null ? autenticacion.getName() : "sistema";
+    }
+
+    private static String recortar(String detalle) {
+        return detalle != null && detalle.length() > LARGO_DETALLE ? detalle.substring(0, LARGO_DETALLE) : detalle;
+    }
+}
@@ -0,0 +1,145 @@
+package com.tienda.donarosa.auditoria;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Buffer circular sin bloqueos para los eventos de auditoría: varios
+ * productores (los hilos de las peticiones) y un solo consumidor.
+ *
+ * Cada posición tiene un número de secuencia que indica de quién es el turno.
+ * Un productor reserva una posición con un CAS sobre la posición de escritura,
+ * copia el evento y publica la secuencia; el consumidor lee las posiciones
+ * publicadas en orden y las devuelve a los productores de la siguiente vuelta.
+ * Las posiciones (EventoAuditoria) se crean al iniciar y se reutilizan.
+ *
+ * Cuando el buffer está lleno se aplica la política de desborde y cada evento
+ * perdido se cuenta en {@link #getDescartados()}.
+ */
+public final class BufferAuditoria {
+
+    /**
+     * Qué hacer cuando el buffer está lleno
+     */
+    public enum PoliticaDesborde {
+        // Descarta el evento nuevo de inmediato: la petición nunca espera
+        DESCARTAR,
+        // Espera a que el consumidor libere espacio hasta el tiempo máximo y luego descarta
+        ESPERAR
+    }
+
+    private static final long PAUSA_ESPERA_NANOS = 50_000;
+
+    private final EventoAuditoria[] eventos;
+    private final AtomicLongArray secuencias;
+    private final int mascara;
+    private final PoliticaDesborde politica;
+    private final long esperaMaximaNanos;
+
+    private final AtomicLong posicionEscritura = new AtomicLong();
+    // Solo la modifica el consumidor; es volatile para leer los pendientes desde otros hilos
+    private volatile long posicionLectura;
+
+    private final LongAdder publicados = new LongAdder();
+    private final LongAdder descartados = new LongAdder();
+
+    public BufferAuditoria(int capacidad, PoliticaDesborde politica, long esperaMaximaNanos) {
+        if (capacidad < 2 || Integer.bitCount(capacidad) != 1) {
+            throw new IllegalArgumentException("La capacidad del buffer de auditoría debe ser una potencia de 2");
+        }
+        this.eventos = new EventoAuditoria[capacidad];
+        this.secuencias = new AtomicLongArray(capacidad);
+        for (int i = 0; i < capacidad; i++) {
+            eventos[i] = new EventoAuditoria();
+            secuencias.set(i, i);
+        }
+        this.mascara = capacidad - 1;
+        this.politica = politica;
+        this.esperaMaximaNanos = esperaMaximaNanos;
+    }
+
+    /**
+     * Publica un evento; devuelve false si se descartó por falta de espacio
+     */
+    public boolean publicar(long instante, String usuario, String tienda, AccionAuditoria accion, Long productoId,
+                            Integer cantidadAnterior, Integer cantidadNueva, String detalle) {
+        long limiteEspera = 0;
+        while (true) {
+            long posicion = posicionEscritura.get();
+            int indice = (int) (posicion & mascara);
+            long diferencia = secuencias.get(indice) - posicion;
+
+            if (diferencia == 0) {
+                if (posicionEscritura.compareAndSet(posicion, posicion + 1)) {
+                    eventos[indice].asignar(instante, usuario, tienda, accion, productoId,
+                            cantidadAnterior, cantidadNueva, detalle);
+                    secuencias.set(indice, posicion + 1);
+                    publicados.increment();
+                    return true;
+                }
+            } else if (diferencia < 0) {
+                // La posición todavía no fue leída de la vuelta anterior: buffer lleno
+                if (politica == PoliticaDesborde.DESCARTAR) {
+                    descartados.increment();
+                    return false;
+                }
+                long ahora = System.nanoTime();
+                if (limiteEspera == 0) {
+                    limiteEspera = ahora + esperaMaximaNanos;
+                } else if (ahora - limiteEspera >= 0) {
+                    descartados.increment();
+                    return false;
+                }
+                LockSupport.parkNanos(PAUSA_ESPERA_NANOS);
+            }
+            // diferencia > 0: otro productor tomó la posición; se reintenta con la siguiente
+        }
+    }
+
+    /**
+     * Entrega al destino hasta "maximo" eventos publicados, en orden.
+     * Solo debe llamarlo el hilo consumidor; el evento solo es válido durante la llamada.
+     *
+     * @return número de eventos entregados
+     */
+    public int drenar(Consumer<EventoAuditoria> destino, int maximo) {
+        int entregados = 0;
+        long posicion = posicionLectura;
+        while (entregados < maximo) {
+            int indice = (int) (posicion & mascara);
+            if (secuencias.get(indice) != posicion + 1) {
+                break;
+            }
+            EventoAuditoria evento = eventos[indice];
+            try {
+                destino.accept(evento);
+            } finally {
+                evento.limpiar();
+                secuencias.set(indice, posicion + eventos.length);
+                posicion++;
+                posicionLectura = posicion;
+            }
+            entregados++;
+        }
+        return entregados;
+    }
+
+    public int getCapacidad() {
+        return eventos.length;
+    }
+
+    public long getPendientes() {
+        return Math.max(0, posicionEscritura.get() - posicionLectura);
+    }
+
+    public long getPublicados() {
+        return publicados.sum();
+    }
+
+    public long getDescartados() {
+        return descartados.sum();
+    }
+}
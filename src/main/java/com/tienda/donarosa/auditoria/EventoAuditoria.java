@@ -0,0 +1,67 @@
+package com.tienda.donarosa.auditoria;
+
+/**
+ * Posición del buffer de auditoría. Los objetos se crean una sola vez al
+ * iniciar y se reutilizan: el productor copia los datos en la posición y el
+ * consumidor los lee antes de liberarla, así que nadie debe guardar una
+ * referencia a un evento fuera de BufferAuditoria.drenar.
+ */
+public final class EventoAuditoria {
+
+    long instante;
+    String usuario;
+    String tienda;
+    AccionAuditoria accion;
+    Long productoId;
+    Integer cantidadAnterior;
+    Integer cantidadNueva;
+    String detalle;
+
+    void asignar(long instante, String usuario, String tienda, AccionAuditoria accion, Long productoId,
+                 Integer cantidadAnterior, Integer cantidadNueva, String detalle) {
+        this.instante = instante;
+        this.usuario = usuario;
+        this.tienda = tienda;
+        this.accion = accion;
+        this.productoId = productoId;
+        this.cantidadAnterior = cantidadAnterior;
+        this.cantidadNueva = cantidadNueva;
+        this.detalle = detalle;
+    }
+
+    void limpiar() {
+        asignar(0L, null, null, null, null, null, null, null);
+    }
+
+    public long getInstante() {
+        return instante;
+    }
+
+    public String getUsuario() {
+        return usuario;
+    }
+
+    public String getTienda() {
+        return tienda;
+    }
+
+    public AccionAuditoria getAccion() {
+        return accion;
+    }
+
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public Integer getCantidadAnterior() {
+        return cantidadAnterior;
+    }
+
+    public Integer getCantidadNueva() {
+        return cantidadNueva;
+    }
+
+    public String getDetalle() {
+        return detalle;
+    }
+}
@@ -0,0 +1,94 @@
+package com.tienda.donarosa.busqueda;
+
+import com.tienda.donarosa.dto.SugerenciaDTO;
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.multitienda.CopiasPorTienda;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Sugerencias de nombres de productos mientras se escribe, sin consultar la
+ * base de datos en cada tecla.
+ *
+ * Cada tienda tiene su TrieAutocompletado en memoria: se carga con una consulta
+ * la primera vez que se pide y ProductoServiceImpl lo mantiene al día con cada
+ * alta, cambio de nombre o de existencias y baja (al confirmarse la transacción).
+ */
+@Service
+public class AutocompletadoService {
+
+    private static final Logger log = LoggerFactory.getLogger(AutocompletadoService.class);
+
+    private static final String CARGAR =
+            "SELECT id, nombre, cantidad FROM productos WHERE tienda_id = ? AND eliminado_en IS NULL ORDER BY id";
+    private static final int TAMANO_LECTURA = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CopiasPorTienda<TrieAutocompletado> arboles = new CopiasPorTienda<>(this::cargar);
+
+    @Autowired
+    public AutocompletadoService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Los "limite" productos de la tienda actual con más existencias cuyo nombre empieza por el prefijo
+     */
+    public List<SugerenciaDTO> sugerir(String prefijo, int limite) {
+        return arboles.obtener(TiendaContexto.actual()).sugerir(prefijo, limite);
+    }
+
+    /**
+     * Aplica el nombre y las existencias actuales del producto cuando se confirme la transacción
+     */
+    public void registrarCambio(Producto producto) {
+        String tienda = TiendaContexto.actual();
+        Long id = producto.getId();
+        String nombre = producto.getNombre();
+        int cantidad = producto.getCantidad();
+        CopiasPorTienda.alConfirmar(() -> arboles.aplicar(tienda, arbol -> arbol.agregar(id, nombre, cantidad)));
+    }
+
+    /**
+     * Quita el producto cuando se confirme la transacción
+     */
+    public void registrarBaja(Long id) {
+        String tienda = TiendaContexto.actual();
+        CopiasPorTienda.alConfirmar(() -> arboles.aplicar(tienda, arbol -> arbol.quitar(id)));
+    }
+
+    /**
+     * Descarta el árbol de la tienda actual; se vuelve a cargar en la próxima sugerencia
+     */
+    public void invalidar() {
+        String tienda = TiendaContexto.actual();
+        CopiasPorTienda.alConfirmar(() -> arboles.invalidar(tienda));
+    }
+
+    /**
+     * Lee nombres y existencias con JDBC (la consulta filtra la tienda explícitamente)
+     */
+    private TrieAutocompletado cargar(String tienda) {
+        long inicio = System.nanoTime();
+        Integer total = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM productos WHERE tienda_id = ? AND eliminado_en IS NULL", Integer.class, tienda);
+        TrieAutocompletado arbol = new TrieAutocompletado(total == null ? 0 : total);
+        jdbcTemplate.query(conexion -> {
+            var sentencia = conexion.prepareStatement(CARGAR);
+            sentencia.setString(1, tienda);
+            sentencia.setFetchSize(TAMANO_LECTURA);
+            return sentencia;
+        }, fila -> {
+            arbol.agregar(fila.getLong(1), fila.getString(2), fila.getInt(3));
+        });
+        log.info("Árbol de autocompletado de la tienda {} cargado: {} productos en {} ms",
+                tienda, arbol.tamano(), (System.nanoTime() - inicio) / 1_000_000);
+        return arbol;
+    }
+}
@@ -0,0 +1,113 @@
+package com.tienda.donarosa.busqueda;
+
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.multitienda.CopiasPorTienda;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import com.tienda.donarosa.repository.ProductoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Búsqueda de productos por nombre sin importar tildes, plurales ni errores
+ * de escritura pequeños, con los resultados ordenados por relevancia.
+ *
+ * Cada tienda tiene su IndiceBusqueda en memoria: se carga con una consulta la
+ * primera vez que se busca y ProductoServiceImpl lo mantiene al día al crear,
+ * renombrar y eliminar productos (al confirmarse la transacción).
+ */
+@Service
+public class BusquedaService {
+
+    private static final Logger log = LoggerFactory.getLogger(BusquedaService.class);
+
+    private static final String CARGAR =
+            "SELECT id, nombre FROM productos WHERE tienda_id = ? AND eliminado_en IS NULL ORDER BY id";
+    private static final int TAMANO_LECTURA = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductoRepository productoRepository;
+    private final int maximoResultados;
+    private final CopiasPorTienda<IndiceBusqueda> indices = new CopiasPorTienda<>(this::cargar);
+
+    @Autowired
+    public BusquedaService(JdbcTemplate jdbcTemplate, ProductoRepository productoRepository,
+                           @Value("${tienda.busqueda.max-resultados:50}") int maximoResultados) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productoRepository = productoRepository;
+        this.maximoResultados = maximoResultados;
+    }
+
+    /**
+     * Productos de la tienda actual que coinciden con el texto, los más relevantes primero
+     */
+    public List<Producto> buscar(String texto) {
+        long[] ids = indices.obtener(TiendaContexto.actual()).buscar(texto, maximoResultados);
+        if (ids.length == 0) {
+            return List.of();
+        }
+        Map<Long, Integer> orden = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            orden.put(ids[i], i);
+        }
+        List<Producto> productos = new ArrayList<>(productoRepository.findAllById(orden.keySet()));
+        productos.sort(Comparator.comparing(producto -> orden.get(producto.getId())));
+        return productos;
+    }
+
+    /**
+     * Indexa el nombre actual del producto cuando se confirme la transacción
+     */
+    public void registrarCambio(Producto producto) {
+        String tienda = TiendaContexto.actual();
+        Long id = producto.getId();
+        String nombre = producto.getNombre();
+        CopiasPorTienda.alConfirmar(() -> indices.aplicar(tienda, indice -> indice.agregar(id, nombre)));
+    }
+
+    /**
+     * Quita el producto del índice cuando se confirme la transacción
+     */
+    public void registrarBaja(Long id) {
+        String tienda = TiendaContexto.actual();
+        CopiasPorTienda.alConfirmar(() -> indices.aplicar(tienda, indice -> indice.quitar(id)));
+    }
+
+    /**
+     * Descarta el índice de la tienda actual; se vuelve a cargar en la próxima búsqueda
+     */
+    public void invalidar() {
+        String tienda = TiendaContexto.actual();
+        CopiasPorTienda.alConfirmar(() -> indices.invalidar(tienda));
+    }
+
+    /**
+     * Lee los nombres con JDBC (la consulta filtra la tienda explícitamente)
+     */
+    private IndiceBusqueda cargar(String tienda) {
+        long inicio = System.nanoTime();
+        Integer total = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM productos WHERE tienda_id = ? AND eliminado_en IS NULL", Integer.class, tienda);
+        IndiceBusqueda indice = new IndiceBusqueda(total == null ? 0 : total);
+        jdbcTemplate.query(conexion -> {
+            var sentencia = conexion.prepareStatement(CARGAR);
+            sentencia.setString(1, tienda);
+            sentencia.setFetchSize(TAMANO_LECTURA);
+            return sentencia;
+        }, fila -> {
+            indice.agregar(fila.getLong(1), fila.getString(2));
+        });
+        log.info("Índice de búsqueda de la tienda {} cargado: {} productos en {} ms",
+                tienda, indice.tamano(), (System.nanoTime() - inicio) / 1_000_000);
+        return indice;
+    }
+}
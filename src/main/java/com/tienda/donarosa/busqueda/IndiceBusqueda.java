@@ -0,0 +1,415 @@
+package com.tienda.donarosa.busqueda;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido de nombres de productos de una tienda.
+ *
+ * Cada término (ver TextoBusqueda) apunta a la lista ordenada de documentos
+ * que lo contienen; los documentos son posiciones internas que se asignan en
+ * orden creciente, así que agregar un producto solo añade al final de cada lista.
+ * Quitar un producto lo marca como borrado y, cuando los borrados pasan de
+ * la cuarta parte, el índice se compacta.
+ *
+ * Una búsqueda exige todos los términos del texto (intersección de listas).
+ * Cada término coincide exacto o, si es solo de letras, con hasta 1 error en
+ * raíces de 4 a 6 letras y hasta 2 en las más largas (cambio, inserción,
+ * borrado o dos letras traspuestas). El puntaje suma por término el peso de la
+ * coincidencia (exacta 1, un error 0,7, dos errores 0,5) por lo poco común que es
+ * el término buscado; los empates se resuelven por nombre más corto y luego por id.
+ */
+public final class IndiceBusqueda {
+
+    private static final float PESO_EXACTO = 1.0f;
+    private static final float PESO_UN_ERROR = 0.7f;
+    private static final float PESO_DOS_ERRORES = 0.5f;
+    private static final int MINIMO_PARA_COMPACTAR = 1024;
+
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+    private final Map<String, Lista> listas = new HashMap<>();
+    // Términos que admiten errores, agrupados por largo
+    private final List<Set<String>> vocabulario = new ArrayList<>();
+    private final MapaIds posiciones;
+    private final BitSet borrados = new BitSet();
+    private long[] ids;
+    private short[] largos;
+    private int documentos;
+    private int totalBorrados;
+
+    public IndiceBusqueda(int capacidad) {
+        int inicial = Math.max(capacidad, 16);
+        this.ids = new long[inicial];
+        this.largos = new short[inicial];
+        this.posiciones = new MapaIds(inicial);
+    }
+
+    /**
+     * Agrega el producto o reemplaza su nombre si ya estaba
+     */
+    public void agregar(long id, String nombre) {
+        List<String> terminos = TextoBusqueda.terminos(nombre);
+        candado.writeLock().lock();
+        try {
+            borrar(id);
+            if (documentos == ids.length) {
+                int nuevo = ids.length + (ids.length >> 1);
+                ids = Arrays.copyOf(ids, nuevo);
+                largos = Arrays.copyOf(largos, nuevo);
+            }
+            int documento = documentos++;
+            ids[documento] = id;
+            largos[documento] = (short) Math.min(nombre.length(), Short.MAX_VALUE);
+            posiciones.poner(id, documento);
+            for (String termino : terminos) {
+                listas.computeIfAbsent(termino, this::nuevaLista).agregar(documento);
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita el producto del índice
+     */
+    public void quitar(long id) {
+        candado.writeLock().lock();
+        try {
+            borrar(id);
+            if (totalBorrados >= MINIMO_PARA_COMPACTAR && totalBorrados * 4L > documentos) {
+                compactar();
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Productos en el índice
+     */
+    public int tamano() {
+        candado.readLock().lock();
+        try {
+            return documentos - totalBorrados;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids de los "limite" productos con mejor puntaje para el texto, en orden
+     */
+    public long[] buscar(String texto, int limite) {
+        List<String> consulta = TextoBusqueda.terminos(texto);
+        if (consulta.isEmpty() || limite <= 0) {
+            return new long[0];
+        }
+        candado.readLock().lock();
+        try {
+            List<Coincidencias> porTermino = new ArrayList<>(consulta.size());
+            for (String termino : consulta) {
+                Coincidencias coincidencias = coincidencias(termino);
+                if (coincidencias.tamano == 0) {
+                    return new long[0];
+                }
+                porTermino.add(coincidencias);
+            }
+            porTermino.sort((a, b) -> Integer.compare(a.tamano, b.tamano));
+            Coincidencias resultado = porTermino.get(0);
+            for (int i = 1; i < porTermino.size() && resultado.tamano > 0; i++) {
+                resultado = resultado.interseccion(porTermino.get(i));
+            }
+            return mejores(resultado, limite);
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    private Lista nuevaLista(String termino) {
+        if (TextoBusqueda.admiteErrores(termino)) {
+            while (vocabulario.size() <= termino.length()) {
+                vocabulario.add(new HashSet<>());
+            }
+            vocabulario.get(termino.length()).add(termino);
+        }
+        return new Lista();
+    }
+
+    private void borrar(long id) {
+        int documento = posiciones.obtener(id);
+        if (documento >= 0) {
+            borrados.set(documento);
+            totalBorrados++;
+            posiciones.quitar(id);
+        }
+    }
+
+    /**
+     * Documentos que contienen el término o uno parecido, con el mejor peso de
+     * cada uno multiplicado por lo poco común que es el término
+     */
+    private Coincidencias coincidencias(String termino) {
+        Coincidencias resultado = Coincidencias.VACIAS;
+        Lista exacta = listas.get(termino);
+        if (exacta != null) {
+            resultado = new Coincidencias(exacta, PESO_EXACTO);
+        }
+        if (TextoBusqueda.admiteErrores(termino)) {
+            int maximo = termino.length() <= 3 ? 0 : termino.length() <= 6 ? 1 : 2;
+            for (int largo = termino.length() - maximo; largo <= termino.length() + maximo; largo++) {
+                if (largo <= 0 || largo >= vocabulario.size()) {
+                    continue;
+                }
+                for (String candidato : vocabulario.get(largo)) {
+                    if (candidato.equals(termino)) {
+                        continue;
+                    }
+                    int errores = distancia(termino, candidato, maximo);
+                    if (errores <= maximo) {
+                        float peso = errores == 1 ? PESO_UN_ERROR : PESO_DOS_ERRORES;
+                        resultado = resultado.union(new Coincidencias(listas.get(candidato), peso));
+                    }
+                }
+            }
+        }
+        // Un solo factor por término de la búsqueda: así una coincidencia exacta nunca pierde contra una aproximada
+        return resultado.multiplicar((float) Math.log(1 + (double) documentos / Math.max(resultado.tamano, 1)));
+    }
+
+    private long[] mejores(Coincidencias coincidencias, int limite) {
+        // Montículo con el peor de los elegidos arriba
+        PriorityQueue<Integer> elegidos = new PriorityQueue<>(limite + 1, (a, b) -> comparar(coincidencias, b, a));
+        for (int i = 0; i < coincidencias.tamano; i++) {
+            if (borrados.get(coincidencias.documentos[i])) {
+                continue;
+            }
+            if (elegidos.size() < limite) {
+                elegidos.add(i);
+            } else if (comparar(coincidencias, i, elegidos.peek()) < 0) {
+                elegidos.poll();
+                elegidos.add(i);
+            }
+        }
+        long[] resultado = new long[elegidos.size()];
+        for (int i = resultado.length - 1; i >= 0; i--) {
+            resultado[i] = ids[coincidencias.documentos[elegidos.poll()]];
+        }
+        return resultado;
+    }
+
+    /**
+     * Negativo si la coincidencia a va antes que la b
+     */
+    private int comparar(Coincidencias coincidencias, int a, int b) {
+        int porPuntaje = Float.compare(coincidencias.puntaje(b), coincidencias.puntaje(a));
+        if (porPuntaje != 0) {
+            return porPuntaje;
+        }
+        int documentoA = coincidencias.documentos[a];
+        int documentoB = coincidencias.documentos[b];
+        int porLargo = Integer.compare(largos[documentoA], largos[documentoB]);
+        return porLargo != 0 ? porLargo : Long.compare(ids[documentoA], ids[documentoB]);
+    }
+
+    /**
+     * Renumera los documentos vivos y descarta los borrados y los términos sin documentos
+     */
+    private void compactar() {
+        int[] nuevos = new int[documentos];
+        int vivos = 0;
+        for (int documento = 0; documento < documentos; documento++) {
+            if (borrados.get(documento)) {
+                nuevos[documento] = -1;
+            } else {
+                nuevos[documento] = vivos;
+                ids[vivos] = ids[documento];
+                largos[vivos] = largos[documento];
+                vivos++;
+            }
+        }
+        Iterator<Map.Entry<String, Lista>> entradas = listas.entrySet().iterator();
+        while (entradas.hasNext()) {
+            Map.Entry<String, Lista> entrada = entradas.next();
+            if (entrada.getValue().renumerar(nuevos) == 0) {
+                entradas.remove();
+                String termino = entrada.getKey();
+                if (TextoBusqueda.admiteErrores(termino)) {
+                    vocabulario.get(termino.length()).remove(termino);
+                }
+            }
+        }
+        posiciones.limpiar();
+        for (int documento = 0; documento < vivos; documento++) {
+            posiciones.poner(ids[documento], documento);
+        }
+        borrados.clear();
+        totalBorrados = 0;
+        documentos = vivos;
+    }
+
+    /**
+     * Distancia de edición con trasposiciones (Damerau restringida); devuelve
+     * maximo + 1 en cuanto se sabe que la supera
+     */
+    static int distancia(String a, String b, int maximo) {
+        if (Math.abs(a.length() - b.length()) > maximo) {
+            return maximo + 1;
+        }
+        int[] anterior2 = new int[b.length() + 1];
+        int[] anterior = new int[b.length() + 1];
+        int[] actual = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            anterior[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            actual[0] = i;
+            int minimoFila = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int costo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int valor = Math.min(Math.min(anterior[j] + 1, actual[j - 1] + 1), anterior[j - 1] + costo);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    valor = Math.min(valor, anterior2[j - 2] + 1);
+                }
+                actual[j] = valor;
+                minimoFila = Math.min(minimoFila, valor);
+            }
+            if (minimoFila > maximo) {
+                return maximo + 1;
+            }
+            int[] libre = anterior2;
+            anterior2 = anterior;
+            anterior = actual;
+            actual = libre;
+        }
+        return Math.min(anterior[b.length()], maximo + 1);
+    }
+
+    /**
+     * Documentos de un término, en orden creciente
+     */
+    private static final class Lista {
+
+        private int[] documentos = new int[4];
+        private int tamano;
+
+        void agregar(int documento) {
+            if (tamano == documentos.length) {
+                documentos = Arrays.copyOf(documentos, tamano * 2);
+            }
+            documentos[tamano++] = documento;
+        }
+
+        int renumerar(int[] nuevos) {
+            int quedan = 0;
+            for (int i = 0; i < tamano; i++) {
+                int nuevo = nuevos[documentos[i]];
+                if (nuevo >= 0) {
+                    documentos[quedan++] = nuevo;
+                }
+            }
+            tamano = quedan;
+            if (tamano < documentos.length / 4) {
+                documentos = Arrays.copyOf(documentos, Math.max(tamano, 4));
+            }
+            return tamano;
+        }
+    }
+
+    /**
+     * Documentos en orden creciente con su puntaje. Los de un solo término
+     * comparten el arreglo de la lista y un puntaje constante, sin copiarlos.
+     */
+    private static final class Coincidencias {
+
+        static final Coincidencias VACIAS = new Coincidencias(new int[0], new float[0], 0);
+
+        final int[] documentos;
+        final int tamano;
+        private float[] puntajes;
+        private float constante;
+
+        Coincidencias(int[] documentos, float[] puntajes, int tamano) {
+            this.documentos = documentos;
+            this.puntajes = puntajes;
+            this.tamano = tamano;
+        }
+
+        Coincidencias(Lista lista, float puntaje) {
+            this(lista.documentos, null, lista.tamano);
+            this.constante = puntaje;
+        }
+
+        float puntaje(int i) {
+            return puntajes == null ? constante : puntajes[i];
+        }
+
+        Coincidencias multiplicar(float factor) {
+            if (puntajes == null) {
+                constante *= factor;
+            } else {
+                for (int i = 0; i < tamano; i++) {
+                    puntajes[i] *= factor;
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Documentos de cualquiera de las dos, con el mejor puntaje
+         */
+        Coincidencias union(Coincidencias otras) {
+            if (tamano == 0) {
+                return otras;
+            }
+            int[] documentosUnion = new int[tamano + otras.tamano];
+            float[] puntajesUnion = new float[tamano + otras.tamano];
+            int i = 0;
+            int j = 0;
+            int n = 0;
+            while (i < tamano || j < otras.tamano) {
+                if (j == otras.tamano || (i < tamano && documentos[i] < otras.documentos[j])) {
+                    documentosUnion[n] = documentos[i];
+                    puntajesUnion[n++] = puntaje(i++);
+                } else if (i == tamano || otras.documentos[j] < documentos[i]) {
+                    documentosUnion[n] = otras.documentos[j];
+                    puntajesUnion[n++] = otras.puntaje(j++);
+                } else {
+                    documentosUnion[n] = documentos[i];
+                    puntajesUnion[n++] = Math.max(puntaje(i++), otras.puntaje(j++));
+                }
+            }
+            return new Coincidencias(documentosUnion, puntajesUnion, n);
+        }
+
+        /**
+         * Documentos de ambas, sumando los puntajes
+         */
+        Coincidencias interseccion(Coincidencias otras) {
+            int[] documentosComunes = new int[Math.min(tamano, otras.tamano)];
+            float[] puntajesComunes = new float[documentosComunes.length];
+            int i = 0;
+            int j = 0;
+            int n = 0;
+            while (i < tamano && j < otras.tamano) {
+                if (documentos[i] < otras.documentos[j]) {
+                    i++;
+                } else if (documentos[i] > otras.documentos[j]) {
+                    j++;
+                } else {
+                    documentosComunes[n] = documentos[i];
+                    puntajesComunes[n++] = puntaje(i++) + otras.puntaje(j++);
+                }
+            }
+            return new Coincidencias(documentosComunes, puntajesComunes, n);
+        }
+    }
+}
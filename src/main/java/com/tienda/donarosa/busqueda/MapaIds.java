@@ -0,0 +1,93 @@
+package com.tienda.donarosa.busqueda;
+
+import java.util.Arrays;
+
+/**
+ * Id de producto a su lugar en los arreglos de un índice, con direccionamiento
+ * abierto para no crear un objeto por producto
+ */
+final class MapaIds {
+
+    private static final int VACIO = 0;
+    private static final int QUITADO = -1;
+
+    private long[] claves;
+    // lugar + 1, VACIO o QUITADO
+    private int[] valores;
+    private int ocupados;
+
+    MapaIds(int capacidad) {
+        int tamano = Integer.highestOneBit(Math.max(capacidad * 2, 16) - 1) << 1;
+        claves = new long[tamano];
+        valores = new int[tamano];
+    }
+
+    int obtener(long id) {
+        int mascara = claves.length - 1;
+        for (int i = posicion(id, mascara); valores[i] != VACIO; i = (i + 1) & mascara) {
+            if (claves[i] == id && valores[i] != QUITADO) {
+                return valores[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    void poner(long id, int lugar) {
+        if ((ocupados + 1) * 3L > claves.length * 2L) {
+            crecer();
+        }
+        int mascara = claves.length - 1;
+        int i = posicion(id, mascara);
+        while (valores[i] != VACIO) {
+            if (claves[i] == id && valores[i] != QUITADO) {
+                valores[i] = lugar + 1;
+                return;
+            }
+            i = (i + 1) & mascara;
+        }
+        claves[i] = id;
+        valores[i] = lugar + 1;
+        ocupados++;
+    }
+
+    void quitar(long id) {
+        int mascara = claves.length - 1;
+        for (int i = posicion(id, mascara); valores[i] != VACIO; i = (i + 1) & mascara) {
+            if (claves[i] == id && valores[i] != QUITADO) {
+                valores[i] = QUITADO;
+                return;
+            }
+        }
+    }
+
+    void limpiar() {
+        Arrays.fill(valores, VACIO);
+        ocupados = 0;
+    }
+
+    private void crecer() {
+        long[] clavesAnteriores = claves;
+        int[] valoresAnteriores = valores;
+        int vivos = 0;
+        for (int valor : valoresAnteriores) {
+            if (valor > 0) {
+                vivos++;
+            }
+        }
+        // Si sobran marcas de quitados basta con reconstruir del mismo tamaño
+        int tamano = vivos * 3L > clavesAnteriores.length ? clavesAnteriores.length * 2 : clavesAnteriores.length;
+        claves = new long[tamano];
+        valores = new int[tamano];
+        ocupados = 0;
+        for (int i = 0; i < clavesAnteriores.length; i++) {
+            if (valoresAnteriores[i] > 0) {
+                poner(clavesAnteriores[i], valoresAnteriores[i] - 1);
+            }
+        }
+    }
+
+    private static int posicion(long id, int mascara) {
+        long mezcla = id * 0x9E3779B97F4A7C15L;
+        return (int) (mezcla ^ (mezcla >>> 32)) & mascara;
+    }
+}
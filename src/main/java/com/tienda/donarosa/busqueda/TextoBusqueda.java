@@ -0,0 +1,126 @@
+package com.tienda.donarosa.busqueda;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Convierte nombres y textos buscados en términos comparables:
+ *
+ * - Sin tildes ni diéresis y con la ñ como n ("Piñas" y "pinas" son iguales).
+ * - En minúsculas y separados por todo lo que no sea letra o número.
+ * - Sin palabras vacías (de, la, con...), letras sueltas ni números largos
+ *   como los códigos "#12345".
+ * - Reducidos a una raíz aproximada quitando el plural y la vocal final
+ *   ("Limones" y "limón" quedan en "limon", "lápices" y "lápiz" en "lapiz").
+ */
+public final class TextoBusqueda {
+
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+            "de", "del", "la", "las", "el", "los", "y", "con", "en", "para", "por", "x");
+    private static final int MAXIMO_DIGITOS = 4;
+
+    private TextoBusqueda() {
+    }
+
+    /**
+     * Términos distintos del texto, en el orden en que aparecen
+     */
+    public static List<String> terminos(String texto) {
+        Set<String> terminos = new LinkedHashSet<>();
+        if (texto == null) {
+            return List.of();
+        }
+        String normalizado = normalizar(texto);
+        int inicio = -1;
+        for (int i = 0; i <= normalizado.length(); i++) {
+            boolean parte = i < normalizado.length() && Character.isLetterOrDigit(normalizado.charAt(i));
+            if (parte && inicio < 0) {
+                inicio = i;
+            } else if (!parte && inicio >= 0) {
+                String palabra = normalizado.substring(inicio, i);
+                inicio = -1;
+                if (palabra.length() > 1 && !PALABRAS_VACIAS.contains(palabra)
+                        && !(esNumero(palabra) && palabra.length() > MAXIMO_DIGITOS)) {
+                    terminos.add(raiz(palabra));
+                }
+            }
+        }
+        return new ArrayList<>(terminos);
+    }
+
+    /**
+     * Nombre normalizado con los espacios colapsados, para comparar prefijos
+     */
+    static String clave(String texto) {
+        return normalizar(texto).trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Minúsculas sin marcas diacríticas
+     */
+    static String normalizar(String texto) {
+        String descompuesto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        StringBuilder limpio = new StringBuilder(descompuesto.length());
+        for (int i = 0; i < descompuesto.length(); i++) {
+            char c = descompuesto.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                limpio.append(c);
+            }
+        }
+        return limpio.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Raíz aproximada de una palabra ya normalizada. Las palabras con dígitos no se tocan.
+     */
+    static String raiz(String palabra) {
+        if (tieneDigitos(palabra)) {
+            return palabra;
+        }
+        String raiz = palabra;
+        if (raiz.length() > 4 && raiz.endsWith("ces") && esVocal(raiz.charAt(raiz.length() - 4))) {
+            raiz = raiz.substring(0, raiz.length() - 3) + "z";
+        } else if (raiz.length() > 4 && raiz.endsWith("es")) {
+            raiz = raiz.substring(0, raiz.length() - 2);
+        } else if (raiz.length() > 3 && raiz.endsWith("s")) {
+            raiz = raiz.substring(0, raiz.length() - 1);
+        }
+        if (raiz.length() > 3 && esVocal(raiz.charAt(raiz.length() - 1))) {
+            raiz = raiz.substring(0, raiz.length() - 1);
+        }
+        return raiz;
+    }
+
+    /**
+     * Si el término admite coincidencias aproximadas (solo los que son únicamente letras)
+     */
+    static boolean admiteErrores(String termino) {
+        return !tieneDigitos(termino);
+    }
+
+    private static boolean esVocal(char c) {
+        return "aeiou".indexOf(c) >= 0;
+    }
+
+    private static boolean esNumero(String palabra) {
+        for (int i = 0; i < palabra.length(); i++) {
+            if (!Character.isDigit(palabra.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean tieneDigitos(String palabra) {
+        for (int i = 0; i < palabra.length(); i++) {
+            if (Character.isDigit(palabra.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
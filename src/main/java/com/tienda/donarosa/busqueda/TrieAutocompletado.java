@@ -0,0 +1,409 @@
+package com.tienda.donarosa.busqueda;
+
+import com.tienda.donarosa.dto.SugerenciaDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Árbol de prefijos compacto (radix) de los nombres de productos de una
+ * tienda, para sugerir nombres mientras se escribe.
+ *
+ * Los nombres se guardan normalizados (TextoBusqueda.clave: sin tildes, en
+ * minúsculas). Cada nodo tiene como etiqueta un tramo de texto y los nodos
+ * con un solo hijo se funden, así que hay a lo sumo dos nodos por nombre.
+ * Los nodos viven en arreglos paralelos (como InventarioColumnar) y las
+ * etiquetas son rangos de un único arreglo de caracteres: no hay un objeto
+ * por nodo.
+ *
+ * Las sugerencias salen ordenadas por existencias, las mayores primero. Cada
+ * nodo guarda la mayor cantidad de su subárbol, de modo que la búsqueda de los
+ * K mejores recorre solo las ramas que pueden aportar (primero el mejor).
+ */
+public final class TrieAutocompletado {
+
+    private static final int RAIZ = 0;
+    private static final int NINGUNO = -1;
+    // "mejor" de un nodo sin productos en su subárbol
+    private static final int SIN_PRODUCTOS = Integer.MIN_VALUE;
+    private static final int MINIMO_PARA_RECONSTRUIR = 1 << 16;
+
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+
+    // Nodos
+    private char[] texto;
+    private int textoUsado;
+    private int[] desde;
+    private int[] largo;
+    private int[] padre;
+    private int[] primerHijo;
+    private int[] hermano;
+    private int[] primerProducto;
+    private int[] mejor;
+    private int nodos;
+
+    // Productos
+    private final MapaIds lugares;
+    private long[] ids;
+    private String[] nombres;
+    private int[] cantidades;
+    private int[] nodoDe;
+    private int[] siguiente;
+    private int[] libres;
+    private int totalLibres;
+    private int lugaresUsados;
+    // Caracteres de las claves de los productos vivos, para saber cuánto texto es basura
+    private long textoVivo;
+
+    public TrieAutocompletado(int capacidad) {
+        lugares = new MapaIds(capacidad);
+        iniciar(capacidad);
+    }
+
+    /**
+     * Agrega el producto o actualiza su nombre y existencias
+     */
+    public void agregar(long id, String nombre, int cantidad) {
+        String clave = TextoBusqueda.clave(nombre);
+        candado.writeLock().lock();
+        try {
+            int lugar = lugares.obtener(id);
+            if (lugar >= 0 && nombres[lugar].equals(nombre)) {
+                cantidades[lugar] = cantidad;
+                recalcularHastaRaiz(nodoDe[lugar]);
+                return;
+            }
+            if (lugar >= 0) {
+                quitarLugar(lugar);
+            }
+            insertar(id, nombre, clave, cantidad);
+            if (textoUsado > MINIMO_PARA_RECONSTRUIR && textoUsado > 2 * textoVivo) {
+                reconstruir();
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita el producto
+     */
+    public void quitar(long id) {
+        candado.writeLock().lock();
+        try {
+            int lugar = lugares.obtener(id);
+            if (lugar >= 0) {
+                quitarLugar(lugar);
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Productos
+     */
+    public int tamano() {
+        candado.readLock().lock();
+        try {
+            return lugaresUsados - totalLibres;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Los "limite" productos con más existencias cuyo nombre empieza por el prefijo
+     */
+    public List<SugerenciaDTO> sugerir(String prefijo, int limite) {
+        String clave = TextoBusqueda.clave(prefijo);
+        if (clave.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+        candado.readLock().lock();
+        try {
+            int nodo = nodoDelPrefijo(clave);
+            if (nodo == NINGUNO || mejor[nodo] == SIN_PRODUCTOS) {
+                return List.of();
+            }
+            return mejores(nodo, limite);
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    private void iniciar(int capacidad) {
+        int capacidadNodos = Math.max(2 * capacidad, 16);
+        texto = new char[Math.max(16 * capacidad, 256)];
+        textoUsado = 0;
+        desde = new int[capacidadNodos];
+        largo = new int[capacidadNodos];
+        padre = new int[capacidadNodos];
+        primerHijo = new int[capacidadNodos];
+        hermano = new int[capacidadNodos];
+        primerProducto = new int[capacidadNodos];
+        mejor = new int[capacidadNodos];
+        nodos = 0;
+        nuevoNodo(0, 0, NINGUNO);
+
+        int capacidadProductos = Math.max(capacidad, 16);
+        ids = new long[capacidadProductos];
+        nombres = new String[capacidadProductos];
+        cantidades = new int[capacidadProductos];
+        nodoDe = new int[capacidadProductos];
+        siguiente = new int[capacidadProductos];
+        libres = new int[16];
+        totalLibres = 0;
+        lugaresUsados = 0;
+        textoVivo = 0;
+    }
+
+    private void insertar(long id, String nombre, String clave, int cantidad) {
+        int nodo = RAIZ;
+        int i = 0;
+        while (i < clave.length()) {
+            int hijo = hijoQueEmpiezaCon(nodo, clave.charAt(i));
+            if (hijo == NINGUNO) {
+                int inicio = agregarTexto(clave, i);
+                hijo = nuevoNodo(inicio, clave.length() - i, nodo);
+                hermano[hijo] = primerHijo[nodo];
+                primerHijo[nodo] = hijo;
+                nodo = hijo;
+                break;
+            }
+            int comun = prefijoComun(hijo, clave, i);
+            if (comun < largo[hijo]) {
+                dividir(hijo, comun);
+            }
+            i += comun;
+            nodo = hijo;
+        }
+
+        int lugar = nuevoLugar();
+        ids[lugar] = id;
+        nombres[lugar] = nombre;
+        cantidades[lugar] = cantidad;
+        nodoDe[lugar] = nodo;
+        siguiente[lugar] = primerProducto[nodo];
+        primerProducto[nodo] = lugar;
+        lugares.poner(id, lugar);
+        textoVivo += clave.length();
+
+        for (int n = nodo; n != NINGUNO && mejor[n] < cantidad; n = padre[n]) {
+            mejor[n] = cantidad;
+        }
+    }
+
+    private void quitarLugar(int lugar) {
+        int nodo = nodoDe[lugar];
+        if (primerProducto[nodo] == lugar) {
+            primerProducto[nodo] = siguiente[lugar];
+        } else {
+            int anterior = primerProducto[nodo];
+            while (siguiente[anterior] != lugar) {
+                anterior = siguiente[anterior];
+            }
+            siguiente[anterior] = siguiente[lugar];
+        }
+        lugares.quitar(ids[lugar]);
+        textoVivo -= TextoBusqueda.clave(nombres[lugar]).length();
+        nombres[lugar] = null;
+        if (totalLibres == libres.length) {
+            libres = Arrays.copyOf(libres, totalLibres * 2);
+        }
+        libres[totalLibres++] = lugar;
+        recalcularHastaRaiz(nodo);
+    }
+
+    /**
+     * Recalcula la mayor cantidad del subárbol desde el nodo hasta la raíz,
+     * deteniéndose cuando un nodo no cambia
+     */
+    private void recalcularHastaRaiz(int nodo) {
+        for (int n = nodo; n != NINGUNO; n = padre[n]) {
+            int valor = SIN_PRODUCTOS;
+            for (int p = primerProducto[n]; p != NINGUNO; p = siguiente[p]) {
+                valor = Math.max(valor, cantidades[p]);
+            }
+            for (int h = primerHijo[n]; h != NINGUNO; h = hermano[h]) {
+                valor = Math.max(valor, mejor[h]);
+            }
+            if (valor == mejor[n] && n != nodo) {
+                return;
+            }
+            mejor[n] = valor;
+        }
+    }
+
+    /**
+     * Nodo cuyo subárbol contiene exactamente los nombres que empiezan por la clave
+     */
+    private int nodoDelPrefijo(String clave) {
+        int nodo = RAIZ;
+        int i = 0;
+        while (i < clave.length()) {
+            int hijo = hijoQueEmpiezaCon(nodo, clave.charAt(i));
+            if (hijo == NINGUNO) {
+                return NINGUNO;
+            }
+            int comun = prefijoComun(hijo, clave, i);
+            if (comun < largo[hijo] && i + comun < clave.length()) {
+                return NINGUNO;
+            }
+            i += comun;
+            nodo = hijo;
+        }
+        return nodo;
+    }
+
+    /**
+     * Recorre primero lo mejor: en la cola hay nodos (por la mayor cantidad de su
+     * subárbol) y productos (por su cantidad); un producto que sale de la cola no
+     * puede ser superado por nada de lo que queda.
+     */
+    private List<SugerenciaDTO> mejores(int nodo, int limite) {
+        PriorityQueue<Long> cola = new PriorityQueue<>(Collections.reverseOrder());
+        cola.add(entrada(mejor[nodo], false, nodo));
+        List<SugerenciaDTO> resultado = new ArrayList<>(limite);
+        while (!cola.isEmpty() && resultado.size() < limite) {
+            long siguienteEntrada = cola.poll();
+            int indice = (int) (siguienteEntrada & 0x7FFF_FFFFL);
+            if ((siguienteEntrada & 0x8000_0000L) != 0) {
+                resultado.add(new SugerenciaDTO(ids[indice], nombres[indice], cantidades[indice]));
+                continue;
+            }
+            for (int p = primerProducto[indice]; p != NINGUNO; p = siguiente[p]) {
+                cola.add(entrada(cantidades[p], true, p));
+            }
+            for (int h = primerHijo[indice]; h != NINGUNO; h = hermano[h]) {
+                if (mejor[h] != SIN_PRODUCTOS) {
+                    cola.add(entrada(mejor[h], false, h));
+                }
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Cantidad en los 32 bits altos (con signo, para ordenar), tipo e índice en los bajos.
+     * A igual cantidad los productos salen antes que los nodos.
+     */
+    private static long entrada(int cantidad, boolean esProducto, int indice) {
+        return ((long) cantidad << 32) | (esProducto ? 0x8000_0000L : 0) | indice;
+    }
+
+    private int hijoQueEmpiezaCon(int nodo, char c) {
+        for (int h = primerHijo[nodo]; h != NINGUNO; h = hermano[h]) {
+            if (texto[desde[h]] == c) {
+                return h;
+            }
+        }
+        return NINGUNO;
+    }
+
+    private int prefijoComun(int nodo, String clave, int inicio) {
+        int maximo = Math.min(largo[nodo], clave.length() - inicio);
+        int comun = 0;
+        while (comun < maximo && texto[desde[nodo] + comun] == clave.charAt(inicio + comun)) {
+            comun++;
+        }
+        return comun;
+    }
+
+    /**
+     * Parte la etiqueta del nodo: el nodo se queda con los primeros "comun"
+     * caracteres y un hijo nuevo con el resto, sus hijos y sus productos
+     */
+    private void dividir(int nodo, int comun) {
+        int resto = nuevoNodo(desde[nodo] + comun, largo[nodo] - comun, nodo);
+        primerHijo[resto] = primerHijo[nodo];
+        for (int h = primerHijo[resto]; h != NINGUNO; h = hermano[h]) {
+            padre[h] = resto;
+        }
+        primerProducto[resto] = primerProducto[nodo];
+        for (int p = primerProducto[resto]; p != NINGUNO; p = siguiente[p]) {
+            nodoDe[p] = resto;
+        }
+        mejor[resto] = mejor[nodo];
+
+        largo[nodo] = comun;
+        primerHijo[nodo] = resto;
+        primerProducto[nodo] = NINGUNO;
+    }
+
+    private int nuevoNodo(int inicio, int largoEtiqueta, int padreNodo) {
+        if (nodos == desde.length) {
+            int nuevo = desde.length + (desde.length >> 1);
+            desde = Arrays.copyOf(desde, nuevo);
+            largo = Arrays.copyOf(largo, nuevo);
+            padre = Arrays.copyOf(padre, nuevo);
+            primerHijo = Arrays.copyOf(primerHijo, nuevo);
+            hermano = Arrays.copyOf(hermano, nuevo);
+            primerProducto = Arrays.copyOf(primerProducto, nuevo);
+            mejor = Arrays.copyOf(mejor, nuevo);
+        }
+        int nodo = nodos++;
+        desde[nodo] = inicio;
+        largo[nodo] = largoEtiqueta;
+        padre[nodo] = padreNodo;
+        primerHijo[nodo] = NINGUNO;
+        hermano[nodo] = NINGUNO;
+        primerProducto[nodo] = NINGUNO;
+        mejor[nodo] = SIN_PRODUCTOS;
+        return nodo;
+    }
+
+    private int agregarTexto(String clave, int inicio) {
+        int cantidad = clave.length() - inicio;
+        if (textoUsado + cantidad > texto.length) {
+            texto = Arrays.copyOf(texto, Math.max(texto.length + (texto.length >> 1), textoUsado + cantidad));
+        }
+        clave.getChars(inicio, clave.length(), texto, textoUsado);
+        int posicion = textoUsado;
+        textoUsado += cantidad;
+        return posicion;
+    }
+
+    private int nuevoLugar() {
+        if (totalLibres > 0) {
+            return libres[--totalLibres];
+        }
+        if (lugaresUsados == ids.length) {
+            int nuevo = ids.length + (ids.length >> 1);
+            ids = Arrays.copyOf(ids, nuevo);
+            nombres = Arrays.copyOf(nombres, nuevo);
+            cantidades = Arrays.copyOf(cantidades, nuevo);
+            nodoDe = Arrays.copyOf(nodoDe, nuevo);
+            siguiente = Arrays.copyOf(siguiente, nuevo);
+        }
+        return lugaresUsados++;
+    }
+
+    /**
+     * Vuelve a armar el árbol con los productos vivos, descartando nodos y texto
+     * de nombres que ya no existen
+     */
+    private void reconstruir() {
+        int total = lugaresUsados - totalLibres;
+        long[] idsVivos = new long[total];
+        String[] nombresVivos = new String[total];
+        int[] cantidadesVivas = new int[total];
+        int n = 0;
+        for (int lugar = 0; lugar < lugaresUsados; lugar++) {
+            if (nombres[lugar] != null) {
+                idsVivos[n] = ids[lugar];
+                nombresVivos[n] = nombres[lugar];
+                cantidadesVivas[n++] = cantidades[lugar];
+            }
+        }
+        lugares.limpiar();
+        iniciar(total);
+        for (int i = 0; i < total; i++) {
+            insertar(idsVivos[i], nombresVivos[i], TextoBusqueda.clave(nombresVivos[i]), cantidadesVivas[i]);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.tienda.donarosa.config;
+
+import com.tienda.donarosa.admision.AdmisionFilter;
+import com.tienda.donarosa.admision.ControlAdmision;
+import com.tienda.donarosa.admision.LimiteAdaptativo;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Control de admisión (ver AdmisionFilter): un límite adaptativo para las
+ * lecturas y otro para las escrituras, configurables con
+ * tienda.admision.{lecturas,escrituras}.{inicial,minimo,maximo}.
+ *
+ * Si tienda.admision.peticiones{resultado=rechazadas} crece mientras la latencia
+ * (tienda.admision.latencia) se mantiene baja, el máximo es demasiado chico.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tienda.admision.habilitada", havingValue = "true", matchIfMissing = true)
+public class AdmisionConfig {
+
+    @Bean
+    public ControlAdmision controlAdmision(
+            @Value("${tienda.admision.lecturas.inicial:50}") int lecturasInicial,
+            @Value("${tienda.admision.lecturas.minimo:5}") int lecturasMinimo,
+            @Value("${tienda.admision.lecturas.maximo:200}") int lecturasMaximo,
+            @Value("${tienda.admision.escrituras.inicial:10}") int escriturasInicial,
+            @Value("${tienda.admision.escrituras.minimo:2}") int escriturasMinimo,
+            @Value("${tienda.admision.escrituras.maximo:50}") int escriturasMaximo,
+            @Value("${tienda.admision.tolerancia:2.0}") double tolerancia) {
+        return new ControlAdmision(
+                new LimiteAdaptativo(lecturasInicial, lecturasMinimo, lecturasMaximo, tolerancia),
+                new LimiteAdaptativo(escriturasInicial, escriturasMinimo, escriturasMaximo, tolerancia));
+    }
+
+    /**
+     * Después de Spring Security: se mide y se limita el trabajo de las
+     * peticiones autenticadas, no las redirecciones al login
+     */
+    @Bean
+    public FilterRegistrationBean<AdmisionFilter> admisionFilter(ControlAdmision controlAdmision,
+                                                                 @Value("${tienda.admision.reintentar-en:1s}") Duration reintentarEn) {
+        FilterRegistrationBean<AdmisionFilter> registro =
+                new FilterRegistrationBean<>(new AdmisionFilter(controlAdmision, Math.max(1, reintentarEn.toSeconds())));
+        registro.setName("admisionFilter");
+        registro.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return registro;
+    }
+
+    @Bean
+    public MeterBinder admisionMetricas(ControlAdmision controlAdmision) {
+        return registry -> controlAdmision.limites().forEach((clase, limite) -> {
+            String nombre = clase.name().toLowerCase();
+            Gauge.builder("tienda.admision.limite", limite, LimiteAdaptativo::getLimite)
+                    .tag("clase", nombre)
+                    .description("Peticiones simultáneas admitidas")
+                    .register(registry);
+            Gauge.builder("tienda.admision.en-curso", limite, LimiteAdaptativo::getEnCurso)
+                    .tag("clase", nombre)
+                    .description("Peticiones atendiéndose")
+                    .register(registry);
+            Gauge.builder("tienda.admision.latencia", limite, LimiteAdaptativo::getLatenciaMs)
+                    .tag("clase", nombre)
+                    .baseUnit("milliseconds")
+                    .description("Latencia reciente de las peticiones admitidas")
+                    .register(registry);
+            contador(registry, limite, nombre, "aceptadas", LimiteAdaptativo::getAceptadas);
+            contador(registry, limite, nombre, "rechazadas", LimiteAdaptativo::getRechazadas);
+        });
+    }
+
+    private static void contador(MeterRegistry registry, LimiteAdaptativo limite, String clase,
+                                 String resultado, ToDoubleFunction<LimiteAdaptativo> valor) {
+        FunctionCounter.builder("tienda.admision.peticiones", limite, valor)
+                .tag("clase", clase)
+                .tag("resultado", resultado)
+                .description("Peticiones por resultado del control de admisión")
+                .register(registry);
+    }
+}
@@ -0,0 +1,22 @@
+package com.tienda.donarosa.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+@Configuration
+public class ApiConfig {
+
+    /**
+     * Agrega ETag a las respuestas de la API para que los clientes puedan
+     * revalidar su caché con If-None-Match y recibir 304 Not Modified
+     */
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> etagApiFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registro = new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registro.addUrlPatterns("/api/*");
+        registro.setName("etagApiFilter");
+        return registro;
+    }
+}
@@ -0,0 +1,45 @@
+package com.tienda.donarosa.config;
+
+import com.tienda.donarosa.auditoria.AuditoriaService;
+import com.tienda.donarosa.auditoria.BufferAuditoria;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Métricas de la auditoría asíncrona. Si tienda.auditoria.eventos{resultado=descartados}
+ * crece, el buffer es chico o la base de datos no da abasto.
+ */
+@Configuration
+public class AuditoriaConfig {
+
+    @Bean
+    public MeterBinder auditoriaMetricas(AuditoriaService auditoriaService) {
+        BufferAuditoria buffer = auditoriaService.getBuffer();
+        return registry -> {
+            contador(registry, auditoriaService, "publicados", s -> s.getBuffer().getPublicados());
+            contador(registry, auditoriaService, "descartados", s -> s.getBuffer().getDescartados());
+            contador(registry, auditoriaService, "escritos", AuditoriaService::getEscritos);
+            contador(registry, auditoriaService, "fallidos", AuditoriaService::getFallidos);
+            Gauge.builder("tienda.auditoria.pendientes", buffer, BufferAuditoria::getPendientes)
+                    .description("Eventos en el buffer esperando ser escritos")
+                    .register(registry);
+            Gauge.builder("tienda.auditoria.capacidad", buffer, BufferAuditoria::getCapacidad)
+                    .description("Capacidad del buffer de auditoría")
+                    .register(registry);
+        };
+    }
+
+    private static void contador(MeterRegistry registry, AuditoriaService servicio,
+                                 String resultado, ToDoubleFunction<AuditoriaService> valor) {
+        FunctionCounter.builder("tienda.auditoria.eventos", servicio, valor)
+                .tag("resultado", resultado)
+                .description("Eventos de auditoría por resultado")
+                .register(registry);
+    }
+}
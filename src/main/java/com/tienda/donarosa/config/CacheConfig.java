@@ -0,0 +1,110 @@
+package com.tienda.donarosa.config;
+
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.repository.ProductoRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Caché de segundo nivel de Hibernate (entidad Producto) y caché de consultas
+ * para los reportes de ProductoRepository.
+ *
+ * Todas las escrituras pasan por Hibernate, que actualiza la región de la entidad
+ * y marca la tabla en "default-update-timestamps-region"; con eso se descartan los
+ * resultados de consultas que leyeron la tabla antes del cambio. Los UPDATE/DELETE
+ * JPQL también invalidan la región completa. Las consultas nativas que modifiquen
+ * productos deben declarar su tabla con addSynchronizedEntityClass.
+ */
+@Configuration
+public class CacheConfig {
+
+    private static final String REGION_TIMESTAMPS = "default-update-timestamps-region";
+    private static final String REGION_CONSULTAS = "default-query-results-region";
+
+    /**
+     * Un CacheManager propio por contexto de Spring (URI única) para que las
+     * regiones no se compartan entre contextos de la misma JVM
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${tienda.cache.productos.max:50000}") long maxProductos,
+                                              @Value("${tienda.cache.reportes.ttl:10m}") Duration ttlReportes) {
+        EhcacheCachingProvider proveedor = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        CacheManager cacheManager = proveedor.getCacheManager(URI.create("urn:tienda-dona-rosa:" + UUID.randomUUID()),
+                ConfigurationBuilder.newConfigurationBuilder().build());
+
+        crearRegion(cacheManager, Producto.class.getName(), maxProductos, null);
+        crearRegion(cacheManager, ProductoRepository.REGION_REPORTES, 200, ttlReportes);
+        crearRegion(cacheManager, REGION_CONSULTAS, 1_000, ttlReportes);
+        // Nunca debe expirar antes que los resultados que protege
+        crearRegion(cacheManager, REGION_TIMESTAMPS, 1_000, null);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer cacheSegundoNivelCustomizer(CacheManager hibernateCacheManager) {
+        return propiedades -> {
+            propiedades.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            propiedades.put(AvailableSettings.USE_QUERY_CACHE, true);
+            propiedades.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            propiedades.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            propiedades.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            propiedades.put(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+
+    /**
+     * Proporción de aciertos del caché de entidades y del caché de consultas.
+     * Los contadores por región los publica hibernate-micrometer.
+     */
+    @Bean
+    public MeterBinder cacheHibernateMetricas(EntityManagerFactory entityManagerFactory) {
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return registry -> {
+            Gauge.builder("tienda.cache.hit.ratio", estadisticas,
+                            s -> proporcion(s.getSecondLevelCacheHitCount(), s.getSecondLevelCacheMissCount()))
+                    .tag("nivel", "entidades")
+                    .description("Proporción de aciertos del caché de segundo nivel")
+                    .register(registry);
+            Gauge.builder("tienda.cache.hit.ratio", estadisticas,
+                            s -> proporcion(s.getQueryCacheHitCount(), s.getQueryCacheMissCount()))
+                    .tag("nivel", "consultas")
+                    .description("Proporción de aciertos del caché de consultas")
+                    .register(registry);
+        };
+    }
+
+    private static void crearRegion(CacheManager cacheManager, String nombre, long maxEntradas, Duration ttl) {
+        CacheConfigurationBuilder<Object, Object> configuracion = CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntradas));
+        if (ttl != null) {
+            configuracion = configuracion.withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(ttl));
+        }
+        cacheManager.createCache(nombre, Eh107Configuration.fromEhcacheCacheConfiguration(configuracion));
+    }
+
+    private static double proporcion(long aciertos, long fallos) {
+        long total = aciertos + fallos;
+        return total == 0 ? 0.0 : (double) aciertos / total;
+    }
+}
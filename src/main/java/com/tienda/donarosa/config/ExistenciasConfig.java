@@ -0,0 +1,35 @@
+package com.tienda.donarosa.config;
+
+import com.tienda.donarosa.existencias.EscrituraDiferidaService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Métricas de la escritura diferida de existencias. La relación entre
+ * tienda.existencias.operaciones y tienda.existencias.filas indica cuántas
+ * operaciones se agrupan en cada escritura de un producto.
+ */
+@Configuration
+public class ExistenciasConfig {
+
+    @Bean
+    public MeterBinder existenciasMetricas(EscrituraDiferidaService escrituraDiferida) {
+        return registry -> {
+            FunctionCounter.builder("tienda.existencias.operaciones", escrituraDiferida, EscrituraDiferidaService::getOperaciones)
+                    .description("Ventas y cambios de cantidad confirmados")
+                    .register(registry);
+            FunctionCounter.builder("tienda.existencias.lotes", escrituraDiferida, EscrituraDiferidaService::getLotes)
+                    .description("Lotes aplicados en la base de datos")
+                    .register(registry);
+            FunctionCounter.builder("tienda.existencias.filas", escrituraDiferida, EscrituraDiferidaService::getFilasEscritas)
+                    .description("Productos actualizados en la base de datos")
+                    .register(registry);
+            Gauge.builder("tienda.existencias.pendientes", escrituraDiferida, EscrituraDiferidaService::getPendientes)
+                    .description("Productos con cambios confirmados aún sin aplicar")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package com.tienda.donarosa.config;
+
+import com.tienda.donarosa.kiosco.AvisosKiosco;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Métricas de las esperas de los kioscos: tienda.kiosco.esperando son las
+ * conexiones abiertas sin hilo asignado
+ */
+@Configuration
+public class KioscoConfig {
+
+    @Bean
+    public MeterBinder kioscoMetricas(AvisosKiosco avisosKiosco) {
+        return registry -> {
+            Gauge.builder("tienda.kiosco.esperando", avisosKiosco, AvisosKiosco::getEsperando)
+                    .description("Kioscos esperando un cambio en el inventario")
+                    .register(registry);
+            contador(registry, avisosKiosco, "avisadas", AvisosKiosco::getAvisadas);
+            contador(registry, avisosKiosco, "vencidas", AvisosKiosco::getVencidas);
+            contador(registry, avisosKiosco, "rechazadas", AvisosKiosco::getRechazadas);
+        };
+    }
+
+    private static void contador(MeterRegistry registry, AvisosKiosco avisos,
+                                 String resultado, ToDoubleFunction<AvisosKiosco> valor) {
+        FunctionCounter.builder("tienda.kiosco.esperas", avisos, valor)
+                .tag("resultado", resultado)
+                .description("Esperas de kioscos terminadas por resultado")
+                .register(registry);
+    }
+}
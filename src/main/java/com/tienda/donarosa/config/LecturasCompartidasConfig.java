@@ -0,0 +1,35 @@
+package com.tienda.donarosa.config;
+
+import com.tienda.donarosa.service.LecturasCompartidas;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Métricas de las lecturas compartidas del panel. Las llamadas con resultado
+ * "compartidas" o "recientes" son las que no llegaron a la base de datos.
+ */
+@Configuration
+public class LecturasCompartidasConfig {
+
+    @Bean
+    public MeterBinder lecturasCompartidasMetricas(LecturasCompartidas lecturasCompartidas) {
+        return registry -> {
+            contador(registry, lecturasCompartidas, "ejecutadas", LecturasCompartidas::getEjecutadas);
+            contador(registry, lecturasCompartidas, "compartidas", LecturasCompartidas::getCompartidas);
+            contador(registry, lecturasCompartidas, "recientes", LecturasCompartidas::getRecientes);
+        };
+    }
+
+    private static void contador(MeterRegistry registry, LecturasCompartidas lecturas,
+                                 String resultado, ToDoubleFunction<LecturasCompartidas> valor) {
+        FunctionCounter.builder("tienda.lecturas.llamadas", lecturas, valor)
+                .tag("resultado", resultado)
+                .description("Llamadas a lecturas compartidas por resultado")
+                .register(registry);
+    }
+}
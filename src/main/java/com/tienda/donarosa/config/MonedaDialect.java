@@ -0,0 +1,74 @@
+package com.tienda.donarosa.config;
+
+import org.springframework.stereotype.Component;
+import org.thymeleaf.context.IExpressionContext;
+import org.thymeleaf.dialect.AbstractDialect;
+import org.thymeleaf.dialect.IExpressionObjectDialect;
+import org.thymeleaf.expression.IExpressionObjectFactory;
+
+import java.util.Set;
+
+/**
+ * Objeto #moneda para las plantillas: formatea montos en centavos (long) como
+ * pesos sin decimales ("$1,234"), igual que
+ * #numbers.formatDecimal(valor, 0, 'COMMA', 0, 'POINT') pero sin crear un
+ * DecimalFormat ni un BigDecimal por cada celda de las tablas.
+ */
+@Component
+public class MonedaDialect extends AbstractDialect implements IExpressionObjectDialect {
+
+    private static final String NOMBRE = "moneda";
+    private static final Formato FORMATO = new Formato();
+
+    public MonedaDialect() {
+        super("Moneda");
+    }
+
+    @Override
+    public IExpressionObjectFactory getExpressionObjectFactory() {
+        return new IExpressionObjectFactory() {
+            @Override
+            public Set<String> getAllExpressionObjectNames() {
+                return Set.of(NOMBRE);
+            }
+
+            @Override
+            public Object buildObject(IExpressionContext context, String expressionObjectName) {
+                return FORMATO;
+            }
+
+            @Override
+            public boolean isCacheable(String expressionObjectName) {
+                return true;
+            }
+        };
+    }
+
+    public static final class Formato {
+
+        /**
+         * Pesos enteros con separador de miles; redondea los centavos al par más cercano
+         */
+        public String pesos(long centavos) {
+            boolean negativo = centavos < 0;
+            long absoluto = Math.abs(centavos);
+            long pesos = absoluto / 100;
+            long resto = absoluto % 100;
+            if (resto > 50 || (resto == 50 && pesos % 2 == 1)) {
+                pesos++;
+            }
+
+            String digitos = Long.toString(pesos);
+            StringBuilder texto = new StringBuilder(digitos.length() + digitos.length() / 3 + 1);
+            if (negativo && pesos > 0) {
+                texto.append('-');
+            }
+            int primerGrupo = digitos.length() % 3 == 0 ? 3 : digitos.length() % 3;
+            texto.append(digitos, 0, primerGrupo);
+            for (int i = primerGrupo; i < digitos.length(); i += 3) {
+                texto.append(',').append(digitos, i, i + 3);
+            }
+            return texto.toString();
+        }
+    }
+}
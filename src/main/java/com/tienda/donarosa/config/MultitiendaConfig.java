@@ -0,0 +1,54 @@
+package com.tienda.donarosa.config;
+
+import com.tienda.donarosa.multitienda.EsquemaMultitiendaInicializador;
+import com.tienda.donarosa.multitienda.MultitiendaProperties;
+import com.tienda.donarosa.multitienda.TiendaRoutingDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Inventario por tienda (sucursal).
+ *
+ * Todas las tiendas comparten la tabla productos, separadas por tienda_id
+ * (Hibernate filtra por la tienda actual, ver TiendaIdentifierResolver).
+ * Las tiendas grandes pueden tener su propio esquema con
+ * tienda.multitienda.esquemas.<tienda>=<ESQUEMA>.
+ */
+@Configuration
+@EnableConfigurationProperties(MultitiendaProperties.class)
+public class MultitiendaConfig {
+
+    /**
+     * Envuelve el DataSource con el enrutamiento por esquema solo si hay
+     * tiendas con esquema propio configuradas
+     */
+    @Bean
+    public static BeanPostProcessor enrutamientoPorTiendaPostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof TiendaRoutingDataSource)) {
+                    MultitiendaProperties propiedades = Binder.get(environment)
+                            .bindOrCreate("tienda.multitienda", MultitiendaProperties.class);
+                    if (!propiedades.esquemas().isEmpty()) {
+                        return new TiendaRoutingDataSource(dataSource, propiedades.esquemas());
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public EsquemaMultitiendaInicializador esquemaMultitiendaInicializador(JdbcTemplate jdbcTemplate,
+                                                                          MultitiendaProperties propiedades) {
+        return new EsquemaMultitiendaInicializador(jdbcTemplate, propiedades.esquemas());
+    }
+}
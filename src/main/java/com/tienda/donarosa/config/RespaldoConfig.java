@@ -0,0 +1,45 @@
+package com.tienda.donarosa.config;
+
+import com.tienda.donarosa.respaldo.RespaldoService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métricas de los respaldos. tienda.respaldo.antiguedad mayor que el intervalo de
+ * tienda.respaldo.incremental.cron indica que los respaldos están fallando.
+ */
+@Configuration
+public class RespaldoConfig {
+
+    @Bean
+    public MeterBinder respaldoMetricas(RespaldoService respaldoService) {
+        return registry -> {
+            for (String tipo : List.of(RespaldoService.COMPLETO, RespaldoService.INCREMENTAL)) {
+                FunctionTimer.builder("tienda.respaldo.duracion", respaldoService,
+                                servicio -> servicio.getRealizados(tipo),
+                                servicio -> servicio.getSegundosTotales(tipo), TimeUnit.SECONDS)
+                        .tag("tipo", tipo)
+                        .description("Duración de los respaldos terminados, por tipo")
+                        .register(registry);
+            }
+            FunctionCounter.builder("tienda.respaldo.fallidos", respaldoService, RespaldoService::getFallidos)
+                    .description("Respaldos que no se pudieron hacer o verificar")
+                    .register(registry);
+            Gauge.builder("tienda.respaldo.bytes", respaldoService, RespaldoService::getBytesUltimo)
+                    .description("Tamaño del último respaldo")
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("tienda.respaldo.antiguedad", respaldoService, RespaldoService::getSegundosDesdeUltimo)
+                    .description("Segundos desde el último respaldo terminado (-1 si no hubo desde el arranque)")
+                    .baseUnit("seconds")
+                    .register(registry);
+        };
+    }
+}
@@ -1,8 +1,11 @@
 
 package com.tienda.donarosa.config;
 
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.core.userdetails.User;
@@ -13,15 +16,26 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 
+import java.util.List;
+
+/**
+ * Usuarios y permisos. Los usuarios salen de la configuración (SeguridadProperties):
+ * cada uno trabaja con una sola tienda, y solo el rol ADMIN entra a las páginas de
+ * administración, que ven o tocan la base de datos de todas las tiendas.
+ */
 @Configuration
 @EnableWebSecurity
+@EnableConfigurationProperties(SeguridadProperties.class)
 public class SecurityConfig {
 
+    public static final String ROL_ADMIN = "ADMIN";
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
                 .authorizeHttpRequests(authz -> authz
-                        .requestMatchers("/css/**", "/js/**", "/images/**", "/webjars/**", "/h2-console/**", "/login", "/error").permitAll()
+                        .requestMatchers("/css/**", "/js/**", "/images/**", "/webjars/**", "/login", "/error").permitAll()
+                        .requestMatchers("/admin/**", "/api/v1/admin/**", "/api/v1/respaldos/**", "/h2-console/**").hasRole(ROL_ADMIN)
                         .anyRequest().authenticated()
                 )
                 .formLogin(form -> form
@@ -33,6 +47,7 @@ public class SecurityConfig {
                         .passwordParameter("password")
                         .permitAll()
                 )
+                .httpBasic(Customizer.withDefaults()) // Autenticación para los clientes de la API REST
                 .logout(logout -> logout
                         .logoutUrl("/logout")
                         .logoutSuccessUrl("/login?logout=true")
@@ -52,14 +67,28 @@ public class SecurityConfig {
     }
 
     @Bean
-    public UserDetailsService userDetailsService() {
-        UserDetails user = User.builder()
-                .username("dona_rosa")
-                .password(passwordEncoder().encode("tienda123"))
-                .roles("ADMIN")
-                .build();
+    public UserDetailsService userDetailsService(SeguridadProperties seguridad) {
+        if (seguridad.usuarios().isEmpty()) {
+            throw new IllegalStateException("No hay usuarios configurados en tienda.seguridad.usuarios");
+        }
+        List<UserDetails> usuarios = seguridad.usuarios().entrySet().stream()
+                .map(usuario -> usuario(usuario.getKey(), usuario.getValue()))
+                .toList();
+        return new InMemoryUserDetailsManager(usuarios);
+    }
 
-        return new InMemoryUserDetailsManager(user);
+    /**
+     * Cada usuario trabaja sobre el inventario de una sola tienda (sucursal)
+     */
+    private static UserDetails usuario(String nombre, SeguridadProperties.Usuario usuario) {
+        if (usuario.clave() == null || usuario.tienda() == null || usuario.rol() == null) {
+            throw new IllegalStateException("Al usuario " + nombre + " le falta la clave, la tienda o el rol");
+        }
+        return User.builder()
+                .username(nombre)
+                .password(usuario.clave())
+                .authorities("ROLE_" + usuario.rol().name(), TiendaContexto.autoridad(usuario.tienda()))
+                .build();
     }
 
     @Bean
@@ -0,0 +1,29 @@
+package com.tienda.donarosa.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+/**
+ * Usuarios de la aplicación.
+ *
+ * tienda.seguridad.usuarios.<usuario>.clave: contraseña en BCrypt
+ * tienda.seguridad.usuarios.<usuario>.tienda: tienda (sucursal) con la que trabaja
+ * tienda.seguridad.usuarios.<usuario>.rol: ADMIN o ENCARGADO
+ */
+@ConfigurationProperties(prefix = "tienda.seguridad")
+public record SeguridadProperties(Map<String, Usuario> usuarios) {
+
+    public SeguridadProperties {
+        usuarios = usuarios == null ? Map.of() : Map.copyOf(usuarios);
+    }
+
+    public record Usuario(String clave, String tienda, Rol rol) {}
+
+    public enum Rol {
+        // Administra la aplicación completa, todas las tiendas incluidas (SQL, trazas, respaldos)
+        ADMIN,
+        // Trabaja solo con el inventario de su tienda
+        ENCARGADO
+    }
+}
@@ -0,0 +1,45 @@
+package com.tienda.donarosa.config;
+
+import com.tienda.donarosa.sql.DataSourceMedido;
+import com.tienda.donarosa.sql.EstadisticasSql;
+import com.tienda.donarosa.sql.ObservadorSql;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Medición de las sentencias SQL en el DataSource (en lugar de spring.jpa.show-sql):
+ * estadísticas por consulta y planes de H2 de las lentas en /admin/sql.
+ */
+@Configuration
+public class SqlConfig {
+
+    /**
+     * Mide las sentencias de todas las conexiones del DataSource
+     */
+    @Bean
+    public static BeanPostProcessor medicionSqlPostProcessor(ObjectProvider<ObservadorSql> observadores) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof DataSourceMedido)) {
+                    return new DataSourceMedido(dataSource, observadores);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public EstadisticasSql estadisticasSql(DataSource dataSource,
+                                           @Value("${tienda.sql.umbral-lento:100ms}") Duration umbralLento,
+                                           @Value("${tienda.sql.intervalo-plan:10m}") Duration intervaloPlan,
+                                           @Value("${tienda.sql.max-consultas:1000}") int maximoConsultas) {
+        return new EstadisticasSql(dataSource, umbralLento, intervaloPlan, maximoConsultas);
+    }
+}
@@ -0,0 +1,15 @@
+package com.tienda.donarosa.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Trabajos programados (paquete tareas). Se pueden apagar con
+ * tienda.tareas.habilitadas=false, por ejemplo en una segunda instancia
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "tienda.tareas.habilitadas", havingValue = "true", matchIfMissing = true)
+public class TareasConfig {
+}
@@ -0,0 +1,45 @@
+package com.tienda.donarosa.config;
+
+import com.tienda.donarosa.trazas.Trazador;
+import com.tienda.donarosa.trazas.TrazasFilter;
+import com.tienda.donarosa.trazas.TrazasInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Trazas de las peticiones por capa (ver Trazador): filtros, controlador,
+ * servicios, SQL (ver SqlConfig) y vista. Consultables en /api/v1/admin/trazas.
+ */
+@Configuration
+public class TrazasConfig implements WebMvcConfigurer {
+
+    @Bean
+    public Trazador trazador(@Value("${tienda.trazas.capacidad:256}") int capacidad,
+                             @Value("${tienda.trazas.muestreo:0.1}") double muestreo,
+                             @Value("${tienda.trazas.umbral-lento:500ms}") Duration umbralLento) {
+        return new Trazador(capacidad, muestreo, umbralLento);
+    }
+
+    /**
+     * Primero que todos los filtros, para medir también la seguridad
+     */
+    @Bean
+    public FilterRegistrationBean<TrazasFilter> trazasFilter(Trazador trazador) {
+        FilterRegistrationBean<TrazasFilter> registro = new FilterRegistrationBean<>(new TrazasFilter(trazador));
+        registro.setName("trazasFilter");
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registro;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new TrazasInterceptor());
+    }
+}
@@ -0,0 +1,36 @@
+package com.tienda.donarosa.controller;
+
+import com.tienda.donarosa.service.ValidacionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
+
+/**
+ * Convierte los errores de la API REST en respuestas "application/problem+json"
+ * con el código de estado correspondiente, en lugar de mensajes de texto.
+ */
+@RestControllerAdvice(annotations = RestController.class)
+public class ApiExceptionHandler extends ResponseEntityExceptionHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(ApiExceptionHandler.class);
+
+    @ExceptionHandler(ValidacionException.class)
+    public ProblemDetail manejarValidacion(ValidacionException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+
+    /**
+     * Un argumento inválido que no es una validación es un error interno: se
+     * registra y el cliente no ve el mensaje
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ProblemDetail manejarArgumentoInvalido(IllegalArgumentException e) {
+        log.error("Argumento inválido inesperado en la API", e);
+        return ProblemDetail.forStatusAndDetail(HttpStatus.INTERNAL_SERVER_ERROR, "Error interno");
+    }
+}
@@ -0,0 +1,38 @@
+package com.tienda.donarosa.controller;
+
+import com.tienda.donarosa.auditoria.AuditoriaService;
+import com.tienda.donarosa.model.RegistroAuditoria;
+import com.tienda.donarosa.service.ValidacionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * API REST de consulta de la auditoría de productos
+ */
+@RestController
+@RequestMapping("/api/v1/auditoria")
+public class AuditoriaApiController {
+
+    static final int LIMITE_MAXIMO = 500;
+
+    private final AuditoriaService auditoriaService;
+
+    @Autowired
+    public AuditoriaApiController(AuditoriaService auditoriaService) {
+        this.auditoriaService = auditoriaService;
+    }
+
+    /**
+     * Últimas entradas de la tienda actual; con productoId, solo las de ese producto
+     */
+    @GetMapping
+    public List<RegistroAuditoria> obtenerRecientes(@RequestParam(required = false) Long productoId,
+                                                    @RequestParam(defaultValue = "50") int limite) {
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new ValidacionException("El límite debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+        return auditoriaService.obtenerRecientes(productoId, limite);
+    }
+}
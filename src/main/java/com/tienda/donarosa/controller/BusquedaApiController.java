@@ -0,0 +1,38 @@
+package com.tienda.donarosa.controller;
+
+import com.tienda.donarosa.busqueda.AutocompletadoService;
+import com.tienda.donarosa.dto.SugerenciaDTO;
+import com.tienda.donarosa.service.ValidacionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * API REST del buscador de productos
+ */
+@RestController
+@RequestMapping("/api/v1/busqueda")
+public class BusquedaApiController {
+
+    static final int LIMITE_MAXIMO = 50;
+
+    private final AutocompletadoService autocompletadoService;
+
+    @Autowired
+    public BusquedaApiController(AutocompletadoService autocompletadoService) {
+        this.autocompletadoService = autocompletadoService;
+    }
+
+    /**
+     * Nombres de productos que empiezan por el prefijo, los de más existencias primero
+     */
+    @GetMapping("/autocompletar")
+    public List<SugerenciaDTO> autocompletar(@RequestParam String prefijo,
+                                             @RequestParam(defaultValue = "10") int limite) {
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new ValidacionException("El límite debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+        return autocompletadoService.sugerir(prefijo, limite);
+    }
+}
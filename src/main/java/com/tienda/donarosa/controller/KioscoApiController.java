@@ -0,0 +1,87 @@
+package com.tienda.donarosa.controller;
+
+import com.tienda.donarosa.busqueda.BusquedaService;
+import com.tienda.donarosa.dto.CambioKioscoDTO;
+import com.tienda.donarosa.dto.PrecioKioscoDTO;
+import com.tienda.donarosa.kiosco.AvisosKiosco;
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import com.tienda.donarosa.service.ProductoService;
+import com.tienda.donarosa.service.ValidacionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * API REST de solo lectura para los kioscos y verificadores de precios.
+ *
+ * Las consultas de precio son cortas; lo que mantiene las conexiones abiertas
+ * es la espera de cambios, que no ocupa un hilo (ver AvisosKiosco).
+ */
+@RestController
+@RequestMapping("/api/v1/kiosco")
+public class KioscoApiController {
+
+    private final ProductoService productoService;
+    private final BusquedaService busquedaService;
+    private final AvisosKiosco avisosKiosco;
+    private final Duration esperaMaxima;
+
+    @Autowired
+    public KioscoApiController(ProductoService productoService, BusquedaService busquedaService,
+                               AvisosKiosco avisosKiosco,
+                               @Value("${tienda.kiosco.espera-maxima:30s}") Duration esperaMaxima) {
+        this.productoService = productoService;
+        this.busquedaService = busquedaService;
+        this.avisosKiosco = avisosKiosco;
+        this.esperaMaxima = esperaMaxima;
+    }
+
+    /**
+     * Precio y existencias de un producto (el código que lee el verificador)
+     */
+    @GetMapping("/productos/{id}")
+    public ResponseEntity<PrecioKioscoDTO> obtener(@PathVariable Long id) {
+        return productoService.obtenerProductoPorId(id)
+                .map(producto -> ResponseEntity.ok(aPrecio(producto)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Productos que coinciden con el texto, los más relevantes primero
+     */
+    @GetMapping("/productos")
+    public List<PrecioKioscoDTO> buscar(@RequestParam String texto) {
+        return busquedaService.buscar(texto).stream()
+                .map(KioscoApiController::aPrecio)
+                .toList();
+    }
+
+    /**
+     * Espera hasta que el inventario de la tienda pase de la versión indicada.
+     * Sin versión responde enseguida con la actual, para empezar.
+     *
+     * @param espera segundos como máximo antes de responder sin cambios
+     */
+    @GetMapping("/cambios")
+    public DeferredResult<ResponseEntity<CambioKioscoDTO>> esperarCambios(@RequestParam(defaultValue = "-1") long version,
+                                                                          @RequestParam(required = false) Long espera) {
+        Duration plazo = espera == null ? esperaMaxima : Duration.ofSeconds(espera);
+        if (plazo.isNegative() || plazo.isZero() || plazo.compareTo(esperaMaxima) > 0) {
+            throw new ValidacionException("La espera debe estar entre 1 y " + esperaMaxima.toSeconds() + " segundos");
+        }
+        return avisosKiosco.esperar(TiendaContexto.actual(), version, plazo);
+    }
+
+    private static PrecioKioscoDTO aPrecio(Producto producto) {
+        String estado = producto.getCantidad() == 0 ? PrecioKioscoDTO.AGOTADO
+                : producto.estaCercaDeAgotarse() ? PrecioKioscoDTO.POR_AGOTARSE : PrecioKioscoDTO.DISPONIBLE;
+        return new PrecioKioscoDTO(producto.getId(), producto.getNombre(), producto.getPrecio(),
+                producto.getCantidad(), estado);
+    }
+}
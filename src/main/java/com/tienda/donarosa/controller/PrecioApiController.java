@@ -0,0 +1,73 @@
+package com.tienda.donarosa.controller;
+
+import com.tienda.donarosa.dto.CambioPreciosDTO;
+import com.tienda.donarosa.dto.PrecioCambiadoDTO;
+import com.tienda.donarosa.dto.ResultadoCambioPreciosDTO;
+import com.tienda.donarosa.model.HistorialPrecio;
+import com.tienda.donarosa.service.HistorialPreciosService;
+import com.tienda.donarosa.service.PrecioMasivoService;
+import com.tienda.donarosa.service.ValidacionException;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * API REST del cambio masivo de precios y de la historia de precios
+ */
+@RestController
+@RequestMapping("/api/v1/productos/precios")
+public class PrecioApiController {
+
+    static final int DETALLE_MAXIMO = 1_000;
+
+    private final PrecioMasivoService precioMasivoService;
+    private final HistorialPreciosService historialPrecios;
+
+    @Autowired
+    public PrecioApiController(PrecioMasivoService precioMasivoService, HistorialPreciosService historialPrecios) {
+        this.precioMasivoService = precioMasivoService;
+        this.historialPrecios = historialPrecios;
+    }
+
+    /**
+     * Vista previa: cuántos productos cambian y una muestra de los precios nuevos
+     */
+    @PostMapping("/simulacion")
+    public ResultadoCambioPreciosDTO simular(@Valid @RequestBody CambioPreciosDTO cambio) {
+        return precioMasivoService.simular(cambio);
+    }
+
+    /**
+     * Aplica el cambio y devuelve el ID del registro
+     */
+    @PostMapping
+    public ResultadoCambioPreciosDTO aplicar(@Valid @RequestBody CambioPreciosDTO cambio) {
+        return precioMasivoService.aplicar(cambio);
+    }
+
+    /**
+     * Precios anterior y nuevo de cada producto de un cambio aplicado
+     */
+    @GetMapping("/{id}")
+    public List<PrecioCambiadoDTO> obtenerDetalle(@PathVariable Long id,
+                                                  @RequestParam(defaultValue = "" + DETALLE_MAXIMO) int limite) {
+        if (limite < 1 || limite > DETALLE_MAXIMO) {
+            throw new ValidacionException("El límite debe estar entre 1 y " + DETALLE_MAXIMO);
+        }
+        return precioMasivoService.obtenerDetalle(id, limite);
+    }
+
+    /**
+     * Intervalos de precio de un producto, el vigente primero
+     */
+    @GetMapping("/historial/{productoId}")
+    public List<HistorialPrecio> obtenerHistorial(@PathVariable Long productoId,
+                                                  @RequestParam(defaultValue = "100") int limite) {
+        if (limite < 1 || limite > DETALLE_MAXIMO) {
+            throw new ValidacionException("El límite debe estar entre 1 y " + DETALLE_MAXIMO);
+        }
+        return historialPrecios.obtenerHistorial(productoId, limite);
+    }
+}
@@ -0,0 +1,82 @@
+package com.tienda.donarosa.controller;
+
+import com.tienda.donarosa.dto.CambioPreciosDTO;
+import com.tienda.donarosa.dto.ResultadoCambioPreciosDTO;
+import com.tienda.donarosa.service.PrecioMasivoService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+/**
+ * Cambio masivo de precios desde la interfaz web
+ */
+@Controller
+@RequestMapping("/productos/precios")
+public class PrecioController {
+
+    private final PrecioMasivoService precioMasivoService;
+
+    @Autowired
+    public PrecioController(PrecioMasivoService precioMasivoService) {
+        this.precioMasivoService = precioMasivoService;
+    }
+
+    /**
+     * Formulario del cambio masivo y cambios recientes
+     */
+    @GetMapping
+    public String mostrarFormulario(Model model) {
+        if (!model.containsAttribute("cambio")) {
+            model.addAttribute("cambio", new CambioPreciosDTO());
+        }
+        model.addAttribute("cambiosRecientes", precioMasivoService.obtenerCambiosRecientes(10));
+        return "productos/precios";
+    }
+
+    /**
+     * Simula o aplica el cambio según el botón presionado
+     */
+    @PostMapping
+    public String procesar(@Valid @ModelAttribute("cambio") CambioPreciosDTO cambio,
+                           BindingResult result,
+                           @RequestParam(defaultValue = "simular") String accion,
+                           Model model,
+                           RedirectAttributes redirectAttributes) {
+        if (result.hasErrors()) {
+            model.addAttribute("cambiosRecientes", precioMasivoService.obtenerCambiosRecientes(10));
+            return "productos/precios";
+        }
+
+        try {
+            if ("aplicar".equals(accion)) {
+                ResultadoCambioPreciosDTO resultado = precioMasivoService.aplicar(cambio);
+                redirectAttributes.addFlashAttribute("mensaje",
+                        "Precios actualizados: " + resultado.getAfectados() + " productos");
+                redirectAttributes.addFlashAttribute("tipoMensaje", "success");
+                return "redirect:/productos/precios";
+            }
+            model.addAttribute("resultado", precioMasivoService.simular(cambio));
+        } catch (Exception e) {
+            model.addAttribute("mensaje", "Error al cambiar los precios: " + e.getMessage());
+            model.addAttribute("tipoMensaje", "danger");
+        }
+        model.addAttribute("cambiosRecientes", precioMasivoService.obtenerCambiosRecientes(10));
+        return "productos/precios";
+    }
+
+    /**
+     * Detalle de un cambio aplicado
+     */
+    @GetMapping("/{id}")
+    public String verCambio(@PathVariable Long id, Model model) {
+        model.addAttribute("cambio", new CambioPreciosDTO());
+        model.addAttribute("detalle", precioMasivoService.obtenerDetalle(id, 500));
+        model.addAttribute("cambioId", id);
+        model.addAttribute("cambiosRecientes", precioMasivoService.obtenerCambiosRecientes(10));
+        return "productos/precios";
+    }
+}
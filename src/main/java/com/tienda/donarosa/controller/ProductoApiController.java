@@ -0,0 +1,160 @@
+package com.tienda.donarosa.controller;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.tienda.donarosa.dto.CantidadDTO;
+import com.tienda.donarosa.dto.LoteDTO;
+import com.tienda.donarosa.dto.PaginaDTO;
+import com.tienda.donarosa.dto.ProductoDTO;
+import com.tienda.donarosa.service.ProductoService;
+import com.tienda.donarosa.service.ValidacionException;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * API REST versionada de productos (JSON) para los clientes POS y móviles
+ */
+@RestController
+@RequestMapping("/api/v1/productos")
+public class ProductoApiController {
+
+    static final int LIMITE_POR_DEFECTO = 50;
+    static final int LIMITE_MAXIMO = 500;
+    static final int LOTE_MAXIMO = 200;
+
+    private final ProductoService productoService;
+
+    @Autowired
+    public ProductoApiController(ProductoService productoService) {
+        this.productoService = productoService;
+    }
+
+    /**
+     * Lista productos ordenados por ID con paginación por cursor
+     */
+    @GetMapping
+    public MappingJacksonValue listar(@RequestParam(required = false) String cursor,
+                                      @RequestParam(defaultValue = "" + LIMITE_POR_DEFECTO) int limite,
+                                      @RequestParam(required = false) String campos) {
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new ValidacionException("El límite debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+        SimpleBeanPropertyFilter filtro = crearFiltro(campos);
+
+        // Se pide uno de más para saber si existe una página siguiente
+        List<ProductoDTO> productos = productoService.obtenerPaginaProductos(decodificarCursor(cursor), limite + 1);
+        String siguiente = null;
+        if (productos.size() > limite) {
+            productos = productos.subList(0, limite);
+            siguiente = codificarCursor(productos.get(limite - 1).getId());
+        }
+
+        return filtrarCampos(new PaginaDTO<>(productos, siguiente), filtro);
+    }
+
+    /**
+     * Obtiene un producto por su ID
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<MappingJacksonValue> obtener(@PathVariable Long id,
+                                                       @RequestParam(required = false) String campos) {
+        SimpleBeanPropertyFilter filtro = crearFiltro(campos);
+        return productoService.obtenerProyeccionProducto(id)
+                .map(producto -> ResponseEntity.ok(filtrarCampos(producto, filtro)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Obtiene varios productos en una sola petición: /api/v1/productos/lote?ids=1,2,3
+     */
+    @GetMapping("/lote")
+    public MappingJacksonValue obtenerLote(@RequestParam List<Long> ids,
+                                           @RequestParam(required = false) String campos) {
+        Set<Long> idsUnicos = new LinkedHashSet<>(ids);
+        if (idsUnicos.size() > LOTE_MAXIMO) {
+            throw new ValidacionException("No se pueden pedir más de " + LOTE_MAXIMO + " productos por lote");
+        }
+        SimpleBeanPropertyFilter filtro = crearFiltro(campos);
+
+        List<ProductoDTO> productos = productoService.obtenerProyeccionesProductos(idsUnicos);
+        List<Long> noEncontrados = new ArrayList<>(idsUnicos);
+        productos.forEach(producto -> noEncontrados.remove(producto.getId()));
+
+        return filtrarCampos(new LoteDTO<>(productos, noEncontrados), filtro);
+    }
+
+    /**
+     * Busca en el archivo de productos agotados hace mucho. Es una vía aparte y
+     * más lenta que el listado: recorre la tabla del archivo
+     */
+    @GetMapping("/archivados")
+    public MappingJacksonValue buscarArchivados(@RequestParam String nombre,
+                                                @RequestParam(defaultValue = "" + LIMITE_POR_DEFECTO) int limite,
+                                                @RequestParam(required = false) String campos) {
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new ValidacionException("El límite debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+        if (nombre.isBlank()) {
+            throw new ValidacionException("El nombre a buscar es obligatorio");
+        }
+        SimpleBeanPropertyFilter filtro = crearFiltro(campos);
+        return filtrarCampos(productoService.buscarProductosArchivados(nombre.trim(), limite), filtro);
+    }
+
+    /**
+     * Actualiza la cantidad de un producto (para ventas)
+     */
+    @PutMapping("/{id}/cantidad")
+    public ResponseEntity<Void> actualizarCantidad(@PathVariable Long id, @Valid @RequestBody CantidadDTO cuerpo) {
+        if (productoService.actualizarCantidadProducto(id, cuerpo.getCantidad())) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Valida el parámetro "campos" antes de consultar y arma el filtro de Jackson
+     */
+    private SimpleBeanPropertyFilter crearFiltro(String campos) {
+        if (campos == null || campos.isBlank()) {
+            return SimpleBeanPropertyFilter.serializeAll();
+        }
+        Set<String> seleccion = new HashSet<>();
+        for (String campo : campos.split(",")) {
+            String nombre = campo.trim();
+            if (!ProductoDTO.CAMPOS.contains(nombre)) {
+                throw new ValidacionException("Campo desconocido: " + nombre);
+            }
+            seleccion.add(nombre);
+        }
+        return SimpleBeanPropertyFilter.filterOutAllExcept(seleccion);
+    }
+
+    private MappingJacksonValue filtrarCampos(Object valor, SimpleBeanPropertyFilter filtro) {
+        MappingJacksonValue respuesta = new MappingJacksonValue(valor);
+        respuesta.setFilters(new SimpleFilterProvider().addFilter(ProductoDTO.FILTRO_CAMPOS, filtro));
+        return respuesta;
+    }
+
+    static String codificarCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Long decodificarCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new ValidacionException("Cursor inválido");
+        }
+    }
+}
@@ -196,16 +196,16 @@ public class ProductoController {
             }
 
             // Crear productos iniciales de la tienda de Doña Rosa
-            productoService.guardarProducto(new Producto("Peras", new BigDecimal("4000.00"), 65));
-            productoService.guardarProducto(new Producto("Limones", new BigDecimal("1500.00"), 25));
-            productoService.guardarProducto(new Producto("Moras", new BigDecimal("2000.00"), 30));
-            productoService.guardarProducto(new Producto("Piñas", new BigDecimal("3000.00"), 15));
-            productoService.guardarProducto(new Producto("Tomates", new BigDecimal("1000.00"), 30));
-            productoService.guardarProducto(new Producto("Fresas", new BigDecimal("3000.00"), 12));
-            productoService.guardarProducto(new Producto("Frunas", new BigDecimal("300.00"), 50));
-            productoService.guardarProducto(new Producto("Galletas", new BigDecimal("500.00"), 400));
-            productoService.guardarProducto(new Producto("Chocolates", new BigDecimal("1200.00"), 500));
-            productoService.guardarProducto(new Producto("Arroz", new BigDecimal("1200.00"), 60));
+            productoService.guardarProducto(new Producto("Peras", "frutas", new BigDecimal("4000.00"), 65));
+            productoService.guardarProducto(new Producto("Limones", "frutas", new BigDecimal("1500.00"), 25));
+            productoService.guardarProducto(new Producto("Moras", "frutas", new BigDecimal("2000.00"), 30));
+            productoService.guardarProducto(new Producto("Piñas", "frutas", new BigDecimal("3000.00"), 15));
+            productoService.guardarProducto(new Producto("Tomates", "frutas", new BigDecimal("1000.00"), 30));
+            productoService.guardarProducto(new Producto("Fresas", "frutas", new BigDecimal("3000.00"), 12));
+            productoService.guardarProducto(new Producto("Frunas", "dulces", new BigDecimal("300.00"), 50));
+            productoService.guardarProducto(new Producto("Galletas", "dulces", new BigDecimal("500.00"), 400));
+            productoService.guardarProducto(new Producto("Chocolates", "dulces", new BigDecimal("1200.00"), 500));
+            productoService.guardarProducto(new Producto("Arroz", "abarrotes", new BigDecimal("1200.00"), 60));
 
             redirectAttributes.addFlashAttribute("mensaje", "¡Inventario inicial cargado exitosamente! Se agregaron 10 productos base de la tienda");
             redirectAttributes.addFlashAttribute("tipoMensaje", "success");
@@ -239,7 +239,22 @@ public class ProductoController {
             return "Error: " + e.getMessage();
         }
     }
-}
-
-
 
+    /**
+     * Registrar la venta de unidades de un producto
+     */
+    @PostMapping("/productos/vender/{id}")
+    @ResponseBody
+    public String registrarVenta(@PathVariable Long id, @RequestParam Integer unidades) {
+        try {
+            boolean vendido = productoService.registrarVenta(id, unidades);
+            if (vendido) {
+                return "Venta registrada exitosamente";
+            } else {
+                return "Producto no encontrado";
+            }
+        } catch (Exception e) {
+            return "Error: " + e.getMessage();
+        }
+    }
+}
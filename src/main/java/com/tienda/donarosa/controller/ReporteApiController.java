@@ -0,0 +1,100 @@
+package com.tienda.donarosa.controller;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.tienda.donarosa.dto.ConciliacionDTO;
+import com.tienda.donarosa.dto.ProductoDTO;
+import com.tienda.donarosa.dto.ResumenInventarioDTO;
+import com.tienda.donarosa.dto.ValoracionDTO;
+import com.tienda.donarosa.model.ResumenCategoria;
+import com.tienda.donarosa.service.ConciliacionService;
+import com.tienda.donarosa.service.HistorialPreciosService;
+import com.tienda.donarosa.service.InventarioColumnarService;
+import com.tienda.donarosa.service.ResumenCategoriasService;
+import com.tienda.donarosa.service.ValidacionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * API REST de los reportes de inventario
+ */
+@RestController
+@RequestMapping("/api/v1/reportes")
+public class ReporteApiController {
+
+    static final int LIMITE_MAXIMO = 1_000;
+
+    private final InventarioColumnarService inventarioColumnarService;
+    private final ResumenCategoriasService resumenCategorias;
+    private final HistorialPreciosService historialPrecios;
+    private final ConciliacionService conciliacionService;
+
+    @Autowired
+    public ReporteApiController(InventarioColumnarService inventarioColumnarService,
+                                ResumenCategoriasService resumenCategorias,
+                                HistorialPreciosService historialPrecios,
+                                ConciliacionService conciliacionService) {
+        this.inventarioColumnarService = inventarioColumnarService;
+        this.resumenCategorias = resumenCategorias;
+        this.historialPrecios = historialPrecios;
+        this.conciliacionService = conciliacionService;
+    }
+
+    /**
+     * Totales del inventario de la tienda actual
+     */
+    @GetMapping("/inventario")
+    public ResumenInventarioDTO obtenerResumen() {
+        return inventarioColumnarService.obtenerResumen();
+    }
+
+    /**
+     * Totales por categoría de la tienda actual, ya agregados
+     */
+    @GetMapping("/categorias")
+    public List<ResumenCategoria> obtenerCategorias() {
+        return resumenCategorias.obtenerResumen();
+    }
+
+    /**
+     * Valor del inventario a una fecha (por ejemplo un cierre de mes), con las
+     * existencias y los precios de entonces; sin fecha, el actual
+     */
+    @GetMapping("/valoracion")
+    public ValoracionDTO valorar(@RequestParam(required = false)
+                                 @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fecha) {
+        return historialPrecios.valorar(fecha != null ? fecha : LocalDateTime.now());
+    }
+
+    /**
+     * Reporte de la última conciliación nocturna de la tienda actual (404 si nunca corrió)
+     */
+    @GetMapping("/conciliacion")
+    public ResponseEntity<ConciliacionDTO> obtenerConciliacion() {
+        return ResponseEntity.of(conciliacionService.obtenerUltima());
+    }
+
+    /**
+     * Productos más urgentes de reponer, en orden
+     */
+    @GetMapping("/agotamiento")
+    public MappingJacksonValue obtenerRankingAgotamiento(@RequestParam(defaultValue = "50") int limite) {
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new ValidacionException("El límite debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+        List<ProductoDTO> productos = inventarioColumnarService.obtenerRankingAgotamiento(limite).stream()
+                .map(p -> new ProductoDTO(p.getId(), p.getNombre(), p.getPrecio(), p.getCantidad(), p.getCantidadInicial()))
+                .toList();
+
+        MappingJacksonValue respuesta = new MappingJacksonValue(productos);
+        respuesta.setFilters(new SimpleFilterProvider()
+                .addFilter(ProductoDTO.FILTRO_CAMPOS, SimpleBeanPropertyFilter.serializeAll()));
+        return respuesta;
+    }
+}
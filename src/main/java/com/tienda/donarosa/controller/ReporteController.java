@@ -1,21 +1,41 @@
 package com.tienda.donarosa.controller;
 
+import com.tienda.donarosa.service.InventarioColumnarService;
 import com.tienda.donarosa.service.ProductoService;
+import com.tienda.donarosa.service.ReporteVentasService;
+import com.tienda.donarosa.service.ResumenCategoriasService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import java.time.LocalDate;
 
 @Controller
 @RequestMapping("/reportes")
 public class ReporteController {
 
     private final ProductoService productoService;
+    private final ReporteVentasService reporteVentasService;
+    private final InventarioColumnarService inventarioColumnarService;
+    private final ResumenCategoriasService resumenCategorias;
+    private final int maximoAgotandose;
 
     @Autowired
-    public ReporteController(ProductoService productoService) {
+    public ReporteController(ProductoService productoService, ReporteVentasService reporteVentasService,
+                             InventarioColumnarService inventarioColumnarService,
+                             ResumenCategoriasService resumenCategorias,
+                             @Value("${tienda.reportes.agotandose.max:200}") int maximoAgotandose) {
         this.productoService = productoService;
+        this.reporteVentasService = reporteVentasService;
+        this.inventarioColumnarService = inventarioColumnarService;
+        this.resumenCategorias = resumenCategorias;
+        this.maximoAgotandose = maximoAgotandose;
     }
 
     /**
@@ -24,20 +44,19 @@ public class ReporteController {
     @GetMapping("/inventario")
     public String reporteInventario(Model model) {
         model.addAttribute("productos", productoService.obtenerTodosLosProductos());
-        model.addAttribute("valorTotal", productoService.calcularValorTotalInventario());
-        model.addAttribute("productosDisponibles", productoService.obtenerProductosDisponibles());
-        model.addAttribute("productosAgotados", productoService.obtenerProductosAgotados());
-        model.addAttribute("productosCercaDeAgotarse", productoService.obtenerProductosCercaDeAgotarse());
+        model.addAttribute("resumen", inventarioColumnarService.obtenerResumen());
+        model.addAttribute("categorias", resumenCategorias.obtenerResumen());
 
         return "reportes/inventario";
     }
 
     /**
-     * Reporte de productos cerca de agotarse
+     * Reporte de productos cerca de agotarse, los más urgentes primero
      */
     @GetMapping("/agotandose")
     public String reporteProductosAgotandose(Model model) {
-        model.addAttribute("productosAgotandose", productoService.obtenerProductosCercaDeAgotarse());
+        model.addAttribute("productosAgotandose", inventarioColumnarService.obtenerRankingAgotamiento(maximoAgotandose));
+        model.addAttribute("resumen", inventarioColumnarService.obtenerResumen());
         return "reportes/agotandose";
     }
 
@@ -50,6 +69,34 @@ public class ReporteController {
         return "reportes/agotados";
     }
 
+    /**
+     * Reporte de ventas: más vendidos de la semana y ventas de los últimos 7 días
+     */
+    @GetMapping("/ventas")
+    public String reporteVentas(Model model) {
+        LocalDate hoy = LocalDate.now();
+        model.addAttribute("masVendidos", reporteVentasService.obtenerMasVendidosSemana(hoy, 10));
+        model.addAttribute("ventasPorDia", reporteVentasService.obtenerVentasPorDia(hoy.minusDays(6), hoy));
+        return "reportes/ventas";
+    }
+
+    /**
+     * Reconstruir los resúmenes de ventas de los últimos días desde los movimientos
+     */
+    @PostMapping("/ventas/reconstruir")
+    public String reconstruirVentas(@RequestParam(defaultValue = "30") int dias, RedirectAttributes redirectAttributes) {
+        try {
+            LocalDate hoy = LocalDate.now();
+            reporteVentasService.reconstruirResumenes(hoy.minusDays(dias), hoy);
+            redirectAttributes.addFlashAttribute("mensaje", "Resúmenes de ventas reconstruidos");
+            redirectAttributes.addFlashAttribute("tipoMensaje", "success");
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("mensaje", "Error al reconstruir las ventas: " + e.getMessage());
+            redirectAttributes.addFlashAttribute("tipoMensaje", "danger");
+        }
+        return "redirect:/reportes/ventas";
+    }
+
     /**
      * Redirect para "reporte completo" desde el index
      */
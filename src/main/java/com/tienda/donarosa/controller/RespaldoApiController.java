@@ -0,0 +1,52 @@
+package com.tienda.donarosa.controller;
+
+import com.tienda.donarosa.dto.RespaldoDTO;
+import com.tienda.donarosa.dto.RestauracionDTO;
+import com.tienda.donarosa.respaldo.RespaldoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * API REST de los respaldos de la base de datos
+ */
+@RestController
+@RequestMapping("/api/v1/respaldos")
+public class RespaldoApiController {
+
+    private final RespaldoService respaldoService;
+
+    @Autowired
+    public RespaldoApiController(RespaldoService respaldoService) {
+        this.respaldoService = respaldoService;
+    }
+
+    /**
+     * Respaldos disponibles, el más reciente primero
+     */
+    @GetMapping
+    public List<RespaldoDTO> listar() {
+        return respaldoService.listar();
+    }
+
+    @PostMapping("/completo")
+    public RespaldoDTO respaldarCompleto() {
+        return respaldoService.respaldarCompleto();
+    }
+
+    @PostMapping("/incremental")
+    public RespaldoDTO respaldarIncremental() {
+        return respaldoService.respaldarIncremental();
+    }
+
+    /**
+     * Restaura el último respaldo en el directorio destino (nuevo o vacío, relativo al
+     * de respaldos) sin tocar la base en uso; sin destino, restaura en un directorio
+     * temporal solo para verificarlo
+     */
+    @PostMapping("/restauracion")
+    public RestauracionDTO restaurar(@RequestParam(required = false) String destino) {
+        return destino == null ? respaldoService.verificar() : respaldoService.restaurar(destino);
+    }
+}
@@ -0,0 +1,38 @@
+package com.tienda.donarosa.controller;
+
+import com.tienda.donarosa.sql.EstadisticasSql;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+/**
+ * Página de administración con las estadísticas de las consultas SQL y los planes de las lentas
+ */
+@Controller
+@RequestMapping("/admin/sql")
+public class SqlAdminController {
+
+    private final EstadisticasSql estadisticasSql;
+
+    @Autowired
+    public SqlAdminController(EstadisticasSql estadisticasSql) {
+        this.estadisticasSql = estadisticasSql;
+    }
+
+    @GetMapping
+    public String verConsultas(Model model) {
+        model.addAttribute("consultas", estadisticasSql.obtenerConsultas());
+        return "admin/sql";
+    }
+
+    @PostMapping("/reiniciar")
+    public String reiniciar(RedirectAttributes redirectAttributes) {
+        estadisticasSql.reiniciar();
+        redirectAttributes.addFlashAttribute("mensaje", "Estadísticas reiniciadas");
+        return "redirect:/admin/sql";
+    }
+}
@@ -0,0 +1,64 @@
+package com.tienda.donarosa.controller;
+
+import com.tienda.donarosa.dto.TrazaDTO;
+import com.tienda.donarosa.service.ValidacionException;
+import com.tienda.donarosa.trazas.Traza;
+import com.tienda.donarosa.trazas.Trazador;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * API de administración: trazas recientes de las peticiones con su desglose por capa
+ */
+@RestController
+@RequestMapping("/api/v1/admin/trazas")
+public class TrazasApiController {
+
+    static final int LIMITE_MAXIMO = 500;
+
+    private final Trazador trazador;
+
+    @Autowired
+    public TrazasApiController(Trazador trazador) {
+        this.trazador = trazador;
+    }
+
+    /**
+     * Las trazas guardadas más recientes; con minimoMs, solo las que tardaron al menos eso
+     */
+    @GetMapping
+    public List<TrazaDTO> obtenerRecientes(@RequestParam(defaultValue = "50") int limite,
+                                           @RequestParam(defaultValue = "0") long minimoMs) {
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new ValidacionException("El límite debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+        return trazador.recientes(limite, Duration.ofMillis(minimoMs)).stream()
+                .map(TrazasApiController::aDTO)
+                .toList();
+    }
+
+    private static TrazaDTO aDTO(Traza traza) {
+        Map<String, Double> porCapa = new LinkedHashMap<>();
+        traza.tiempoPorCapa().forEach((capa, nanos) -> porCapa.put(capa.name(), milisegundos(nanos)));
+        List<TrazaDTO.Tramo> tramos = traza.getTramos().stream()
+                .map(tramo -> new TrazaDTO.Tramo(tramo.capa().name(), tramo.nombre(), milisegundos(tramo.desdeNanos()),
+                        milisegundos(tramo.duracionNanos()), tramo.nivel()))
+                .toList();
+        return new TrazaDTO(traza.getId(), traza.getMetodo(), traza.getRuta(), traza.getEstado(),
+                Instant.ofEpochMilli(traza.getInicioMillis()), milisegundos(traza.getDuracionNanos()), porCapa, tramos,
+                traza.getOmitidos());
+    }
+
+    private static double milisegundos(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
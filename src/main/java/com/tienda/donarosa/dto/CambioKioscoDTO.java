@@ -0,0 +1,17 @@
+package com.tienda.donarosa.dto;
+
+/**
+ * Versión del inventario de la tienda que recibe un kiosco al esperar cambios
+ */
+public class CambioKioscoDTO {
+
+    private final long version;
+
+    public CambioKioscoDTO(long version) {
+        this.version = version;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,129 @@
+package com.tienda.donarosa.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Cambio masivo de precios: operación, filtro de productos y redondeo.
+ * Los filtros vacíos no se aplican; sin ningún filtro se cambian todos los productos.
+ */
+public class CambioPreciosDTO {
+
+    public enum Tipo {
+        PORCENTAJE,
+        MONTO
+    }
+
+    public enum Estado {
+        TODOS,
+        DISPONIBLES,
+        AGOTADOS,
+        CERCA_DE_AGOTARSE
+    }
+
+    /**
+     * Múltiplo al que se redondea el precio nuevo (la mitad hacia arriba)
+     */
+    public enum Redondeo {
+        CENTAVO("0.01"),
+        PESO("1"),
+        DECENA("10"),
+        CENTENA("100");
+
+        private final BigDecimal paso;
+
+        Redondeo(String paso) {
+            this.paso = new BigDecimal(paso);
+        }
+
+        public BigDecimal getPaso() {
+            return paso;
+        }
+    }
+
+    @NotNull(message = "El tipo de cambio es obligatorio")
+    private Tipo tipo = Tipo.PORCENTAJE;
+
+    @NotNull(message = "El valor del cambio es obligatorio")
+    private BigDecimal valor;
+
+    // Patrón de nombre: "*" es comodín; sin comodines busca el texto en cualquier parte
+    private String patronNombre;
+
+    private Estado estado = Estado.TODOS;
+
+    private List<Long> ids;
+
+    private Redondeo redondeo = Redondeo.PESO;
+
+    public CambioPreciosDTO() {}
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(Tipo tipo) {
+        this.tipo = tipo;
+    }
+
+    public BigDecimal getValor() {
+        return valor;
+    }
+
+    public void setValor(BigDecimal valor) {
+        this.valor = valor;
+    }
+
+    public String getPatronNombre() {
+        return patronNombre;
+    }
+
+    public void setPatronNombre(String patronNombre) {
+        this.patronNombre = patronNombre;
+    }
+
+    public Estado getEstado() {
+        return estado;
+    }
+
+    public void setEstado(Estado estado) {
+        this.estado = estado;
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public Redondeo getRedondeo() {
+        return redondeo;
+    }
+
+    public void setRedondeo(Redondeo redondeo) {
+        this.redondeo = redondeo;
+    }
+
+    /**
+     * Descripción legible del cambio para el registro
+     */
+    public String describir() {
+        StringBuilder descripcion = new StringBuilder()
+                .append(tipo == Tipo.PORCENTAJE ? valor + "%" : "$" + valor)
+                .append(", redondeo ").append(redondeo);
+        if (patronNombre != null && !patronNombre.isBlank()) {
+            descripcion.append(", nombre '").append(patronNombre.trim()).append("'");
+        }
+        if (estado != null && estado != Estado.TODOS) {
+            descripcion.append(", ").append(estado);
+        }
+        if (ids != null && !ids.isEmpty()) {
+            descripcion.append(", ").append(ids.size()).append(" IDs");
+        }
+        return descripcion.toString();
+    }
+}
@@ -0,0 +1,28 @@
+package com.tienda.donarosa.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Cuerpo de la petición para actualizar la cantidad de un producto
+ */
+public class CantidadDTO {
+
+    @NotNull(message = "La cantidad es obligatoria")
+    @Min(value = 0, message = "La cantidad no puede ser negativa")
+    private Integer cantidad;
+
+    public CantidadDTO() {}
+
+    public CantidadDTO(Integer cantidad) {
+        this.cantidad = cantidad;
+    }
+
+    public Integer getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(Integer cantidad) {
+        this.cantidad = cantidad;
+    }
+}
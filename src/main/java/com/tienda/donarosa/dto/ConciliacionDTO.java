@@ -0,0 +1,123 @@
+package com.tienda.donarosa.dto;
+
+import com.tienda.donarosa.model.Conciliacion;
+import com.tienda.donarosa.model.ConciliacionTramo;
+import com.tienda.donarosa.model.DiferenciaConciliacion;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Reporte de una conciliación de inventario. Los conteos salen de los tramos,
+ * así que una corrida sin terminar muestra lo revisado hasta ahora. Las
+ * diferencias con resumen_categorias (valor, unidades y categorías que no
+ * cuadran) solo están al terminar, y se toman de una sola lectura de productos y
+ * del resumen, no de los tramos. "detalle" lista algunos de los productos con
+ * diferencias.
+ */
+public class ConciliacionDTO {
+
+    private final Long id;
+    private final LocalDateTime inicio;
+    private final LocalDateTime fin;
+    private final int tramos;
+    private final int tramosPendientes;
+    private final long productos;
+    private final long existencias;
+    private final long sinMovimientos;
+    private final long cantidadesIniciales;
+    private final long unidades;
+    private final BigDecimal valor;
+    private final Long diferenciaUnidades;
+    private final BigDecimal diferenciaValor;
+    private final Long categoriasConDiferencias;
+    private final List<DiferenciaConciliacion> detalle;
+
+    public ConciliacionDTO(Conciliacion conciliacion, List<ConciliacionTramo> tramos,
+                           List<DiferenciaConciliacion> detalle) {
+        this.id = conciliacion.getId();
+        this.inicio = conciliacion.getInicio();
+        this.fin = conciliacion.getFin();
+        this.tramos = tramos.size();
+        this.tramosPendientes = (int) tramos.stream().filter(tramo -> !tramo.getTerminado()).count();
+        this.productos = tramos.stream().mapToLong(ConciliacionTramo::getProductos).sum();
+        this.existencias = tramos.stream().mapToLong(ConciliacionTramo::getExistencias).sum();
+        this.sinMovimientos = tramos.stream().mapToLong(ConciliacionTramo::getSinMovimientos).sum();
+        this.cantidadesIniciales = tramos.stream().mapToLong(ConciliacionTramo::getCantidadesIniciales).sum();
+        this.unidades = tramos.stream().mapToLong(ConciliacionTramo::getUnidades).sum();
+        this.valor = tramos.stream().map(ConciliacionTramo::getValor).reduce(BigDecimal.ZERO, BigDecimal::add);
+        this.diferenciaUnidades = conciliacion.getDiferenciaUnidades();
+        this.diferenciaValor = conciliacion.getDiferenciaValor();
+        this.categoriasConDiferencias = conciliacion.getCategoriasConDiferencias();
+        this.detalle = List.copyOf(detalle);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDateTime getInicio() {
+        return inicio;
+    }
+
+    public LocalDateTime getFin() {
+        return fin;
+    }
+
+    public boolean isTerminada() {
+        return fin != null;
+    }
+
+    public int getTramos() {
+        return tramos;
+    }
+
+    public int getTramosPendientes() {
+        return tramosPendientes;
+    }
+
+    public long getProductos() {
+        return productos;
+    }
+
+    public long getExistencias() {
+        return existencias;
+    }
+
+    public long getSinMovimientos() {
+        return sinMovimientos;
+    }
+
+    public long getCantidadesIniciales() {
+        return cantidadesIniciales;
+    }
+
+    public long getDiferencias() {
+        return existencias + sinMovimientos + cantidadesIniciales;
+    }
+
+    public long getUnidades() {
+        return unidades;
+    }
+
+    public BigDecimal getValor() {
+        return valor;
+    }
+
+    public Long getDiferenciaUnidades() {
+        return diferenciaUnidades;
+    }
+
+    public BigDecimal getDiferenciaValor() {
+        return diferenciaValor;
+    }
+
+    public Long getCategoriasConDiferencias() {
+        return categoriasConDiferencias;
+    }
+
+    public List<DiferenciaConciliacion> getDetalle() {
+        return detalle;
+    }
+}
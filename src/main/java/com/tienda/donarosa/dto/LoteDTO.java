@@ -0,0 +1,25 @@
+package com.tienda.donarosa.dto;
+
+import java.util.List;
+
+/**
+ * Respuesta de una consulta por lote de IDs
+ */
+public class LoteDTO<T> {
+
+    private final List<T> datos;
+    private final List<Long> noEncontrados;
+
+    public LoteDTO(List<T> datos, List<Long> noEncontrados) {
+        this.datos = datos;
+        this.noEncontrados = noEncontrados;
+    }
+
+    public List<T> getDatos() {
+        return datos;
+    }
+
+    public List<Long> getNoEncontrados() {
+        return noEncontrados;
+    }
+}
@@ -0,0 +1,26 @@
+package com.tienda.donarosa.dto;
+
+import java.util.List;
+
+/**
+ * Página de resultados con paginación por cursor.
+ * "siguiente" es null cuando no hay más resultados.
+ */
+public class PaginaDTO<T> {
+
+    private final List<T> datos;
+    private final String siguiente;
+
+    public PaginaDTO(List<T> datos, String siguiente) {
+        this.datos = datos;
+        this.siguiente = siguiente;
+    }
+
+    public List<T> getDatos() {
+        return datos;
+    }
+
+    public String getSiguiente() {
+        return siguiente;
+    }
+}
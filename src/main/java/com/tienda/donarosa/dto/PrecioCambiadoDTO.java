@@ -0,0 +1,37 @@
+package com.tienda.donarosa.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Precio anterior y nuevo de un producto en un cambio masivo
+ */
+public class PrecioCambiadoDTO {
+
+    private final Long productoId;
+    private final String nombre;
+    private final BigDecimal precioAnterior;
+    private final BigDecimal precioNuevo;
+
+    public PrecioCambiadoDTO(Long productoId, String nombre, BigDecimal precioAnterior, BigDecimal precioNuevo) {
+        this.productoId = productoId;
+        this.nombre = nombre;
+        this.precioAnterior = precioAnterior;
+        this.precioNuevo = precioNuevo;
+    }
+
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public BigDecimal getPrecioAnterior() {
+        return precioAnterior;
+    }
+
+    public BigDecimal getPrecioNuevo() {
+        return precioNuevo;
+    }
+}
@@ -0,0 +1,47 @@
+package com.tienda.donarosa.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Precio y estado de existencias de un producto para los kioscos y verificadores de precios
+ */
+public class PrecioKioscoDTO {
+
+    public static final String DISPONIBLE = "DISPONIBLE";
+    public static final String POR_AGOTARSE = "POR_AGOTARSE";
+    public static final String AGOTADO = "AGOTADO";
+
+    private final Long id;
+    private final String nombre;
+    private final BigDecimal precio;
+    private final int cantidad;
+    private final String estado;
+
+    public PrecioKioscoDTO(Long id, String nombre, BigDecimal precio, int cantidad, String estado) {
+        this.id = id;
+        this.nombre = nombre;
+        this.precio = precio;
+        this.cantidad = cantidad;
+        this.estado = estado;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public BigDecimal getPrecio() {
+        return precio;
+    }
+
+    public int getCantidad() {
+        return cantidad;
+    }
+
+    public String getEstado() {
+        return estado;
+    }
+}
@@ -1,4 +1,55 @@
 package com.tienda.donarosa.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+/**
+ * Proyección de solo lectura de un producto para la API REST.
+ * Se construye directamente desde la consulta JPQL, sin cargar la entidad.
+ */
+@JsonFilter(ProductoDTO.FILTRO_CAMPOS)
 public class ProductoDTO {
+
+    public static final String FILTRO_CAMPOS = "camposProducto";
+
+    /**
+     * Campos que el cliente puede pedir en el parámetro "campos"
+     */
+    public static final Set<String> CAMPOS = Set.of("id", "nombre", "precio", "cantidad", "cantidadInicial");
+
+    private final Long id;
+    private final String nombre;
+    private final BigDecimal precio;
+    private final Integer cantidad;
+    private final Integer cantidadInicial;
+
+    public ProductoDTO(Long id, String nombre, BigDecimal precio, Integer cantidad, Integer cantidadInicial) {
+        this.id = id;
+        this.nombre = nombre;
+        this.precio = precio;
+        this.cantidad = cantidad;
+        this.cantidadInicial = cantidadInicial;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public BigDecimal getPrecio() {
+        return precio;
+    }
+
+    public Integer getCantidad() {
+        return cantidad;
+    }
+
+    public Integer getCantidadInicial() {
+        return cantidadInicial;
+    }
 }
@@ -0,0 +1,49 @@
+package com.tienda.donarosa.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Un respaldo disponible: completo, o incremental sobre el completo "base"
+ */
+public class RespaldoDTO {
+
+    private final String nombre;
+    private final String tipo;
+    private final String base;
+    private final LocalDateTime inicio;
+    private final long bytes;
+    private final long duracionMs;
+
+    public RespaldoDTO(String nombre, String tipo, String base, LocalDateTime inicio, long bytes, long duracionMs) {
+        this.nombre = nombre;
+        this.tipo = tipo;
+        this.base = base;
+        this.inicio = inicio;
+        this.bytes = bytes;
+        this.duracionMs = duracionMs;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public String getTipo() {
+        return tipo;
+    }
+
+    public String getBase() {
+        return base;
+    }
+
+    public LocalDateTime getInicio() {
+        return inicio;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getDuracionMs() {
+        return duracionMs;
+    }
+}
@@ -0,0 +1,48 @@
+package com.tienda.donarosa.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de restaurar un respaldo completo con sus incrementales; sin diferencias, la restauración coincide
+ */
+public class RestauracionDTO {
+
+    private final String completo;
+    private final List<String> incrementales;
+    private final String destino;
+    private final List<String> diferencias;
+    private final long duracionMs;
+
+    public RestauracionDTO(String completo, List<String> incrementales, String destino, List<String> diferencias,
+                           long duracionMs) {
+        this.completo = completo;
+        this.incrementales = incrementales;
+        this.destino = destino;
+        this.diferencias = diferencias;
+        this.duracionMs = duracionMs;
+    }
+
+    public String getCompleto() {
+        return completo;
+    }
+
+    public List<String> getIncrementales() {
+        return incrementales;
+    }
+
+    public String getDestino() {
+        return destino;
+    }
+
+    public List<String> getDiferencias() {
+        return diferencias;
+    }
+
+    public boolean isVerificada() {
+        return diferencias.isEmpty();
+    }
+
+    public long getDuracionMs() {
+        return duracionMs;
+    }
+}
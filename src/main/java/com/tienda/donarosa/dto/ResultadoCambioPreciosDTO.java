@@ -0,0 +1,38 @@
+package com.tienda.donarosa.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de un cambio masivo de precios o de su simulación.
+ * "cambioId" es null en una simulación; "muestra" tiene los primeros productos afectados.
+ */
+public class ResultadoCambioPreciosDTO {
+
+    private final Long cambioId;
+    private final boolean simulacion;
+    private final long afectados;
+    private final List<PrecioCambiadoDTO> muestra;
+
+    public ResultadoCambioPreciosDTO(Long cambioId, boolean simulacion, long afectados, List<PrecioCambiadoDTO> muestra) {
+        this.cambioId = cambioId;
+        this.simulacion = simulacion;
+        this.afectados = afectados;
+        this.muestra = muestra;
+    }
+
+    public Long getCambioId() {
+        return cambioId;
+    }
+
+    public boolean isSimulacion() {
+        return simulacion;
+    }
+
+    public long getAfectados() {
+        return afectados;
+    }
+
+    public List<PrecioCambiadoDTO> getMuestra() {
+        return muestra;
+    }
+}
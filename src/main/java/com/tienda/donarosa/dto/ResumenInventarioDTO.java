@@ -0,0 +1,50 @@
+package com.tienda.donarosa.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Totales del inventario de la tienda actual.
+ * "cercaDeAgotarse" incluye a los agotados.
+ */
+public class ResumenInventarioDTO {
+
+    private final int productos;
+    private final int disponibles;
+    private final int agotados;
+    private final int cercaDeAgotarse;
+    private final long unidades;
+    private final BigDecimal valorTotal;
+
+    public ResumenInventarioDTO(int productos, int agotados, int cercaDeAgotarse, long unidades, BigDecimal valorTotal) {
+        this.productos = productos;
+        this.disponibles = productos - agotados;
+        this.agotados = agotados;
+        this.cercaDeAgotarse = cercaDeAgotarse;
+        this.unidades = unidades;
+        this.valorTotal = valorTotal;
+    }
+
+    public int getProductos() {
+        return productos;
+    }
+
+    public int getDisponibles() {
+        return disponibles;
+    }
+
+    public int getAgotados() {
+        return agotados;
+    }
+
+    public int getCercaDeAgotarse() {
+        return cercaDeAgotarse;
+    }
+
+    public long getUnidades() {
+        return unidades;
+    }
+
+    public BigDecimal getValorTotal() {
+        return valorTotal;
+    }
+}
@@ -0,0 +1,29 @@
+package com.tienda.donarosa.dto;
+
+/**
+ * Producto sugerido mientras se escribe en el buscador
+ */
+public class SugerenciaDTO {
+
+    private final Long id;
+    private final String nombre;
+    private final int cantidad;
+
+    public SugerenciaDTO(Long id, String nombre, int cantidad) {
+        this.id = id;
+        this.nombre = nombre;
+        this.cantidad = cantidad;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public int getCantidad() {
+        return cantidad;
+    }
+}
@@ -0,0 +1,110 @@
+package com.tienda.donarosa.dto;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Traza de una petición: duración total, tiempo propio por capa y los tramos medidos
+ */
+public class TrazaDTO {
+
+    private final long id;
+    private final String metodo;
+    private final String ruta;
+    private final int estado;
+    private final Instant inicio;
+    private final double duracionMs;
+    private final Map<String, Double> msPorCapa;
+    private final List<Tramo> tramos;
+    private final int tramosOmitidos;
+
+    public TrazaDTO(long id, String metodo, String ruta, int estado, Instant inicio, double duracionMs,
+                    Map<String, Double> msPorCapa, List<Tramo> tramos, int tramosOmitidos) {
+        this.id = id;
+        this.metodo = metodo;
+        this.ruta = ruta;
+        this.estado = estado;
+        this.inicio = inicio;
+        this.duracionMs = duracionMs;
+        this.msPorCapa = msPorCapa;
+        this.tramos = tramos;
+        this.tramosOmitidos = tramosOmitidos;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getMetodo() {
+        return metodo;
+    }
+
+    public String getRuta() {
+        return ruta;
+    }
+
+    public int getEstado() {
+        return estado;
+    }
+
+    public Instant getInicio() {
+        return inicio;
+    }
+
+    public double getDuracionMs() {
+        return duracionMs;
+    }
+
+    public Map<String, Double> getMsPorCapa() {
+        return msPorCapa;
+    }
+
+    public List<Tramo> getTramos() {
+        return tramos;
+    }
+
+    public int getTramosOmitidos() {
+        return tramosOmitidos;
+    }
+
+    /**
+     * Un tramo: capa, qué se ejecutó, cuándo empezó (desde el inicio de la petición) y cuánto tardó
+     */
+    public static class Tramo {
+
+        private final String capa;
+        private final String nombre;
+        private final double desdeMs;
+        private final double duracionMs;
+        private final int nivel;
+
+        public Tramo(String capa, String nombre, double desdeMs, double duracionMs, int nivel) {
+            this.capa = capa;
+            this.nombre = nombre;
+            this.desdeMs = desdeMs;
+            this.duracionMs = duracionMs;
+            this.nivel = nivel;
+        }
+
+        public String getCapa() {
+            return capa;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        public double getDesdeMs() {
+            return desdeMs;
+        }
+
+        public double getDuracionMs() {
+            return duracionMs;
+        }
+
+        public int getNivel() {
+            return nivel;
+        }
+    }
+}
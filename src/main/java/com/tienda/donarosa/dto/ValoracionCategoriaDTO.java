@@ -0,0 +1,43 @@
+package com.tienda.donarosa.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Valoración de una categoría a una fecha (ver ValoracionDTO)
+ */
+public class ValoracionCategoriaDTO {
+
+    private final String categoria;
+    private final long productos;
+    private final long unidades;
+    private final BigDecimal valor;
+    private final long sinPrecio;
+
+    public ValoracionCategoriaDTO(String categoria, long productos, long unidades, BigDecimal valor, long sinPrecio) {
+        this.categoria = categoria;
+        this.productos = productos;
+        this.unidades = unidades;
+        this.valor = valor;
+        this.sinPrecio = sinPrecio;
+    }
+
+    public String getCategoria() {
+        return categoria;
+    }
+
+    public long getProductos() {
+        return productos;
+    }
+
+    public long getUnidades() {
+        return unidades;
+    }
+
+    public BigDecimal getValor() {
+        return valor;
+    }
+
+    public long getSinPrecio() {
+        return sinPrecio;
+    }
+}
@@ -0,0 +1,60 @@
+package com.tienda.donarosa.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Valoración del inventario de la tienda actual a una fecha: las existencias
+ * que había entonces por el precio vigente entonces.
+ * "productos" cuenta los que tenían existencias; "sinPrecio" los que no tienen
+ * un precio registrado a esa fecha (no suman al valor).
+ */
+public class ValoracionDTO {
+
+    private final LocalDateTime fecha;
+    private final long productos;
+    private final long unidades;
+    private final BigDecimal valor;
+    private final long sinPrecio;
+    private final long duracionMs;
+    private final List<ValoracionCategoriaDTO> categorias;
+
+    public ValoracionDTO(LocalDateTime fecha, List<ValoracionCategoriaDTO> categorias, long duracionMs) {
+        this.fecha = fecha;
+        this.categorias = List.copyOf(categorias);
+        this.productos = categorias.stream().mapToLong(ValoracionCategoriaDTO::getProductos).sum();
+        this.unidades = categorias.stream().mapToLong(ValoracionCategoriaDTO::getUnidades).sum();
+        this.valor = categorias.stream().map(ValoracionCategoriaDTO::getValor).reduce(BigDecimal.ZERO, BigDecimal::add);
+        this.sinPrecio = categorias.stream().mapToLong(ValoracionCategoriaDTO::getSinPrecio).sum();
+        this.duracionMs = duracionMs;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public long getProductos() {
+        return productos;
+    }
+
+    public long getUnidades() {
+        return unidades;
+    }
+
+    public BigDecimal getValor() {
+        return valor;
+    }
+
+    public long getSinPrecio() {
+        return sinPrecio;
+    }
+
+    public long getDuracionMs() {
+        return duracionMs;
+    }
+
+    public List<ValoracionCategoriaDTO> getCategorias() {
+        return categorias;
+    }
+}
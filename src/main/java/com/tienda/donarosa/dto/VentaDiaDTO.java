@@ -0,0 +1,32 @@
+package com.tienda.donarosa.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Ventas totales de la tienda en un día
+ */
+public class VentaDiaDTO {
+
+    private final LocalDate dia;
+    private final Long unidades;
+    private final BigDecimal ingresos;
+
+    public VentaDiaDTO(LocalDate dia, Long unidades, BigDecimal ingresos) {
+        this.dia = dia;
+        this.unidades = unidades;
+        this.ingresos = ingresos;
+    }
+
+    public LocalDate getDia() {
+        return dia;
+    }
+
+    public Long getUnidades() {
+        return unidades;
+    }
+
+    public BigDecimal getIngresos() {
+        return ingresos;
+    }
+}
@@ -0,0 +1,38 @@
+package com.tienda.donarosa.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Ventas de un producto en un período.
+ * "nombre" es null si el producto ya fue eliminado.
+ */
+public class VentaResumenDTO {
+
+    private final Long productoId;
+    private final String nombre;
+    private final Long unidades;
+    private final BigDecimal ingresos;
+
+    public VentaResumenDTO(Long productoId, String nombre, Long unidades, BigDecimal ingresos) {
+        this.productoId = productoId;
+        this.nombre = nombre;
+        this.unidades = unidades;
+        this.ingresos = ingresos;
+    }
+
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public Long getUnidades() {
+        return unidades;
+    }
+
+    public BigDecimal getIngresos() {
+        return ingresos;
+    }
+}
@@ -0,0 +1,221 @@
+package com.tienda.donarosa.existencias;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Diario en disco de los cambios de existencias pendientes de escribir en la
+ * base de datos.
+ *
+ * Cada registro lleva su largo y un CRC32; al leer, el primer registro
+ * incompleto o dañado (una escritura cortada por una caída) marca el final.
+ * agregar() solo escribe en el archivo; asegurar() espera a que el registro
+ * esté en el disco y agrupa en un solo force() los registros de todos los
+ * hilos que esperan a la vez.
+ */
+final class DiarioExistencias implements AutoCloseable {
+
+    // largo (int) + secuencia (long) + tipo (byte) + producto (long) + valor (int) + largo de la tienda (short) + crc (int)
+    private static final int TAMANO_FIJO = 4 + 8 + 1 + 8 + 4 + 2 + 4;
+
+    private final Path archivo;
+    private final FileChannel canal;
+    private final Object escritura = new Object();
+    private final Object sincronizacion = new Object();
+    private long ultimaSecuencia;
+    private volatile long ultimaEscrita;
+    private volatile long ultimaEnDisco;
+
+    DiarioExistencias(Path archivo) {
+        this.archivo = archivo;
+        try {
+            if (archivo.getParent() != null) {
+                Files.createDirectories(archivo.getParent());
+            }
+            this.canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el diario de existencias " + archivo, e);
+        }
+    }
+
+    /**
+     * Registros válidos del archivo, en orden. Deja el diario listo para seguir
+     * escribiendo después del último y descarta lo que haya después de él.
+     */
+    List<RegistroDiario> leer() {
+        synchronized (escritura) {
+            try {
+                List<RegistroDiario> registros = new ArrayList<>();
+                ByteBuffer contenido = ByteBuffer.allocate((int) canal.size());
+                canal.read(contenido, 0);
+                contenido.flip();
+                long fin = 0;
+                while (contenido.remaining() >= 4) {
+                    int inicio = contenido.position();
+                    int largo = contenido.getInt();
+                    if (largo < TAMANO_FIJO || largo - 4 > contenido.remaining()) {
+                        break;
+                    }
+                    RegistroDiario registro = decodificar(contenido, inicio, largo);
+                    if (registro == null) {
+                        break;
+                    }
+                    registros.add(registro);
+                    ultimaSecuencia = Math.max(ultimaSecuencia, registro.secuencia());
+                    fin = contenido.position();
+                }
+                canal.truncate(fin);
+                canal.position(fin);
+                ultimaEscrita = ultimaSecuencia;
+                ultimaEnDisco = ultimaSecuencia;
+                return registros;
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo leer el diario de existencias " + archivo, e);
+            }
+        }
+    }
+
+    /**
+     * Escribe un cambio (sin esperar al disco) y devuelve su secuencia
+     */
+    long agregar(RegistroDiario.Tipo tipo, String tienda, long productoId, int valor) {
+        synchronized (escritura) {
+            long secuencia = ++ultimaSecuencia;
+            escribir(new RegistroDiario(secuencia, tipo, tienda, productoId, valor));
+            ultimaEscrita = secuencia;
+            return secuencia;
+        }
+    }
+
+    /**
+     * Espera a que el registro con esa secuencia (y los anteriores) estén en el disco
+     */
+    void asegurar(long secuencia) {
+        if (ultimaEnDisco >= secuencia) {
+            return;
+        }
+        synchronized (sincronizacion) {
+            // Mientras se esperaba, otro hilo pudo haber sincronizado este registro
+            if (ultimaEnDisco >= secuencia) {
+                return;
+            }
+            long hasta = ultimaEscrita;
+            try {
+                canal.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo sincronizar el diario de existencias " + archivo, e);
+            }
+            ultimaEnDisco = hasta;
+        }
+    }
+
+    /**
+     * Última secuencia asignada
+     */
+    long ultimaSecuencia() {
+        synchronized (escritura) {
+            return ultimaSecuencia;
+        }
+    }
+
+    /**
+     * Continúa la numeración después de una secuencia ya aplicada (por si el
+     * archivo se perdió o se reemplazó), para no repetir números
+     */
+    void continuarDesde(long secuencia) {
+        synchronized (escritura) {
+            ultimaSecuencia = Math.max(ultimaSecuencia, secuencia);
+        }
+    }
+
+    /**
+     * Descarta todos los registros (ya aplicados en la base de datos) dejando
+     * una marca con la última secuencia, para no volver a usarla
+     */
+    void vaciar() {
+        synchronized (escritura) {
+            synchronized (sincronizacion) {
+                try {
+                    canal.truncate(0);
+                    canal.position(0);
+                    escribir(new RegistroDiario(ultimaSecuencia, RegistroDiario.Tipo.MARCA, "", 0, 0));
+                    canal.force(false);
+                    ultimaEscrita = ultimaSecuencia;
+                    ultimaEnDisco = ultimaSecuencia;
+                } catch (IOException e) {
+                    throw new UncheckedIOException("No se pudo vaciar el diario de existencias " + archivo, e);
+                }
+            }
+        }
+    }
+
+    long tamanoEnBytes() {
+        try {
+            return canal.size();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            canal.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void escribir(RegistroDiario registro) {
+        byte[] tienda = registro.tienda().getBytes(StandardCharsets.UTF_8);
+        int largo = TAMANO_FIJO + tienda.length;
+        ByteBuffer buffer = ByteBuffer.allocate(largo);
+        buffer.putInt(largo)
+                .putLong(registro.secuencia())
+                .put((byte) registro.tipo().ordinal())
+                .putLong(registro.productoId())
+                .putInt(registro.valor())
+                .putShort((short) tienda.length)
+                .put(tienda);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, largo - 4);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir en el diario de existencias " + archivo, e);
+        }
+    }
+
+    private static RegistroDiario decodificar(ByteBuffer contenido, int inicio, int largo) {
+        CRC32 crc = new CRC32();
+        crc.update(contenido.array(), inicio, largo - 4);
+        long secuencia = contenido.getLong();
+        int tipo = contenido.get();
+        long productoId = contenido.getLong();
+        int valor = contenido.getInt();
+        int largoTienda = contenido.getShort();
+        if (largoTienda < 0 || largoTienda != largo - TAMANO_FIJO || tipo < 0 || tipo >= RegistroDiario.Tipo.values().length) {
+            return null;
+        }
+        byte[] tienda = new byte[largoTienda];
+        contenido.get(tienda);
+        if (contenido.getInt() != (int) crc.getValue()) {
+            return null;
+        }
+        return new RegistroDiario(secuencia, RegistroDiario.Tipo.values()[tipo], new String(tienda, StandardCharsets.UTF_8),
+                productoId, valor);
+    }
+}
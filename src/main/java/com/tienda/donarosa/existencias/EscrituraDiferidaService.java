@@ -0,0 +1,575 @@
+package com.tienda.donarosa.existencias;
+
+import com.tienda.donarosa.auditoria.AccionAuditoria;
+import com.tienda.donarosa.auditoria.AuditoriaService;
+import com.tienda.donarosa.busqueda.AutocompletadoService;
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.model.TipoMovimiento;
+import com.tienda.donarosa.multitienda.CopiasPorTienda;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import com.tienda.donarosa.repository.ProductoRepository;
+import com.tienda.donarosa.service.ArchivoProductosService;
+import com.tienda.donarosa.service.InventarioColumnarService;
+import com.tienda.donarosa.service.LecturasCompartidas;
+import com.tienda.donarosa.service.MovimientoService;
+import com.tienda.donarosa.service.ResumenCategoriasService;
+import com.tienda.donarosa.service.ValidacionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Escritura diferida de los cambios de cantidad (ventas y actualizar-cantidad).
+ *
+ * Con tienda.existencias.escritura-diferida=true el cambio se valida contra la
+ * cantidad en memoria, se acumula por producto, se escribe en el diario en disco
+ * y se confirma al cliente sin tocar la fila del producto. Cada
+ * tienda.existencias.intervalo un hilo aplica lo acumulado en una transacción
+ * por tienda: una actualización y a lo sumo un movimiento de venta y uno de
+ * reposición por producto, sin importar cuántas operaciones hubo.
+ *
+ * Junto con las cantidades se guarda la última secuencia del diario aplicada
+ * (tabla existencias_aplicadas); si la aplicación se cae con cambios pendientes,
+ * al volver a usarse reaplica solo los registros posteriores.
+ *
+ * Editar o eliminar un producto aplica antes solo lo pendiente de ese producto,
+ * en la misma transacción (aplicarProducto); esos registros quedan anotados en
+ * existencias_aplicadas_productos hasta que el lote de la tienda los alcanza.
+ *
+ * Las lecturas de la base de datos (listados, reportes) pueden quedar atrasadas
+ * hasta un intervalo respecto de las ventas ya confirmadas.
+ */
+@Service
+public class EscrituraDiferidaService implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(EscrituraDiferidaService.class);
+
+    private static final String LEER_PRODUCTO = "SELECT nombre, cantidad FROM productos WHERE id = ? AND tienda_id = ? AND eliminado_en IS NULL";
+    private static final String LEER_APLICADA = "SELECT secuencia FROM existencias_aplicadas WHERE tienda_id = ?";
+    private static final String GUARDAR_APLICADA = "MERGE INTO existencias_aplicadas (tienda_id, secuencia) KEY (tienda_id) VALUES (?, ?)";
+    private static final String LEER_APLICADAS_PRODUCTOS = "SELECT producto_id, desde, hasta FROM existencias_aplicadas_productos WHERE tienda_id = ?";
+    private static final String GUARDAR_APLICADAS_PRODUCTO = "INSERT INTO existencias_aplicadas_productos (tienda_id, producto_id, desde, hasta) VALUES (?, ?, ?, ?)";
+    private static final String BORRAR_APLICADAS_PRODUCTOS = "DELETE FROM existencias_aplicadas_productos WHERE tienda_id = ? AND hasta <= ?";
+
+    private final ProductoRepository productoRepository;
+    private final MovimientoService movimientoService;
+    private final AuditoriaService auditoriaService;
+    private final InventarioColumnarService inventarioColumnarService;
+    private final AutocompletadoService autocompletadoService;
+    private final LecturasCompartidas lecturasCompartidas;
+    private final ArchivoProductosService archivoProductos;
+    private final ResumenCategoriasService resumenCategorias;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccion;
+    private final boolean habilitada;
+    private final Duration intervalo;
+    private final Path archivoDiario;
+
+    // Cantidad vigente (base de datos + pendientes) de los productos con cambios sin aplicar o en curso.
+    // generacion cambia cada vez que se aplica un lote, para descartar lecturas de la base hechas antes.
+    private final Object estado = new Object();
+    private final Map<Clave, Existencia> vista = new HashMap<>();
+    private Map<Clave, Pendiente> pendientes = new HashMap<>();
+    private long generacion;
+    // Transacciones de aplicarProducto sin terminar: hasta que terminen, el diario no se vacía
+    private int productosEnCurso;
+
+    private final Object recuperacion = new Object();
+    private final ReentrantLock aplicando = new ReentrantLock();
+    private volatile DiarioExistencias diario;
+
+    private final LongAdder operaciones = new LongAdder();
+    private final LongAdder lotes = new LongAdder();
+    private final LongAdder filasEscritas = new LongAdder();
+
+    private volatile boolean activo;
+    private Thread escritor;
+
+    @Autowired
+    public EscrituraDiferidaService(ProductoRepository productoRepository, MovimientoService movimientoService,
+                                    AuditoriaService auditoriaService, InventarioColumnarService inventarioColumnarService,
+                                    AutocompletadoService autocompletadoService, LecturasCompartidas lecturasCompartidas,
+                                    ArchivoProductosService archivoProductos, ResumenCategoriasService resumenCategorias,
+                                    JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                    @Value("${tienda.existencias.escritura-diferida:false}") boolean habilitada,
+                                    @Value("${tienda.existencias.intervalo:200ms}") Duration intervalo,
+                                    @Value("${tienda.existencias.diario:data/existencias.diario}") String archivoDiario) {
+        this.productoRepository = productoRepository;
+        this.movimientoService = movimientoService;
+        this.auditoriaService = auditoriaService;
+        this.inventarioColumnarService = inventarioColumnarService;
+        this.autocompletadoService = autocompletadoService;
+        this.lecturasCompartidas = lecturasCompartidas;
+        this.archivoProductos = archivoProductos;
+        this.resumenCategorias = resumenCategorias;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.transaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.habilitada = habilitada;
+        this.intervalo = intervalo;
+        this.archivoDiario = Path.of(archivoDiario);
+    }
+
+    public boolean habilitada() {
+        return habilitada;
+    }
+
+    /**
+     * Vende unidades del producto de la tienda actual; false si no existe.
+     * Vuelve cuando la venta está en el diario en disco.
+     */
+    public boolean registrarVenta(Long id, int unidades) {
+        return cambiar(id, existencia -> {
+            if (unidades > existencia.cantidad) {
+                throw new ValidacionException("No hay suficientes unidades de " + existencia.nombre);
+            }
+            return existencia.cantidad - unidades;
+        }, AccionAuditoria.VENTA);
+    }
+
+    /**
+     * Fija la cantidad del producto de la tienda actual; false si no existe.
+     * Vuelve cuando el cambio está en el diario en disco.
+     */
+    public boolean fijarCantidad(Long id, int nuevaCantidad) {
+        return cambiar(id, existencia -> nuevaCantidad, AccionAuditoria.CAMBIO_CANTIDAD);
+    }
+
+    /**
+     * Aplica ya en la base de datos todos los cambios pendientes.
+     * Se llama antes de las tareas que recorren toda la tabla (archivo, conciliación).
+     */
+    public void vaciar() {
+        if (habilitada) {
+            diario();
+            aplicarPendientes();
+        }
+    }
+
+    /**
+     * Aplica los cambios pendientes de un producto de la tienda actual en la transacción
+     * de quien llama, que va a editarlo o eliminarlo; los demás siguen esperando al escritor.
+     * Si la transacción no se confirma, los cambios vuelven a quedar pendientes.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void aplicarProducto(Long id) {
+        if (!habilitada) {
+            return;
+        }
+        DiarioExistencias diario = diario();
+        Clave clave = new Clave(TiendaContexto.actual(), id);
+        Pendiente pendiente;
+        long hasta;
+        synchronized (estado) {
+            pendiente = pendientes.remove(clave);
+            hasta = diario.ultimaSecuencia();
+            if (pendiente == null) {
+                return;
+            }
+            productosEnCurso++;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int resultado) {
+                synchronized (estado) {
+                    productosEnCurso--;
+                    if (resultado != STATUS_COMMITTED) {
+                        pendientes.merge(clave, pendiente, Pendiente::agregar);
+                    }
+                }
+            }
+        });
+        aplicarCambio(clave.tienda(), id, pendiente);
+        jdbcTemplate.update(GUARDAR_APLICADAS_PRODUCTO, clave.tienda(), id, pendiente.desde, hasta);
+        filasEscritas.increment();
+    }
+
+    /**
+     * Al confirmarse la edición o la baja del producto de la tienda actual, descarta
+     * la cantidad en memoria que se calculó sobre la fila anterior. Si quedaron ventas
+     * o reposiciones sin aplicar (llegadas después de aplicarProducto()), la cantidad en memoria
+     * pasa a ser la nueva más esos cambios.
+     */
+    public void olvidar(Producto producto) {
+        if (!habilitada) {
+            return;
+        }
+        Clave clave = new Clave(TiendaContexto.actual(), producto.getId());
+        boolean eliminado = producto.getEliminadoEn() != null;
+        int cantidad = producto.getCantidad();
+        CopiasPorTienda.alConfirmar(() -> {
+            synchronized (estado) {
+                // Una lectura de la base en curso puede ser de antes de la edición
+                generacion++;
+                Pendiente pendiente = pendientes.get(clave);
+                Existencia existencia = vista.get(clave);
+                if (eliminado || pendiente == null || existencia == null) {
+                    vista.remove(clave);
+                } else {
+                    existencia.cantidad = Math.max(0, cantidad + pendiente.reposiciones - pendiente.ventas);
+                }
+            }
+        });
+    }
+
+    private boolean cambiar(Long id, Function<Existencia, Integer> nuevaCantidad, AccionAuditoria accion) {
+        DiarioExistencias diario = diario();
+        Clave clave = new Clave(TiendaContexto.actual(), id);
+        int[] cantidades = new int[2];
+        long secuencia = -1;
+
+        while (secuencia < 0) {
+            long leidaEn;
+            Existencia conocida;
+            synchronized (estado) {
+                leidaEn = generacion;
+                conocida = vista.get(clave);
+            }
+            Existencia leida = conocida == null ? leer(clave) : null;
+            if (conocida == null && leida == null) {
+                return false;
+            }
+
+            synchronized (estado) {
+                Existencia existencia = vista.get(clave);
+                if (existencia == null) {
+                    // Si entre tanto se aplicó un lote, la lectura puede no incluirlo: leer de nuevo
+                    if (leidaEn != generacion) {
+                        continue;
+                    }
+                    existencia = leida;
+                    vista.put(clave, existencia);
+                }
+                int anterior = existencia.cantidad;
+                int nueva = nuevaCantidad.apply(existencia);
+                secuencia = 0;
+                if (nueva != anterior) {
+                    RegistroDiario.Tipo tipo = nueva < anterior ? RegistroDiario.Tipo.VENTA : RegistroDiario.Tipo.REPOSICION;
+                    int unidades = Math.abs(nueva - anterior);
+                    secuencia = diario.agregar(tipo, clave.tienda(), clave.id(), unidades);
+                    pendientes.computeIfAbsent(clave, c -> new Pendiente()).sumar(tipo, unidades, secuencia);
+                    existencia.cantidad = nueva;
+                }
+                cantidades[0] = anterior;
+                cantidades[1] = nueva;
+            }
+        }
+
+        if (secuencia > 0) {
+            diario.asegurar(secuencia);
+        }
+        operaciones.increment();
+        auditoriaService.registrar(accion, id, cantidades[0], cantidades[1], null);
+        return true;
+    }
+
+    private Existencia leer(Clave clave) {
+        List<Existencia> encontradas = jdbcTemplate.query(LEER_PRODUCTO,
+                (fila, n) -> new Existencia(fila.getString(1), fila.getInt(2)), clave.id(), clave.tienda());
+        return encontradas.isEmpty() ? null : encontradas.get(0);
+    }
+
+    /**
+     * Aplica lo acumulado hasta ahora; solo un lote a la vez
+     */
+    private void aplicarPendientes() {
+        aplicando.lock();
+        try {
+            Map<Clave, Pendiente> lote;
+            long hasta;
+            synchronized (estado) {
+                if (pendientes.isEmpty()) {
+                    return;
+                }
+                lote = pendientes;
+                pendientes = new HashMap<>();
+                hasta = diario.ultimaSecuencia();
+            }
+
+            // Por tienda y en orden de ID, para bloquear las filas siempre en el mismo orden
+            Map<String, Map<Long, Pendiente>> porTienda = new HashMap<>();
+            lote.forEach((clave, pendiente) ->
+                    porTienda.computeIfAbsent(clave.tienda(), t -> new TreeMap<>()).put(clave.id(), pendiente));
+
+            Map<Clave, Pendiente> fallidos = new HashMap<>();
+            porTienda.forEach((tienda, cambios) -> {
+                try {
+                    aplicar(tienda, cambios, hasta);
+                    filasEscritas.add(cambios.size());
+                } catch (RuntimeException e) {
+                    log.error("No se pudieron aplicar {} cambios de existencias de la tienda {}; se reintentarán",
+                            cambios.size(), tienda, e);
+                    cambios.forEach((id, pendiente) -> fallidos.put(new Clave(tienda, id), pendiente));
+                }
+            });
+            lotes.increment();
+
+            synchronized (estado) {
+                fallidos.forEach((clave, pendiente) -> pendientes.merge(clave, pendiente, Pendiente::agregar));
+                for (Clave clave : lote.keySet()) {
+                    if (!pendientes.containsKey(clave)) {
+                        vista.remove(clave);
+                    }
+                }
+                generacion++;
+                // Todo lo escrito en el diario ya está en la base de datos
+                if (pendientes.isEmpty() && productosEnCurso == 0) {
+                    diario.vaciar();
+                }
+            }
+        } finally {
+            aplicando.unlock();
+        }
+    }
+
+    private void aplicar(String tienda, Map<Long, Pendiente> cambios, long hasta) {
+        TiendaContexto.ejecutarComo(tienda, () -> transaccion.executeWithoutResult(transaccionActual -> {
+            for (Map.Entry<Long, Pendiente> cambio : cambios.entrySet()) {
+                aplicarCambio(tienda, cambio.getKey(), cambio.getValue());
+            }
+            jdbcTemplate.update(GUARDAR_APLICADA, tienda, hasta);
+            jdbcTemplate.update(BORRAR_APLICADAS_PRODUCTOS, tienda, hasta);
+            lecturasCompartidas.invalidar();
+        }));
+    }
+
+    private void aplicarCambio(String tienda, Long id, Pendiente pendiente) {
+        // Si se archivó después de confirmar el cambio, vuelve a productos
+        Optional<Producto> encontrado = productoRepository.findParaActualizar(id)
+                .or(() -> archivoProductos.restaurar(id));
+        if (encontrado.isEmpty()) {
+            log.warn("Se descartan cambios de existencias del producto {} de la tienda {}: ya no existe", id, tienda);
+            return;
+        }
+        Producto producto = encontrado.get();
+        int disponible = producto.getCantidad() + pendiente.reposiciones;
+        int nueva = disponible - pendiente.ventas;
+        movimientoService.registrar(producto, TipoMovimiento.REPOSICION, pendiente.reposiciones);
+        movimientoService.registrar(producto, TipoMovimiento.VENTA, -pendiente.ventas);
+        if (nueva < 0) {
+            // Ventas ya confirmadas al cliente sobre una cantidad que cambió por otra vía:
+            // se registran todas y el faltante queda como ajuste para revisar
+            log.warn("Faltan {} unidades del producto {} de la tienda {} para {} ventas confirmadas; se registra un ajuste",
+                    -nueva, producto.getId(), tienda, pendiente.ventas);
+            movimientoService.registrar(producto, TipoMovimiento.AJUSTE, -nueva);
+            nueva = 0;
+        }
+        producto.setCantidad(nueva);
+        productoRepository.save(producto);
+        inventarioColumnarService.registrarCambio(producto);
+        resumenCategorias.registrarCambio(producto);
+        autocompletadoService.registrarCambio(producto);
+    }
+
+    /**
+     * Abre el diario la primera vez que se usa, reaplicando lo que una caída haya
+     * dejado sin escribir. No se hace al arrancar porque los esquemas de las
+     * tiendas se crean después (EsquemaMultitiendaInicializador).
+     */
+    private DiarioExistencias diario() {
+        DiarioExistencias abierto = diario;
+        if (abierto != null) {
+            return abierto;
+        }
+        synchronized (recuperacion) {
+            if (diario == null) {
+                recuperar();
+            }
+            return diario;
+        }
+    }
+
+    private void recuperar() {
+        DiarioExistencias abierto = new DiarioExistencias(archivoDiario);
+        List<RegistroDiario> registros = abierto.leer();
+
+        Map<String, Long> aplicadas = new HashMap<>();
+        aplicadas.put(TiendaContexto.TIENDA_POR_DEFECTO, secuenciaAplicada(TiendaContexto.TIENDA_POR_DEFECTO));
+        Map<String, Map<Long, List<long[]>>> aplicadasPorProducto = new HashMap<>();
+        int recuperados = 0;
+        synchronized (estado) {
+            for (RegistroDiario registro : registros) {
+                if (registro.tipo() == RegistroDiario.Tipo.MARCA) {
+                    continue;
+                }
+                long aplicada = aplicadas.computeIfAbsent(registro.tienda(), this::secuenciaAplicada);
+                List<long[]> delProducto = aplicadasPorProducto
+                        .computeIfAbsent(registro.tienda(), this::aplicadasPorProducto)
+                        .getOrDefault(registro.productoId(), List.of());
+                boolean aplicadoAntes = delProducto.stream()
+                        .anyMatch(rango -> registro.secuencia() >= rango[0] && registro.secuencia() <= rango[1]);
+                if (registro.secuencia() > aplicada && !aplicadoAntes) {
+                    pendientes.computeIfAbsent(new Clave(registro.tienda(), registro.productoId()), c -> new Pendiente())
+                            .sumar(registro.tipo(), registro.valor(), registro.secuencia());
+                    recuperados++;
+                }
+            }
+        }
+        aplicadas.values().forEach(abierto::continuarDesde);
+        diario = abierto;
+
+        if (recuperados > 0) {
+            log.warn("Aplicando {} cambios de existencias recuperados del diario {}", recuperados, archivoDiario);
+            aplicarPendientes();
+        } else if (!registros.isEmpty()) {
+            abierto.vaciar();
+        }
+    }
+
+    private long secuenciaAplicada(String tienda) {
+        List<Long> secuencias = TiendaContexto.ejecutarComo(tienda,
+                () -> jdbcTemplate.queryForList(LEER_APLICADA, Long.class, tienda));
+        return secuencias.isEmpty() ? 0 : secuencias.get(0);
+    }
+
+    /**
+     * Rangos de secuencias [desde, hasta] ya aplicados por producto con aplicarProducto
+     */
+    private Map<Long, List<long[]>> aplicadasPorProducto(String tienda) {
+        Map<Long, List<long[]>> rangos = new HashMap<>();
+        TiendaContexto.ejecutarComo(tienda, () -> jdbcTemplate.query(LEER_APLICADAS_PRODUCTOS, fila -> {
+            rangos.computeIfAbsent(fila.getLong(1), id -> new ArrayList<>())
+                    .add(new long[]{fila.getLong(2), fila.getLong(3)});
+        }, tienda));
+        return rangos;
+    }
+
+    private void escribir() {
+        while (activo) {
+            LockSupport.parkNanos(intervalo.toNanos());
+            aplicarSiAbierto();
+        }
+        // Al detenerse aplica lo que quedó pendiente
+        aplicarSiAbierto();
+    }
+
+    private void aplicarSiAbierto() {
+        if (diario == null) {
+            return;
+        }
+        try {
+            aplicarPendientes();
+        } catch (RuntimeException e) {
+            log.error("Error al aplicar los cambios de existencias pendientes", e);
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!habilitada || activo) {
+            return;
+        }
+        activo = true;
+        escritor = new Thread(this::escribir, "existencias-escritor");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        activo = false;
+        if (escritor != null) {
+            LockSupport.unpark(escritor);
+            try {
+                escritor.join(Duration.ofSeconds(30).toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            escritor = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return activo;
+    }
+
+    /**
+     * Se detiene después del servidor web (sin más ventas en curso) y antes que el DataSource
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 4_096;
+    }
+
+    public int getPendientes() {
+        synchronized (estado) {
+            return pendientes.size();
+        }
+    }
+
+    public long getOperaciones() {
+        return operaciones.sum();
+    }
+
+    public long getLotes() {
+        return lotes.sum();
+    }
+
+    public long getFilasEscritas() {
+        return filasEscritas.sum();
+    }
+
+    private record Clave(String tienda, long id) {
+    }
+
+    private static final class Existencia {
+        private final String nombre;
+        private int cantidad;
+
+        private Existencia(String nombre, int cantidad) {
+            this.nombre = nombre;
+            this.cantidad = cantidad;
+        }
+    }
+
+    /**
+     * Unidades vendidas y repuestas de un producto, aún sin aplicar
+     */
+    private static final class Pendiente {
+        private int ventas;
+        private int reposiciones;
+        // Primera secuencia del diario incluida
+        private long desde = Long.MAX_VALUE;
+
+        private void sumar(RegistroDiario.Tipo tipo, int unidades, long secuencia) {
+            if (tipo == RegistroDiario.Tipo.VENTA) {
+                ventas += unidades;
+            } else {
+                reposiciones += unidades;
+            }
+            desde = Math.min(desde, secuencia);
+        }
+
+        private Pendiente agregar(Pendiente otro) {
+            ventas += otro.ventas;
+            reposiciones += otro.reposiciones;
+            desde = Math.min(desde, otro.desde);
+            return this;
+        }
+    }
+}
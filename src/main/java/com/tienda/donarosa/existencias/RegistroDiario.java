@@ -0,0 +1,14 @@
+package com.tienda.donarosa.existencias;
+
+/**
+ * Un cambio de existencias confirmado al cliente, tal como queda en el diario.
+ *
+ * VENTA y REPOSICION llevan las unidades que salen o entran (siempre positivas).
+ * MARCA solo conserva la última secuencia cuando el diario se vacía.
+ */
+record RegistroDiario(long secuencia, Tipo tipo, String tienda, long productoId, int valor) {
+
+    enum Tipo {
+        VENTA, REPOSICION, MARCA
+    }
+}
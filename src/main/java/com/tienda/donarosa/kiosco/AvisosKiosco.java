@@ -0,0 +1,128 @@
+package com.tienda.donarosa.kiosco;
+
+import com.tienda.donarosa.dto.CambioKioscoDTO;
+import com.tienda.donarosa.service.LecturasCompartidas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Esperas de los kioscos y verificadores de precios por un cambio en el
+ * inventario de su tienda (long polling).
+ *
+ * Cada espera es un DeferredResult: Tomcat libera el hilo en cuanto el
+ * controlador devuelve y la conexión queda abierta sin ocupar ninguno hasta
+ * que se confirma una escritura en la tienda o vence la espera. Así miles de
+ * pantallas conectadas no compiten por los hilos con las pantallas de la tienda.
+ *
+ * La versión es la de LecturasCompartidas, que todas las escrituras ya suben.
+ */
+@Component
+public class AvisosKiosco {
+
+    private final LecturasCompartidas lecturasCompartidas;
+    private final int maximoEsperas;
+    private final long reintentarEnSegundos;
+    private final Map<String, Set<DeferredResult<ResponseEntity<CambioKioscoDTO>>>> esperas = new ConcurrentHashMap<>();
+    private final AtomicInteger esperando = new AtomicInteger();
+    private final LongAdder avisadas = new LongAdder();
+    private final LongAdder vencidas = new LongAdder();
+    private final LongAdder rechazadas = new LongAdder();
+
+    @Autowired
+    public AvisosKiosco(LecturasCompartidas lecturasCompartidas,
+                        @Value("${tienda.kiosco.max-esperas:5000}") int maximoEsperas,
+                        @Value("${tienda.admision.reintentar-en:1s}") Duration reintentarEn) {
+        this.lecturasCompartidas = lecturasCompartidas;
+        this.maximoEsperas = maximoEsperas;
+        this.reintentarEnSegundos = Math.max(1, reintentarEn.toSeconds());
+        lecturasCompartidas.alInvalidar(this::avisar);
+    }
+
+    /**
+     * Responde con la versión actual en cuanto sea mayor que la que ya tiene el
+     * kiosco, o con la misma al vencer la espera
+     */
+    public DeferredResult<ResponseEntity<CambioKioscoDTO>> esperar(String tienda, long version, Duration espera) {
+        DeferredResult<ResponseEntity<CambioKioscoDTO>> resultado = new DeferredResult<>(espera.toMillis(), () -> {
+            vencidas.increment();
+            return respuesta(tienda);
+        });
+        if (lecturasCompartidas.obtenerVersion(tienda) > version) {
+            resultado.setResult(respuesta(tienda));
+            return resultado;
+        }
+        if (esperando.incrementAndGet() > maximoEsperas) {
+            esperando.decrementAndGet();
+            rechazadas.increment();
+            resultado.setResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(reintentarEnSegundos))
+                    .build());
+            return resultado;
+        }
+        Set<DeferredResult<ResponseEntity<CambioKioscoDTO>>> deLaTienda =
+                esperas.computeIfAbsent(tienda, t -> ConcurrentHashMap.newKeySet());
+        deLaTienda.add(resultado);
+        resultado.onCompletion(() -> {
+            if (deLaTienda.remove(resultado)) {
+                esperando.decrementAndGet();
+            }
+        });
+        // Una escritura confirmada entre la primera lectura de la versión y el registro no se pierde
+        if (lecturasCompartidas.obtenerVersion(tienda) > version && deLaTienda.remove(resultado)) {
+            esperando.decrementAndGet();
+            resultado.setResult(respuesta(tienda));
+        }
+        return resultado;
+    }
+
+    /**
+     * Kioscos esperando un cambio, en todas las tiendas
+     */
+    public int getEsperando() {
+        return esperando.get();
+    }
+
+    public long getAvisadas() {
+        return avisadas.sum();
+    }
+
+    public long getVencidas() {
+        return vencidas.sum();
+    }
+
+    public long getRechazadas() {
+        return rechazadas.sum();
+    }
+
+    private void avisar(String tienda) {
+        Set<DeferredResult<ResponseEntity<CambioKioscoDTO>>> deLaTienda = esperas.get(tienda);
+        if (deLaTienda == null || deLaTienda.isEmpty()) {
+            return;
+        }
+        ResponseEntity<CambioKioscoDTO> respuesta = respuesta(tienda);
+        for (DeferredResult<ResponseEntity<CambioKioscoDTO>> resultado : deLaTienda) {
+            if (deLaTienda.remove(resultado)) {
+                esperando.decrementAndGet();
+                if (resultado.setResult(respuesta)) {
+                    avisadas.increment();
+                }
+            }
+        }
+    }
+
+    private ResponseEntity<CambioKioscoDTO> respuesta(String tienda) {
+        return ResponseEntity.ok(new CambioKioscoDTO(lecturasCompartidas.obtenerVersion(tienda)));
+    }
+}
@@ -0,0 +1,31 @@
+package com.tienda.donarosa.model;
+
+/**
+ * Lo que un producto suma a los totales de su categoría (resumen_categorias).
+ * Los productos eliminados no aportan nada (null).
+ */
+public record AporteCategoria(String categoria, long productos, long unidades, long valorCentavos,
+                              long agotados, long cercaDeAgotarse) {
+
+    public static AporteCategoria de(Producto producto) {
+        if (producto.estaEliminado() || producto.getCantidad() == null || producto.getPrecioCentavos() == null) {
+            return null;
+        }
+        int cantidad = producto.getCantidad();
+        return new AporteCategoria(producto.getCategoria(), 1, cantidad, producto.getValorTotalCentavos(),
+                cantidad == 0 ? 1 : 0, producto.estaCercaDeAgotarse() ? 1 : 0);
+    }
+
+    public AporteCategoria mas(AporteCategoria otro) {
+        return new AporteCategoria(categoria, productos + otro.productos, unidades + otro.unidades,
+                valorCentavos + otro.valorCentavos, agotados + otro.agotados, cercaDeAgotarse + otro.cercaDeAgotarse);
+    }
+
+    public AporteCategoria negado() {
+        return new AporteCategoria(categoria, -productos, -unidades, -valorCentavos, -agotados, -cercaDeAgotarse);
+    }
+
+    public boolean esNulo() {
+        return productos == 0 && unidades == 0 && valorCentavos == 0 && agotados == 0 && cercaDeAgotarse == 0;
+    }
+}
@@ -0,0 +1,51 @@
+package com.tienda.donarosa.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Precio anterior y nuevo de cada producto afectado por un cambio masivo.
+ * Las filas se insertan con INSERT ... SELECT (ver PrecioMasivoService).
+ */
+@Entity
+@Table(name = "cambios_precios_detalle",
+        indexes = @Index(name = "idx_cambios_precios_detalle_cambio_producto", columnList = "cambio_id, producto_id"))
+public class CambioPrecioDetalle {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "cambio_id", nullable = false)
+    private Long cambioId;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Column(name = "precio_anterior", nullable = false, precision = 12, scale = 2)
+    private BigDecimal precioAnterior;
+
+    @Column(name = "precio_nuevo", nullable = false, precision = 12, scale = 2)
+    private BigDecimal precioNuevo;
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getCambioId() {
+        return cambioId;
+    }
+
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public BigDecimal getPrecioAnterior() {
+        return precioAnterior;
+    }
+
+    public BigDecimal getPrecioNuevo() {
+        return precioNuevo;
+    }
+}
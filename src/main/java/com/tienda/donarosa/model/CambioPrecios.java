@@ -0,0 +1,73 @@
+package com.tienda.donarosa.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.TenantId;
+
+import java.time.LocalDateTime;
+
+/**
+ * Registro de un cambio masivo de precios; el detalle por producto está en
+ * CambioPrecioDetalle
+ */
+@Entity
+@Table(name = "cambios_precios")
+public class CambioPrecios {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @TenantId
+    @Column(name = "tienda_id", nullable = false, length = 40, updatable = false)
+    private String tiendaId;
+
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+
+    @Column(nullable = false, length = 100)
+    private String usuario;
+
+    @Column(nullable = false, length = 500)
+    private String descripcion;
+
+    @Column(name = "productos_afectados", nullable = false)
+    private Long productosAfectados;
+
+    // Constructor vacío
+    public CambioPrecios() {}
+
+    public CambioPrecios(String usuario, String descripcion, LocalDateTime fecha) {
+        this.usuario = usuario;
+        this.descripcion = descripcion;
+        this.fecha = fecha;
+        this.productosAfectados = 0L;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTiendaId() {
+        return tiendaId;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public String getUsuario() {
+        return usuario;
+    }
+
+    public String getDescripcion() {
+        return descripcion;
+    }
+
+    public Long getProductosAfectados() {
+        return productosAfectados;
+    }
+
+    public void setProductosAfectados(Long productosAfectados) {
+        this.productosAfectados = productosAfectados;
+    }
+}
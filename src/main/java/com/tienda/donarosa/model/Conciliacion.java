@@ -0,0 +1,139 @@
+package com.tienda.donarosa.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.TenantId;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Una corrida de la conciliación de inventario de una tienda. El avance está en
+ * sus tramos (ConciliacionTramo); los totales se completan al terminar el
+ * último, y hasta entonces "fin" es null y la próxima ejecución la retoma.
+ */
+@Entity
+@Table(name = "conciliaciones", indexes = @Index(name = "idx_conciliaciones_tienda_fin", columnList = "tienda_id, fin"))
+public class Conciliacion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @TenantId
+    @Column(name = "tienda_id", nullable = false, length = 40, updatable = false)
+    private String tiendaId;
+
+    @Column(nullable = false)
+    private LocalDateTime inicio;
+
+    private LocalDateTime fin;
+
+    @Column(nullable = false)
+    private Long productos = 0L;
+
+    @Column(nullable = false)
+    private Long existencias = 0L;
+
+    @Column(name = "sin_movimientos", nullable = false)
+    private Long sinMovimientos = 0L;
+
+    @Column(name = "cantidades_iniciales", nullable = false)
+    private Long cantidadesIniciales = 0L;
+
+    // Recalculados desde productos, lote por lote
+    @Column(nullable = false)
+    private Long unidades = 0L;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal valor = BigDecimal.ZERO;
+
+    // resumen_categorias menos lo calculado desde productos, en una sola lectura al terminar
+    @Column(name = "diferencia_unidades")
+    private Long diferenciaUnidades;
+
+    @Column(name = "diferencia_valor", precision = 19, scale = 2)
+    private BigDecimal diferenciaValor;
+
+    @Column(name = "categorias_con_diferencias")
+    private Long categoriasConDiferencias;
+
+    // Constructor vacío
+    public Conciliacion() {}
+
+    public Conciliacion(LocalDateTime inicio) {
+        this.inicio = inicio;
+    }
+
+    /**
+     * Cierra la corrida con los totales de sus tramos y las diferencias del resumen por categorías
+     */
+    public void terminar(LocalDateTime fin, Iterable<ConciliacionTramo> tramos, long diferenciaUnidades,
+                         BigDecimal diferenciaValor, long categoriasConDiferencias) {
+        productos = existencias = sinMovimientos = cantidadesIniciales = unidades = 0L;
+        valor = BigDecimal.ZERO;
+        for (ConciliacionTramo tramo : tramos) {
+            productos += tramo.getProductos();
+            existencias += tramo.getExistencias();
+            sinMovimientos += tramo.getSinMovimientos();
+            cantidadesIniciales += tramo.getCantidadesIniciales();
+            unidades += tramo.getUnidades();
+            valor = valor.add(tramo.getValor());
+        }
+        this.diferenciaUnidades = diferenciaUnidades;
+        this.diferenciaValor = diferenciaValor;
+        this.categoriasConDiferencias = categoriasConDiferencias;
+        this.fin = fin;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTiendaId() {
+        return tiendaId;
+    }
+
+    public LocalDateTime getInicio() {
+        return inicio;
+    }
+
+    public LocalDateTime getFin() {
+        return fin;
+    }
+
+    public Long getProductos() {
+        return productos;
+    }
+
+    public Long getExistencias() {
+        return existencias;
+    }
+
+    public Long getSinMovimientos() {
+        return sinMovimientos;
+    }
+
+    public Long getCantidadesIniciales() {
+        return cantidadesIniciales;
+    }
+
+    public Long getUnidades() {
+        return unidades;
+    }
+
+    public BigDecimal getValor() {
+        return valor;
+    }
+
+    public Long getDiferenciaUnidades() {
+        return diferenciaUnidades;
+    }
+
+    public BigDecimal getDiferenciaValor() {
+        return diferenciaValor;
+    }
+
+    public Long getCategoriasConDiferencias() {
+        return categoriasConDiferencias;
+    }
+}
@@ -0,0 +1,153 @@
+package com.tienda.donarosa.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.TenantId;
+
+import java.math.BigDecimal;
+
+/**
+ * Rango de IDs de productos (desde, hasta] de una conciliación, con su avance:
+ * el último ID revisado y lo encontrado hasta ahí. Cada lote se confirma junto
+ * con su avance, así que retomar no cuenta dos veces ningún producto.
+ */
+@Entity
+@Table(name = "conciliacion_tramos",
+        indexes = @Index(name = "idx_conciliacion_tramos_conciliacion", columnList = "conciliacion_id, desde"))
+public class ConciliacionTramo {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @TenantId
+    @Column(name = "tienda_id", nullable = false, length = 40, updatable = false)
+    private String tiendaId;
+
+    @Column(name = "conciliacion_id", nullable = false)
+    private Long conciliacionId;
+
+    @Column(nullable = false)
+    private Long desde;
+
+    @Column(nullable = false)
+    private Long hasta;
+
+    @Column(name = "ultimo_id", nullable = false)
+    private Long ultimoId;
+
+    @Column(nullable = false)
+    private Boolean terminado = false;
+
+    @Column(nullable = false)
+    private Long productos = 0L;
+
+    @Column(nullable = false)
+    private Long existencias = 0L;
+
+    @Column(name = "sin_movimientos", nullable = false)
+    private Long sinMovimientos = 0L;
+
+    @Column(name = "cantidades_iniciales", nullable = false)
+    private Long cantidadesIniciales = 0L;
+
+    @Column(nullable = false)
+    private Long unidades = 0L;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal valor = BigDecimal.ZERO;
+
+    // Constructor vacío
+    public ConciliacionTramo() {}
+
+    public ConciliacionTramo(Long conciliacionId, Long desde, Long hasta) {
+        this.conciliacionId = conciliacionId;
+        this.desde = desde;
+        this.hasta = hasta;
+        this.ultimoId = desde;
+    }
+
+    /**
+     * Suma un producto activo revisado
+     */
+    public void sumar(long id, int cantidad, BigDecimal precio) {
+        contar(id);
+        unidades += cantidad;
+        valor = valor.add(precio.multiply(BigDecimal.valueOf(cantidad)));
+    }
+
+    /**
+     * Cuenta un producto revisado que no suma al inventario (eliminado)
+     */
+    public void contar(long id) {
+        productos++;
+        ultimoId = id;
+    }
+
+    /**
+     * Cuenta una diferencia; devuelve las que lleva el tramo
+     */
+    public long registrar(TipoDiferencia tipo) {
+        switch (tipo) {
+            case EXISTENCIAS -> existencias++;
+            case SIN_MOVIMIENTOS -> sinMovimientos++;
+            case CANTIDAD_INICIAL -> cantidadesIniciales++;
+        }
+        return existencias + sinMovimientos + cantidadesIniciales;
+    }
+
+    public void terminar() {
+        terminado = true;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTiendaId() {
+        return tiendaId;
+    }
+
+    public Long getConciliacionId() {
+        return conciliacionId;
+    }
+
+    public Long getDesde() {
+        return desde;
+    }
+
+    public Long getHasta() {
+        return hasta;
+    }
+
+    public Long getUltimoId() {
+        return ultimoId;
+    }
+
+    public Boolean getTerminado() {
+        return terminado;
+    }
+
+    public Long getProductos() {
+        return productos;
+    }
+
+    public Long getExistencias() {
+        return existencias;
+    }
+
+    public Long getSinMovimientos() {
+        return sinMovimientos;
+    }
+
+    public Long getCantidadesIniciales() {
+        return cantidadesIniciales;
+    }
+
+    public Long getUnidades() {
+        return unidades;
+    }
+
+    public BigDecimal getValor() {
+        return valor;
+    }
+}
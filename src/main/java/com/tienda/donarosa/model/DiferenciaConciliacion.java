@@ -0,0 +1,81 @@
+package com.tienda.donarosa.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.TenantId;
+import org.hibernate.type.SqlTypes;
+
+/**
+ * Un producto con una diferencia encontrada por la conciliación. Para
+ * EXISTENCIAS y SIN_MOVIMIENTOS "esperado" es la cantidad (cero si está
+ * eliminado) y "encontrado" la suma de sus movimientos; para CANTIDAD_INICIAL
+ * "encontrado" es la cantidad inicial.
+ */
+@Entity
+@Table(name = "conciliacion_diferencias",
+        indexes = @Index(name = "idx_conciliacion_diferencias_conciliacion", columnList = "conciliacion_id, producto_id"))
+public class DiferenciaConciliacion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @TenantId
+    @Column(name = "tienda_id", nullable = false, length = 40, updatable = false)
+    private String tiendaId;
+
+    @Column(name = "conciliacion_id", nullable = false)
+    private Long conciliacionId;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false, length = 20)
+    private TipoDiferencia tipo;
+
+    private Long esperado;
+
+    private Long encontrado;
+
+    // Constructor vacío
+    public DiferenciaConciliacion() {}
+
+    public DiferenciaConciliacion(Long conciliacionId, Long productoId, TipoDiferencia tipo, Long esperado,
+                                  Long encontrado) {
+        this.conciliacionId = conciliacionId;
+        this.productoId = productoId;
+        this.tipo = tipo;
+        this.esperado = esperado;
+        this.encontrado = encontrado;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTiendaId() {
+        return tiendaId;
+    }
+
+    public Long getConciliacionId() {
+        return conciliacionId;
+    }
+
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public TipoDiferencia getTipo() {
+        return tipo;
+    }
+
+    public Long getEsperado() {
+        return esperado;
+    }
+
+    public Long getEncontrado() {
+        return encontrado;
+    }
+}
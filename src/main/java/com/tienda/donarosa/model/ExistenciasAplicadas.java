@@ -0,0 +1,34 @@
+package com.tienda.donarosa.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Último registro del diario de existencias aplicado en cada tienda.
+ * Se actualiza en la misma transacción que las cantidades (ver EscrituraDiferidaService),
+ * así al recuperar el diario se sabe qué cambios ya están en la base de datos.
+ */
+@Entity
+@Table(name = "existencias_aplicadas")
+public class ExistenciasAplicadas {
+
+    @Id
+    @Column(name = "tienda_id", length = 40)
+    private String tiendaId;
+
+    @Column(nullable = false)
+    private Long secuencia;
+
+    protected ExistenciasAplicadas() {
+    }
+
+    public String getTiendaId() {
+        return tiendaId;
+    }
+
+    public Long getSecuencia() {
+        return secuencia;
+    }
+}
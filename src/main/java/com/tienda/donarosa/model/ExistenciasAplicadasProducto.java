@@ -0,0 +1,60 @@
+package com.tienda.donarosa.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Registros del diario de existencias de un producto (secuencias desde..hasta) que
+ * se aplicaron antes que el resto de la tienda, al editarlo o eliminarlo.
+ * Se escribe en la misma transacción que la cantidad (ver EscrituraDiferidaService)
+ * y se borra cuando existencias_aplicadas de la tienda llega a "hasta".
+ */
+@Entity
+@Table(name = "existencias_aplicadas_productos",
+        indexes = @Index(name = "idx_existencias_aplicadas_productos_tienda", columnList = "tienda_id, hasta"))
+public class ExistenciasAplicadasProducto {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tienda_id", nullable = false, length = 40)
+    private String tiendaId;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Column(nullable = false)
+    private Long desde;
+
+    @Column(nullable = false)
+    private Long hasta;
+
+    protected ExistenciasAplicadasProducto() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTiendaId() {
+        return tiendaId;
+    }
+
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public Long getDesde() {
+        return desde;
+    }
+
+    public Long getHasta() {
+        return hasta;
+    }
+}
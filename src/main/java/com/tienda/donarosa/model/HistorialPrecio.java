@@ -0,0 +1,70 @@
+package com.tienda.donarosa.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.TenantId;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Intervalo en que un producto tuvo un precio: [desde, hasta). El vigente
+ * tiene hasta en NULL y hay a lo más uno por producto.
+ *
+ * Como en movimientos, producto_id no es llave foránea: la historia se
+ * conserva al archivar o purgar el producto.
+ */
+@Entity
+@Table(name = "historial_precios", indexes = {
+        @Index(name = "idx_historial_precios_tienda_producto_desde", columnList = "tienda_id, producto_id, desde")
+})
+public class HistorialPrecio {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @TenantId
+    @Column(name = "tienda_id", nullable = false, length = 40, updatable = false)
+    private String tiendaId;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal precio;
+
+    @Column(nullable = false)
+    private LocalDateTime desde;
+
+    private LocalDateTime hasta;
+
+    // Constructor vacío
+    public HistorialPrecio() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTiendaId() {
+        return tiendaId;
+    }
+
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public BigDecimal getPrecio() {
+        return precio;
+    }
+
+    public LocalDateTime getDesde() {
+        return desde;
+    }
+
+    /**
+     * Fin del intervalo (excluido); null si es el precio vigente
+     */
+    public LocalDateTime getHasta() {
+        return hasta;
+    }
+}
@@ -0,0 +1,90 @@
+package com.tienda.donarosa.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.TenantId;
+import org.hibernate.type.SqlTypes;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Movimiento de inventario: cada cambio de cantidad de un producto queda
+ * registrado con su signo (las ventas y bajas restan), así que la suma de
+ * los movimientos de un producto es su cantidad actual.
+ *
+ * producto_id no es llave foránea para conservar la historia de los
+ * productos eliminados.
+ */
+@Entity
+@Table(name = "movimientos", indexes = {
+        @Index(name = "idx_movimientos_tienda_producto_fecha", columnList = "tienda_id, producto_id, fecha"),
+        @Index(name = "idx_movimientos_tienda_fecha", columnList = "tienda_id, fecha")
+})
+public class Movimiento {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @TenantId
+    @Column(name = "tienda_id", nullable = false, length = 40, updatable = false)
+    private String tiendaId;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false, length = 20)
+    private TipoMovimiento tipo;
+
+    // Variación de la cantidad: positiva para altas y reposiciones, negativa para ventas y bajas
+    @Column(nullable = false)
+    private Integer cantidad;
+
+    @Column(name = "precio_unitario", nullable = false, precision = 12, scale = 2)
+    private BigDecimal precioUnitario;
+
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+
+    // Constructor vacío
+    public Movimiento() {}
+
+    public Movimiento(Long productoId, TipoMovimiento tipo, Integer cantidad, BigDecimal precioUnitario, LocalDateTime fecha) {
+        this.productoId = productoId;
+        this.tipo = tipo;
+        this.cantidad = cantidad;
+        this.precioUnitario = precioUnitario;
+        this.fecha = fecha;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTiendaId() {
+        return tiendaId;
+    }
+
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public TipoMovimiento getTipo() {
+        return tipo;
+    }
+
+    public Integer getCantidad() {
+        return cantidad;
+    }
+
+    public BigDecimal getPrecioUnitario() {
+        return precioUnitario;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+}
@@ -0,0 +1,43 @@
+package com.tienda.donarosa.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Subselect;
+import org.hibernate.annotations.Synchronize;
+import org.hibernate.annotations.TenantId;
+
+/**
+ * Nombre de un producto para los reportes de historia (ventas, cambios de precio).
+ * Lee la misma tabla que Producto pero sin excluir los eliminados, que
+ * siguen apareciendo con su nombre hasta que se purgan, y también los
+ * productos archivados. Es una consulta y no una tabla, así que Hibernate no la
+ * toma en cuenta al actualizar el esquema.
+ */
+@Entity
+@Immutable
+@Subselect("SELECT id, tienda_id, nombre FROM productos " +
+           "UNION ALL SELECT id, tienda_id, nombre FROM productos_archivados")
+@Synchronize({"productos", "productos_archivados"})
+public class NombreProducto {
+
+    @Id
+    private Long id;
+
+    @TenantId
+    @Column(name = "tienda_id")
+    private String tiendaId;
+
+    private String nombre;
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTiendaId() {
+        return tiendaId;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+}
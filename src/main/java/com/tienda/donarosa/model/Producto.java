@@ -2,26 +2,64 @@ package com.tienda.donarosa.model;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.SQLRestriction;
+import org.hibernate.annotations.TenantId;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Locale;
 
 @Entity
-@Table(name = "productos")
+@Table(name = "productos",
+        uniqueConstraints = @UniqueConstraint(name = "uk_productos_tienda_nombre", columnNames = {"tienda_id", "nombre"}),
+        indexes = {
+                @Index(name = "idx_productos_tienda_id", columnList = "tienda_id, id"),
+                @Index(name = "idx_productos_tienda_cantidad", columnList = "tienda_id, cantidad"),
+                @Index(name = "idx_productos_tienda_eliminado", columnList = "tienda_id, eliminado_en"),
+                @Index(name = "idx_productos_tienda_agotado", columnList = "tienda_id, agotado_desde"),
+                @Index(name = "idx_productos_tienda_actualizado", columnList = "tienda_id, actualizado_en")
+        })
+// Los productos eliminados quedan en la tabla hasta que PurgaProductosTarea los borra
+@SQLRestriction("eliminado_en IS NULL")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Producto {
 
+    public static final String CATEGORIA_GENERAL = "general";
+    public static final int LARGO_CATEGORIA = 40;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Tienda (sucursal) dueña del producto; Hibernate la asigna y filtra por ella
+    @TenantId
+    @ColumnDefault("'principal'")
+    @Column(name = "tienda_id", nullable = false, length = 40, updatable = false)
+    private String tiendaId;
+
     @NotBlank(message = "El nombre del producto es obligatorio")
     @Size(min = 2, max = 100, message = "El nombre debe tener entre 2 y 100 caracteres")
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String nombre;
 
-    @NotNull(message = "El precio es obligatorio")
-    @DecimalMin(value = "0.0", inclusive = false, message = "El precio debe ser mayor a 0")
-    @Digits(integer = 10, fraction = 2, message = "Formato de precio inválido")
-    @Column(nullable = false, precision = 12, scale = 2)
-    private BigDecimal precio;
+    // En minúsculas; los productos sin categoría quedan en "general"
+    @Size(max = LARGO_CATEGORIA, message = "La categoría no puede tener más de 40 caracteres")
+    @ColumnDefault("'" + CATEGORIA_GENERAL + "'")
+    @Column(nullable = false, length = LARGO_CATEGORIA)
+    private String categoria;
+
+    // En centavos; la columna sigue siendo DECIMAL(12, 2) y se mapea por getPrecio/setPrecio
+    @Transient
+    private Long precioCentavos;
+
+    // Precio recibido que no es un número exacto de centavos: se conserva tal cual
+    // para que la validación (@Digits) lo rechace en vez de redondearlo
+    @Transient
+    private BigDecimal precioInvalido;
 
     @NotNull(message = "La cantidad es obligatoria")
     @Min(value = 0, message = "La cantidad no puede ser negativa")
@@ -31,17 +69,48 @@ public class Producto {
     @Column(name = "cantidad_inicial")
     private Integer cantidadInicial;
 
+    // Calculados por PuntoReordenTarea a partir de las ventas recientes (null si no hay ventas)
+    @Column(name = "punto_reorden")
+    private Integer puntoReorden;
+
+    @Column(name = "demanda_diaria")
+    private Double demandaDiaria;
+
+    @Column(name = "dias_cobertura")
+    private Double diasCobertura;
+
+    // Desde cuándo la cantidad es cero (null con existencias); ArchivoProductosService archiva los agotados hace mucho
+    @Column(name = "agotado_desde")
+    private LocalDateTime agotadoDesde;
+
+    // Última escritura de la fila; los respaldos incrementales copian las filas cambiadas desde el anterior
+    @Column(name = "actualizado_en")
+    private LocalDateTime actualizadoEn;
+
+    // Baja lógica: null mientras el producto está activo
+    @Column(name = "eliminado_en")
+    private LocalDateTime eliminadoEn;
+
+    // Con qué figura el producto en resumen_categorias; null si todavía no suma (ver ResumenCategoriasService)
+    @Transient
+    private AporteCategoria aporteRegistrado;
+
     // Constructor vacío
     public Producto() {}
 
     // Constructor con parámetros
     public Producto(String nombre, BigDecimal precio, Integer cantidad) {
         this.nombre = nombre;
-        this.precio = precio;
-        this.cantidad = cantidad;
+        setPrecio(precio);
+        setCantidad(cantidad);
         this.cantidadInicial = cantidad;
     }
 
+    public Producto(String nombre, String categoria, BigDecimal precio, Integer cantidad) {
+        this(nombre, precio, cantidad);
+        setCategoria(categoria);
+    }
+
     // Getters y Setters
     public Long getId() {
         return id;
@@ -51,6 +120,10 @@ public class Producto {
         this.id = id;
     }
 
+    public String getTiendaId() {
+        return tiendaId;
+    }
+
     public String getNombre() {
         return nombre;
     }
@@ -59,12 +132,46 @@ public class Producto {
         this.nombre = nombre;
     }
 
+    public String getCategoria() {
+        return categoria;
+    }
+
+    public void setCategoria(String categoria) {
+        this.categoria = categoria == null || categoria.isBlank()
+                ? CATEGORIA_GENERAL : categoria.strip().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Precio en pesos para la base de datos, la API y los formularios.
+     * Con más de dos decimales no se redondea: queda para que lo rechace la validación.
+     */
+    @Access(AccessType.PROPERTY)
+    @Column(name = "precio", nullable = false, precision = 12, scale = 2)
+    @NotNull(message = "El precio es obligatorio")
+    @DecimalMin(value = "0.0", inclusive = false, message = "El precio debe ser mayor a 0")
+    @Digits(integer = 10, fraction = 2, message = "Formato de precio inválido")
     public BigDecimal getPrecio() {
-        return precio;
+        if (precioInvalido != null) {
+            return precioInvalido;
+        }
+        return precioCentavos == null ? null : BigDecimal.valueOf(precioCentavos, 2);
     }
 
     public void setPrecio(BigDecimal precio) {
-        this.precio = precio;
+        this.precioInvalido = null;
+        this.precioCentavos = null;
+        if (precio == null) {
+            return;
+        }
+        try {
+            this.precioCentavos = aCentavos(precio);
+        } catch (ArithmeticException e) {
+            this.precioInvalido = precio;
+        }
+    }
+
+    public Long getPrecioCentavos() {
+        return precioCentavos;
     }
 
     public Integer getCantidad() {
@@ -73,6 +180,11 @@ public class Producto {
 
     public void setCantidad(Integer cantidad) {
         this.cantidad = cantidad;
+        if (cantidad == null || cantidad > 0) {
+            agotadoDesde = null;
+        } else if (agotadoDesde == null) {
+            agotadoDesde = LocalDateTime.now();
+        }
     }
 
     public Integer getCantidadInicial() {
@@ -83,12 +195,87 @@ public class Producto {
         this.cantidadInicial = cantidadInicial;
     }
 
+    public Integer getPuntoReorden() {
+        return puntoReorden;
+    }
+
+    public void setPuntoReorden(Integer puntoReorden) {
+        this.puntoReorden = puntoReorden;
+    }
+
+    public Double getDemandaDiaria() {
+        return demandaDiaria;
+    }
+
+    public void setDemandaDiaria(Double demandaDiaria) {
+        this.demandaDiaria = demandaDiaria;
+    }
+
+    public Double getDiasCobertura() {
+        return diasCobertura;
+    }
+
+    public void setDiasCobertura(Double diasCobertura) {
+        this.diasCobertura = diasCobertura;
+    }
+
+    public LocalDateTime getAgotadoDesde() {
+        return agotadoDesde;
+    }
+
+    public LocalDateTime getActualizadoEn() {
+        return actualizadoEn;
+    }
+
+    public LocalDateTime getEliminadoEn() {
+        return eliminadoEn;
+    }
+
+    public void setEliminadoEn(LocalDateTime eliminadoEn) {
+        this.eliminadoEn = eliminadoEn;
+    }
+
+    public AporteCategoria aporteRegistrado() {
+        return aporteRegistrado;
+    }
+
+    public void registrarAporte(AporteCategoria aporte) {
+        this.aporteRegistrado = aporte;
+    }
+
     // Métodos de negocio
+    /**
+     * Hibernate filtra las consultas por tienda, pero no la carga por ID;
+     * los productos aún sin guardar no tienen tienda asignada
+     */
+    public boolean perteneceATienda(String tienda) {
+        return tiendaId == null || tiendaId.equals(tienda);
+    }
+
+    /**
+     * Las consultas no devuelven productos eliminados, pero el caché de segundo
+     * nivel sí puede hacerlo al cargar por ID
+     */
+    public boolean estaEliminado() {
+        return eliminadoEn != null;
+    }
+
     public BigDecimal getValorTotal() {
-        return precio.multiply(BigDecimal.valueOf(cantidad));
+        return BigDecimal.valueOf(getValorTotalCentavos(), 2);
+    }
+
+    public long getValorTotalCentavos() {
+        return Math.multiplyExact(precioCentavos, (long) cantidad);
     }
 
+    /**
+     * Usa el punto de reorden calculado con la demanda real; sin historial de
+     * ventas, la regla del 10% de la cantidad inicial
+     */
     public boolean estaCercaDeAgotarse() {
+        if (puntoReorden != null) {
+            return cantidad <= puntoReorden;
+        }
         if (cantidadInicial == null || cantidadInicial == 0) {
             return cantidad <= 1;
         }
@@ -102,21 +289,46 @@ public class Producto {
         return ((double) cantidad / cantidadInicial) * 100;
     }
 
+    /**
+     * Centavos exactos; ArithmeticException si el monto tiene fracciones de centavo o no entra en un long
+     */
+    public static long aCentavos(BigDecimal pesos) {
+        return pesos.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
     @PrePersist
     public void prePersist() {
         if (cantidadInicial == null) {
             cantidadInicial = cantidad;
         }
+        if (categoria == null) {
+            categoria = CATEGORIA_GENERAL;
+        }
+        actualizadoEn = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        actualizadoEn = LocalDateTime.now();
+    }
+
+    // Lo leído de la base ya está sumado en resumen_categorias
+    @PostLoad
+    public void postLoad() {
+        aporteRegistrado = AporteCategoria.de(this);
     }
 
     @Override
     public String toString() {
         return "Producto{" +
                 "id=" + id +
+                ", tiendaId='" + tiendaId + '\'' +
                 ", nombre='" + nombre + '\'' +
-                ", precio=" + precio +
+                ", categoria='" + categoria + '\'' +
+                ", precio=" + getPrecio() +
                 ", cantidad=" + cantidad +
                 ", cantidadInicial=" + cantidadInicial +
+                ", puntoReorden=" + puntoReorden +
                 '}';
     }
 }
@@ -0,0 +1,85 @@
+package com.tienda.donarosa.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.TenantId;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Producto agotado hace mucho, movido fuera de la tabla productos por
+ * ArchivoProductosService. Conserva su ID; al reponerlo o buscarlo por nombre
+ * vuelve a productos con cantidad cero.
+ *
+ * No usa el caché de segundo nivel: las consultas al archivo son la vía lenta.
+ */
+@Entity
+@Table(name = "productos_archivados", indexes = {
+        @Index(name = "idx_productos_archivados_tienda_nombre", columnList = "tienda_id, nombre")
+})
+public class ProductoArchivado {
+
+    // El mismo ID que tenía (y vuelve a tener) en productos
+    @Id
+    private Long id;
+
+    @TenantId
+    @ColumnDefault("'principal'")
+    @Column(name = "tienda_id", nullable = false, length = 40, updatable = false)
+    private String tiendaId;
+
+    @Column(nullable = false)
+    private String nombre;
+
+    @ColumnDefault("'" + Producto.CATEGORIA_GENERAL + "'")
+    @Column(nullable = false, length = Producto.LARGO_CATEGORIA)
+    private String categoria;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal precio;
+
+    @Column(name = "cantidad_inicial")
+    private Integer cantidadInicial;
+
+    @Column(name = "punto_reorden")
+    private Integer puntoReorden;
+
+    @Column(name = "archivado_en", nullable = false)
+    private LocalDateTime archivadoEn;
+
+    // Constructor vacío
+    public ProductoArchivado() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTiendaId() {
+        return tiendaId;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public String getCategoria() {
+        return categoria;
+    }
+
+    public BigDecimal getPrecio() {
+        return precio;
+    }
+
+    public Integer getCantidadInicial() {
+        return cantidadInicial;
+    }
+
+    public Integer getPuntoReorden() {
+        return puntoReorden;
+    }
+
+    public LocalDateTime getArchivadoEn() {
+        return archivadoEn;
+    }
+}
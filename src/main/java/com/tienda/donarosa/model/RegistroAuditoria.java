@@ -0,0 +1,83 @@
+package com.tienda.donarosa.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.TenantId;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entrada de la auditoría de productos. Las filas las escribe por lotes
+ * AuditoriaService desde su hilo en segundo plano.
+ */
+@Entity
+@Table(name = "auditoria", indexes = {
+        @Index(name = "idx_auditoria_tienda_fecha", columnList = "tienda_id, fecha"),
+        @Index(name = "idx_auditoria_tienda_producto", columnList = "tienda_id, producto_id")
+})
+public class RegistroAuditoria {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @TenantId
+    @Column(name = "tienda_id", nullable = false, length = 40, updatable = false)
+    private String tiendaId;
+
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+
+    @Column(nullable = false, length = 100)
+    private String usuario;
+
+    @Column(nullable = false, length = 30)
+    private String accion;
+
+    @Column(name = "producto_id")
+    private Long productoId;
+
+    @Column(name = "cantidad_anterior")
+    private Integer cantidadAnterior;
+
+    @Column(name = "cantidad_nueva")
+    private Integer cantidadNueva;
+
+    @Column(length = 500)
+    private String detalle;
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTiendaId() {
+        return tiendaId;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public String getUsuario() {
+        return usuario;
+    }
+
+    public String getAccion() {
+        return accion;
+    }
+
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public Integer getCantidadAnterior() {
+        return cantidadAnterior;
+    }
+
+    public Integer getCantidadNueva() {
+        return cantidadNueva;
+    }
+
+    public String getDetalle() {
+        return detalle;
+    }
+}
@@ -0,0 +1,77 @@
+package com.tienda.donarosa.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.TenantId;
+
+import java.math.BigDecimal;
+
+/**
+ * Totales del inventario activo por categoría, precalculados.
+ * Se actualizan al confirmar cada transacción que cambia productos
+ * (ver ResumenCategoriasService) y se pueden reconstruir desde productos.
+ */
+@Entity
+@Table(name = "resumen_categorias",
+        uniqueConstraints = @UniqueConstraint(name = "uk_resumen_categorias_tienda_categoria",
+                columnNames = {"tienda_id", "categoria"}))
+public class ResumenCategoria {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @TenantId
+    @Column(name = "tienda_id", nullable = false, length = 40, updatable = false)
+    private String tiendaId;
+
+    @Column(nullable = false, length = Producto.LARGO_CATEGORIA)
+    private String categoria;
+
+    @Column(nullable = false)
+    private Long productos;
+
+    @Column(nullable = false)
+    private Long unidades;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal valor;
+
+    @Column(nullable = false)
+    private Long agotados;
+
+    // Incluye a los agotados, como ResumenInventarioDTO
+    @Column(name = "cerca_de_agotarse", nullable = false)
+    private Long cercaDeAgotarse;
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTiendaId() {
+        return tiendaId;
+    }
+
+    public String getCategoria() {
+        return categoria;
+    }
+
+    public Long getProductos() {
+        return productos;
+    }
+
+    public Long getUnidades() {
+        return unidades;
+    }
+
+    public BigDecimal getValor() {
+        return valor;
+    }
+
+    public Long getAgotados() {
+        return agotados;
+    }
+
+    public Long getCercaDeAgotarse() {
+        return cercaDeAgotarse;
+    }
+}
@@ -0,0 +1,13 @@
+package com.tienda.donarosa.model;
+
+/**
+ * Diferencias que encuentra la conciliación de inventario
+ */
+public enum TipoDiferencia {
+    // La cantidad (cero si el producto está eliminado) no es la suma de sus movimientos
+    EXISTENCIAS,
+    // Como EXISTENCIAS, pero el producto no tiene ningún movimiento (anterior a los movimientos o escrito por SQL)
+    SIN_MOVIMIENTOS,
+    // cantidad_inicial nula o negativa
+    CANTIDAD_INICIAL
+}
@@ -0,0 +1,12 @@
+package com.tienda.donarosa.model;
+
+/**
+ * Tipos de movimiento de inventario
+ */
+public enum TipoMovimiento {
+    ALTA,
+    AJUSTE,
+    VENTA,
+    REPOSICION,
+    BAJA
+}
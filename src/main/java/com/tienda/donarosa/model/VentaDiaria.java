@@ -0,0 +1,63 @@
+package com.tienda.donarosa.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.TenantId;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Ventas por producto y día (unidades e ingresos), precalculadas.
+ * Se actualizan en la misma transacción de cada venta (ver MovimientoService)
+ * y se pueden reconstruir desde los movimientos.
+ */
+@Entity
+@Table(name = "ventas_diarias",
+        uniqueConstraints = @UniqueConstraint(name = "uk_ventas_diarias_tienda_producto_dia", columnNames = {"tienda_id", "producto_id", "dia"}),
+        indexes = @Index(name = "idx_ventas_diarias_tienda_dia", columnList = "tienda_id, dia"))
+public class VentaDiaria {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @TenantId
+    @Column(name = "tienda_id", nullable = false, length = 40, updatable = false)
+    private String tiendaId;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Column(nullable = false)
+    private LocalDate dia;
+
+    @Column(nullable = false)
+    private Long unidades;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal ingresos;
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTiendaId() {
+        return tiendaId;
+    }
+
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public LocalDate getDia() {
+        return dia;
+    }
+
+    public Long getUnidades() {
+        return unidades;
+    }
+
+    public BigDecimal getIngresos() {
+        return ingresos;
+    }
+}
@@ -0,0 +1,129 @@
+package com.tienda.donarosa.multitienda;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Estructuras en memoria derivadas de la base de datos, una por tienda
+ * (inventario por columnas, índice de búsqueda...).
+ *
+ * Cada copia se carga la primera vez que se pide y después se mantiene con
+ * los cambios que le aplican los servicios. Los cambios que llegan mientras
+ * se carga se guardan y se aplican al terminar; una invalidación durante la
+ * carga la repite, porque lo leído puede ser anterior a la invalidación.
+ */
+public final class CopiasPorTienda<T> {
+
+    private final Function<String, T> cargador;
+    private final Map<String, Copia> copias = new ConcurrentHashMap<>();
+
+    public CopiasPorTienda(Function<String, T> cargador) {
+        this.cargador = cargador;
+    }
+
+    /**
+     * Copia de la tienda, cargándola si hace falta
+     */
+    public T obtener(String tienda) {
+        return copias.computeIfAbsent(tienda, t -> new Copia()).obtener(tienda);
+    }
+
+    /**
+     * Aplica un cambio a la copia de la tienda si ya está cargada (o cargándose)
+     */
+    public void aplicar(String tienda, Consumer<T> cambio) {
+        Copia copia = copias.get(tienda);
+        if (copia != null) {
+            copia.aplicar(cambio);
+        }
+    }
+
+    /**
+     * Descarta la copia de la tienda; se vuelve a cargar en el próximo uso
+     */
+    public void invalidar(String tienda) {
+        Copia copia = copias.get(tienda);
+        if (copia != null) {
+            copia.invalidar();
+        }
+    }
+
+    /**
+     * Ejecuta la acción al confirmarse la transacción actual, o enseguida si no hay una
+     */
+    public static void alConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    private final class Copia {
+
+        private T valor;
+        private List<Consumer<T>> pendientes;
+        private long version;
+
+        T obtener(String tienda) {
+            while (true) {
+                long versionCarga;
+                synchronized (this) {
+                    if (valor != null) {
+                        return valor;
+                    }
+                    versionCarga = version;
+                    if (pendientes == null) {
+                        pendientes = new ArrayList<>();
+                    }
+                }
+                T cargado;
+                try {
+                    cargado = cargador.apply(tienda);
+                } catch (RuntimeException e) {
+                    synchronized (this) {
+                        pendientes = null;
+                    }
+                    throw e;
+                }
+                synchronized (this) {
+                    if (valor != null) {
+                        return valor;
+                    }
+                    if (version == versionCarga && pendientes != null) {
+                        pendientes.forEach(cambio -> cambio.accept(cargado));
+                        pendientes = null;
+                        valor = cargado;
+                        return cargado;
+                    }
+                }
+            }
+        }
+
+        synchronized void aplicar(Consumer<T> cambio) {
+            if (valor != null) {
+                cambio.accept(valor);
+            } else if (pendientes != null) {
+                pendientes.add(cambio);
+            }
+        }
+
+        synchronized void invalidar() {
+            valor = null;
+            version++;
+            pendientes = null;
+        }
+    }
+}
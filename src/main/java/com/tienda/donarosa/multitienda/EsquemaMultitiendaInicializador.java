@@ -0,0 +1,122 @@
+package com.tienda.donarosa.multitienda;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ajusta el esquema al arrancar, después de que Hibernate actualiza las tablas:
+ *
+ * 1. Elimina la restricción única global sobre productos.nombre de las bases
+ *    creadas antes de las sucursales (ahora es única por tienda).
+ * 2. Crea el esquema de cada tienda con esquema propio y copia en él la
+ *    estructura de las tablas de PUBLIC que todavía no existan, y las columnas
+ *    que Hibernate agregó a PUBLIC en tablas que ya existían.
+ *
+ * Corre antes que los demás ApplicationRunner, que pueden escribir datos.
+ */
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class EsquemaMultitiendaInicializador implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(EsquemaMultitiendaInicializador.class);
+
+    private static final String ESQUEMA_BASE = "PUBLIC";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, String> esquemas;
+
+    public EsquemaMultitiendaInicializador(JdbcTemplate jdbcTemplate, Map<String, String> esquemas) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.esquemas = esquemas;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        eliminarUnicidadGlobalDeNombre();
+        esquemas.forEach(this::provisionarEsquema);
+    }
+
+    private void eliminarUnicidadGlobalDeNombre() {
+        List<String> restricciones = jdbcTemplate.queryForList(
+                "SELECT tc.CONSTRAINT_NAME FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS tc " +
+                "WHERE tc.TABLE_SCHEMA = ? AND tc.TABLE_NAME = 'PRODUCTOS' AND tc.CONSTRAINT_TYPE = 'UNIQUE' " +
+                "AND (SELECT COUNT(*) FROM INFORMATION_SCHEMA.KEY_COLUMN_USAGE k " +
+                "     WHERE k.CONSTRAINT_SCHEMA = tc.CONSTRAINT_SCHEMA AND k.CONSTRAINT_NAME = tc.CONSTRAINT_NAME) = 1 " +
+                "AND EXISTS (SELECT 1 FROM INFORMATION_SCHEMA.KEY_COLUMN_USAGE k " +
+                "     WHERE k.CONSTRAINT_SCHEMA = tc.CONSTRAINT_SCHEMA AND k.CONSTRAINT_NAME = tc.CONSTRAINT_NAME " +
+                "     AND k.COLUMN_NAME = 'NOMBRE')",
+                String.class, ESQUEMA_BASE);
+
+        for (String restriccion : restricciones) {
+            log.info("Eliminando restricción única global {} sobre productos.nombre", restriccion);
+            jdbcTemplate.execute("ALTER TABLE " + ESQUEMA_BASE + ".PRODUCTOS DROP CONSTRAINT \"" + restriccion + "\"");
+        }
+    }
+
+    private void provisionarEsquema(String tienda, String esquema) {
+        if (!esquema.matches("[A-Z][A-Z0-9_]*")) {
+            throw new IllegalStateException("Nombre de esquema inválido para la tienda " + tienda + ": " + esquema);
+        }
+        jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS \"" + esquema + "\"");
+
+        List<String> tablasBase = tablas(ESQUEMA_BASE);
+        List<String> tablasTienda = tablas(esquema);
+        for (String tabla : tablasBase) {
+            if (tablasTienda.contains(tabla)) {
+                agregarColumnasFaltantes(tienda, esquema, tabla);
+                continue;
+            }
+            log.info("Creando tabla {}.{} para la tienda {}", esquema, tabla, tienda);
+            List<String> sentencias = jdbcTemplate.queryForList(
+                    "SCRIPT NODATA NOPASSWORDS NOSETTINGS TABLE \"" + ESQUEMA_BASE + "\".\"" + tabla + "\"", String.class);
+            for (String sentencia : sentencias) {
+                if (sentencia.startsWith("--") || sentencia.startsWith("CREATE USER")) {
+                    continue;
+                }
+                jdbcTemplate.execute(sentencia.replace("\"" + ESQUEMA_BASE + "\".", "\"" + esquema + "\"."));
+            }
+        }
+    }
+
+    /**
+     * Agrega como columnas opcionales las que están en PUBLIC y no en la tabla de la tienda
+     */
+    private void agregarColumnasFaltantes(String tienda, String esquema, String tabla) {
+        List<String> existentes = jdbcTemplate.queryForList(
+                "SELECT COLUMN_NAME FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ?",
+                String.class, esquema, tabla);
+        jdbcTemplate.query(
+                "SELECT COLUMN_NAME, DATA_TYPE, CHARACTER_MAXIMUM_LENGTH, NUMERIC_PRECISION, NUMERIC_SCALE, COLUMN_DEFAULT " +
+                "FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ? ORDER BY ORDINAL_POSITION",
+                fila -> {
+                    String columna = fila.getString("COLUMN_NAME");
+                    if (existentes.contains(columna)) {
+                        return;
+                    }
+                    String tipo = fila.getString("DATA_TYPE");
+                    if (tipo.startsWith("CHARACTER")) {
+                        tipo += "(" + fila.getLong("CHARACTER_MAXIMUM_LENGTH") + ")";
+                    } else if (tipo.equals("NUMERIC") || tipo.equals("DECIMAL")) {
+                        tipo += "(" + fila.getInt("NUMERIC_PRECISION") + ", " + fila.getInt("NUMERIC_SCALE") + ")";
+                    }
+                    String porDefecto = fila.getString("COLUMN_DEFAULT");
+                    log.info("Agregando la columna {}.{}.{} para la tienda {}", esquema, tabla, columna, tienda);
+                    jdbcTemplate.execute("ALTER TABLE \"" + esquema + "\".\"" + tabla + "\" ADD COLUMN \"" + columna + "\" " +
+                            tipo + (porDefecto == null ? "" : " DEFAULT " + porDefecto));
+                },
+                ESQUEMA_BASE, tabla);
+    }
+
+    private List<String> tablas(String esquema) {
+        return jdbcTemplate.queryForList(
+                "SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = ? AND TABLE_TYPE = 'BASE TABLE'",
+                String.class, esquema);
+    }
+}
@@ -0,0 +1,34 @@
+package com.tienda.donarosa.multitienda;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Configuración de tiendas (sucursales).
+ *
+ * tienda.multitienda.tiendas: tiendas conocidas, usadas por los trabajos en segundo plano
+ * tienda.multitienda.esquemas.<tienda>: esquema propio para una tienda grande
+ */
+@ConfigurationProperties(prefix = "tienda.multitienda")
+public record MultitiendaProperties(List<String> tiendas, Map<String, String> esquemas) {
+
+    public MultitiendaProperties {
+        tiendas = tiendas == null ? List.of() : List.copyOf(tiendas);
+        esquemas = esquemas == null ? Map.of() : Map.copyOf(esquemas);
+    }
+
+    /**
+     * Todas las tiendas conocidas, incluida la tienda por defecto y las que tienen esquema propio
+     */
+    public Set<String> todasLasTiendas() {
+        Set<String> todas = new LinkedHashSet<>();
+        todas.add(TiendaContexto.TIENDA_POR_DEFECTO);
+        todas.addAll(tiendas);
+        todas.addAll(esquemas.keySet());
+        return todas;
+    }
+}
@@ -0,0 +1,76 @@
+package com.tienda.donarosa.multitienda;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.function.Supplier;
+
+/**
+ * Tienda (sucursal) con la que trabaja el hilo actual.
+ *
+ * En una petición web sale del usuario autenticado: cada usuario tiene una
+ * autoridad "TIENDA_<id>" (ver SecurityConfig). Los trabajos en segundo plano
+ * fijan la tienda explícitamente con {@link #ejecutarComo}.
+ */
+public final class TiendaContexto {
+
+    public static final String TIENDA_POR_DEFECTO = "principal";
+    public static final String PREFIJO_AUTORIDAD = "TIENDA_";
+
+    private static final ThreadLocal<String> TIENDA_FIJADA = new ThreadLocal<>();
+
+    private TiendaContexto() {}
+
+    /**
+     * Obtiene la tienda actual: la fijada en el hilo, la del usuario autenticado
+     * o la tienda por defecto
+     */
+    public static String actual() {
+        String fijada = TIENDA_FIJADA.get();
+        if (fijada != null) {
+            return fijada;
+        }
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        if (autenticacion != null) {
+            for (GrantedAuthority autoridad : autenticacion.getAuthorities()) {
+                String nombre = autoridad.getAuthority();
+                if (nombre != null && nombre.startsWith(PREFIJO_AUTORIDAD)) {
+                    return nombre.substring(PREFIJO_AUTORIDAD.length());
+                }
+            }
+        }
+        return TIENDA_POR_DEFECTO;
+    }
+
+    /**
+     * Ejecuta la acción con la tienda indicada y restaura la anterior al terminar
+     */
+    public static <T> T ejecutarComo(String tienda, Supplier<T> accion) {
+        String anterior = TIENDA_FIJADA.get();
+        TIENDA_FIJADA.set(tienda);
+        try {
+            return accion.get();
+        } finally {
+            if (anterior == null) {
+                TIENDA_FIJADA.remove();
+            } else {
+                TIENDA_FIJADA.set(anterior);
+            }
+        }
+    }
+
+    public static void ejecutarComo(String tienda, Runnable accion) {
+        ejecutarComo(tienda, () -> {
+            accion.run();
+            return null;
+        });
+    }
+
+    /**
+     * Autoridad que asigna un usuario a una tienda
+     */
+    public static String autoridad(String tienda) {
+        return PREFIJO_AUTORIDAD + tienda;
+    }
+}
@@ -0,0 +1,24 @@
+package com.tienda.donarosa.multitienda;
+
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+
+/**
+ * Le indica a Hibernate la tienda de cada sesión. Con ese valor Hibernate
+ * completa la columna tienda_id al insertar y filtra todas las consultas
+ * de las entidades marcadas con @TenantId.
+ *
+ * Se registra por nombre de clase en application.properties
+ * (hibernate.tenant_identifier_resolver).
+ */
+public class TiendaIdentifierResolver implements CurrentTenantIdentifierResolver<String> {
+
+    @Override
+    public String resolveCurrentTenantIdentifier() {
+        return TiendaContexto.actual();
+    }
+
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return false;
+    }
+}
@@ -0,0 +1,49 @@
+package com.tienda.donarosa.multitienda;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Enruta las conexiones de las tiendas grandes a su propio esquema.
+ *
+ * Al entregar una conexión aplica el esquema asignado a la tienda actual
+ * (tienda.multitienda.esquemas.<tienda>=<ESQUEMA>). Las demás tiendas
+ * comparten el esquema PUBLIC, separadas por la columna tienda_id.
+ * Hikari restaura el esquema original cuando la conexión vuelve al pool.
+ */
+public class TiendaRoutingDataSource extends DelegatingDataSource {
+
+    private final Map<String, String> esquemas;
+
+    public TiendaRoutingDataSource(DataSource destino, Map<String, String> esquemas) {
+        super(destino);
+        this.esquemas = Map.copyOf(esquemas);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return enrutar(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return enrutar(super.getConnection(username, password));
+    }
+
+    private Connection enrutar(Connection conexion) throws SQLException {
+        String esquema = esquemas.get(TiendaContexto.actual());
+        if (esquema != null) {
+            try {
+                conexion.setSchema(esquema);
+            } catch (SQLException e) {
+                conexion.close();
+                throw e;
+            }
+        }
+        return conexion;
+    }
+}
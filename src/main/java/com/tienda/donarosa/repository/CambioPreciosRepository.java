@@ -0,0 +1,29 @@
+package com.tienda.donarosa.repository;
+
+import com.tienda.donarosa.dto.PrecioCambiadoDTO;
+import com.tienda.donarosa.model.CambioPrecios;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CambioPreciosRepository extends JpaRepository<CambioPrecios, Long> {
+
+    /**
+     * Cambios más recientes de la tienda actual
+     */
+    List<CambioPrecios> findAllByOrderByFechaDesc(Limit limite);
+
+    /**
+     * Detalle de un cambio de la tienda actual con el nombre de cada producto
+     */
+    @Query("SELECT new com.tienda.donarosa.dto.PrecioCambiadoDTO(d.productoId, p.nombre, d.precioAnterior, d.precioNuevo) " +
+           "FROM CambioPrecioDetalle d JOIN CambioPrecios c ON c.id = d.cambioId " +
+           "LEFT JOIN NombreProducto p ON p.id = d.productoId " +
+           "WHERE d.cambioId = :cambioId ORDER BY d.productoId")
+    List<PrecioCambiadoDTO> findDetalle(@Param("cambioId") Long cambioId, Limit limite);
+}
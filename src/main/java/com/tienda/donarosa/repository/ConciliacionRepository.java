@@ -0,0 +1,21 @@
+package com.tienda.donarosa.repository;
+
+import com.tienda.donarosa.model.Conciliacion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ConciliacionRepository extends JpaRepository<Conciliacion, Long> {
+
+    /**
+     * Corrida sin terminar de la tienda actual, para retomarla
+     */
+    Optional<Conciliacion> findFirstByFinIsNullOrderByIdDesc();
+
+    /**
+     * Corrida más reciente de la tienda actual, terminada o no
+     */
+    Optional<Conciliacion> findFirstByOrderByIdDesc();
+}
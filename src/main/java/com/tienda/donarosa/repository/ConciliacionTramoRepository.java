@@ -0,0 +1,13 @@
+package com.tienda.donarosa.repository;
+
+import com.tienda.donarosa.model.ConciliacionTramo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ConciliacionTramoRepository extends JpaRepository<ConciliacionTramo, Long> {
+
+    List<ConciliacionTramo> findByConciliacionIdOrderByDesde(Long conciliacionId);
+}
@@ -0,0 +1,14 @@
+package com.tienda.donarosa.repository;
+
+import com.tienda.donarosa.model.DiferenciaConciliacion;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface DiferenciaConciliacionRepository extends JpaRepository<DiferenciaConciliacion, Long> {
+
+    List<DiferenciaConciliacion> findByConciliacionIdOrderByProductoId(Long conciliacionId, Limit limite);
+}
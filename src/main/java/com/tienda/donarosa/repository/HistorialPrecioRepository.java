@@ -0,0 +1,118 @@
+package com.tienda.donarosa.repository;
+
+import com.tienda.donarosa.model.HistorialPrecio;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Las sentencias nativas declaran su tabla (HINT_NATIVE_SPACES) para que
+ * Hibernate no vacíe el caché de productos al ejecutarlas
+ */
+@Repository
+public interface HistorialPrecioRepository extends JpaRepository<HistorialPrecio, Long> {
+
+    /**
+     * Intervalos de un producto de la tienda actual, el vigente primero
+     */
+    List<HistorialPrecio> findByProductoIdOrderByDesdeDesc(Long productoId, Limit limite);
+
+    /**
+     * Cierra el intervalo vigente del producto si su precio no es el indicado
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "historial_precios"))
+    @Query(value = "UPDATE historial_precios SET hasta = :ahora WHERE tienda_id = :tienda AND producto_id = :productoId " +
+                   "AND hasta IS NULL AND precio <> :precio", nativeQuery = true)
+    int cerrar(@Param("tienda") String tienda, @Param("productoId") Long productoId, @Param("precio") BigDecimal precio,
+               @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Abre un intervalo con el precio si el producto no tiene uno vigente
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "historial_precios"))
+    @Query(value = "INSERT INTO historial_precios (tienda_id, producto_id, precio, desde) " +
+                   "SELECT v.tienda_id, v.producto_id, v.precio, v.desde FROM (VALUES (CAST(:tienda AS VARCHAR(40)), " +
+                   "CAST(:productoId AS BIGINT), CAST(:precio AS DECIMAL(12,2)), CAST(:ahora AS TIMESTAMP))) " +
+                   "AS v(tienda_id, producto_id, precio, desde) WHERE NOT EXISTS (SELECT 1 FROM historial_precios h " +
+                   "WHERE h.tienda_id = v.tienda_id AND h.producto_id = v.producto_id AND h.hasta IS NULL)",
+           nativeQuery = true)
+    int abrir(@Param("tienda") String tienda, @Param("productoId") Long productoId, @Param("precio") BigDecimal precio,
+              @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Cierra los intervalos vigentes de los productos cuyo precio en productos ya es otro
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "historial_precios"))
+    @Query(value = "UPDATE historial_precios h SET hasta = :ahora WHERE h.tienda_id = :tienda AND h.hasta IS NULL " +
+                   "AND h.producto_id IN (:ids) AND h.precio <> (SELECT p.precio FROM productos p " +
+                   "WHERE p.tienda_id = h.tienda_id AND p.id = h.producto_id)", nativeQuery = true)
+    int cerrarProductos(@Param("tienda") String tienda, @Param("ids") Collection<Long> ids,
+                        @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Abre un intervalo con el precio actual para los productos sin uno vigente
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "historial_precios"))
+    @Query(value = "INSERT INTO historial_precios (tienda_id, producto_id, precio, desde) " +
+                   "SELECT p.tienda_id, p.id, p.precio, :ahora FROM productos p " +
+                   "WHERE p.tienda_id = :tienda AND p.id IN (:ids) AND NOT EXISTS (SELECT 1 FROM historial_precios h " +
+                   "WHERE h.tienda_id = p.tienda_id AND h.producto_id = p.id AND h.hasta IS NULL)",
+           nativeQuery = true)
+    int abrirProductos(@Param("tienda") String tienda, @Param("ids") Collection<Long> ids,
+                       @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Da un intervalo vigente a los productos (activos o archivados) que no tienen historia,
+     * con su precio actual desde su primer movimiento
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "historial_precios"))
+    @Query(value = "INSERT INTO historial_precios (tienda_id, producto_id, precio, desde) " +
+                   "SELECT x.tienda_id, x.id, x.precio, COALESCE((SELECT MIN(m.fecha) FROM movimientos m " +
+                   "WHERE m.tienda_id = x.tienda_id AND m.producto_id = x.id), LOCALTIMESTAMP) " +
+                   "FROM (SELECT tienda_id, id, precio FROM productos WHERE tienda_id = :tienda " +
+                   "UNION ALL SELECT tienda_id, id, precio FROM productos_archivados WHERE tienda_id = :tienda) x " +
+                   "WHERE NOT EXISTS (SELECT 1 FROM historial_precios h " +
+                   "WHERE h.tienda_id = x.tienda_id AND h.producto_id = x.id)",
+           nativeQuery = true)
+    int completar(@Param("tienda") String tienda);
+
+    /**
+     * Valoración del inventario a la fecha, por categoría: [categoria, productos, unidades, valor, sinPrecio].
+     *
+     * Las existencias a la fecha son las actuales (cero para eliminados, archivados y purgados)
+     * menos los movimientos posteriores, así que solo se recorren los movimientos desde la fecha
+     * (idx_movimientos_tienda_fecha). Cada producto busca su precio por
+     * idx_historial_precios_tienda_producto_desde. La categoría es la actual del producto.
+     */
+    @Query(value = "SELECT COALESCE(p.categoria, a.categoria, 'general') AS categoria, COUNT(*), SUM(e.cantidad), " +
+                   "COALESCE(SUM(e.cantidad * h.precio), 0), SUM(CASE WHEN h.id IS NULL THEN 1 ELSE 0 END) " +
+                   "FROM (SELECT x.producto_id, SUM(x.cantidad) AS cantidad FROM (" +
+                   "SELECT p.id AS producto_id, p.cantidad FROM productos p " +
+                   "WHERE p.tienda_id = :tienda AND p.eliminado_en IS NULL AND p.cantidad <> 0 " +
+                   "UNION ALL SELECT m.producto_id, -m.cantidad FROM movimientos m " +
+                   "WHERE m.tienda_id = :tienda AND m.fecha > :fecha) x " +
+                   "GROUP BY x.producto_id HAVING SUM(x.cantidad) <> 0) e " +
+                   "LEFT JOIN historial_precios h ON h.tienda_id = :tienda AND h.producto_id = e.producto_id " +
+                   "AND h.desde <= :fecha AND (h.hasta IS NULL OR h.hasta > :fecha) " +
+                   "LEFT JOIN productos p ON p.tienda_id = :tienda AND p.id = e.producto_id " +
+                   "LEFT JOIN productos_archivados a ON a.tienda_id = :tienda AND a.id = e.producto_id " +
+                   "GROUP BY COALESCE(p.categoria, a.categoria, 'general') ORDER BY categoria",
+           nativeQuery = true)
+    List<Object[]> valorarPorCategoria(@Param("tienda") String tienda, @Param("fecha") LocalDateTime fecha);
+}
@@ -0,0 +1,24 @@
+package com.tienda.donarosa.repository;
+
+import com.tienda.donarosa.model.Movimiento;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MovimientoRepository extends JpaRepository<Movimiento, Long> {
+
+    /**
+     * Movimientos de un producto en orden cronológico
+     */
+    List<Movimiento> findByProductoIdOrderByFechaAscIdAsc(Long productoId);
+
+    /**
+     * Suma de los movimientos de un producto (debe coincidir con su cantidad)
+     */
+    @Query("SELECT COALESCE(SUM(m.cantidad), 0) FROM Movimiento m WHERE m.productoId = :productoId")
+    long sumarCantidadPorProducto(@Param("productoId") Long productoId);
+}
@@ -0,0 +1,66 @@
+package com.tienda.donarosa.repository;
+
+import com.tienda.donarosa.model.ProductoArchivado;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ProductoArchivadoRepository extends JpaRepository<ProductoArchivado, Long> {
+
+    /**
+     * Busca un producto archivado por su nombre exacto
+     */
+    Optional<ProductoArchivado> findByNombreIgnoreCase(String nombre);
+
+    /**
+     * Indica si hay un producto archivado con el nombre exacto
+     */
+    boolean existsByNombreIgnoreCase(String nombre);
+
+    /**
+     * Busca productos archivados que contengan el término en el nombre (recorre el archivo)
+     */
+    List<ProductoArchivado> findByNombreContainingIgnoreCaseOrderByNombre(String termino, Limit limite);
+
+    /**
+     * Carga el producto archivado de la tienda actual bloqueando su fila, para que
+     * dos restauraciones simultáneas no lo copien dos veces
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM ProductoArchivado a WHERE a.id = :id")
+    Optional<ProductoArchivado> findParaRestaurar(@Param("id") Long id);
+
+    /**
+     * Copia el producto archivado a productos, con su ID y cantidad cero
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "productos"))
+    @Query(value = "INSERT INTO productos (id, tienda_id, nombre, categoria, precio, cantidad, cantidad_inicial, " +
+                   "punto_reorden, actualizado_en) SELECT id, tienda_id, nombre, categoria, precio, 0, cantidad_inicial, " +
+                   "punto_reorden, LOCALTIMESTAMP FROM productos_archivados WHERE tienda_id = :tienda AND id = :id", nativeQuery = true)
+    int copiarAProductos(@Param("tienda") String tienda, @Param("id") Long id);
+
+    /**
+     * Devuelve el producto archivado a productos; false si no estaba archivado
+     */
+    default boolean restaurar(Long id) {
+        Optional<ProductoArchivado> archivado = findParaRestaurar(id);
+        archivado.ifPresent(producto -> {
+            copiarAProductos(producto.getTiendaId(), id);
+            delete(producto);
+        });
+        return archivado.isPresent();
+    }
+}
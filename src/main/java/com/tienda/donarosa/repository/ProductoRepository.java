@@ -1,15 +1,63 @@
 package com.tienda.donarosa.repository;
 
+import com.tienda.donarosa.dto.ProductoDTO;
 import com.tienda.donarosa.model.Producto;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ProductoRepository extends JpaRepository<Producto, Long> {
 
+    /**
+     * Región del caché de consultas para los reportes. Hibernate la invalida
+     * sola cuando cambia la tabla productos (save, delete o UPDATE/DELETE JPQL)
+     */
+    String REGION_REPORTES = "productos-reportes";
+
+    /**
+     * Carga el producto de la tienda actual bloqueando su fila hasta el fin de la
+     * transacción, para que los cambios de cantidad concurrentes no se pisen
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Producto p WHERE p.id = :id")
+    Optional<Producto> findParaActualizar(@Param("id") Long id);
+
+    /**
+     * Si la tienda tiene un producto eliminado, aún sin purgar, con el nombre
+     * (la restricción única por tienda y nombre también lo incluye)
+     */
+    @Query(value = "SELECT COUNT(*) > 0 FROM productos " +
+                   "WHERE tienda_id = :tienda AND nombre = :nombre AND eliminado_en IS NOT NULL", nativeQuery = true)
+    boolean existeEliminadoConNombre(@Param("tienda") String tienda, @Param("nombre") String nombre);
+
+    /**
+     * Purga ya el producto eliminado con el nombre, para poder reutilizarlo
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "productos"))
+    @Query(value = "DELETE FROM productos " +
+                   "WHERE tienda_id = :tienda AND nombre = :nombre AND eliminado_en IS NOT NULL", nativeQuery = true)
+    int purgarEliminadoConNombre(@Param("tienda") String tienda, @Param("nombre") String nombre);
+
+    /**
+     * Bloquea las filas de los productos indicados hasta el final de la transacción
+     */
+    @Query(value = "SELECT id FROM productos WHERE tienda_id = :tienda AND id IN (:ids) ORDER BY id FOR UPDATE",
+           nativeQuery = true)
+    List<Long> bloquear(@Param("tienda") String tienda, @Param("ids") Collection<Long> ids);
+
     /**
      * Busca un producto por su nombre exacto
      */
@@ -21,31 +69,79 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
     List<Producto> findByNombreContainingIgnoreCase(String termino);
 
     /**
-     * Encuentra productos con cantidad menor o igual al porcentaje especificado
-     * de su cantidad inicial (productos cerca de agotarse)
+     * Encuentra productos cerca de agotarse: cantidad en o bajo su punto de reorden,
+     * o bajo el 10% de su cantidad inicial si aún no tiene punto de reorden
      */
-    @Query("SELECT p FROM Producto p WHERE p.cantidad <= (p.cantidadInicial * 0.1)")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = REGION_REPORTES)
+    })
+    @Query("SELECT p FROM Producto p WHERE (p.puntoReorden IS NOT NULL AND p.cantidad <= p.puntoReorden) " +
+           "OR (p.puntoReorden IS NULL AND p.cantidad <= (p.cantidadInicial * 0.1))")
     List<Producto> findProductosCercaDeAgotarse();
 
     /**
      * Encuentra el producto con menor cantidad disponible
      */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = REGION_REPORTES)
+    })
     @Query("SELECT p FROM Producto p ORDER BY p.cantidad ASC LIMIT 1")
     Optional<Producto> findProductoConMenorCantidad();
 
     /**
      * Calcula el valor total del inventario
      */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = REGION_REPORTES)
+    })
     @Query("SELECT SUM(p.precio * p.cantidad) FROM Producto p")
     Optional<Double> calcularValorTotalInventario();
 
     /**
      * Encuentra productos con cantidad mayor a cero
      */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = REGION_REPORTES)
+    })
     List<Producto> findByCantidadGreaterThan(Integer cantidad);
 
     /**
      * Encuentra productos agotados
      */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = REGION_REPORTES)
+    })
     List<Producto> findByCantidadEquals(Integer cantidad);
+
+    /**
+     * Cantidades de todos los productos de la tienda actual: [id, cantidad]
+     */
+    @Query("SELECT p.id, p.cantidad FROM Producto p ORDER BY p.id")
+    List<Object[]> findCantidades();
+
+    /**
+     * Página de proyecciones ordenada por ID, a partir del cursor (keyset)
+     */
+    @Query("SELECT new com.tienda.donarosa.dto.ProductoDTO(p.id, p.nombre, p.precio, p.cantidad, p.cantidadInicial) " +
+           "FROM Producto p WHERE p.id > :despuesDe ORDER BY p.id ASC")
+    List<ProductoDTO> findPaginaDespuesDe(@Param("despuesDe") Long despuesDe, Limit limite);
+
+    /**
+     * Proyección de un producto por su ID
+     */
+    @Query("SELECT new com.tienda.donarosa.dto.ProductoDTO(p.id, p.nombre, p.precio, p.cantidad, p.cantidadInicial) " +
+           "FROM Producto p WHERE p.id = :id")
+    Optional<ProductoDTO> findProyeccionById(@Param("id") Long id);
+
+    /**
+     * Proyecciones de varios productos por sus IDs
+     */
+    @Query("SELECT new com.tienda.donarosa.dto.ProductoDTO(p.id, p.nombre, p.precio, p.cantidad, p.cantidadInicial) " +
+           "FROM Producto p WHERE p.id IN :ids ORDER BY p.id ASC")
+    List<ProductoDTO> findProyeccionesByIdIn(@Param("ids") Collection<Long> ids);
 }
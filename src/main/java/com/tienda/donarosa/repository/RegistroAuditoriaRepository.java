@@ -0,0 +1,22 @@
+package com.tienda.donarosa.repository;
+
+import com.tienda.donarosa.model.RegistroAuditoria;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface RegistroAuditoriaRepository extends JpaRepository<RegistroAuditoria, Long> {
+
+    /**
+     * Entradas más recientes de la tienda actual
+     */
+    List<RegistroAuditoria> findAllByOrderByIdDesc(Limit limite);
+
+    /**
+     * Entradas más recientes de un producto
+     */
+    List<RegistroAuditoria> findByProductoIdOrderByIdDesc(Long productoId, Limit limite);
+}
@@ -0,0 +1,96 @@
+package com.tienda.donarosa.repository;
+
+import com.tienda.donarosa.model.ResumenCategoria;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Las sentencias nativas declaran su tabla (HINT_NATIVE_SPACES) para que
+ * Hibernate no vacíe el caché de productos al ejecutarlas
+ */
+@Repository
+public interface ResumenCategoriaRepository extends JpaRepository<ResumenCategoria, Long> {
+
+    /**
+     * Totales de una fila de productos "p" (las mismas reglas que AporteCategoria)
+     */
+    String TOTALES = "COUNT(*), COALESCE(SUM(p.cantidad), 0), COALESCE(SUM(p.precio * p.cantidad), 0), " +
+            "COALESCE(SUM(CASE WHEN p.cantidad = 0 THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN (p.punto_reorden IS NOT NULL AND p.cantidad <= p.punto_reorden) " +
+            "OR (p.punto_reorden IS NULL AND COALESCE(p.cantidad_inicial, 0) = 0 AND p.cantidad <= 1) " +
+            "OR (p.punto_reorden IS NULL AND p.cantidad_inicial > 0 AND p.cantidad <= p.cantidad_inicial * 0.1) " +
+            "THEN 1 ELSE 0 END), 0)";
+
+    List<ResumenCategoria> findAllByOrderByCategoriaAsc();
+
+    /**
+     * Suma una diferencia a los totales de la categoría, creando la fila si no existe
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "resumen_categorias"))
+    @Query(value = "MERGE INTO resumen_categorias r " +
+                   "USING (VALUES (CAST(:tienda AS VARCHAR(40)), CAST(:categoria AS VARCHAR(40)))) AS v(tienda_id, categoria) " +
+                   "ON r.tienda_id = v.tienda_id AND r.categoria = v.categoria " +
+                   "WHEN MATCHED THEN UPDATE SET productos = r.productos + :productos, unidades = r.unidades + :unidades, " +
+                   "valor = r.valor + :valor, agotados = r.agotados + :agotados, " +
+                   "cerca_de_agotarse = r.cerca_de_agotarse + :cerca " +
+                   "WHEN NOT MATCHED THEN INSERT (tienda_id, categoria, productos, unidades, valor, agotados, cerca_de_agotarse) " +
+                   "VALUES (v.tienda_id, v.categoria, :productos, :unidades, :valor, :agotados, :cerca)",
+           nativeQuery = true)
+    void sumar(@Param("tienda") String tienda, @Param("categoria") String categoria, @Param("productos") long productos,
+               @Param("unidades") long unidades, @Param("valor") BigDecimal valor, @Param("agotados") long agotados,
+               @Param("cerca") long cercaDeAgotarse);
+
+    /**
+     * Suma (signo 1) o resta (signo -1) los totales de los productos indicados a sus categorías
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "resumen_categorias"))
+    @Query(value = "MERGE INTO resumen_categorias r " +
+                   "USING (SELECT p.categoria, " + TOTALES + " FROM productos p " +
+                   "WHERE p.tienda_id = :tienda AND p.eliminado_en IS NULL AND p.id IN (:ids) GROUP BY p.categoria) " +
+                   "AS v(categoria, productos, unidades, valor, agotados, cerca_de_agotarse) " +
+                   "ON r.tienda_id = :tienda AND r.categoria = v.categoria " +
+                   "WHEN MATCHED THEN UPDATE SET productos = r.productos + :signo * v.productos, " +
+                   "unidades = r.unidades + :signo * v.unidades, valor = r.valor + :signo * v.valor, " +
+                   "agotados = r.agotados + :signo * v.agotados, " +
+                   "cerca_de_agotarse = r.cerca_de_agotarse + :signo * v.cerca_de_agotarse " +
+                   "WHEN NOT MATCHED THEN INSERT (tienda_id, categoria, productos, unidades, valor, agotados, cerca_de_agotarse) " +
+                   "VALUES (:tienda, v.categoria, :signo * v.productos, :signo * v.unidades, :signo * v.valor, " +
+                   ":signo * v.agotados, :signo * v.cerca_de_agotarse)",
+           nativeQuery = true)
+    int sumarProductos(@Param("tienda") String tienda, @Param("ids") Collection<Long> ids, @Param("signo") int signo);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "resumen_categorias"))
+    @Query(value = "DELETE FROM resumen_categorias WHERE tienda_id = :tienda", nativeQuery = true)
+    int eliminarTienda(@Param("tienda") String tienda);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "resumen_categorias"))
+    @Query(value = "INSERT INTO resumen_categorias (tienda_id, categoria, productos, unidades, valor, agotados, " +
+                   "cerca_de_agotarse) SELECT p.tienda_id, p.categoria, " + TOTALES + " FROM productos p " +
+                   "WHERE p.tienda_id = :tienda AND p.eliminado_en IS NULL GROUP BY p.tienda_id, p.categoria",
+           nativeQuery = true)
+    int insertarDesdeProductos(@Param("tienda") String tienda);
+
+    /**
+     * Recalcula los totales de la tienda recorriendo productos
+     *
+     * @return número de categorías
+     */
+    default int reconstruir(String tienda) {
+        eliminarTienda(tienda);
+        return insertarDesdeProductos(tienda);
+    }
+}
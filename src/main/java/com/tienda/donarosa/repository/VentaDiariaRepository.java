@@ -0,0 +1,75 @@
+package com.tienda.donarosa.repository;
+
+import com.tienda.donarosa.dto.VentaDiaDTO;
+import com.tienda.donarosa.model.VentaDiaria;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Las sentencias nativas declaran su tabla (HINT_NATIVE_SPACES) para que
+ * Hibernate no vacíe el caché de productos al ejecutarlas
+ */
+@Repository
+public interface VentaDiariaRepository extends JpaRepository<VentaDiaria, Long> {
+
+    /**
+     * Suma una venta al resumen del día, creando la fila si no existe
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "ventas_diarias"))
+    @Query(value = "MERGE INTO ventas_diarias d " +
+                   "USING (VALUES (CAST(:tienda AS VARCHAR(40)), CAST(:productoId AS BIGINT), CAST(:dia AS DATE))) " +
+                   "AS v(tienda_id, producto_id, dia) " +
+                   "ON d.tienda_id = v.tienda_id AND d.producto_id = v.producto_id AND d.dia = v.dia " +
+                   "WHEN MATCHED THEN UPDATE SET unidades = d.unidades + :unidades, ingresos = d.ingresos + :ingresos " +
+                   "WHEN NOT MATCHED THEN INSERT (tienda_id, producto_id, dia, unidades, ingresos) " +
+                   "VALUES (v.tienda_id, v.producto_id, v.dia, :unidades, :ingresos)",
+           nativeQuery = true)
+    void sumarVenta(@Param("tienda") String tienda, @Param("productoId") Long productoId, @Param("dia") LocalDate dia,
+                    @Param("unidades") long unidades, @Param("ingresos") BigDecimal ingresos);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "ventas_diarias"))
+    @Query(value = "DELETE FROM ventas_diarias WHERE tienda_id = :tienda AND dia BETWEEN :desde AND :hasta",
+           nativeQuery = true)
+    int eliminarRango(@Param("tienda") String tienda, @Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    /**
+     * Recalcula los resúmenes diarios del rango a partir de los movimientos de venta
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "ventas_diarias"))
+    @Query(value = "INSERT INTO ventas_diarias (tienda_id, producto_id, dia, unidades, ingresos) " +
+                   "SELECT m.tienda_id, m.producto_id, CAST(m.fecha AS DATE), SUM(-m.cantidad), SUM(-m.cantidad * m.precio_unitario) " +
+                   "FROM movimientos m " +
+                   "WHERE m.tienda_id = :tienda AND m.tipo = 'VENTA' AND m.fecha >= :inicio AND m.fecha < :fin " +
+                   "GROUP BY m.tienda_id, m.producto_id, CAST(m.fecha AS DATE)",
+           nativeQuery = true)
+    int reconstruirRango(@Param("tienda") String tienda, @Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
+
+    /**
+     * Unidades vendidas y suma de sus cuadrados por producto en el rango,
+     * para calcular la demanda media y su variación: [productoId, suma, sumaCuadrados]
+     */
+    @Query("SELECT v.productoId, SUM(v.unidades), SUM(v.unidades * v.unidades) " +
+           "FROM VentaDiaria v WHERE v.dia BETWEEN :desde AND :hasta GROUP BY v.productoId")
+    List<Object[]> sumarPorProducto(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    /**
+     * Totales por día de la tienda actual
+     */
+    @Query("SELECT new com.tienda.donarosa.dto.VentaDiaDTO(v.dia, SUM(v.unidades), SUM(v.ingresos)) " +
+           "FROM VentaDiaria v WHERE v.dia BETWEEN :desde AND :hasta GROUP BY v.dia ORDER BY v.dia ASC")
+    List<VentaDiaDTO> totalesPorDia(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+}
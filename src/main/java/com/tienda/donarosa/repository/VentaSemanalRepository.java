@@ -0,0 +1,65 @@
+package com.tienda.donarosa.repository;
+
+import com.tienda.donarosa.dto.VentaResumenDTO;
+import com.tienda.donarosa.model.VentaSemanal;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface VentaSemanalRepository extends JpaRepository<VentaSemanal, Long> {
+
+    /**
+     * Suma una venta al resumen de la semana, creando la fila si no existe
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "ventas_semanales"))
+    @Query(value = "MERGE INTO ventas_semanales s " +
+                   "USING (VALUES (CAST(:tienda AS VARCHAR(40)), CAST(:productoId AS BIGINT), CAST(:semana AS DATE))) " +
+                   "AS v(tienda_id, producto_id, semana) " +
+                   "ON s.tienda_id = v.tienda_id AND s.producto_id = v.producto_id AND s.semana = v.semana " +
+                   "WHEN MATCHED THEN UPDATE SET unidades = s.unidades + :unidades, ingresos = s.ingresos + :ingresos " +
+                   "WHEN NOT MATCHED THEN INSERT (tienda_id, producto_id, semana, unidades, ingresos) " +
+                   "VALUES (v.tienda_id, v.producto_id, v.semana, :unidades, :ingresos)",
+           nativeQuery = true)
+    void sumarVenta(@Param("tienda") String tienda, @Param("productoId") Long productoId, @Param("semana") LocalDate semana,
+                    @Param("unidades") long unidades, @Param("ingresos") BigDecimal ingresos);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "ventas_semanales"))
+    @Query(value = "DELETE FROM ventas_semanales WHERE tienda_id = :tienda AND semana BETWEEN :desde AND :hasta",
+           nativeQuery = true)
+    int eliminarRango(@Param("tienda") String tienda, @Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    /**
+     * Recalcula los resúmenes semanales del rango a partir de los resúmenes diarios.
+     * desde debe ser lunes y hasta domingo para no cortar semanas
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "ventas_semanales"))
+    @Query(value = "INSERT INTO ventas_semanales (tienda_id, producto_id, semana, unidades, ingresos) " +
+                   "SELECT d.tienda_id, d.producto_id, DATEADD(DAY, 1 - ISO_DAY_OF_WEEK(d.dia), d.dia), SUM(d.unidades), SUM(d.ingresos) " +
+                   "FROM ventas_diarias d " +
+                   "WHERE d.tienda_id = :tienda AND d.dia BETWEEN :desde AND :hasta " +
+                   "GROUP BY d.tienda_id, d.producto_id, DATEADD(DAY, 1 - ISO_DAY_OF_WEEK(d.dia), d.dia)",
+           nativeQuery = true)
+    int reconstruirRango(@Param("tienda") String tienda, @Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    /**
+     * Productos más vendidos de la semana en la tienda actual
+     */
+    @Query("SELECT new com.tienda.donarosa.dto.VentaResumenDTO(v.productoId, p.nombre, v.unidades, v.ingresos) " +
+           "FROM VentaSemanal v LEFT JOIN NombreProducto p ON p.id = v.productoId " +
+           "WHERE v.semana = :semana ORDER BY v.unidades DESC, v.ingresos DESC")
+    List<VentaResumenDTO> findMasVendidos(@Param("semana") LocalDate semana, Limit limite);
+}
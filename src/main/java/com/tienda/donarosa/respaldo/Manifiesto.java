@@ -0,0 +1,121 @@
+package com.tienda.donarosa.respaldo;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Datos de un respaldo, guardados junto a él en &lt;nombre&gt;.properties.
+ *
+ * marcas: último movimiento incluido por tienda; el siguiente incremental parte de ahí.
+ * estadisticas: valores por tienda que una restauración debe reproducir
+ * (ver RespaldoService.estadisticas).
+ */
+final class Manifiesto {
+
+    static final String EXTENSION = ".properties";
+
+    private final String nombre;
+    private final String tipo;
+    private final String base;
+    private final LocalDateTime inicio;
+    private final long bytes;
+    private final long duracionMs;
+    private final Map<String, Long> marcas;
+    private final Map<String, Long> estadisticas;
+
+    Manifiesto(String nombre, String tipo, String base, LocalDateTime inicio, long bytes, long duracionMs,
+               Map<String, Long> marcas, Map<String, Long> estadisticas) {
+        this.nombre = nombre;
+        this.tipo = tipo;
+        this.base = base;
+        this.inicio = inicio;
+        this.bytes = bytes;
+        this.duracionMs = duracionMs;
+        this.marcas = new TreeMap<>(marcas);
+        this.estadisticas = new TreeMap<>(estadisticas);
+    }
+
+    String getNombre() {
+        return nombre;
+    }
+
+    String getTipo() {
+        return tipo;
+    }
+
+    /**
+     * Respaldo completo del que parte; el propio nombre si es completo
+     */
+    String getBase() {
+        return base;
+    }
+
+    LocalDateTime getInicio() {
+        return inicio;
+    }
+
+    long getBytes() {
+        return bytes;
+    }
+
+    long getDuracionMs() {
+        return duracionMs;
+    }
+
+    Map<String, Long> getMarcas() {
+        return marcas;
+    }
+
+    Map<String, Long> getEstadisticas() {
+        return estadisticas;
+    }
+
+    void guardar(Path directorio) {
+        Properties propiedades = new Properties();
+        propiedades.setProperty("tipo", tipo);
+        propiedades.setProperty("base", base);
+        propiedades.setProperty("inicio", inicio.toString());
+        propiedades.setProperty("bytes", Long.toString(bytes));
+        propiedades.setProperty("duracion-ms", Long.toString(duracionMs));
+        marcas.forEach((tienda, marca) -> propiedades.setProperty("marca." + tienda, Long.toString(marca)));
+        estadisticas.forEach((clave, valor) -> propiedades.setProperty("estadistica." + clave, Long.toString(valor)));
+        try (Writer salida = Files.newBufferedWriter(directorio.resolve(nombre + EXTENSION), StandardCharsets.UTF_8)) {
+            propiedades.store(salida, "Respaldo " + nombre);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar el manifiesto del respaldo " + nombre, e);
+        }
+    }
+
+    static Manifiesto leer(Path archivo) {
+        Properties propiedades = new Properties();
+        try (Reader entrada = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            propiedades.load(entrada);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el manifiesto " + archivo, e);
+        }
+        Map<String, Long> marcas = new TreeMap<>();
+        Map<String, Long> estadisticas = new TreeMap<>();
+        for (String clave : propiedades.stringPropertyNames()) {
+            if (clave.startsWith("marca.")) {
+                marcas.put(clave.substring("marca.".length()), Long.parseLong(propiedades.getProperty(clave)));
+            } else if (clave.startsWith("estadistica.")) {
+                estadisticas.put(clave.substring("estadistica.".length()), Long.parseLong(propiedades.getProperty(clave)));
+            }
+        }
+        String nombre = archivo.getFileName().toString();
+        return new Manifiesto(nombre.substring(0, nombre.length() - EXTENSION.length()),
+                propiedades.getProperty("tipo"), propiedades.getProperty("base"),
+                LocalDateTime.parse(propiedades.getProperty("inicio")),
+                Long.parseLong(propiedades.getProperty("bytes", "0")),
+                Long.parseLong(propiedades.getProperty("duracion-ms", "0")), marcas, estadisticas);
+    }
+}
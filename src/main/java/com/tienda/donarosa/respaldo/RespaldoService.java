@@ -0,0 +1,676 @@
+package com.tienda.donarosa.respaldo;
+
+import com.tienda.donarosa.dto.RespaldoDTO;
+import com.tienda.donarosa.dto.RestauracionDTO;
+import com.tienda.donarosa.multitienda.MultitiendaProperties;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import com.tienda.donarosa.service.ValidacionException;
+import org.h2.util.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Respaldos en línea de la base de datos H2, sin detener la aplicación.
+ *
+ * Completo: BACKUP TO copia el archivo de MVStore a un zip mientras la base
+ * sigue en uso. MVStore no reutiliza espacio durante la copia, así que las
+ * escrituras no esperan; solo el archivo crece un poco. Cada respaldo completo
+ * se verifica al terminar abriéndolo en un directorio temporal, y lo que se
+ * lee ahí queda en el manifiesto para comprobar las restauraciones.
+ *
+ * Incremental: un script SQL comprimido con los movimientos nuevos, las filas
+ * de productos escritas desde el respaldo anterior (productos.actualizado_en),
+ * los productos archivados desde entonces y los intervalos de precio abiertos o
+ * cerrados, leídos por tienda en una transacción REPEATABLE READ. Se aplica con
+ * MERGE por ID, así que repetir un tramo no cambia el resultado: cada
+ * incremental vuelve a leer tienda.respaldo.solape hacia atrás para no perder
+ * transacciones que confirmaron tarde. Los productos archivados o purgados no
+ * dejan fila que copiar, así que cada incremental borra los IDs que faltan en
+ * productos (los huecos entre los que quedan). Los resúmenes de ventas se
+ * reconstruyen al arrancar con tienda.ventas.reconstruir-dias.
+ *
+ * Restaurar: se descomprime el completo en un directorio nuevo dentro del de
+ * respaldos, se aplican sus incrementales en orden y se comparan las
+ * estadísticas con las del último manifiesto. La base en uso no se toca: para volver a un respaldo se detiene
+ * la aplicación y se reemplaza el directorio de datos por el restaurado.
+ */
+@Service
+public class RespaldoService {
+
+    private static final Logger log = LoggerFactory.getLogger(RespaldoService.class);
+
+    public static final String COMPLETO = "completo";
+    public static final String INCREMENTAL = "incremental";
+
+    private static final DateTimeFormatter FORMATO_NOMBRE = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final String EXTENSION_COMPLETO = ".zip";
+    private static final String EXTENSION_INCREMENTAL = ".sql.gz";
+    private static final String ESQUEMA_COMPARTIDO = "PUBLIC";
+
+    private static final String PRODUCTOS_CAMBIADOS =
+            "SELECT * FROM productos WHERE tienda_id = ? AND actualizado_en >= ? ORDER BY actualizado_en, id";
+    private static final String MOVIMIENTOS_NUEVOS =
+            "SELECT * FROM movimientos WHERE tienda_id = ? AND (id > ? OR fecha >= ?) ORDER BY id";
+    private static final String PRODUCTOS_PRESENTES = "SELECT id FROM productos WHERE tienda_id = ? ORDER BY id";
+    private static final String ARCHIVADOS_NUEVOS =
+            "SELECT * FROM productos_archivados WHERE tienda_id = ? AND archivado_en >= ? ORDER BY id";
+    private static final String HISTORIAL_CAMBIADO =
+            "SELECT * FROM historial_precios WHERE tienda_id = ? AND (desde >= ? OR hasta >= ?) ORDER BY id";
+    private static final String ULTIMO_MOVIMIENTO = "SELECT COALESCE(MAX(id), 0) FROM movimientos WHERE tienda_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate lectura;
+    private final MultitiendaProperties multitienda;
+    private final Path directorio;
+    private final int conservar;
+    private final Duration solape;
+    private final String usuario;
+    private final String clave;
+
+    private final ReentrantLock enCurso = new ReentrantLock();
+    private final Map<String, LongAdder> realizados = Map.of(COMPLETO, new LongAdder(), INCREMENTAL, new LongAdder());
+    private final Map<String, LongAdder> nanosTotales = Map.of(COMPLETO, new LongAdder(), INCREMENTAL, new LongAdder());
+    private final LongAdder fallidos = new LongAdder();
+    private volatile long bytesUltimo;
+    private volatile long ultimoTerminado;
+
+    @Autowired
+    public RespaldoService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                          MultitiendaProperties multitienda,
+                          @Value("${tienda.respaldo.directorio:data/respaldos}") String directorio,
+                          @Value("${tienda.respaldo.conservar:7}") int conservar,
+                          @Value("${tienda.respaldo.solape:5m}") Duration solape,
+                          @Value("${spring.datasource.username:sa}") String usuario,
+                          @Value("${spring.datasource.password:}") String clave) {
+        if (conservar < 1) {
+            throw new IllegalArgumentException("Hay que conservar al menos un respaldo completo");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.lectura.setReadOnly(true);
+        this.multitienda = multitienda;
+        this.directorio = Path.of(directorio).toAbsolutePath();
+        this.conservar = conservar;
+        this.solape = solape;
+        this.usuario = usuario;
+        this.clave = clave;
+    }
+
+    /**
+     * Respaldo completo verificado; borra los completos más viejos que los
+     * últimos tienda.respaldo.conservar junto con sus incrementales
+     */
+    public RespaldoDTO respaldarCompleto() {
+        return medir(this::completo);
+    }
+
+    private RespaldoDTO completo() throws IOException {
+        String archivoBase = archivoBaseDeDatos();
+        LocalDateTime inicio = LocalDateTime.now();
+        String nombre = COMPLETO + "-" + inicio.format(FORMATO_NOMBRE);
+        Path zip = directorio.resolve(nombre + EXTENSION_COMPLETO);
+        long comienzo = System.nanoTime();
+
+        // Las marcas se toman antes de copiar: lo que entre en ambos se vuelve a aplicar sin efecto
+        Map<String, Long> marcas = marcasActuales();
+        Files.createDirectories(directorio);
+        jdbcTemplate.execute("BACKUP TO " + StringUtils.quoteStringSQL(zip.toString()));
+        long duracionMs = (System.nanoTime() - comienzo) / 1_000_000;
+
+        Map<String, Long> estadisticas;
+        Path prueba = Files.createTempDirectory(directorio, "verificacion-");
+        try {
+            estadisticas = abrir(descomprimir(zip, prueba, archivoBase), this::estadisticas);
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(zip);
+            throw new IllegalStateException("El respaldo " + nombre + " no se pudo abrir; se descartó", e);
+        } finally {
+            borrarDirectorio(prueba);
+        }
+
+        Manifiesto manifiesto = new Manifiesto(nombre, COMPLETO, nombre, inicio, Files.size(zip), duracionMs,
+                marcas, estadisticas);
+        manifiesto.guardar(directorio);
+        borrarViejos();
+        log.info("Respaldo completo {} ({} KB) en {} ms, verificado", nombre, manifiesto.getBytes() / 1024, duracionMs);
+        return aDTO(manifiesto);
+    }
+
+    /**
+     * Respaldo incremental desde el último respaldo; si no hay un completo, hace uno
+     */
+    public RespaldoDTO respaldarIncremental() {
+        return medir(this::incremental);
+    }
+
+    private RespaldoDTO incremental() throws IOException {
+        // Se lee con enCurso tomado: un respaldo que termine en paralelo no puede quedar fuera de la cadena
+        Optional<Manifiesto> anterior = manifiestos().stream().reduce((primero, segundo) -> segundo);
+        if (anterior.isEmpty()) {
+            return completo();
+        }
+        Manifiesto previo = anterior.get();
+        LocalDateTime inicio = LocalDateTime.now();
+        LocalDateTime desde = previo.getInicio().minus(solape);
+        String nombre = INCREMENTAL + "-" + inicio.format(FORMATO_NOMBRE);
+        Path script = directorio.resolve(nombre + EXTENSION_INCREMENTAL);
+        Path temporal = directorio.resolve(nombre + EXTENSION_INCREMENTAL + ".tmp");
+        long comienzo = System.nanoTime();
+
+        Map<String, Long> marcas = new HashMap<>();
+        Map<String, Long> estadisticas = new HashMap<>();
+        try (PrintWriter salida = new PrintWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(temporal)), StandardCharsets.UTF_8))) {
+            for (String tienda : multitienda.todasLasTiendas()) {
+                long marcaPrevia = previo.getMarcas().getOrDefault(tienda, 0L);
+                TiendaContexto.ejecutarComo(tienda, () -> lectura.executeWithoutResult(estado -> {
+                    salida.println("SET SCHEMA " + StringUtils.quoteIdentifier(esquema(tienda)) + ";");
+                    escribirProductos(salida, tienda, desde);
+                    escribirBajas(salida, tienda);
+                    escribirArchivados(salida, tienda, desde);
+                    escribirHistorialPrecios(salida, tienda, desde);
+                    marcas.put(tienda, escribirMovimientos(salida, tienda, marcaPrevia, desde));
+                    estadisticas.putAll(jdbcTemplate.execute(
+                            (ConnectionCallback<Map<String, Long>>) conexion -> estadisticasDeTienda(conexion, tienda)));
+                }));
+            }
+        }
+        Files.move(temporal, script, StandardCopyOption.ATOMIC_MOVE);
+        long duracionMs = (System.nanoTime() - comienzo) / 1_000_000;
+
+        Manifiesto manifiesto = new Manifiesto(nombre, INCREMENTAL, previo.getBase(), inicio, Files.size(script),
+                duracionMs, marcas, estadisticas);
+        manifiesto.guardar(directorio);
+        log.info("Respaldo incremental {} sobre {} ({} KB) en {} ms",
+                nombre, previo.getBase(), manifiesto.getBytes() / 1024, duracionMs);
+        return aDTO(manifiesto);
+    }
+
+    /**
+     * Restaura el último respaldo completo y sus incrementales en un directorio
+     * nuevo (o vacío) y verifica el resultado contra el último manifiesto.
+     * destino es relativo a tienda.respaldo.directorio y no puede salir de él.
+     */
+    public RestauracionDTO restaurar(String destino) {
+        return restaurar(resolverDestino(destino));
+    }
+
+    private Path resolverDestino(String destino) {
+        Path relativo;
+        try {
+            relativo = Path.of(destino);
+        } catch (InvalidPathException e) {
+            throw new ValidacionException("Directorio de destino inválido: " + destino);
+        }
+        boolean subeDeNivel = false;
+        for (Path parte : relativo) {
+            subeDeNivel |= parte.toString().equals("..");
+        }
+        if (destino.isBlank() || relativo.isAbsolute() || subeDeNivel) {
+            throw new ValidacionException("El destino debe ser un directorio relativo al de respaldos, sin '..': " + destino);
+        }
+        Path resuelto = directorio.resolve(relativo).normalize();
+        if (!resuelto.startsWith(directorio) || resuelto.equals(directorio)) {
+            throw new ValidacionException("El destino debe quedar dentro del directorio de respaldos: " + destino);
+        }
+        return resuelto;
+    }
+
+    private RestauracionDTO restaurar(Path destino) {
+        List<Manifiesto> todos = manifiestos();
+        Manifiesto completo = todos.stream()
+                .filter(manifiesto -> COMPLETO.equals(manifiesto.getTipo()))
+                .reduce((primero, segundo) -> segundo)
+                .orElseThrow(() -> new IllegalStateException("No hay respaldos completos en " + directorio));
+        List<Manifiesto> incrementales = todos.stream()
+                .filter(manifiesto -> INCREMENTAL.equals(manifiesto.getTipo())
+                        && completo.getNombre().equals(manifiesto.getBase()))
+                .toList();
+        long comienzo = System.nanoTime();
+
+        try {
+            Files.createDirectories(destino);
+            try (Stream<Path> contenido = Files.list(destino)) {
+                if (contenido.findAny().isPresent()) {
+                    throw new ValidacionException("El directorio de destino no está vacío: " + destino);
+                }
+            }
+            Path base = descomprimir(directorio.resolve(completo.getNombre() + EXTENSION_COMPLETO), destino,
+                    archivoBaseDeDatos());
+            List<String> diferencias = abrir(base, conexion -> {
+                List<String> encontradas = comparar(completo, estadisticas(conexion));
+                for (Manifiesto incremental : incrementales) {
+                    try (Statement sentencia = conexion.createStatement()) {
+                        Path script = directorio.resolve(incremental.getNombre() + EXTENSION_INCREMENTAL);
+                        sentencia.execute("RUNSCRIPT FROM " + StringUtils.quoteStringSQL(script.toString()) +
+                                " COMPRESSION GZIP CHARSET 'UTF-8'");
+                    }
+                }
+                if (!incrementales.isEmpty()) {
+                    ajustarDespuesDeIncrementales(conexion);
+                    encontradas = comparar(incrementales.get(incrementales.size() - 1), estadisticas(conexion));
+                }
+                return encontradas;
+            });
+            long duracionMs = (System.nanoTime() - comienzo) / 1_000_000;
+            List<String> aplicados = incrementales.stream().map(Manifiesto::getNombre).toList();
+            if (diferencias.isEmpty()) {
+                log.info("Respaldo {} con {} incrementales restaurado y verificado en {} en {} ms",
+                        completo.getNombre(), aplicados.size(), destino, duracionMs);
+            } else {
+                log.error("La restauración de {} en {} no coincide con el respaldo: {}",
+                        completo.getNombre(), destino, diferencias);
+            }
+            return new RestauracionDTO(completo.getNombre(), aplicados, destino.toString(), diferencias, duracionMs);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo restaurar el respaldo " + completo.getNombre(), e);
+        }
+    }
+
+    /**
+     * Restaura en un directorio temporal, verifica y lo borra
+     */
+    public RestauracionDTO verificar() {
+        Path prueba = null;
+        try {
+            Files.createDirectories(directorio);
+            prueba = Files.createTempDirectory(directorio, "verificacion-");
+            return restaurar(prueba);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear el directorio de verificación", e);
+        } finally {
+            if (prueba != null) {
+                borrarDirectorio(prueba);
+            }
+        }
+    }
+
+    /**
+     * Respaldos disponibles, el más reciente primero
+     */
+    public List<RespaldoDTO> listar() {
+        return manifiestos().reversed().stream().map(this::aDTO).toList();
+    }
+
+    public long getRealizados(String tipo) {
+        return realizados.get(tipo).sum();
+    }
+
+    public double getSegundosTotales(String tipo) {
+        return nanosTotales.get(tipo).sum() / 1e9;
+    }
+
+    public long getFallidos() {
+        return fallidos.sum();
+    }
+
+    /**
+     * Tamaño del último respaldo terminado, de cualquier tipo
+     */
+    public long getBytesUltimo() {
+        return bytesUltimo;
+    }
+
+    /**
+     * Segundos desde el último respaldo terminado; -1 si no hubo ninguno desde que arrancó la aplicación
+     */
+    public double getSegundosDesdeUltimo() {
+        long ultimo = ultimoTerminado;
+        return ultimo == 0 ? -1 : (System.nanoTime() - ultimo) / 1e9;
+    }
+
+    private RespaldoDTO medir(Tarea tarea) {
+        // Un respaldo a la vez: dos copias del archivo no hacen más rápida ninguna
+        if (!enCurso.tryLock()) {
+            throw new IllegalStateException("Ya hay un respaldo en curso");
+        }
+        long comienzo = System.nanoTime();
+        try {
+            RespaldoDTO respaldo = tarea.ejecutar();
+            // Un incremental sin completo previo termina siendo completo
+            realizados.get(respaldo.getTipo()).increment();
+            nanosTotales.get(respaldo.getTipo()).add(System.nanoTime() - comienzo);
+            bytesUltimo = respaldo.getBytes();
+            ultimoTerminado = System.nanoTime();
+            return respaldo;
+        } catch (IOException e) {
+            fallidos.increment();
+            throw new UncheckedIOException("No se pudo escribir el respaldo en " + directorio, e);
+        } catch (RuntimeException e) {
+            fallidos.increment();
+            throw e;
+        } finally {
+            enCurso.unlock();
+        }
+    }
+
+    /**
+     * Nombre del archivo de la base de datos en uso, sin extensión; solo las bases en archivo se respaldan
+     */
+    private String archivoBaseDeDatos() {
+        String ruta = jdbcTemplate.queryForObject("SELECT DATABASE_PATH()", String.class);
+        if (ruta == null) {
+            throw new IllegalStateException("La base de datos está en memoria: no hay archivo que respaldar");
+        }
+        return Path.of(ruta).getFileName().toString();
+    }
+
+    private Map<String, Long> marcasActuales() {
+        Map<String, Long> marcas = new HashMap<>();
+        for (String tienda : multitienda.todasLasTiendas()) {
+            marcas.put(tienda, TiendaContexto.ejecutarComo(tienda,
+                    () -> jdbcTemplate.queryForObject(ULTIMO_MOVIMIENTO, Long.class, tienda)));
+        }
+        return marcas;
+    }
+
+    private void escribirProductos(PrintWriter salida, String tienda, LocalDateTime desde) {
+        jdbcTemplate.query(PRODUCTOS_CAMBIADOS, fila -> {
+            // El nombre es único en la tienda: otra fila con el mismo nombre ya se borró o se renombró
+            salida.println("DELETE FROM productos WHERE tienda_id = " + literal(tienda) +
+                    " AND nombre = " + literal(fila.getString("nombre")) + " AND id <> " + fila.getLong("id") + ";");
+            salida.println(merge("productos", fila));
+        }, tienda, desde);
+    }
+
+    /**
+     * Borra los productos archivados o purgados: los IDs de la tienda que ya no
+     * están en productos, escritos como los huecos entre los que quedan
+     */
+    private void escribirBajas(PrintWriter salida, String tienda) {
+        long[] anterior = {0};
+        jdbcTemplate.query(PRODUCTOS_PRESENTES, fila -> {
+            long id = fila.getLong("id");
+            if (id > anterior[0] + 1) {
+                salida.println("DELETE FROM productos WHERE tienda_id = " + literal(tienda) +
+                        " AND id BETWEEN " + (anterior[0] + 1) + " AND " + (id - 1) + ";");
+            }
+            anterior[0] = id;
+        }, tienda);
+        salida.println("DELETE FROM productos WHERE tienda_id = " + literal(tienda) + " AND id > " + anterior[0] + ";");
+    }
+
+    private void escribirArchivados(PrintWriter salida, String tienda, LocalDateTime desde) {
+        jdbcTemplate.query(ARCHIVADOS_NUEVOS, fila -> {
+            salida.println(merge("productos_archivados", fila));
+        }, tienda, desde);
+    }
+
+    private void escribirHistorialPrecios(PrintWriter salida, String tienda, LocalDateTime desde) {
+        jdbcTemplate.query(HISTORIAL_CAMBIADO, fila -> {
+            salida.println(merge("historial_precios", fila));
+        }, tienda, desde, desde);
+    }
+
+    /**
+     * @return último ID de movimiento escrito, o la marca previa si no hay nuevos
+     */
+    private long escribirMovimientos(PrintWriter salida, String tienda, long marcaPrevia, LocalDateTime desde) {
+        long[] marca = {marcaPrevia};
+        jdbcTemplate.query(MOVIMIENTOS_NUEVOS, fila -> {
+            salida.println(merge("movimientos", fila));
+            marca[0] = Math.max(marca[0], fila.getLong("id"));
+        }, tienda, marcaPrevia, desde);
+        return marca[0];
+    }
+
+    private static String merge(String tabla, ResultSet fila) throws SQLException {
+        ResultSetMetaData columnas = fila.getMetaData();
+        StringBuilder nombres = new StringBuilder();
+        StringBuilder valores = new StringBuilder();
+        for (int i = 1; i <= columnas.getColumnCount(); i++) {
+            if (i > 1) {
+                nombres.append(", ");
+                valores.append(", ");
+            }
+            nombres.append(columnas.getColumnName(i));
+            valores.append(literal(fila.getObject(i)));
+        }
+        return "MERGE INTO " + tabla + " (" + nombres + ") KEY (ID) VALUES (" + valores + ");";
+    }
+
+    private static String literal(Object valor) {
+        if (valor == null) {
+            return "NULL";
+        }
+        if (valor instanceof String texto) {
+            return StringUtils.quoteStringSQL(texto);
+        }
+        if (valor instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        if (valor instanceof Number || valor instanceof Boolean) {
+            return valor.toString();
+        }
+        if (valor instanceof java.sql.Timestamp fecha) {
+            return "TIMESTAMP '" + fecha + "'";
+        }
+        if (valor instanceof java.sql.Date fecha) {
+            return "DATE '" + fecha + "'";
+        }
+        throw new IllegalStateException("Tipo de columna sin soporte en los respaldos: " + valor.getClass());
+    }
+
+    /**
+     * Valores por tienda que los incrementales mantienen exactos: los movimientos
+     * (solo se agregan), las filas de productos (incluidas las bajas lógicas), los
+     * activos con sus unidades y los archivados
+     */
+    private Map<String, Long> estadisticas(Connection conexion) throws SQLException {
+        Map<String, Long> estadisticas = new HashMap<>();
+        for (String tienda : multitienda.todasLasTiendas()) {
+            try (Statement sentencia = conexion.createStatement()) {
+                sentencia.execute("SET SCHEMA " + StringUtils.quoteIdentifier(esquema(tienda)));
+            }
+            estadisticas.putAll(estadisticasDeTienda(conexion, tienda));
+        }
+        return estadisticas;
+    }
+
+    private static Map<String, Long> estadisticasDeTienda(Connection conexion, String tienda) throws SQLException {
+        Map<String, Long> estadisticas = new HashMap<>();
+        try (PreparedStatement movimientos = conexion.prepareStatement(
+                "SELECT COUNT(*), COALESCE(SUM(cantidad), 0), COALESCE(MAX(id), 0) FROM movimientos WHERE tienda_id = ?");
+             PreparedStatement unidades = conexion.prepareStatement(
+                "SELECT COUNT(*), COUNT(*) FILTER (WHERE eliminado_en IS NULL), " +
+                "COUNT(*) FILTER (WHERE eliminado_en IS NULL AND cantidad > 0), " +
+                "COALESCE(SUM(cantidad) FILTER (WHERE eliminado_en IS NULL), 0) FROM productos WHERE tienda_id = ?");
+             PreparedStatement archivados = conexion.prepareStatement(
+                "SELECT COUNT(*) FROM productos_archivados WHERE tienda_id = ?")) {
+            movimientos.setString(1, tienda);
+            try (ResultSet fila = movimientos.executeQuery()) {
+                fila.next();
+                estadisticas.put(tienda + ".movimientos", fila.getLong(1));
+                estadisticas.put(tienda + ".suma-movimientos", fila.getLong(2));
+                estadisticas.put(tienda + ".ultimo-movimiento", fila.getLong(3));
+            }
+            unidades.setString(1, tienda);
+            try (ResultSet fila = unidades.executeQuery()) {
+                fila.next();
+                estadisticas.put(tienda + ".productos", fila.getLong(1));
+                estadisticas.put(tienda + ".productos-activos", fila.getLong(2));
+                estadisticas.put(tienda + ".productos-con-existencias", fila.getLong(3));
+                estadisticas.put(tienda + ".unidades", fila.getLong(4));
+            }
+            archivados.setString(1, tienda);
+            try (ResultSet fila = archivados.executeQuery()) {
+                fila.next();
+                estadisticas.put(tienda + ".productos-archivados", fila.getLong(1));
+            }
+        }
+        return estadisticas;
+    }
+
+    private static List<String> comparar(Manifiesto esperado, Map<String, Long> obtenidas) {
+        List<String> diferencias = new ArrayList<>();
+        esperado.getEstadisticas().forEach((clave, valor) -> {
+            Long obtenido = obtenidas.get(clave);
+            if (!valor.equals(obtenido)) {
+                diferencias.add(clave + ": esperado " + valor + ", restaurado " + obtenido);
+            }
+        });
+        return diferencias;
+    }
+
+    /**
+     * Los MERGE con ID explícito no avanzan las identidades, y un producto
+     * restaurado del archivo después del respaldo completo queda en ambas tablas
+     */
+    private void ajustarDespuesDeIncrementales(Connection conexion) throws SQLException {
+        for (String esquema : multitienda.todasLasTiendas().stream().map(this::esquema).distinct().toList()) {
+            try (Statement sentencia = conexion.createStatement()) {
+                sentencia.execute("SET SCHEMA " + StringUtils.quoteIdentifier(esquema));
+                for (String tabla : List.of("productos", "movimientos", "historial_precios")) {
+                    try (ResultSet fila = sentencia.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM " + tabla)) {
+                        fila.next();
+                        long siguiente = fila.getLong(1);
+                        sentencia.execute("ALTER TABLE " + tabla + " ALTER COLUMN id RESTART WITH " + siguiente);
+                    }
+                }
+                sentencia.execute("DELETE FROM productos_archivados WHERE id IN (SELECT id FROM productos)");
+            }
+        }
+    }
+
+    private String esquema(String tienda) {
+        return multitienda.esquemas().getOrDefault(tienda, ESQUEMA_COMPARTIDO);
+    }
+
+    /**
+     * Abre la base de datos restaurada con su propia conexión (no la del pool) y la cierra al terminar
+     */
+    private <T> T abrir(Path base, Consulta<T> consulta) {
+        String url = "jdbc:h2:file:" + base;
+        try (Connection conexion = DriverManager.getConnection(url, usuario, clave)) {
+            try {
+                return consulta.ejecutar(conexion);
+            } finally {
+                try (Statement sentencia = conexion.createStatement()) {
+                    sentencia.execute("SHUTDOWN");
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("No se pudo abrir la base restaurada " + url, e);
+        }
+    }
+
+    /**
+     * @return ruta de la base descomprimida, sin extensión
+     */
+    private static Path descomprimir(Path zip, Path destino, String archivoBase) throws IOException {
+        try (ZipInputStream entrada = new ZipInputStream(Files.newInputStream(zip))) {
+            ZipEntry elemento;
+            while ((elemento = entrada.getNextEntry()) != null) {
+                Path archivo = destino.resolve(elemento.getName()).normalize();
+                if (!archivo.startsWith(destino)) {
+                    throw new IOException("Entrada inválida en el respaldo: " + elemento.getName());
+                }
+                Files.createDirectories(archivo.getParent());
+                Files.copy(entrada, archivo);
+            }
+        }
+        return destino.resolve(archivoBase);
+    }
+
+    private List<Manifiesto> manifiestos() {
+        if (!Files.isDirectory(directorio)) {
+            return List.of();
+        }
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos
+                    .filter(archivo -> archivo.getFileName().toString().endsWith(Manifiesto.EXTENSION))
+                    .map(Manifiesto::leer)
+                    .sorted(Comparator.comparing(Manifiesto::getInicio))
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el directorio de respaldos " + directorio, e);
+        }
+    }
+
+    private void borrarViejos() throws IOException {
+        List<Manifiesto> todos = manifiestos();
+        List<String> completos = todos.stream()
+                .filter(manifiesto -> COMPLETO.equals(manifiesto.getTipo()))
+                .map(Manifiesto::getNombre)
+                .toList();
+        if (completos.size() <= conservar) {
+            return;
+        }
+        List<String> vigentes = completos.subList(completos.size() - conservar, completos.size());
+        for (Manifiesto manifiesto : todos) {
+            if (!vigentes.contains(manifiesto.getBase())) {
+                String extension = COMPLETO.equals(manifiesto.getTipo()) ? EXTENSION_COMPLETO : EXTENSION_INCREMENTAL;
+                Files.deleteIfExists(directorio.resolve(manifiesto.getNombre() + extension));
+                Files.deleteIfExists(directorio.resolve(manifiesto.getNombre() + Manifiesto.EXTENSION));
+                log.info("Respaldo viejo {} borrado", manifiesto.getNombre());
+            }
+        }
+    }
+
+    private static void borrarDirectorio(Path raiz) {
+        try (Stream<Path> archivos = Files.walk(raiz)) {
+            for (Path archivo : archivos.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(archivo);
+            }
+        } catch (IOException e) {
+            log.warn("No se pudo borrar el directorio temporal {}", raiz, e);
+        }
+    }
+
+    private RespaldoDTO aDTO(Manifiesto manifiesto) {
+        return new RespaldoDTO(manifiesto.getNombre(), manifiesto.getTipo(), manifiesto.getBase(),
+                manifiesto.getInicio(), manifiesto.getBytes(), manifiesto.getDuracionMs());
+    }
+
+    @FunctionalInterface
+    private interface Tarea {
+        RespaldoDTO ejecutar() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Consulta<T> {
+        T ejecutar(Connection conexion) throws SQLException;
+    }
+}
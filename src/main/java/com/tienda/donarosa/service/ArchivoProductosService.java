@@ -0,0 +1,228 @@
+package com.tienda.donarosa.service;
+
+import com.tienda.donarosa.busqueda.AutocompletadoService;
+import com.tienda.donarosa.busqueda.BusquedaService;
+import com.tienda.donarosa.dto.ProductoDTO;
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.model.ProductoArchivado;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import com.tienda.donarosa.repository.ProductoArchivadoRepository;
+import com.tienda.donarosa.repository.ProductoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.query.NativeQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Archivo de los productos agotados hace mucho.
+ *
+ * Un producto agotado desde hace más de tienda.archivo.agotado-por
+ * (Producto.agotadoDesde) se mueve a productos_archivados, así la tabla
+ * productos (y todo lo que la recorre: listados, reportes, índices en memoria)
+ * guarda solo el inventario activo. Se mueven por lotes de IDs, cada uno en su
+ * propia transacción: se bloquean las filas, se copian con INSERT ... SELECT y
+ * se borran.
+ *
+ * Vuelven a productos, con su mismo ID, al reponerlos o al buscarlos por su
+ * nombre exacto (ver ProductoServiceImpl). Buscar dentro del archivo es una vía
+ * aparte y más lenta: recorre la tabla sin índices en memoria ni caché.
+ */
+@Service
+public class ArchivoProductosService {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchivoProductosService.class);
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transaccion;
+    private final ProductoRepository productoRepository;
+    private final ProductoArchivadoRepository productoArchivadoRepository;
+    private final InventarioColumnarService inventarioColumnarService;
+    private final BusquedaService busquedaService;
+    private final AutocompletadoService autocompletadoService;
+    private final LecturasCompartidas lecturasCompartidas;
+    private final ResumenCategoriasService resumenCategorias;
+    private final Duration agotadoPor;
+    private final int tamanoLote;
+
+    @Autowired
+    public ArchivoProductosService(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                                   ProductoRepository productoRepository,
+                                   ProductoArchivadoRepository productoArchivadoRepository,
+                                   InventarioColumnarService inventarioColumnarService,
+                                   BusquedaService busquedaService, AutocompletadoService autocompletadoService,
+                                   LecturasCompartidas lecturasCompartidas,
+                                   ResumenCategoriasService resumenCategorias,
+                                   @Value("${tienda.archivo.agotado-por:90d}") Duration agotadoPor,
+                                   @Value("${tienda.archivo.lote:500}") int tamanoLote) {
+        if (tamanoLote <= 0) {
+            throw new IllegalArgumentException("El lote del archivo debe ser mayor a cero");
+        }
+        this.entityManager = entityManager;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.productoRepository = productoRepository;
+        this.productoArchivadoRepository = productoArchivadoRepository;
+        this.inventarioColumnarService = inventarioColumnarService;
+        this.busquedaService = busquedaService;
+        this.autocompletadoService = autocompletadoService;
+        this.lecturasCompartidas = lecturasCompartidas;
+        this.resumenCategorias = resumenCategorias;
+        this.agotadoPor = agotadoPor;
+        this.tamanoLote = tamanoLote;
+    }
+
+    /**
+     * Archiva los productos de la tienda actual agotados desde antes de ahora
+     * menos tienda.archivo.agotado-por
+     *
+     * @return número de productos archivados
+     */
+    public int archivar(LocalDateTime ahora) {
+        LocalDateTime limite = ahora.minus(agotadoPor);
+        long inicio = System.nanoTime();
+        transaccion.executeWithoutResult(estado -> fecharAgotados(ahora));
+        int total = 0;
+        long ultimoId = 0;
+        while (true) {
+            long desde = ultimoId;
+            long[] lote = transaccion.execute(estado -> archivarLote(ahora, limite, desde));
+            if (lote == null) {
+                break;
+            }
+            ultimoId = lote[0];
+            total += (int) lote[1];
+        }
+        if (total > 0) {
+            lecturasCompartidas.invalidar();
+            log.info("Archivados {} productos agotados de la tienda {} en {} ms",
+                    total, TiendaContexto.actual(), (System.nanoTime() - inicio) / 1_000_000);
+        }
+        return total;
+    }
+
+    /**
+     * Devuelve el producto archivado a productos y a los índices en memoria.
+     * Participa de la transacción de quien llama, que puede seguir modificándolo.
+     */
+    @Transactional
+    public Optional<Producto> restaurar(Long id) {
+        if (!productoArchivadoRepository.restaurar(id)) {
+            return Optional.empty();
+        }
+        Optional<Producto> restaurado = productoRepository.findParaActualizar(id);
+        restaurado.ifPresent(producto -> {
+            inventarioColumnarService.registrarCambio(producto);
+            resumenCategorias.registrarAlta(producto);
+            busquedaService.registrarCambio(producto);
+            autocompletadoService.registrarCambio(producto);
+            lecturasCompartidas.invalidar();
+            log.info("Producto {} ({}) restaurado del archivo", id, producto.getNombre());
+        });
+        return restaurado;
+    }
+
+    /**
+     * Restaura el producto archivado con el nombre exacto, si lo hay
+     */
+    @Transactional
+    public Optional<Producto> restaurarPorNombre(String nombre) {
+        if (nombre == null) {
+            return Optional.empty();
+        }
+        return productoArchivadoRepository.findByNombreIgnoreCase(nombre)
+                .flatMap(archivado -> restaurar(archivado.getId()));
+    }
+
+    /**
+     * Indica si hay un producto archivado con el nombre exacto, sin restaurarlo
+     */
+    @Transactional(readOnly = true)
+    public boolean estaArchivado(String nombre) {
+        return nombre != null && productoArchivadoRepository.existsByNombreIgnoreCase(nombre);
+    }
+
+    /**
+     * Busca en el archivo sin restaurar nada; recorre la tabla
+     */
+    @Transactional(readOnly = true)
+    public List<ProductoDTO> buscarArchivados(String termino, int limite) {
+        return productoArchivadoRepository.findByNombreContainingIgnoreCaseOrderByNombre(termino, Limit.of(limite))
+                .stream()
+                .map(archivado -> new ProductoDTO(archivado.getId(), archivado.getNombre(), archivado.getPrecio(), 0,
+                        archivado.getCantidadInicial()))
+                .toList();
+    }
+
+    /**
+     * Los productos agotados antes de existir la columna agotado_desde empiezan a contar desde ahora
+     */
+    private void fecharAgotados(LocalDateTime ahora) {
+        Query fecha = entityManager.createNativeQuery(
+                "UPDATE productos SET agotado_desde = :ahora, actualizado_en = LOCALTIMESTAMP " +
+                "WHERE tienda_id = :tienda AND cantidad = 0 AND agotado_desde IS NULL AND eliminado_en IS NULL");
+        fecha.setParameter("ahora", ahora);
+        fecha.setParameter("tienda", TiendaContexto.actual());
+        fecha.unwrap(NativeQuery.class).addSynchronizedEntityClass(Producto.class);
+        fecha.executeUpdate();
+    }
+
+    /**
+     * Procesa el siguiente lote de candidatos después de "desde".
+     *
+     * @return [último ID del lote, productos archivados] o null si no quedan candidatos
+     */
+    private long[] archivarLote(LocalDateTime ahora, LocalDateTime limite, long desde) {
+        String tienda = TiendaContexto.actual();
+        Query bloqueo = entityManager.createNativeQuery(
+                "SELECT p.id FROM productos p WHERE p.tienda_id = :tienda AND p.eliminado_en IS NULL " +
+                "AND p.cantidad = 0 AND p.agotado_desde < :limite AND p.id > :desde " +
+                "ORDER BY p.id LIMIT " + tamanoLote + " FOR UPDATE");
+        bloqueo.setParameter("tienda", tienda);
+        bloqueo.setParameter("desde", desde);
+        bloqueo.setParameter("limite", limite);
+        List<Long> ids = ((List<?>) bloqueo.getResultList()).stream()
+                .map(id -> ((Number) id).longValue())
+                .toList();
+        if (ids.isEmpty()) {
+            return null;
+        }
+
+        Query copia = entityManager.createNativeQuery(
+                "INSERT INTO productos_archivados (id, tienda_id, nombre, categoria, precio, cantidad_inicial, " +
+                "punto_reorden, archivado_en) SELECT id, tienda_id, nombre, categoria, precio, cantidad_inicial, " +
+                "punto_reorden, :ahora " +
+                "FROM productos WHERE tienda_id = :tienda AND id IN (:ids)");
+        copia.setParameter("ahora", ahora);
+        copia.setParameter("tienda", tienda);
+        copia.setParameter("ids", ids);
+        copia.unwrap(NativeQuery.class).addSynchronizedEntityClass(ProductoArchivado.class);
+        copia.executeUpdate();
+
+        Query borrado = entityManager.createNativeQuery(
+                "DELETE FROM productos WHERE tienda_id = :tienda AND id IN (:ids)");
+        borrado.setParameter("tienda", tienda);
+        borrado.setParameter("ids", ids);
+        // Declarar la entidad invalida el caché de productos y de reportes
+        borrado.unwrap(NativeQuery.class).addSynchronizedEntityClass(Producto.class);
+        resumenCategorias.ajustarEscrituraSql(ids, borrado::executeUpdate);
+
+        for (Long id : ids) {
+            inventarioColumnarService.registrarBaja(id);
+            busquedaService.registrarBaja(id);
+            autocompletadoService.registrarBaja(id);
+        }
+        return new long[]{ids.get(ids.size() - 1), ids.size()};
+    }
+}
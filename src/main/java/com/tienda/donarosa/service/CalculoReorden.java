@@ -0,0 +1,91 @@
+package com.tienda.donarosa.service;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Cálculo del punto de reorden y los días de cobertura de un rango de productos.
+ * Divide el rango en mitades hasta llegar al umbral y procesa cada parte en el
+ * ForkJoinPool; cada tarea escribe solo sus posiciones de los arreglos de salida.
+ *
+ * Con la demanda diaria media d y su desviación s en la ventana, y un tiempo de
+ * entrega de L días: punto de reorden = d * L + z * s * raíz(L) (stock de seguridad).
+ */
+class CalculoReorden extends RecursiveAction {
+
+    static final int UMBRAL = 4_096;
+
+    private final Datos datos;
+    private final int desde;
+    private final int hasta;
+
+    CalculoReorden(Datos datos, int desde, int hasta) {
+        this.datos = datos;
+        this.desde = desde;
+        this.hasta = hasta;
+    }
+
+    @Override
+    protected void compute() {
+        if (hasta - desde <= UMBRAL) {
+            calcular();
+            return;
+        }
+        int medio = (desde + hasta) >>> 1;
+        invokeAll(new CalculoReorden(datos, desde, medio), new CalculoReorden(datos, medio, hasta));
+    }
+
+    private void calcular() {
+        double raizEntrega = Math.sqrt(datos.diasEntrega);
+        for (int i = desde; i < hasta; i++) {
+            if (datos.unidades[i] <= 0) {
+                datos.puntoReorden[i] = -1;
+                datos.demandaDiaria[i] = Double.NaN;
+                datos.diasCobertura[i] = Double.NaN;
+                continue;
+            }
+            double media = (double) datos.unidades[i] / datos.ventanaDias;
+            double varianza = Math.max(0.0, (double) datos.unidadesCuadrado[i] / datos.ventanaDias - media * media);
+            double seguridad = datos.factorSeguridad * Math.sqrt(varianza) * raizEntrega;
+
+            datos.puntoReorden[i] = (int) Math.ceil(media * datos.diasEntrega + seguridad);
+            datos.demandaDiaria[i] = media;
+            datos.diasCobertura[i] = datos.cantidad[i] / media;
+        }
+    }
+
+    /**
+     * Arreglos paralelos, una posición por producto. Las ventas faltantes
+     * (unidades = 0) dejan el producto sin punto de reorden (-1 / NaN)
+     */
+    static final class Datos {
+        final int ventanaDias;
+        final int diasEntrega;
+        final double factorSeguridad;
+
+        final long[] ids;
+        final int[] cantidad;
+        final long[] unidades;
+        final long[] unidadesCuadrado;
+
+        final int[] puntoReorden;
+        final double[] demandaDiaria;
+        final double[] diasCobertura;
+
+        Datos(int n, int ventanaDias, int diasEntrega, double factorSeguridad) {
+            this.ventanaDias = ventanaDias;
+            this.diasEntrega = diasEntrega;
+            this.factorSeguridad = factorSeguridad;
+            this.ids = new long[n];
+            this.cantidad = new int[n];
+            this.unidades = new long[n];
+            this.unidadesCuadrado = new long[n];
+            this.puntoReorden = new int[n];
+            this.demandaDiaria = new double[n];
+            this.diasCobertura = new double[n];
+        }
+
+        int tamano() {
+            return ids.length;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.tienda.donarosa.service;
+
+import com.tienda.donarosa.busqueda.AutocompletadoService;
+import com.tienda.donarosa.busqueda.BusquedaService;
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.model.TipoMovimiento;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.query.NativeQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Llena la tienda actual con un catálogo sintético (ver GeneradorCatalogo)
+ * para medir el rendimiento con 10 mil, 100 mil o un millón de productos.
+ *
+ * Los productos se insertan por lotes con un solo INSERT de varias filas por
+ * lote, cada uno en su propia transacción, junto con su movimiento de ALTA
+ * para que las cantidades sigan cuadrando con los movimientos.
+ */
+@Service
+public class CatalogoSinteticoService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogoSinteticoService.class);
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transaccion;
+    private final InventarioColumnarService inventarioColumnarService;
+    private final LecturasCompartidas lecturasCompartidas;
+    private final BusquedaService busquedaService;
+    private final AutocompletadoService autocompletadoService;
+    private final ResumenCategoriasService resumenCategorias;
+    private final HistorialPreciosService historialPrecios;
+    private final double proporcionAgotados;
+    private final double proporcionCercaDeAgotarse;
+    private final int tamanoLote;
+
+    @Autowired
+    public CatalogoSinteticoService(EntityManager entityManager,
+                                    PlatformTransactionManager transactionManager,
+                                    InventarioColumnarService inventarioColumnarService,
+                                    LecturasCompartidas lecturasCompartidas,
+                                    BusquedaService busquedaService,
+                                    AutocompletadoService autocompletadoService,
+                                    ResumenCategoriasService resumenCategorias,
+                                    HistorialPreciosService historialPrecios,
+                                    @Value("${tienda.generador.agotados:0.05}") double proporcionAgotados,
+                                    @Value("${tienda.generador.cerca-de-agotarse:0.10}") double proporcionCercaDeAgotarse,
+                                    @Value("${tienda.generador.lote:2000}") int tamanoLote) {
+        if (tamanoLote <= 0) {
+            throw new IllegalArgumentException("El lote debe ser mayor a cero");
+        }
+        this.entityManager = entityManager;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.inventarioColumnarService = inventarioColumnarService;
+        this.lecturasCompartidas = lecturasCompartidas;
+        this.busquedaService = busquedaService;
+        this.autocompletadoService = autocompletadoService;
+        this.resumenCategorias = resumenCategorias;
+        this.historialPrecios = historialPrecios;
+        this.proporcionAgotados = proporcionAgotados;
+        this.proporcionCercaDeAgotarse = proporcionCercaDeAgotarse;
+        this.tamanoLote = tamanoLote;
+    }
+
+    /**
+     * Agrega "cantidad" productos sintéticos a la tienda actual
+     *
+     * @return número de productos insertados
+     */
+    public int generar(int cantidad, long semilla) {
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad de productos debe ser mayor a cero");
+        }
+        long inicio = System.nanoTime();
+        GeneradorCatalogo generador = new GeneradorCatalogo(semilla, proporcionAgotados, proporcionCercaDeAgotarse);
+        LocalDateTime fecha = LocalDateTime.now();
+
+        int insertados = 0;
+        Producto[] lote = new Producto[tamanoLote];
+        while (insertados < cantidad) {
+            int tamano = Math.min(tamanoLote, cantidad - insertados);
+            for (int i = 0; i < tamano; i++) {
+                lote[i] = generador.siguiente();
+            }
+            transaccion.executeWithoutResult(estado -> insertarLote(lote, tamano, fecha));
+            insertados += tamano;
+        }
+        inventarioColumnarService.invalidar();
+        lecturasCompartidas.invalidar();
+        busquedaService.invalidar();
+        autocompletadoService.invalidar();
+
+        long ms = Math.max(1, (System.nanoTime() - inicio) / 1_000_000);
+        log.info("Catálogo sintético de la tienda {}: {} productos en {} ms ({} por segundo)",
+                TiendaContexto.actual(), insertados, ms, insertados * 1000L / ms);
+        return insertados;
+    }
+
+    private void insertarLote(Producto[] lote, int tamano, LocalDateTime fecha) {
+        String tienda = TiendaContexto.actual();
+        Number ultimoId = (Number) entityManager
+                .createNativeQuery("SELECT COALESCE(MAX(id), 0) FROM productos WHERE tienda_id = ?")
+                .setParameter(1, tienda)
+                .getSingleResult();
+
+        StringBuilder sql = new StringBuilder("INSERT INTO productos (tienda_id, nombre, categoria, precio, cantidad, cantidad_inicial, actualizado_en) VALUES ");
+        for (int i = 0; i < tamano; i++) {
+            sql.append(i > 0 ? ", " : "").append("(?, ?, ?, ?, ?, ?, LOCALTIMESTAMP)");
+        }
+        Query insertar = entityManager.createNativeQuery(sql.toString());
+        int parametro = 1;
+        for (int i = 0; i < tamano; i++) {
+            Producto producto = lote[i];
+            insertar.setParameter(parametro++, tienda);
+            insertar.setParameter(parametro++, producto.getNombre());
+            insertar.setParameter(parametro++, producto.getCategoria());
+            insertar.setParameter(parametro++, producto.getPrecio());
+            insertar.setParameter(parametro++, producto.getCantidad());
+            insertar.setParameter(parametro++, producto.getCantidadInicial());
+        }
+        // Declarar la tabla invalida el caché de productos y de reportes
+        insertar.unwrap(NativeQuery.class).addSynchronizedEntityClass(Producto.class);
+        insertar.executeUpdate();
+        List<Long> nuevos = ((List<?>) entityManager
+                .createNativeQuery("SELECT id FROM productos WHERE tienda_id = ? AND id > ?")
+                .setParameter(1, tienda)
+                .setParameter(2, ultimoId.longValue())
+                .getResultList()).stream()
+                .map(id -> ((Number) id).longValue())
+                .toList();
+        resumenCategorias.registrarAltasSql(nuevos);
+        historialPrecios.registrarPreciosSql(nuevos, fecha);
+
+        // Los productos recién insertados son los únicos de la tienda sin movimientos
+        Query altas = entityManager.createNativeQuery(
+                "INSERT INTO movimientos (tienda_id, producto_id, tipo, cantidad, precio_unitario, fecha) " +
+                "SELECT p.tienda_id, p.id, ?, p.cantidad, p.precio, ? FROM productos p " +
+                "WHERE p.tienda_id = ? AND p.id > ? " +
+                "AND NOT EXISTS (SELECT 1 FROM movimientos m WHERE m.tienda_id = p.tienda_id AND m.producto_id = p.id)");
+        altas.setParameter(1, TipoMovimiento.ALTA.name());
+        altas.setParameter(2, fecha);
+        altas.setParameter(3, tienda);
+        altas.setParameter(4, ultimoId.longValue());
+        altas.unwrap(NativeQuery.class).addSynchronizedQuerySpace("movimientos");
+        altas.executeUpdate();
+    }
+}
@@ -0,0 +1,349 @@
+package com.tienda.donarosa.service;
+
+import com.tienda.donarosa.admision.ControlAdmision;
+import com.tienda.donarosa.dto.ConciliacionDTO;
+import com.tienda.donarosa.model.Conciliacion;
+import com.tienda.donarosa.model.ConciliacionTramo;
+import com.tienda.donarosa.model.DiferenciaConciliacion;
+import com.tienda.donarosa.model.TipoDiferencia;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import com.tienda.donarosa.repository.ConciliacionRepository;
+import com.tienda.donarosa.repository.ConciliacionTramoRepository;
+import com.tienda.donarosa.repository.DiferenciaConciliacionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Conciliación de inventario: revisa toda la tabla productos de una tienda.
+ *
+ * - La cantidad de cada producto (cero si está eliminado) debe ser la suma de
+ *   sus movimientos.
+ * - cantidad_inicial no puede ser nula ni negativa.
+ * - Las unidades y el valor de cada categoría, sumados desde productos, se
+ *   comparan con los totales mantenidos en resumen_categorias. Se hace al
+ *   terminar y en una sola consulta, para que ambos lados sean del mismo momento;
+ *   los tramos se leen a lo largo de horas y sus sumas no sirven para esto.
+ *
+ * Se reparte el rango de IDs en tramos que revisan varios hilos a la vez. Cada
+ * tramo avanza por lotes de tienda.conciliacion.lote productos; cada lote es una
+ * sola consulta (una vista consistente del producto y sus movimientos) y se
+ * confirma junto con el avance del tramo y sus diferencias, así que en memoria
+ * hay a lo sumo un lote por hilo. Si la corrida se corta (la aplicación se
+ * detiene o se cumple tienda.conciliacion.duracion-maxima) la siguiente
+ * ejecución la retoma desde el último lote confirmado.
+ *
+ * Para no competir con las ventas cada hilo descansa después de cada lote: lo
+ * necesario para trabajar a lo sumo tienda.conciliacion.ciclo del tiempo, y al
+ * menos tienda.conciliacion.espera-con-trafico mientras las peticiones en curso
+ * llegan a la mitad del límite del control de admisión.
+ */
+@Service
+public class ConciliacionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ConciliacionService.class);
+
+    private static final int DETALLE_REPORTE = 100;
+
+    private static final String LOTE =
+            "SELECT p.id, p.cantidad, p.cantidad_inicial, p.precio, p.eliminado_en IS NOT NULL, " +
+            "(SELECT COUNT(*) FROM movimientos m WHERE m.tienda_id = p.tienda_id AND m.producto_id = p.id), " +
+            "(SELECT COALESCE(SUM(m.cantidad), 0) FROM movimientos m WHERE m.tienda_id = p.tienda_id AND m.producto_id = p.id) " +
+            "FROM productos p WHERE p.tienda_id = ? AND p.id > ? AND p.id <= ? ORDER BY p.id FETCH FIRST ? ROWS ONLY";
+
+    // resumen_categorias menos lo sumado desde productos, por categoría (una sola lectura consistente)
+    private static final String DIFERENCIAS_RESUMEN =
+            "SELECT categoria, SUM(unidades), SUM(valor) FROM (" +
+            "SELECT r.categoria, r.unidades, r.valor FROM resumen_categorias r WHERE r.tienda_id = ? " +
+            "UNION ALL " +
+            "SELECT p.categoria, -SUM(p.cantidad), -SUM(p.precio * p.cantidad) FROM productos p " +
+            "WHERE p.tienda_id = ? AND p.eliminado_en IS NULL GROUP BY p.categoria" +
+            ") t GROUP BY categoria HAVING SUM(unidades) <> 0 OR SUM(valor) <> 0 ORDER BY categoria";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccion;
+    private final ConciliacionRepository conciliacionRepository;
+    private final ConciliacionTramoRepository tramoRepository;
+    private final DiferenciaConciliacionRepository diferenciaRepository;
+    private final Optional<ControlAdmision> controlAdmision;
+    private final int hilos;
+    private final int particiones;
+    private final int tamanoLote;
+    private final double ciclo;
+    private final Duration esperaConTrafico;
+    private final Duration duracionMaxima;
+    private final int detallePorTramo;
+
+    @Autowired
+    public ConciliacionService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                               ConciliacionRepository conciliacionRepository,
+                               ConciliacionTramoRepository tramoRepository,
+                               DiferenciaConciliacionRepository diferenciaRepository,
+                               Optional<ControlAdmision> controlAdmision,
+                               @Value("${tienda.conciliacion.hilos:0}") int hilos,
+                               @Value("${tienda.conciliacion.particiones:16}") int particiones,
+                               @Value("${tienda.conciliacion.lote:1000}") int tamanoLote,
+                               @Value("${tienda.conciliacion.ciclo:0.5}") double ciclo,
+                               @Value("${tienda.conciliacion.espera-con-trafico:500ms}") Duration esperaConTrafico,
+                               @Value("${tienda.conciliacion.duracion-maxima:4h}") Duration duracionMaxima,
+                               @Value("${tienda.conciliacion.detalle-por-tramo:100}") int detallePorTramo) {
+        if (particiones <= 0 || tamanoLote <= 0) {
+            throw new IllegalArgumentException("Las particiones y el lote de la conciliación deben ser mayores a cero");
+        }
+        if (ciclo <= 0 || ciclo > 1) {
+            throw new IllegalArgumentException("El ciclo de la conciliación debe estar entre 0 (excluido) y 1");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.conciliacionRepository = conciliacionRepository;
+        this.tramoRepository = tramoRepository;
+        this.diferenciaRepository = diferenciaRepository;
+        this.controlAdmision = controlAdmision;
+        // 0: uno por núcleo
+        this.hilos = Math.min(particiones, hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors());
+        this.particiones = particiones;
+        this.tamanoLote = tamanoLote;
+        this.ciclo = ciclo;
+        this.esperaConTrafico = esperaConTrafico;
+        this.duracionMaxima = duracionMaxima;
+        this.detallePorTramo = detallePorTramo;
+    }
+
+    /**
+     * Concilia la tienda actual: retoma la corrida sin terminar o empieza una nueva
+     *
+     * @return el reporte; sin terminar si se cumplió la duración máxima
+     */
+    public ConciliacionDTO conciliar() {
+        String tienda = TiendaContexto.actual();
+        long inicio = System.nanoTime();
+        long limite = inicio + duracionMaxima.toNanos();
+        Conciliacion conciliacion = transaccion.execute(estado -> iniciar(tienda));
+        List<Long> pendientes = tramoRepository.findByConciliacionIdOrderByDesde(conciliacion.getId()).stream()
+                .filter(tramo -> !tramo.getTerminado())
+                .map(ConciliacionTramo::getId)
+                .toList();
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos,
+                Thread.ofPlatform().name("conciliacion-", 1).daemon().factory());
+        RuntimeException error = null;
+        try {
+            List<Future<?>> trabajos = new ArrayList<>();
+            for (Long tramo : pendientes) {
+                trabajos.add(ejecutor.submit(() ->
+                        TiendaContexto.ejecutarComo(tienda, () -> revisarTramo(conciliacion.getId(), tramo, limite))));
+            }
+            for (Future<?> trabajo : trabajos) {
+                try {
+                    trabajo.get();
+                } catch (ExecutionException e) {
+                    if (error == null) {
+                        error = new IllegalStateException("No se pudo revisar un tramo de la conciliación "
+                                + conciliacion.getId(), e.getCause());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Conciliación interrumpida", e);
+                }
+            }
+        } finally {
+            ejecutor.shutdownNow();
+        }
+        if (error != null) {
+            // Lo confirmado queda; la próxima ejecución retoma los tramos pendientes
+            throw error;
+        }
+
+        ConciliacionDTO reporte = transaccion.execute(estado -> terminar(conciliacion.getId()));
+        informar(tienda, reporte, (System.nanoTime() - inicio) / 1_000_000);
+        return reporte;
+    }
+
+    /**
+     * Reporte de la corrida más reciente de la tienda actual
+     */
+    @Transactional(readOnly = true)
+    public Optional<ConciliacionDTO> obtenerUltima() {
+        return conciliacionRepository.findFirstByOrderByIdDesc().map(this::reporte);
+    }
+
+    private Conciliacion iniciar(String tienda) {
+        Optional<Conciliacion> sinTerminar = conciliacionRepository.findFirstByFinIsNullOrderByIdDesc();
+        if (sinTerminar.isPresent()) {
+            log.info("Retomando la conciliación {} de la tienda {}, iniciada el {}",
+                    sinTerminar.get().getId(), tienda, sinTerminar.get().getInicio());
+            return sinTerminar.get();
+        }
+        Conciliacion conciliacion = conciliacionRepository.save(new Conciliacion(LocalDateTime.now()));
+        // Los productos creados después de este punto los revisa la próxima corrida
+        Map<String, Object> rango = jdbcTemplate.queryForMap(
+                "SELECT MIN(id) AS minimo, MAX(id) AS maximo FROM productos WHERE tienda_id = ?", tienda);
+        if (rango.get("maximo") != null) {
+            long desde = ((Number) rango.get("minimo")).longValue() - 1;
+            long hasta = ((Number) rango.get("maximo")).longValue();
+            long ancho = Math.max(1, (hasta - desde + particiones - 1) / particiones);
+            List<ConciliacionTramo> tramos = new ArrayList<>();
+            for (long inicio = desde; inicio < hasta; inicio += ancho) {
+                tramos.add(new ConciliacionTramo(conciliacion.getId(), inicio, Math.min(hasta, inicio + ancho)));
+            }
+            tramoRepository.saveAll(tramos);
+        }
+        return conciliacion;
+    }
+
+    /**
+     * Revisa el tramo lote por lote hasta terminarlo o hasta el límite de tiempo
+     */
+    private void revisarTramo(Long conciliacionId, Long tramoId, long limite) {
+        while (true) {
+            long inicio = System.nanoTime();
+            Boolean terminado = transaccion.execute(estado -> revisarLote(conciliacionId, tramoId));
+            if (Boolean.TRUE.equals(terminado) || System.nanoTime() >= limite) {
+                return;
+            }
+            descansar(System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Revisa el siguiente lote del tramo y confirma el avance junto con las diferencias
+     *
+     * @return si el tramo quedó terminado
+     */
+    private boolean revisarLote(Long conciliacionId, Long tramoId) {
+        ConciliacionTramo tramo = tramoRepository.findById(tramoId)
+                .orElseThrow(() -> new IllegalStateException("Tramo de conciliación no encontrado: " + tramoId));
+        List<DiferenciaConciliacion> diferencias = new ArrayList<>();
+        int[] leidos = {0};
+        jdbcTemplate.query(LOTE, fila -> {
+            leidos[0]++;
+            long id = fila.getLong(1);
+            int cantidad = fila.getInt(2);
+            Integer cantidadInicial = (Integer) fila.getObject(3);
+            boolean eliminado = fila.getBoolean(5);
+            long movimientos = fila.getLong(6);
+            long suma = fila.getLong(7);
+
+            if (eliminado) {
+                tramo.contar(id);
+            } else {
+                tramo.sumar(id, cantidad, fila.getBigDecimal(4));
+            }
+            long esperado = eliminado ? 0 : cantidad;
+            if (suma != esperado) {
+                TipoDiferencia tipo = movimientos == 0 ? TipoDiferencia.SIN_MOVIMIENTOS : TipoDiferencia.EXISTENCIAS;
+                if (tramo.registrar(tipo) <= detallePorTramo) {
+                    diferencias.add(new DiferenciaConciliacion(conciliacionId, id, tipo, esperado, suma));
+                }
+            }
+            if (cantidadInicial == null || cantidadInicial < 0) {
+                if (tramo.registrar(TipoDiferencia.CANTIDAD_INICIAL) <= detallePorTramo) {
+                    diferencias.add(new DiferenciaConciliacion(conciliacionId, id, TipoDiferencia.CANTIDAD_INICIAL,
+                            null, cantidadInicial == null ? null : cantidadInicial.longValue()));
+                }
+            }
+        }, TiendaContexto.actual(), tramo.getUltimoId(), tramo.getHasta(), tamanoLote);
+
+        if (leidos[0] < tamanoLote) {
+            tramo.terminar();
+        }
+        diferenciaRepository.saveAll(diferencias);
+        return tramo.getTerminado();
+    }
+
+    /**
+     * Cierra la corrida si ya no quedan tramos pendientes
+     */
+    private ConciliacionDTO terminar(Long conciliacionId) {
+        Conciliacion conciliacion = conciliacionRepository.findById(conciliacionId).orElseThrow();
+        List<ConciliacionTramo> tramos = tramoRepository.findByConciliacionIdOrderByDesde(conciliacionId);
+        if (tramos.stream().allMatch(ConciliacionTramo::getTerminado)) {
+            String tienda = TiendaContexto.actual();
+            List<DiferenciaCategoria> categorias = jdbcTemplate.query(DIFERENCIAS_RESUMEN,
+                    (fila, n) -> new DiferenciaCategoria(fila.getString(1), fila.getLong(2), fila.getBigDecimal(3)),
+                    tienda, tienda);
+            for (DiferenciaCategoria categoria : categorias) {
+                log.warn("Conciliación {} de la tienda {}: el resumen de la categoría {} difiere en {} unidades y ${}",
+                        conciliacionId, tienda, categoria.categoria(), categoria.unidades(), categoria.valor());
+            }
+            conciliacion.terminar(LocalDateTime.now(), tramos,
+                    categorias.stream().mapToLong(DiferenciaCategoria::unidades).sum(),
+                    categorias.stream().map(DiferenciaCategoria::valor).reduce(BigDecimal.ZERO, BigDecimal::add),
+                    categorias.size());
+        }
+        return new ConciliacionDTO(conciliacion, tramos, detalle(conciliacionId));
+    }
+
+    private ConciliacionDTO reporte(Conciliacion conciliacion) {
+        return new ConciliacionDTO(conciliacion, tramoRepository.findByConciliacionIdOrderByDesde(conciliacion.getId()),
+                detalle(conciliacion.getId()));
+    }
+
+    private List<DiferenciaConciliacion> detalle(Long conciliacionId) {
+        return diferenciaRepository.findByConciliacionIdOrderByProductoId(conciliacionId, Limit.of(DETALLE_REPORTE));
+    }
+
+    private void informar(String tienda, ConciliacionDTO reporte, long ms) {
+        if (!reporte.isTerminada()) {
+            log.info("Conciliación {} de la tienda {} pausada después de {} ms: {} productos revisados, " +
+                    "{} de {} tramos pendientes", reporte.getId(), tienda, ms, reporte.getProductos(),
+                    reporte.getTramosPendientes(), reporte.getTramos());
+        } else if (reporte.getDiferencias() > 0 || reporte.getCategoriasConDiferencias() > 0) {
+            log.warn("Conciliación {} de la tienda {}: {} productos, {} con existencias que no cuadran con los " +
+                    "movimientos, {} sin movimientos, {} con cantidad inicial inválida; el resumen difiere en {} " +
+                    "categorías, {} unidades y ${}", reporte.getId(), tienda, reporte.getProductos(),
+                    reporte.getExistencias(), reporte.getSinMovimientos(), reporte.getCantidadesIniciales(),
+                    reporte.getCategoriasConDiferencias(), reporte.getDiferenciaUnidades(), reporte.getDiferenciaValor());
+        } else {
+            log.info("Conciliación {} de la tienda {} sin diferencias: {} productos, {} unidades por ${} en {} ms",
+                    reporte.getId(), tienda, reporte.getProductos(), reporte.getUnidades(), reporte.getValor(), ms);
+        }
+    }
+
+    /**
+     * Pausa después de un lote que tardó "nanos"
+     */
+    private void descansar(long nanos) {
+        long pausa = (long) (nanos * (1 - ciclo) / ciclo);
+        if (hayTrafico()) {
+            pausa = Math.max(pausa, esperaConTrafico.toNanos());
+        }
+        if (pausa <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(Duration.ofNanos(pausa));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Conciliación interrumpida", e);
+        }
+    }
+
+    private boolean hayTrafico() {
+        return controlAdmision.map(control -> control.limites().values().stream()
+                        .anyMatch(limite -> limite.getEnCurso() * 2 >= limite.getLimite()))
+                .orElse(false);
+    }
+
+    private record DiferenciaCategoria(String categoria, long unidades, BigDecimal valor) {
+    }
+}
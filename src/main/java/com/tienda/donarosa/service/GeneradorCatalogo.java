@@ -0,0 +1,112 @@
+package com.tienda.donarosa.service;
+
+import com.tienda.donarosa.model.Producto;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+
+/**
+ * Genera productos sintéticos reproducibles (la misma semilla produce el mismo
+ * catálogo) para pruebas y mediciones con catálogos grandes.
+ *
+ * - Nombres: producto base, marca y presentación, con las categorías más
+ *   comunes repetidas más seguido; terminan en "#n" para ser únicos. Cada
+ *   producto queda en la categoría de su producto base.
+ * - Precios: distribución log-normal alrededor de $2.500, redondeados a $50.
+ * - Existencias: log-normal alrededor de 60 unidades, con una proporción
+ *   configurable de agotados y de productos bajo el 10% de su cantidad inicial.
+ */
+public final class GeneradorCatalogo {
+
+    private static final String[][] PRODUCTOS = {
+            {"Peras", "Limones", "Moras", "Piñas", "Tomates", "Fresas", "Manzanas", "Plátanos", "Uvas", "Mangos"},
+            {"Arroz", "Azúcar", "Café", "Frijoles", "Lentejas", "Harina", "Avena", "Pasta", "Sal", "Aceite"},
+            {"Galletas", "Chocolates", "Frunas", "Papas Fritas", "Maní", "Bombones", "Chicles", "Barquillos"},
+            {"Leche", "Queso", "Yogur", "Mantequilla", "Crema", "Huevos", "Jamón", "Salchichón"},
+            {"Jabón", "Champú", "Crema Dental", "Detergente", "Limpiador", "Papel Higiénico", "Servilletas"},
+            {"Gaseosa", "Jugo", "Agua", "Té Frío", "Cerveza", "Refresco de Guanábana"}
+    };
+    private static final String[] CATEGORIAS = {"frutas", "abarrotes", "dulces", "lácteos", "aseo", "bebidas"};
+    // Peso relativo de cada categoría (la fruta y la despensa se repiten más)
+    private static final int[] PESOS = {30, 25, 20, 12, 8, 5};
+    private static final String[] MARCAS = {"Doña Rosa", "El Campo", "La Sabana", "Colombina", "Alpina", "Del Valle",
+            "San Jorge", "La Abundancia", "Montaña", "Río Claro", "Ñapa", "Económica"};
+    private static final String[] PRESENTACIONES = {"", "x 250 g", "x 500 g", "x 1 kg", "x 6", "x 12", "1 L", "Familiar",
+            "Mini", "Orgánico", "Light", "Tradicional"};
+
+    private final SplittableRandom aleatorio;
+    private final double proporcionAgotados;
+    private final double proporcionCercaDeAgotarse;
+    private final int pesoTotal;
+    private long generados;
+
+    public GeneradorCatalogo(long semilla, double proporcionAgotados, double proporcionCercaDeAgotarse) {
+        if (proporcionAgotados < 0 || proporcionCercaDeAgotarse < 0 || proporcionAgotados + proporcionCercaDeAgotarse > 1) {
+            throw new IllegalArgumentException("Las proporciones de agotados y cerca de agotarse deben sumar entre 0 y 1");
+        }
+        this.aleatorio = new SplittableRandom(semilla);
+        this.proporcionAgotados = proporcionAgotados;
+        this.proporcionCercaDeAgotarse = proporcionCercaDeAgotarse;
+        int suma = 0;
+        for (int peso : PESOS) {
+            suma += peso;
+        }
+        this.pesoTotal = suma;
+    }
+
+    /**
+     * Siguiente producto del catálogo (sin guardar)
+     */
+    public Producto siguiente() {
+        generados++;
+        int categoria = categoria();
+        String nombre = nombre(categoria);
+        long precioCentavos = Math.round(Math.clamp(logNormal(2_500, 1.0), 100, 500_000) / 50) * 50 * 100L;
+        int inicial = (int) Math.round(Math.clamp(logNormal(60, 0.9), 10, 5_000));
+
+        int cantidad;
+        double tipo = aleatorio.nextDouble();
+        if (tipo < proporcionAgotados) {
+            cantidad = 0;
+        } else if (tipo < proporcionAgotados + proporcionCercaDeAgotarse) {
+            cantidad = 1 + aleatorio.nextInt((int) (inicial * 0.1));
+        } else {
+            int minimo = (int) (inicial * 0.1) + 1;
+            cantidad = minimo + aleatorio.nextInt(inicial - minimo + 1);
+        }
+
+        Producto producto = new Producto(nombre, BigDecimal.valueOf(precioCentavos, 2), cantidad);
+        producto.setCantidadInicial(inicial);
+        producto.setCategoria(CATEGORIAS[categoria]);
+        return producto;
+    }
+
+    private int categoria() {
+        int sorteo = aleatorio.nextInt(pesoTotal);
+        int categoria = 0;
+        while (sorteo >= PESOS[categoria]) {
+            sorteo -= PESOS[categoria++];
+        }
+        return categoria;
+    }
+
+    private String nombre(int categoria) {
+        String[] productos = PRODUCTOS[categoria];
+        String presentacion = PRESENTACIONES[aleatorio.nextInt(PRESENTACIONES.length)];
+
+        StringBuilder nombre = new StringBuilder(48)
+                .append(productos[aleatorio.nextInt(productos.length)])
+                .append(' ')
+                .append(MARCAS[aleatorio.nextInt(MARCAS.length)]);
+        if (!presentacion.isEmpty()) {
+            nombre.append(' ').append(presentacion);
+        }
+        return nombre.append(" #").append(generados).toString();
+    }
+
+    private double logNormal(double mediana, double sigma) {
+        // Box-Muller con dos uniformes
+        double normal = Math.sqrt(-2 * Math.log(1 - aleatorio.nextDouble())) * Math.cos(2 * Math.PI * aleatorio.nextDouble());
+        return mediana * Math.exp(sigma * normal);
+    }
+}
@@ -0,0 +1,106 @@
+package com.tienda.donarosa.service;
+
+import com.tienda.donarosa.dto.ValoracionCategoriaDTO;
+import com.tienda.donarosa.dto.ValoracionDTO;
+import com.tienda.donarosa.model.HistorialPrecio;
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import com.tienda.donarosa.repository.HistorialPrecioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Historia de precios por producto (historial_precios) y valoración del
+ * inventario a una fecha.
+ *
+ * Cada cambio de precio cierra el intervalo vigente y abre otro, en la misma
+ * transacción y con la fila del producto ya bloqueada por quien lo cambia, así
+ * que no hay dos intervalos vigentes para un producto. Las escrituras por SQL
+ * (cambio masivo de precios, catálogo sintético) pasan los IDs afectados a
+ * registrarPreciosSql después de escribir.
+ */
+@Service
+public class HistorialPreciosService {
+
+    private static final Logger log = LoggerFactory.getLogger(HistorialPreciosService.class);
+
+    private final HistorialPrecioRepository historialPrecioRepository;
+
+    @Autowired
+    public HistorialPreciosService(HistorialPrecioRepository historialPrecioRepository) {
+        this.historialPrecioRepository = historialPrecioRepository;
+    }
+
+    /**
+     * Registra el precio actual del producto si cambió (o si todavía no tiene historia)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarPrecio(Producto producto) {
+        String tienda = TiendaContexto.actual();
+        LocalDateTime ahora = LocalDateTime.now();
+        historialPrecioRepository.cerrar(tienda, producto.getId(), producto.getPrecio(), ahora);
+        historialPrecioRepository.abrir(tienda, producto.getId(), producto.getPrecio(), ahora);
+    }
+
+    /**
+     * Registra el precio de los productos indicados tal como quedó en productos
+     * después de una escritura por SQL en la transacción actual
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarPreciosSql(Collection<Long> ids, LocalDateTime ahora) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        String tienda = TiendaContexto.actual();
+        historialPrecioRepository.cerrarProductos(tienda, ids, ahora);
+        historialPrecioRepository.abrirProductos(tienda, ids, ahora);
+    }
+
+    /**
+     * Intervalos de precio de un producto, el vigente primero
+     */
+    @Transactional(readOnly = true)
+    public List<HistorialPrecio> obtenerHistorial(Long productoId, int limite) {
+        return historialPrecioRepository.findByProductoIdOrderByDesdeDesc(productoId, Limit.of(limite));
+    }
+
+    /**
+     * Valoración del inventario de la tienda actual a la fecha, en una sola consulta
+     */
+    @Transactional(readOnly = true)
+    public ValoracionDTO valorar(LocalDateTime fecha) {
+        long inicio = System.nanoTime();
+        List<ValoracionCategoriaDTO> categorias = historialPrecioRepository
+                .valorarPorCategoria(TiendaContexto.actual(), fecha).stream()
+                .map(fila -> new ValoracionCategoriaDTO((String) fila[0], ((Number) fila[1]).longValue(),
+                        ((Number) fila[2]).longValue(), (BigDecimal) fila[3], ((Number) fila[4]).longValue()))
+                .toList();
+        return new ValoracionDTO(fecha, categorias, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Da historia a los productos de la tienda actual que no la tienen (los anteriores
+     * al historial o escritos fuera de la aplicación)
+     *
+     * @return número de productos completados
+     */
+    @Transactional
+    public int completar() {
+        int completados = historialPrecioRepository.completar(TiendaContexto.actual());
+        if (completados > 0) {
+            log.info("Historial de precios de la tienda {}: {} productos sin historia registrados con su precio actual",
+                    TiendaContexto.actual(), completados);
+        }
+        return completados;
+    }
+}
@@ -0,0 +1,262 @@
+package com.tienda.donarosa.service;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Copia en memoria del inventario de una tienda, guardada por columnas en
+ * arreglos primitivos ordenados por ID (sin una entidad por producto).
+ *
+ * Los reportes recorren los arreglos en un solo ciclo; los cambios de un
+ * producto modifican su posición. Un StampedLock separa las lecturas de los
+ * cambios. Ocupa unos 34 bytes por producto.
+ */
+public final class InventarioColumnar {
+
+    static final byte AGOTADO = 1;
+    static final byte CERCA_DE_AGOTARSE = 2;
+
+    private static final int SIN_VALOR = -1;
+
+    private final StampedLock candado = new StampedLock();
+
+    private long[] ids;
+    private long[] preciosCentavos;
+    private int[] cantidades;
+    private int[] cantidadesIniciales;
+    private int[] puntosReorden;
+    private float[] diasCobertura;
+    private byte[] estados;
+    private int tamano;
+
+    public InventarioColumnar(int capacidadInicial) {
+        int capacidad = Math.max(capacidadInicial, 16);
+        ids = new long[capacidad];
+        preciosCentavos = new long[capacidad];
+        cantidades = new int[capacidad];
+        cantidadesIniciales = new int[capacidad];
+        puntosReorden = new int[capacidad];
+        diasCobertura = new float[capacidad];
+        estados = new byte[capacidad];
+    }
+
+    /**
+     * Totales del inventario en un solo recorrido
+     */
+    public Resumen resumir() {
+        long stamp = candado.readLock();
+        try {
+            long unidades = 0;
+            long valorCentavos = 0;
+            int agotados = 0;
+            int cercaDeAgotarse = 0;
+            for (int i = 0; i < tamano; i++) {
+                int cantidad = cantidades[i];
+                unidades += cantidad;
+                valorCentavos += preciosCentavos[i] * cantidad;
+                byte estado = estados[i];
+                agotados += estado & AGOTADO;
+                cercaDeAgotarse += (estado & CERCA_DE_AGOTARSE) >>> 1;
+            }
+            return new Resumen(tamano, agotados, cercaDeAgotarse, unidades, valorCentavos);
+        } finally {
+            candado.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * IDs de los productos cerca de agotarse, primero los que alcanzan para
+     * menos días y, sin ventas recientes, los de menor porcentaje restante
+     * (el mismo orden que ProductoServiceImpl)
+     */
+    public long[] rankingAgotamiento(int limite) {
+        long stamp = candado.readLock();
+        try {
+            // Montículo de máximos con los "limite" más urgentes vistos hasta ahora
+            int[] monticulo = new int[Math.max(limite, 1)];
+            int llenos = 0;
+            for (int i = 0; i < tamano && limite > 0; i++) {
+                if ((estados[i] & CERCA_DE_AGOTARSE) == 0) {
+                    continue;
+                }
+                if (llenos < limite) {
+                    monticulo[llenos] = i;
+                    subir(monticulo, llenos++);
+                } else if (comparar(i, monticulo[0]) < 0) {
+                    monticulo[0] = i;
+                    bajar(monticulo, llenos);
+                }
+            }
+
+            long[] resultado = new long[llenos];
+            for (int k = llenos - 1; k >= 0; k--) {
+                resultado[k] = ids[monticulo[0]];
+                monticulo[0] = monticulo[k];
+                bajar(monticulo, k);
+            }
+            return resultado;
+        } finally {
+            candado.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Agrega o reemplaza un producto
+     */
+    public void actualizar(long id, long precioCentavos, int cantidad, Integer cantidadInicial,
+                           Integer puntoReorden, Double diasCobertura) {
+        long stamp = candado.writeLock();
+        try {
+            int posicion = Arrays.binarySearch(ids, 0, tamano, id);
+            if (posicion < 0) {
+                posicion = -posicion - 1;
+                insertarEn(posicion);
+                ids[posicion] = id;
+            }
+            asignar(posicion, precioCentavos, cantidad, cantidadInicial, puntoReorden, diasCobertura);
+        } finally {
+            candado.unlockWrite(stamp);
+        }
+    }
+
+    public void eliminar(long id) {
+        long stamp = candado.writeLock();
+        try {
+            int posicion = Arrays.binarySearch(ids, 0, tamano, id);
+            if (posicion >= 0) {
+                int mover = tamano - posicion - 1;
+                System.arraycopy(ids, posicion + 1, ids, posicion, mover);
+                System.arraycopy(preciosCentavos, posicion + 1, preciosCentavos, posicion, mover);
+                System.arraycopy(cantidades, posicion + 1, cantidades, posicion, mover);
+                System.arraycopy(cantidadesIniciales, posicion + 1, cantidadesIniciales, posicion, mover);
+                System.arraycopy(puntosReorden, posicion + 1, puntosReorden, posicion, mover);
+                System.arraycopy(diasCobertura, posicion + 1, diasCobertura, posicion, mover);
+                System.arraycopy(estados, posicion + 1, estados, posicion, mover);
+                tamano--;
+            }
+        } finally {
+            candado.unlockWrite(stamp);
+        }
+    }
+
+    public int tamano() {
+        long stamp = candado.tryOptimisticRead();
+        int actual = tamano;
+        if (!candado.validate(stamp)) {
+            stamp = candado.readLock();
+            try {
+                actual = tamano;
+            } finally {
+                candado.unlockRead(stamp);
+            }
+        }
+        return actual;
+    }
+
+    private void insertarEn(int posicion) {
+        if (tamano == ids.length) {
+            int capacidad = ids.length + (ids.length >> 1);
+            ids = Arrays.copyOf(ids, capacidad);
+            preciosCentavos = Arrays.copyOf(preciosCentavos, capacidad);
+            cantidades = Arrays.copyOf(cantidades, capacidad);
+            cantidadesIniciales = Arrays.copyOf(cantidadesIniciales, capacidad);
+            puntosReorden = Arrays.copyOf(puntosReorden, capacidad);
+            diasCobertura = Arrays.copyOf(diasCobertura, capacidad);
+            estados = Arrays.copyOf(estados, capacidad);
+        }
+        int mover = tamano - posicion;
+        if (mover > 0) {
+            System.arraycopy(ids, posicion, ids, posicion + 1, mover);
+            System.arraycopy(preciosCentavos, posicion, preciosCentavos, posicion + 1, mover);
+            System.arraycopy(cantidades, posicion, cantidades, posicion + 1, mover);
+            System.arraycopy(cantidadesIniciales, posicion, cantidadesIniciales, posicion + 1, mover);
+            System.arraycopy(puntosReorden, posicion, puntosReorden, posicion + 1, mover);
+            System.arraycopy(diasCobertura, posicion, diasCobertura, posicion + 1, mover);
+            System.arraycopy(estados, posicion, estados, posicion + 1, mover);
+        }
+        tamano++;
+    }
+
+    private void asignar(int i, long precioCentavos, int cantidad, Integer cantidadInicial,
+                         Integer puntoReorden, Double dias) {
+        preciosCentavos[i] = precioCentavos;
+        cantidades[i] = cantidad;
+        cantidadesIniciales[i] = cantidadInicial == null ? 0 : cantidadInicial;
+        puntosReorden[i] = puntoReorden == null ? SIN_VALOR : puntoReorden;
+        diasCobertura[i] = dias == null ? Float.NaN : dias.floatValue();
+
+        // Las mismas reglas que Producto.estaCercaDeAgotarse()
+        boolean cerca;
+        if (puntoReorden != null) {
+            cerca = cantidad <= puntoReorden;
+        } else if (cantidadesIniciales[i] == 0) {
+            cerca = cantidad <= 1;
+        } else {
+            cerca = cantidad <= cantidadesIniciales[i] * 0.1;
+        }
+        estados[i] = (byte) ((cantidad == 0 ? AGOTADO : 0) | (cerca ? CERCA_DE_AGOTARSE : 0));
+    }
+
+    private double porcentajeRestante(int i) {
+        int inicial = cantidadesIniciales[i];
+        return inicial == 0 ? 0.0 : (double) cantidades[i] / inicial * 100;
+    }
+
+    /**
+     * Negativo si el producto "a" es más urgente que "b"; los días sin valor van al final
+     */
+    private int comparar(int a, int b) {
+        float diasA = diasCobertura[a];
+        float diasB = diasCobertura[b];
+        boolean sinDiasA = Float.isNaN(diasA);
+        boolean sinDiasB = Float.isNaN(diasB);
+        if (sinDiasA != sinDiasB) {
+            return sinDiasA ? 1 : -1;
+        }
+        if (!sinDiasA && diasA != diasB) {
+            return Float.compare(diasA, diasB);
+        }
+        return Double.compare(porcentajeRestante(a), porcentajeRestante(b));
+    }
+
+    private void subir(int[] monticulo, int k) {
+        while (k > 0) {
+            int padre = (k - 1) >>> 1;
+            if (comparar(monticulo[k], monticulo[padre]) <= 0) {
+                return;
+            }
+            intercambiar(monticulo, k, padre);
+            k = padre;
+        }
+    }
+
+    private void bajar(int[] monticulo, int llenos) {
+        int k = 0;
+        while (true) {
+            int hijo = 2 * k + 1;
+            if (hijo >= llenos) {
+                return;
+            }
+            if (hijo + 1 < llenos && comparar(monticulo[hijo + 1], monticulo[hijo]) > 0) {
+                hijo++;
+            }
+            if (comparar(monticulo[hijo], monticulo[k]) <= 0) {
+                return;
+            }
+            intercambiar(monticulo, k, hijo);
+            k = hijo;
+        }
+    }
+
+    private static void intercambiar(int[] arreglo, int i, int j) {
+        int temporal = arreglo[i];
+        arreglo[i] = arreglo[j];
+        arreglo[j] = temporal;
+    }
+
+    /**
+     * Totales de un recorrido del inventario
+     */
+    public record Resumen(int productos, int agotados, int cercaDeAgotarse, long unidades, long valorCentavos) {
+    }
+}
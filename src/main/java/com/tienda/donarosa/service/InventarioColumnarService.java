@@ -0,0 +1,124 @@
+package com.tienda.donarosa.service;
+
+import com.tienda.donarosa.dto.ResumenInventarioDTO;
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.multitienda.CopiasPorTienda;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import com.tienda.donarosa.repository.ProductoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reportes de todo el catálogo sobre una copia por columnas del inventario
+ * (InventarioColumnar) en lugar de leer las entidades de productos.
+ *
+ * La copia de cada tienda (CopiasPorTienda) se carga con una sola consulta la
+ * primera vez que se pide y después se mantiene al día con los cambios que hace
+ * ProductoServiceImpl, aplicados al confirmarse la transacción. Las escrituras masivas por SQL
+ * (cambio de precios, puntos de reorden) la invalidan para que se recargue.
+ */
+@Service
+public class InventarioColumnarService {
+
+    private static final Logger log = LoggerFactory.getLogger(InventarioColumnarService.class);
+
+    private static final String CARGAR =
+            "SELECT id, CAST(precio * 100 AS BIGINT), cantidad, cantidad_inicial, punto_reorden, dias_cobertura " +
+            "FROM productos WHERE tienda_id = ? AND eliminado_en IS NULL ORDER BY id";
+    private static final int TAMANO_LECTURA = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductoRepository productoRepository;
+    private final CopiasPorTienda<InventarioColumnar> copias = new CopiasPorTienda<>(this::cargar);
+
+    @Autowired
+    public InventarioColumnarService(JdbcTemplate jdbcTemplate, ProductoRepository productoRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productoRepository = productoRepository;
+    }
+
+    /**
+     * Productos, disponibles, agotados, cerca de agotarse, unidades y valor total
+     */
+    public ResumenInventarioDTO obtenerResumen() {
+        InventarioColumnar.Resumen resumen = inventarioActual().resumir();
+        return new ResumenInventarioDTO(resumen.productos(), resumen.agotados(), resumen.cercaDeAgotarse(),
+                resumen.unidades(), BigDecimal.valueOf(resumen.valorCentavos(), 2));
+    }
+
+    /**
+     * Los "limite" productos más urgentes de reponer, en orden
+     */
+    public List<Producto> obtenerRankingAgotamiento(int limite) {
+        long[] ids = inventarioActual().rankingAgotamiento(limite);
+        Map<Long, Integer> orden = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            orden.put(ids[i], i);
+        }
+        List<Producto> productos = new ArrayList<>(productoRepository.findAllById(orden.keySet()));
+        productos.sort(Comparator.comparing(producto -> orden.get(producto.getId())));
+        return productos;
+    }
+
+    /**
+     * Aplica a la copia el estado del producto cuando se confirme la transacción
+     */
+    public void registrarCambio(Producto producto) {
+        String tienda = TiendaContexto.actual();
+        CopiasPorTienda.alConfirmar(() -> copias.aplicar(tienda, copia -> copia.actualizar(producto.getId(),
+                producto.getPrecioCentavos(), producto.getCantidad(), producto.getCantidadInicial(),
+                producto.getPuntoReorden(), producto.getDiasCobertura())));
+    }
+
+    /**
+     * Quita el producto de la copia cuando se confirme la transacción
+     */
+    public void registrarBaja(Long id) {
+        String tienda = TiendaContexto.actual();
+        CopiasPorTienda.alConfirmar(() -> copias.aplicar(tienda, copia -> copia.eliminar(id)));
+    }
+
+    /**
+     * Descarta la copia de la tienda actual; se vuelve a cargar en el próximo reporte
+     */
+    public void invalidar() {
+        String tienda = TiendaContexto.actual();
+        CopiasPorTienda.alConfirmar(() -> copias.invalidar(tienda));
+    }
+
+    private InventarioColumnar inventarioActual() {
+        return copias.obtener(TiendaContexto.actual());
+    }
+
+    /**
+     * Lee la tabla con JDBC (la consulta filtra la tienda explícitamente)
+     */
+    private InventarioColumnar cargar(String tienda) {
+        long inicio = System.nanoTime();
+        Integer total = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM productos WHERE tienda_id = ? AND eliminado_en IS NULL", Integer.class, tienda);
+        InventarioColumnar inventario = new InventarioColumnar(total == null ? 0 : total);
+        jdbcTemplate.query(conexion -> {
+            var sentencia = conexion.prepareStatement(CARGAR);
+            sentencia.setString(1, tienda);
+            sentencia.setFetchSize(TAMANO_LECTURA);
+            return sentencia;
+        }, fila -> {
+            inventario.actualizar(fila.getLong(1), fila.getLong(2), fila.getInt(3),
+                    fila.getObject(4, Integer.class), fila.getObject(5, Integer.class), fila.getObject(6, Double.class));
+        });
+        log.info("Inventario por columnas de la tienda {} cargado: {} productos en {} ms",
+                tienda, inventario.tamano(), (System.nanoTime() - inicio) / 1_000_000);
+        return inventario;
+    }
+}
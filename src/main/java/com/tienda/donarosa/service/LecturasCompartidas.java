@@ -0,0 +1,180 @@
+package com.tienda.donarosa.service;
+
+import com.tienda.donarosa.multitienda.CopiasPorTienda;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Comparte una misma lectura entre peticiones simultáneas (single-flight).
+ *
+ * Cuando muchos equipos abren el panel a la vez, la primera llamada de cada
+ * consulta ejecuta el cálculo y las que llegan mientras tanto esperan ese mismo
+ * resultado. Ya terminado, el resultado se sigue entregando durante una ventana
+ * corta (tienda.lecturas.ventana) salvo que haya habido una escritura.
+ *
+ * Las escrituras llaman a invalidar(): al confirmarse suben la versión de la
+ * tienda, y ni los resultados ni los cálculos en curso de una versión anterior
+ * se comparten con quien llega después.
+ *
+ * La versión también sirve para saber si el inventario de una tienda cambió
+ * (obtenerVersion y alInvalidar, que usan los avisos a los kioscos).
+ *
+ * Los resultados son compartidos entre hilos: quien los recibe no debe modificarlos.
+ */
+@Component
+public class LecturasCompartidas {
+
+    private final long ventanaNanos;
+    private final Map<Clave, Vuelo> vuelos = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> versiones = new ConcurrentHashMap<>();
+    private final LongAdder ejecutadas = new LongAdder();
+    private final LongAdder compartidas = new LongAdder();
+    private final LongAdder recientes = new LongAdder();
+    private final List<Consumer<String>> observadores = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public LecturasCompartidas(@Value("${tienda.lecturas.ventana:250ms}") Duration ventana) {
+        this.ventanaNanos = ventana.toNanos();
+    }
+
+    /**
+     * Resultado de la consulta en la tienda actual: el de un cálculo en curso,
+     * uno reciente o uno nuevo
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T obtener(String consulta, Supplier<T> calculo) {
+        String tienda = TiendaContexto.actual();
+        Clave clave = new Clave(tienda, consulta);
+        while (true) {
+            long version = version(tienda).get();
+            Vuelo vuelo = vuelos.get(clave);
+            if (vuelo != null && vuelo.version == version) {
+                if (!vuelo.resultado.isDone()) {
+                    compartidas.increment();
+                    return (T) esperar(vuelo);
+                }
+                if (!vuelo.resultado.isCompletedExceptionally() && System.nanoTime() - vuelo.terminado <= ventanaNanos) {
+                    recientes.increment();
+                    return (T) esperar(vuelo);
+                }
+            }
+            Vuelo nuevo = new Vuelo(version);
+            boolean propio = vuelo == null ? vuelos.putIfAbsent(clave, nuevo) == null : vuelos.replace(clave, vuelo, nuevo);
+            if (propio) {
+                ejecutadas.increment();
+                return ejecutar(clave, nuevo, calculo);
+            }
+            // Otro hilo empezó el cálculo primero: volver a mirar
+        }
+    }
+
+    /**
+     * Descarta los resultados de la tienda actual cuando se confirme la transacción
+     */
+    public void invalidar() {
+        String tienda = TiendaContexto.actual();
+        CopiasPorTienda.alConfirmar(() -> {
+            version(tienda).incrementAndGet();
+            observadores.forEach(observador -> observador.accept(tienda));
+        });
+    }
+
+    /**
+     * Versión del inventario de la tienda: sube con cada escritura confirmada
+     */
+    public long obtenerVersion(String tienda) {
+        return version(tienda).get();
+    }
+
+    /**
+     * Recibe la tienda cada vez que se confirma una escritura, ya con la versión nueva
+     */
+    public void alInvalidar(Consumer<String> observador) {
+        observadores.add(observador);
+    }
+
+    /**
+     * Llamadas que ejecutaron el cálculo
+     */
+    public long getEjecutadas() {
+        return ejecutadas.sum();
+    }
+
+    /**
+     * Llamadas que esperaron un cálculo en curso de otra
+     */
+    public long getCompartidas() {
+        return compartidas.sum();
+    }
+
+    /**
+     * Llamadas que recibieron un resultado terminado dentro de la ventana
+     */
+    public long getRecientes() {
+        return recientes.sum();
+    }
+
+    private <T> T ejecutar(Clave clave, Vuelo vuelo, Supplier<T> calculo) {
+        T valor;
+        try {
+            valor = calculo.get();
+        } catch (RuntimeException | Error e) {
+            vuelo.resultado.completeExceptionally(e);
+            vuelos.remove(clave, vuelo);
+            throw e;
+        }
+        vuelo.terminado = System.nanoTime();
+        vuelo.resultado.complete(valor);
+        return valor;
+    }
+
+    private static Object esperar(Vuelo vuelo) {
+        try {
+            return vuelo.resultado.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrumpido esperando una lectura compartida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            if (e.getCause() instanceof Error causa) {
+                throw causa;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private AtomicLong version(String tienda) {
+        return versiones.computeIfAbsent(tienda, t -> new AtomicLong());
+    }
+
+    private record Clave(String tienda, String consulta) {
+    }
+
+    private static final class Vuelo {
+
+        final long version;
+        final CompletableFuture<Object> resultado = new CompletableFuture<>();
+        // Escrito antes de completar el resultado, que lo publica a los demás hilos
+        long terminado;
+
+        Vuelo(long version) {
+            this.version = version;
+        }
+    }
+}
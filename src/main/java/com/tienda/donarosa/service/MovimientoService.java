@@ -0,0 +1,70 @@
+package com.tienda.donarosa.service;
+
+import com.tienda.donarosa.model.Movimiento;
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.model.TipoMovimiento;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import com.tienda.donarosa.repository.MovimientoRepository;
+import com.tienda.donarosa.repository.VentaDiariaRepository;
+import com.tienda.donarosa.repository.VentaSemanalRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Registra los movimientos de inventario y mantiene los resúmenes de ventas.
+ *
+ * Se llama dentro de la transacción que cambia la cantidad del producto, con la
+ * fila del producto bloqueada; así las ventas concurrentes de un mismo producto
+ * se aplican en orden sobre sus resúmenes.
+ */
+@Service
+@Transactional
+public class MovimientoService {
+
+    private final MovimientoRepository movimientoRepository;
+    private final VentaDiariaRepository ventaDiariaRepository;
+    private final VentaSemanalRepository ventaSemanalRepository;
+
+    @Autowired
+    public MovimientoService(MovimientoRepository movimientoRepository,
+                             VentaDiariaRepository ventaDiariaRepository,
+                             VentaSemanalRepository ventaSemanalRepository) {
+        this.movimientoRepository = movimientoRepository;
+        this.ventaDiariaRepository = ventaDiariaRepository;
+        this.ventaSemanalRepository = ventaSemanalRepository;
+    }
+
+    /**
+     * Registra un cambio de cantidad del producto; no hace nada si la variación es cero
+     */
+    public void registrar(Producto producto, TipoMovimiento tipo, int variacion) {
+        if (variacion == 0) {
+            return;
+        }
+        LocalDateTime fecha = LocalDateTime.now();
+        movimientoRepository.save(new Movimiento(producto.getId(), tipo, variacion, producto.getPrecio(), fecha));
+
+        if (tipo == TipoMovimiento.VENTA) {
+            long unidades = -variacion;
+            BigDecimal ingresos = producto.getPrecio().multiply(BigDecimal.valueOf(unidades));
+            String tienda = TiendaContexto.actual();
+            LocalDate dia = fecha.toLocalDate();
+            ventaDiariaRepository.sumarVenta(tienda, producto.getId(), dia, unidades, ingresos);
+            ventaSemanalRepository.sumarVenta(tienda, producto.getId(), inicioDeSemana(dia), unidades, ingresos);
+        }
+    }
+
+    /**
+     * Lunes de la semana del día indicado
+     */
+    public static LocalDate inicioDeSemana(LocalDate dia) {
+        return dia.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+}
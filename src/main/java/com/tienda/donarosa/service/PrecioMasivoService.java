@@ -0,0 +1,359 @@
+package com.tienda.donarosa.service;
+
+import com.tienda.donarosa.auditoria.AccionAuditoria;
+import com.tienda.donarosa.auditoria.AuditoriaService;
+import com.tienda.donarosa.dto.CambioPreciosDTO;
+import com.tienda.donarosa.dto.PrecioCambiadoDTO;
+import com.tienda.donarosa.dto.ResultadoCambioPreciosDTO;
+import com.tienda.donarosa.model.CambioPrecios;
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import com.tienda.donarosa.repository.CambioPreciosRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.query.NativeQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cambio masivo de precios con sentencias SQL por conjuntos en lugar de
+ * guardar producto por producto.
+ *
+ * Los productos se recorren por rangos de ID (lotes), cada uno en su propia
+ * transacción: se bloquean las filas del lote, se inserta el detalle
+ * (precio anterior y nuevo) con INSERT ... SELECT y se actualizan los precios
+ * desde ese detalle con un solo UPDATE. Así el registro coincide siempre con
+ * lo que se aplicó, y una falla a mitad deja aplicados solo los lotes completos:
+ * el cambio queda registrado con los productos de esos lotes y los cachés se
+ * invalidan igual.
+ *
+ * Antes de empezar se rechaza un cambio que lleve algún precio fuera de la
+ * columna (10 dígitos enteros), calculándolo sobre el menor y el mayor precio
+ * de los productos filtrados.
+ */
+@Service
+public class PrecioMasivoService {
+
+    private static final Logger log = LoggerFactory.getLogger(PrecioMasivoService.class);
+
+    static final int TAMANO_MUESTRA = 20;
+
+    // Lo que admite la columna precio, DECIMAL(12, 2)
+    private static final BigDecimal PRECIO_MAXIMO = new BigDecimal("9999999999.99");
+    private static final BigDecimal CIEN = BigDecimal.valueOf(100);
+
+    private final CambioPreciosRepository cambioPreciosRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transaccion;
+    private final AuditoriaService auditoriaService;
+    private final InventarioColumnarService inventarioColumnarService;
+    private final LecturasCompartidas lecturasCompartidas;
+    private final ResumenCategoriasService resumenCategorias;
+    private final HistorialPreciosService historialPrecios;
+    private final int tamanoLote;
+
+    @Autowired
+    public PrecioMasivoService(CambioPreciosRepository cambioPreciosRepository,
+                               EntityManager entityManager,
+                               PlatformTransactionManager transactionManager,
+                               AuditoriaService auditoriaService,
+                               InventarioColumnarService inventarioColumnarService,
+                               LecturasCompartidas lecturasCompartidas,
+                               ResumenCategoriasService resumenCategorias,
+                               HistorialPreciosService historialPrecios,
+                               @Value("${tienda.precios.lote:5000}") int tamanoLote) {
+        this.cambioPreciosRepository = cambioPreciosRepository;
+        this.entityManager = entityManager;
+        this.auditoriaService = auditoriaService;
+        this.inventarioColumnarService = inventarioColumnarService;
+        this.lecturasCompartidas = lecturasCompartidas;
+        this.resumenCategorias = resumenCategorias;
+        this.historialPrecios = historialPrecios;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.tamanoLote = tamanoLote;
+    }
+
+    /**
+     * Calcula los precios nuevos sin modificar nada
+     */
+    public ResultadoCambioPreciosDTO simular(CambioPreciosDTO cambio) {
+        validar(cambio);
+        Filtro filtro = new Filtro(cambio);
+        return transaccion.execute(estado -> {
+            validarPrecios(filtro);
+            Query conteo = entityManager.createNativeQuery(
+                    "SELECT COUNT(*) FROM productos p WHERE " + filtro.condicionCambio());
+            filtro.asignar(conteo);
+            long afectados = ((Number) conteo.getSingleResult()).longValue();
+
+            Query muestra = entityManager.createNativeQuery(
+                    "SELECT p.id, p.nombre, p.precio, " + filtro.precioNuevo() + " FROM productos p " +
+                    "WHERE " + filtro.condicionCambio() + " ORDER BY p.id LIMIT " + TAMANO_MUESTRA);
+            filtro.asignar(muestra);
+            @SuppressWarnings("unchecked")
+            List<Object[]> filas = muestra.getResultList();
+            List<PrecioCambiadoDTO> detalle = filas.stream()
+                    .map(fila -> new PrecioCambiadoDTO(((Number) fila[0]).longValue(), (String) fila[1],
+                            (BigDecimal) fila[2], (BigDecimal) fila[3]))
+                    .toList();
+            return new ResultadoCambioPreciosDTO(null, true, afectados, detalle);
+        });
+    }
+
+    /**
+     * Aplica el cambio por lotes y lo deja registrado
+     */
+    public ResultadoCambioPreciosDTO aplicar(CambioPreciosDTO cambio) {
+        validar(cambio);
+        Filtro filtro = new Filtro(cambio);
+        long inicio = System.nanoTime();
+        transaccion.executeWithoutResult(estado -> validarPrecios(filtro));
+
+        CambioPrecios registro = transaccion.execute(estado ->
+                cambioPreciosRepository.save(new CambioPrecios(usuarioActual(), cambio.describir(), LocalDateTime.now())));
+
+        long afectados = 0;
+        boolean completo = false;
+        try {
+            long ultimoId = 0;
+            while (true) {
+                long desde = ultimoId;
+                long[] lote = transaccion.execute(estado -> aplicarLote(registro.getId(), filtro, desde));
+                if (lote == null) {
+                    break;
+                }
+                ultimoId = lote[0];
+                afectados += lote[1];
+            }
+            completo = true;
+        } finally {
+            // También si falla a mitad: los lotes anteriores ya están confirmados
+            cerrar(registro, afectados, completo, inicio);
+        }
+
+        return new ResultadoCambioPreciosDTO(registro.getId(), false, afectados,
+                cambioPreciosRepository.findDetalle(registro.getId(), Limit.of(TAMANO_MUESTRA)));
+    }
+
+    private void cerrar(CambioPrecios registro, long afectados, boolean completo, long inicio) {
+        inventarioColumnarService.invalidar();
+        lecturasCompartidas.invalidar();
+        transaccion.executeWithoutResult(estado -> {
+            CambioPrecios guardado = cambioPreciosRepository.findById(registro.getId()).orElseThrow();
+            guardado.setProductosAfectados(afectados);
+        });
+        // El detalle por producto queda en cambios_precios_detalle
+        auditoriaService.registrar(AccionAuditoria.CAMBIO_PRECIOS, null, null, null,
+                "Cambio #" + registro.getId() + ": " + registro.getDescripcion() + " (" + afectados + " productos"
+                        + (completo ? ")" : ", interrumpido)"));
+        if (completo) {
+            log.info("Cambio de precios {} ({}) aplicado a {} productos de la tienda {} en {} ms", registro.getId(),
+                    registro.getDescripcion(), afectados, TiendaContexto.actual(), (System.nanoTime() - inicio) / 1_000_000);
+        } else {
+            log.error("Cambio de precios {} ({}) interrumpido después de aplicarse a {} productos de la tienda {}",
+                    registro.getId(), registro.getDescripcion(), afectados, TiendaContexto.actual());
+        }
+    }
+
+    /**
+     * Detalle de un cambio ya aplicado
+     */
+    public List<PrecioCambiadoDTO> obtenerDetalle(Long cambioId, int limite) {
+        return transaccion.execute(estado -> cambioPreciosRepository.findDetalle(cambioId, Limit.of(limite)));
+    }
+
+    /**
+     * Cambios más recientes de la tienda actual
+     */
+    public List<CambioPrecios> obtenerCambiosRecientes(int limite) {
+        return transaccion.execute(estado -> cambioPreciosRepository.findAllByOrderByFechaDesc(Limit.of(limite)));
+    }
+
+    /**
+     * Procesa el siguiente lote después de "desde".
+     *
+     * @return [último ID del lote, productos cambiados] o null si no quedan productos
+     */
+    private long[] aplicarLote(Long cambioId, Filtro filtro, long desde) {
+        Query bloqueo = entityManager.createNativeQuery(
+                "SELECT p.id FROM productos p WHERE " + filtro.condicion() + " AND p.id > :desde " +
+                "ORDER BY p.id LIMIT " + tamanoLote + " FOR UPDATE");
+        filtro.asignar(bloqueo);
+        bloqueo.setParameter("desde", desde);
+        List<?> ids = bloqueo.getResultList();
+        if (ids.isEmpty()) {
+            return null;
+        }
+        long hasta = ((Number) ids.get(ids.size() - 1)).longValue();
+
+        Query detalle = entityManager.createNativeQuery(
+                "INSERT INTO cambios_precios_detalle (cambio_id, producto_id, precio_anterior, precio_nuevo) " +
+                "SELECT :cambioId, p.id, p.precio, " + filtro.precioNuevo() + " FROM productos p " +
+                "WHERE " + filtro.condicionCambio() + " AND p.id > :desde AND p.id <= :hasta");
+        filtro.asignar(detalle);
+        detalle.setParameter("cambioId", cambioId);
+        detalle.setParameter("desde", desde);
+        detalle.setParameter("hasta", hasta);
+        detalle.unwrap(NativeQuery.class).addSynchronizedQuerySpace("cambios_precios_detalle");
+        int cambiados = detalle.executeUpdate();
+
+        if (cambiados > 0) {
+            Query actualizacion = entityManager.createNativeQuery(
+                    "UPDATE productos p SET actualizado_en = LOCALTIMESTAMP, precio = (SELECT d.precio_nuevo " +
+                    "FROM cambios_precios_detalle d WHERE d.cambio_id = :cambioId AND d.producto_id = p.id) " +
+                    "WHERE p.tienda_id = :tienda AND p.id > :desde AND p.id <= :hasta AND p.id IN " +
+                    "(SELECT d.producto_id FROM cambios_precios_detalle d WHERE d.cambio_id = :cambioId)");
+            actualizacion.setParameter("cambioId", cambioId);
+            actualizacion.setParameter("tienda", TiendaContexto.actual());
+            actualizacion.setParameter("desde", desde);
+            actualizacion.setParameter("hasta", hasta);
+            // Declarar la tabla invalida el caché de productos y de reportes
+            actualizacion.unwrap(NativeQuery.class).addSynchronizedEntityClass(Producto.class);
+            List<Long> afectados = ids.stream().map(id -> ((Number) id).longValue()).toList();
+            resumenCategorias.ajustarEscrituraSql(afectados, actualizacion::executeUpdate);
+            historialPrecios.registrarPreciosSql(afectados, LocalDateTime.now());
+        }
+        return new long[]{hasta, cambiados};
+    }
+
+    private void validar(CambioPreciosDTO cambio) {
+        if (cambio.getTipo() == null || cambio.getValor() == null) {
+            throw new ValidacionException("El tipo y el valor del cambio son obligatorios");
+        }
+        if (cambio.getTipo() == CambioPreciosDTO.Tipo.PORCENTAJE
+                && cambio.getValor().compareTo(BigDecimal.valueOf(-100)) <= 0) {
+            throw new ValidacionException("El porcentaje debe ser mayor a -100");
+        }
+        if (cambio.getValor().signum() == 0) {
+            throw new ValidacionException("El valor del cambio no puede ser cero");
+        }
+        if (cambio.getValor().abs().compareTo(PRECIO_MAXIMO) > 0) {
+            throw new ValidacionException("El valor del cambio no puede superar " + PRECIO_MAXIMO);
+        }
+    }
+
+    /**
+     * Rechaza el cambio si deja algún precio fuera de la columna; como el precio nuevo
+     * crece con el anterior, alcanza con el menor y el mayor de los productos filtrados
+     */
+    private void validarPrecios(Filtro filtro) {
+        Query extremos = entityManager.createNativeQuery(
+                "SELECT MIN(p.precio), MAX(p.precio) FROM productos p WHERE " + filtro.condicion());
+        filtro.asignar(extremos);
+        Object[] fila = (Object[]) extremos.getSingleResult();
+        for (Object precio : fila) {
+            if (precio != null && filtro.calcular((BigDecimal) precio).abs().compareTo(PRECIO_MAXIMO) > 0) {
+                throw new ValidacionException("El cambio deja precios de más de 10 dígitos enteros (" +
+                        filtro.calcular((BigDecimal) precio) + " para un precio de " + precio + ")");
+            }
+        }
+    }
+
+    private static String usuarioActual() {
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        return autenticacion != null ? autenticacion.getName() : "sistema";
+    }
+
+    /**
+     * Condición SQL y expresión del precio nuevo, con sus parámetros
+     */
+    private static final class Filtro {
+
+        private final StringBuilder condicion = new StringBuilder("p.tienda_id = :tienda AND p.eliminado_en IS NULL");
+        private final Map<String, Object> parametros = new LinkedHashMap<>();
+        private final String precioNuevo;
+        private final boolean porcentaje;
+        private final BigDecimal valor;
+        private final BigDecimal paso;
+
+        Filtro(CambioPreciosDTO cambio) {
+            parametros.put("tienda", TiendaContexto.actual());
+
+            String patron = cambio.getPatronNombre();
+            if (patron != null && !patron.isBlank()) {
+                condicion.append(" AND LOWER(p.nombre) LIKE :patron ESCAPE '\\'");
+                parametros.put("patron", patronLike(patron.trim().toLowerCase()));
+            }
+            CambioPreciosDTO.Estado estado = cambio.getEstado() == null ? CambioPreciosDTO.Estado.TODOS : cambio.getEstado();
+            switch (estado) {
+                case DISPONIBLES -> condicion.append(" AND p.cantidad > 0");
+                case AGOTADOS -> condicion.append(" AND p.cantidad = 0");
+                case CERCA_DE_AGOTARSE -> condicion.append(" AND ((p.punto_reorden IS NOT NULL AND p.cantidad <= p.punto_reorden)"
+                        + " OR (p.punto_reorden IS NULL AND p.cantidad <= p.cantidad_inicial * 0.1))");
+                case TODOS -> { }
+            }
+            if (cambio.getIds() != null && !cambio.getIds().isEmpty()) {
+                condicion.append(" AND p.id IN (:ids)");
+                parametros.put("ids", cambio.getIds());
+            }
+
+            porcentaje = cambio.getTipo() == CambioPreciosDTO.Tipo.PORCENTAJE;
+            valor = cambio.getValor();
+            paso = cambio.getRedondeo() == null
+                    ? CambioPreciosDTO.Redondeo.PESO.getPaso() : cambio.getRedondeo().getPaso();
+            String precio = porcentaje ? "p.precio * (100 + :valor) / 100" : "p.precio + :valor";
+            precioNuevo = "CAST(ROUND(" + precio + " / :paso, 0) * :paso AS NUMERIC(12, 2))";
+            parametros.put("valor", valor);
+            parametros.put("paso", paso);
+        }
+
+        /**
+         * El precio nuevo de un precio anterior, como precioNuevo() pero sin limitarlo a la columna
+         */
+        BigDecimal calcular(BigDecimal precio) {
+            BigDecimal bruto = porcentaje
+                    ? precio.multiply(CIEN.add(valor)).divide(CIEN, MathContext.DECIMAL128)
+                    : precio.add(valor);
+            return bruto.divide(paso, 0, RoundingMode.HALF_UP).multiply(paso);
+        }
+
+        String condicion() {
+            return condicion.toString();
+        }
+
+        /**
+         * Solo los productos cuyo precio cambia y queda mayor a cero
+         */
+        String condicionCambio() {
+            return condicion + " AND " + precioNuevo + " > 0 AND " + precioNuevo + " <> p.precio";
+        }
+
+        String precioNuevo() {
+            return precioNuevo;
+        }
+
+        void asignar(Query query) {
+            // Cada consulta usa solo algunos parámetros (el bloqueo no usa valor ni paso)
+            for (var parametro : query.getParameters()) {
+                String nombre = parametro.getName();
+                if (parametros.containsKey(nombre)) {
+                    query.setParameter(nombre, parametros.get(nombre));
+                }
+            }
+        }
+
+        /**
+         * Convierte el patrón con "*" a LIKE; sin comodines busca el texto en cualquier parte
+         */
+        private static String patronLike(String patron) {
+            String escapado = patron.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+            return patron.contains("*") ? escapado.replace('*', '%') : "%" + escapado + "%";
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.tienda.donarosa.service;
 
+import com.tienda.donarosa.dto.ProductoDTO;
 import com.tienda.donarosa.model.Producto;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,7 +35,8 @@ public interface ProductoService {
     void eliminarProducto(Long id);
 
     /**
-     * Busca productos por nombre
+     * Busca productos por nombre; si no hay ninguno, restaura el producto
+     * archivado con ese nombre exacto
      */
     List<Producto> buscarProductosPorNombre(String nombre);
 
@@ -53,12 +56,19 @@ public interface ProductoService {
     BigDecimal calcularValorTotalInventario();
 
     /**
-     * Actualiza la cantidad de un producto (para ventas)
+     * Actualiza la cantidad de un producto (para ventas). Reponer un producto
+     * archivado lo restaura
      */
     boolean actualizarCantidadProducto(Long id, Integer nuevaCantidad);
 
     /**
-     * Verifica si existe un producto con el mismo nombre
+     * Registra la venta de unidades de un producto y descuenta su cantidad
+     */
+    boolean registrarVenta(Long id, int unidades);
+
+    /**
+     * Verifica si existe un producto con el mismo nombre, activo o archivado;
+     * no modifica nada
      */
     boolean existeProductoConNombre(String nombre);
 
@@ -71,4 +81,24 @@ public interface ProductoService {
      * Obtiene productos agotados (cantidad = 0)
      */
     List<Producto> obtenerProductosAgotados();
+
+    /**
+     * Obtiene una página de proyecciones con ID mayor al cursor
+     */
+    List<ProductoDTO> obtenerPaginaProductos(Long despuesDe, int limite);
+
+    /**
+     * Obtiene la proyección de un producto por su ID
+     */
+    Optional<ProductoDTO> obtenerProyeccionProducto(Long id);
+
+    /**
+     * Obtiene las proyecciones de varios productos por sus IDs
+     */
+    List<ProductoDTO> obtenerProyeccionesProductos(Collection<Long> ids);
+
+    /**
+     * Busca en el archivo de productos agotados, sin restaurarlos (más lento)
+     */
+    List<ProductoDTO> buscarProductosArchivados(String termino, int limite);
 }
@@ -1,12 +1,26 @@
 package com.tienda.donarosa.service;
 
+import com.tienda.donarosa.auditoria.AccionAuditoria;
+import com.tienda.donarosa.auditoria.AuditoriaService;
+import com.tienda.donarosa.busqueda.AutocompletadoService;
+import com.tienda.donarosa.busqueda.BusquedaService;
+import com.tienda.donarosa.dto.ProductoDTO;
+import com.tienda.donarosa.existencias.EscrituraDiferidaService;
 import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.model.TipoMovimiento;
+import com.tienda.donarosa.multitienda.TiendaContexto;
 import com.tienda.donarosa.repository.ProductoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,22 +29,50 @@ import java.util.Optional;
 public class ProductoServiceImpl implements ProductoService {
 
     private final ProductoRepository productoRepository;
+    private final MovimientoService movimientoService;
+    private final AuditoriaService auditoriaService;
+    private final InventarioColumnarService inventarioColumnarService;
+    private final BusquedaService busquedaService;
+    private final AutocompletadoService autocompletadoService;
+    private final LecturasCompartidas lecturasCompartidas;
+    private final EscrituraDiferidaService escrituraDiferida;
+    private final ArchivoProductosService archivoProductos;
+    private final ResumenCategoriasService resumenCategorias;
+    private final HistorialPreciosService historialPrecios;
 
     @Autowired
-    public ProductoServiceImpl(ProductoRepository productoRepository) {
+    public ProductoServiceImpl(ProductoRepository productoRepository, MovimientoService movimientoService,
+                               AuditoriaService auditoriaService, InventarioColumnarService inventarioColumnarService,
+                               BusquedaService busquedaService, AutocompletadoService autocompletadoService,
+                               LecturasCompartidas lecturasCompartidas, EscrituraDiferidaService escrituraDiferida,
+                               ArchivoProductosService archivoProductos, ResumenCategoriasService resumenCategorias,
+                               HistorialPreciosService historialPrecios) {
         this.productoRepository = productoRepository;
+        this.movimientoService = movimientoService;
+        this.auditoriaService = auditoriaService;
+        this.inventarioColumnarService = inventarioColumnarService;
+        this.busquedaService = busquedaService;
+        this.autocompletadoService = autocompletadoService;
+        this.lecturasCompartidas = lecturasCompartidas;
+        this.escrituraDiferida = escrituraDiferida;
+        this.archivoProductos = archivoProductos;
+        this.resumenCategorias = resumenCategorias;
+        this.historialPrecios = historialPrecios;
     }
 
+    // Las lecturas del panel principal se comparten entre peticiones simultáneas (LecturasCompartidas).
+    // Sin transacción propia: quien espera el resultado de otra petición no ocupa una conexión.
+
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Producto> obtenerTodosLosProductos() {
-        return productoRepository.findAll();
+        return lecturasCompartidas.obtener("productos", () -> Collections.unmodifiableList(productoRepository.findAll()));
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<Producto> obtenerProductoPorId(Long id) {
-        return productoRepository.findById(id);
+        return buscarEnTiendaActual(id);
     }
 
     @Override
@@ -38,54 +80,111 @@ public class ProductoServiceImpl implements ProductoService {
         if (producto.getCantidadInicial() == null) {
             producto.setCantidadInicial(producto.getCantidad());
         }
-        return productoRepository.save(producto);
+        liberarNombre(producto.getNombre());
+        // Un producto archivado con el nombre vuelve a productos y el nombre sigue ocupado
+        archivoProductos.restaurarPorNombre(producto.getNombre());
+        Producto guardado = productoRepository.save(producto);
+        historialPrecios.registrarPrecio(guardado);
+        movimientoService.registrar(guardado, TipoMovimiento.ALTA, guardado.getCantidad());
+        auditoriaService.registrar(AccionAuditoria.CREAR, guardado.getId(), null, guardado.getCantidad(),
+                guardado.getNombre() + " a $" + guardado.getPrecio());
+        inventarioColumnarService.registrarCambio(guardado);
+        resumenCategorias.registrarCambio(guardado);
+        autocompletadoService.registrarCambio(guardado);
+        lecturasCompartidas.invalidar();
+        busquedaService.registrarCambio(guardado);
+        return guardado;
     }
 
     @Override
     public Producto actualizarProducto(Producto producto) {
         if (producto.getId() == null) {
-            throw new IllegalArgumentException("El producto debe tener un ID para ser actualizado");
+            throw new ValidacionException("El producto debe tener un ID para ser actualizado");
         }
+        // Con escritura diferida, primero aplicar las ventas ya confirmadas del producto
+        escrituraDiferida.aplicarProducto(producto.getId());
 
-        Optional<Producto> productoExistente = productoRepository.findById(producto.getId());
+        Optional<Producto> productoExistente = productoRepository.findParaActualizar(producto.getId())
+                .or(() -> archivoProductos.restaurar(producto.getId()));
         if (productoExistente.isPresent()) {
             Producto existing = productoExistente.get();
+            int variacion = producto.getCantidad() - existing.getCantidad();
+            boolean renombrado = !existing.getNombre().equals(producto.getNombre());
+            if (renombrado) {
+                liberarNombre(producto.getNombre());
+                archivoProductos.restaurarPorNombre(producto.getNombre());
+            }
+            auditoriaService.registrar(AccionAuditoria.EDITAR, existing.getId(), existing.getCantidad(), producto.getCantidad(),
+                    existing.getNombre() + " a $" + existing.getPrecio() + " -> " + producto.getNombre() + " a $" + producto.getPrecio());
             existing.setNombre(producto.getNombre());
             existing.setPrecio(producto.getPrecio());
             existing.setCantidad(producto.getCantidad());
+            if (producto.getCategoria() != null) {
+                existing.setCategoria(producto.getCategoria());
+            }
             // Mantener la cantidad inicial original si no se especifica
             if (producto.getCantidadInicial() != null) {
                 existing.setCantidadInicial(producto.getCantidadInicial());
             }
-            return productoRepository.save(existing);
+            historialPrecios.registrarPrecio(existing);
+            movimientoService.registrar(existing, TipoMovimiento.AJUSTE, variacion);
+            inventarioColumnarService.registrarCambio(existing);
+            resumenCategorias.registrarCambio(existing);
+            autocompletadoService.registrarCambio(existing);
+            lecturasCompartidas.invalidar();
+            if (renombrado) {
+                busquedaService.registrarCambio(existing);
+            }
+            Producto guardado = productoRepository.save(existing);
+            escrituraDiferida.olvidar(guardado);
+            return guardado;
         }
         throw new RuntimeException("Producto no encontrado con ID: " + producto.getId());
     }
 
     @Override
     public void eliminarProducto(Long id) {
-        if (!productoRepository.existsById(id)) {
-            throw new RuntimeException("Producto no encontrado con ID: " + id);
-        }
-        productoRepository.deleteById(id);
+        escrituraDiferida.aplicarProducto(id);
+        Producto producto = productoRepository.findParaActualizar(id)
+                .orElseThrow(() -> new RuntimeException("Producto no encontrado con ID: " + id));
+        movimientoService.registrar(producto, TipoMovimiento.BAJA, -producto.getCantidad());
+        auditoriaService.registrar(AccionAuditoria.ELIMINAR, id, producto.getCantidad(), null, producto.getNombre());
+        // Baja lógica: un UPDATE de la fila; PurgaProductosTarea la borra fuera de horario
+        producto.setEliminadoEn(LocalDateTime.now());
+        productoRepository.save(producto);
+        resumenCategorias.registrarCambio(producto);
+        inventarioColumnarService.registrarBaja(id);
+        busquedaService.registrarBaja(id);
+        autocompletadoService.registrarBaja(id);
+        escrituraDiferida.olvidar(producto);
+        lecturasCompartidas.invalidar();
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<Producto> buscarProductosPorNombre(String nombre) {
-        return productoRepository.findByNombreContainingIgnoreCase(nombre);
+        List<Producto> encontrados = busquedaService.buscar(nombre);
+        if (!encontrados.isEmpty()) {
+            return encontrados;
+        }
+        // Sin coincidencias por palabras (p. ej. un pedazo de palabra): buscar como antes por contenido
+        encontrados = productoRepository.findByNombreContainingIgnoreCase(nombre);
+        if (!encontrados.isEmpty()) {
+            return encontrados;
+        }
+        // Por último, el nombre exacto de un producto archivado, que vuelve a productos
+        return archivoProductos.restaurarPorNombre(nombre).map(List::of).orElse(List.of());
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Optional<Producto> obtenerProductoMasCercaDeAgotarse() {
-        List<Producto> productos = productoRepository.findProductosCercaDeAgotarse();
-        return productos.stream()
-                .min((p1, p2) -> {
-                    double porcentaje1 = p1.getPorcentajeRestante();
-                    double porcentaje2 = p2.getPorcentajeRestante();
-                    return Double.compare(porcentaje1, porcentaje2);
-                });
+        return lecturasCompartidas.obtener("mas-cerca-de-agotarse", () -> {
+            List<Producto> productos = productoRepository.findProductosCercaDeAgotarse();
+            // Primero el que alcanza para menos días; los que no tienen ventas recientes, por porcentaje restante
+            return productos.stream()
+                    .min(Comparator.comparing(Producto::getDiasCobertura, Comparator.nullsLast(Comparator.naturalOrder()))
+                            .thenComparingDouble(Producto::getPorcentajeRestante));
+        });
     }
 
     @Override
@@ -95,32 +194,80 @@ public class ProductoServiceImpl implements ProductoService {
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public BigDecimal calcularValorTotalInventario() {
-        Optional<Double> total = productoRepository.calcularValorTotalInventario();
-        return total.map(BigDecimal::valueOf).orElse(BigDecimal.ZERO);
+        return lecturasCompartidas.obtener("valor-total", () -> {
+            Optional<Double> total = productoRepository.calcularValorTotalInventario();
+            return total.map(BigDecimal::valueOf).orElse(BigDecimal.ZERO);
+        });
     }
 
     @Override
     public boolean actualizarCantidadProducto(Long id, Integer nuevaCantidad) {
         if (nuevaCantidad < 0) {
-            throw new IllegalArgumentException("La cantidad no puede ser negativa");
+            throw new ValidacionException("La cantidad no puede ser negativa");
+        }
+        // Reponer un producto archivado lo devuelve a productos
+        boolean reposicion = nuevaCantidad > 0;
+        if (escrituraDiferida.habilitada()) {
+            return escrituraDiferida.fijarCantidad(id, nuevaCantidad)
+                    || (reposicion && archivoProductos.restaurar(id).isPresent()
+                        && escrituraDiferida.fijarCantidad(id, nuevaCantidad));
         }
 
-        Optional<Producto> productoOpt = productoRepository.findById(id);
+        Optional<Producto> productoOpt = productoRepository.findParaActualizar(id)
+                .or(() -> reposicion ? archivoProductos.restaurar(id) : Optional.empty());
         if (productoOpt.isPresent()) {
             Producto producto = productoOpt.get();
+            // Una cantidad menor se registra como venta; una mayor, como reposición
+            int variacion = nuevaCantidad - producto.getCantidad();
+            movimientoService.registrar(producto, variacion < 0 ? TipoMovimiento.VENTA : TipoMovimiento.REPOSICION, variacion);
+            auditoriaService.registrar(AccionAuditoria.CAMBIO_CANTIDAD, id, producto.getCantidad(), nuevaCantidad, null);
             producto.setCantidad(nuevaCantidad);
             productoRepository.save(producto);
+            inventarioColumnarService.registrarCambio(producto);
+            resumenCategorias.registrarCambio(producto);
+            autocompletadoService.registrarCambio(producto);
+            lecturasCompartidas.invalidar();
             return true;
         }
         return false;
     }
 
+    @Override
+    public boolean registrarVenta(Long id, int unidades) {
+        if (unidades <= 0) {
+            throw new ValidacionException("Las unidades vendidas deben ser mayores a cero");
+        }
+        if (escrituraDiferida.habilitada()) {
+            return escrituraDiferida.registrarVenta(id, unidades);
+        }
+
+        Optional<Producto> productoOpt = productoRepository.findParaActualizar(id);
+        if (productoOpt.isEmpty()) {
+            return false;
+        }
+        Producto producto = productoOpt.get();
+        if (unidades > producto.getCantidad()) {
+            throw new ValidacionException("No hay suficientes unidades de " + producto.getNombre());
+        }
+        movimientoService.registrar(producto, TipoMovimiento.VENTA, -unidades);
+        auditoriaService.registrar(AccionAuditoria.VENTA, id, producto.getCantidad(), producto.getCantidad() - unidades, null);
+        producto.setCantidad(producto.getCantidad() - unidades);
+        productoRepository.save(producto);
+        inventarioColumnarService.registrarCambio(producto);
+        resumenCategorias.registrarCambio(producto);
+        autocompletadoService.registrarCambio(producto);
+        lecturasCompartidas.invalidar();
+        return true;
+    }
+
     @Override
     @Transactional(readOnly = true)
     public boolean existeProductoConNombre(String nombre) {
-        return productoRepository.findByNombreIgnoreCase(nombre).isPresent();
+        // Solo consulta: el producto archivado vuelve a productos al guardarlo o renombrarlo
+        return productoRepository.findByNombreIgnoreCase(nombre).isPresent()
+                || archivoProductos.estaArchivado(nombre);
     }
 
     @Override
@@ -134,4 +281,51 @@ public class ProductoServiceImpl implements ProductoService {
     public List<Producto> obtenerProductosAgotados() {
         return productoRepository.findByCantidadEquals(0);
     }
+
+    /**
+     * findById usa el caché de segundo nivel pero no filtra por tienda ni los eliminados.
+     * Las escrituras usan findParaActualizar, que sí filtra (es una consulta)
+     */
+    private Optional<Producto> buscarEnTiendaActual(Long id) {
+        String tienda = TiendaContexto.actual();
+        return productoRepository.findById(id)
+                .filter(producto -> producto.perteneceATienda(tienda) && !producto.estaEliminado());
+    }
+
+    /**
+     * Un producto eliminado que todavía no se purgó ocupa su nombre en la tienda
+     */
+    private void liberarNombre(String nombre) {
+        String tienda = TiendaContexto.actual();
+        if (nombre != null && productoRepository.existeEliminadoConNombre(tienda, nombre)) {
+            productoRepository.purgarEliminadoConNombre(tienda, nombre);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductoDTO> obtenerPaginaProductos(Long despuesDe, int limite) {
+        return productoRepository.findPaginaDespuesDe(despuesDe == null ? 0L : despuesDe, Limit.of(limite));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<ProductoDTO> obtenerProyeccionProducto(Long id) {
+        return productoRepository.findProyeccionById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductoDTO> obtenerProyeccionesProductos(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return productoRepository.findProyeccionesByIdIn(ids);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductoDTO> buscarProductosArchivados(String termino, int limite) {
+        return archivoProductos.buscarArchivados(termino, limite);
+    }
 }
@@ -0,0 +1,160 @@
+package com.tienda.donarosa.service;
+
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import com.tienda.donarosa.repository.ProductoRepository;
+import com.tienda.donarosa.repository.VentaDiariaRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.query.NativeQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Calcula el punto de reorden, la demanda diaria y los días de cobertura de cada
+ * producto a partir de las ventas diarias recientes, y los guarda en el producto.
+ *
+ * Los datos se leen en una sola pasada a arreglos primitivos, el cálculo se
+ * reparte entre los núcleos con fork-join (ver CalculoReorden) y los resultados
+ * se escriben con un MERGE por lote, cada lote en su propia transacción.
+ * Los reportes de stock bajo solo leen las columnas ya calculadas.
+ */
+@Service
+public class PuntoReordenService {
+
+    private static final Logger log = LoggerFactory.getLogger(PuntoReordenService.class);
+
+    private final ProductoRepository productoRepository;
+    private final VentaDiariaRepository ventaDiariaRepository;
+    private final EntityManager entityManager;
+    private final InventarioColumnarService inventarioColumnarService;
+    private final LecturasCompartidas lecturasCompartidas;
+    private final ResumenCategoriasService resumenCategorias;
+    private final TransactionTemplate transaccion;
+    private final TransactionTemplate transaccionLectura;
+    private final ForkJoinPool pool;
+
+    private final int ventanaDias;
+    private final int diasEntrega;
+    private final double factorSeguridad;
+    private final int tamanoLote;
+
+    @Autowired
+    public PuntoReordenService(ProductoRepository productoRepository,
+                               VentaDiariaRepository ventaDiariaRepository,
+                               EntityManager entityManager,
+                               InventarioColumnarService inventarioColumnarService,
+                               LecturasCompartidas lecturasCompartidas,
+                               ResumenCategoriasService resumenCategorias,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${tienda.reorden.ventana-dias:28}") int ventanaDias,
+                               @Value("${tienda.reorden.dias-entrega:3}") int diasEntrega,
+                               @Value("${tienda.reorden.factor-seguridad:1.65}") double factorSeguridad,
+                               @Value("${tienda.reorden.lote:1000}") int tamanoLote,
+                               @Value("${tienda.reorden.paralelismo:0}") int paralelismo) {
+        if (ventanaDias <= 0 || diasEntrega <= 0 || tamanoLote <= 0) {
+            throw new IllegalArgumentException("La ventana, los días de entrega y el lote deben ser mayores a cero");
+        }
+        this.productoRepository = productoRepository;
+        this.ventaDiariaRepository = ventaDiariaRepository;
+        this.entityManager = entityManager;
+        this.inventarioColumnarService = inventarioColumnarService;
+        this.lecturasCompartidas = lecturasCompartidas;
+        this.resumenCategorias = resumenCategorias;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.transaccionLectura = new TransactionTemplate(transactionManager);
+        this.transaccionLectura.setReadOnly(true);
+        this.pool = new ForkJoinPool(paralelismo > 0 ? paralelismo : Runtime.getRuntime().availableProcessors());
+        this.ventanaDias = ventanaDias;
+        this.diasEntrega = diasEntrega;
+        this.factorSeguridad = factorSeguridad;
+        this.tamanoLote = tamanoLote;
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        pool.shutdown();
+    }
+
+    /**
+     * Recalcula los productos de la tienda actual con las ventas de la ventana
+     * que termina ayer (el día en curso está incompleto)
+     *
+     * @return número de productos actualizados
+     */
+    public int recalcular(LocalDate hoy) {
+        long inicio = System.nanoTime();
+        CalculoReorden.Datos datos = transaccionLectura.execute(estado -> cargar(hoy.minusDays(ventanaDias), hoy.minusDays(1)));
+        pool.invoke(new CalculoReorden(datos, 0, datos.tamano()));
+
+        for (int desde = 0; desde < datos.tamano(); desde += tamanoLote) {
+            int lote = desde;
+            transaccion.executeWithoutResult(estado -> guardar(datos, lote, Math.min(lote + tamanoLote, datos.tamano())));
+        }
+        inventarioColumnarService.invalidar();
+        lecturasCompartidas.invalidar();
+        log.info("Puntos de reorden de la tienda {} recalculados: {} productos en {} ms",
+                TiendaContexto.actual(), datos.tamano(), (System.nanoTime() - inicio) / 1_000_000);
+        return datos.tamano();
+    }
+
+    private CalculoReorden.Datos cargar(LocalDate desde, LocalDate hasta) {
+        List<Object[]> cantidades = productoRepository.findCantidades();
+        CalculoReorden.Datos datos = new CalculoReorden.Datos(cantidades.size(), ventanaDias, diasEntrega, factorSeguridad);
+        for (int i = 0; i < cantidades.size(); i++) {
+            Object[] fila = cantidades.get(i);
+            datos.ids[i] = (Long) fila[0];
+            datos.cantidad[i] = (Integer) fila[1];
+        }
+
+        // Los IDs vienen ordenados, así que cada venta se ubica con búsqueda binaria
+        for (Object[] fila : ventaDiariaRepository.sumarPorProducto(desde, hasta)) {
+            int i = Arrays.binarySearch(datos.ids, (Long) fila[0]);
+            if (i >= 0) {
+                datos.unidades[i] = ((Number) fila[1]).longValue();
+                datos.unidadesCuadrado[i] = ((Number) fila[2]).longValue();
+            }
+        }
+        return datos;
+    }
+
+    private void guardar(CalculoReorden.Datos datos, int desde, int hasta) {
+        StringBuilder sql = new StringBuilder("MERGE INTO productos p USING (VALUES ");
+        for (int i = desde; i < hasta; i++) {
+            sql.append(i > desde ? ", " : "")
+               .append("(CAST(? AS BIGINT), CAST(? AS INTEGER), CAST(? AS DOUBLE PRECISION), CAST(? AS DOUBLE PRECISION))");
+        }
+        sql.append(") AS v(id, punto_reorden, demanda_diaria, dias_cobertura) ")
+           .append("ON p.id = v.id AND p.tienda_id = ? ")
+           .append("WHEN MATCHED THEN UPDATE SET punto_reorden = v.punto_reorden, ")
+           .append("demanda_diaria = v.demanda_diaria, dias_cobertura = v.dias_cobertura, actualizado_en = LOCALTIMESTAMP");
+
+        Query merge = entityManager.createNativeQuery(sql.toString());
+        int parametro = 1;
+        for (int i = desde; i < hasta; i++) {
+            boolean sinVentas = datos.puntoReorden[i] < 0;
+            merge.setParameter(parametro++, datos.ids[i]);
+            merge.setParameter(parametro++, sinVentas ? null : datos.puntoReorden[i]);
+            merge.setParameter(parametro++, sinVentas ? null : datos.demandaDiaria[i]);
+            merge.setParameter(parametro++, sinVentas ? null : datos.diasCobertura[i]);
+        }
+        merge.setParameter(parametro, TiendaContexto.actual());
+
+        // Declarar la tabla invalida el caché de productos y de reportes
+        merge.unwrap(NativeQuery.class).addSynchronizedEntityClass(Producto.class);
+        // El punto de reorden decide qué productos cuentan como cerca de agotarse en su categoría
+        resumenCategorias.ajustarEscrituraSql(Arrays.stream(datos.ids, desde, hasta).boxed().toList(),
+                merge::executeUpdate);
+    }
+}
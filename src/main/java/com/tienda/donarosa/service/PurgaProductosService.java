@@ -0,0 +1,118 @@
+package com.tienda.donarosa.service;
+
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import org.h2.engine.SessionLocal;
+import org.h2.jdbc.JdbcConnection;
+import org.h2.mvstore.db.Store;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Borra definitivamente los productos eliminados (baja lógica) y compacta el
+ * archivo de H2.
+ *
+ * Los borra por lotes chicos, cada uno en su propia sentencia y con una pausa
+ * entre lotes, para no retener bloqueos sobre productos mientras se vende. Solo
+ * purga los eliminados hace más de tienda.purga.retencion: hasta entonces los
+ * reportes de historia los siguen mostrando con su nombre (ver NombreProducto).
+ * Los movimientos y la auditoría del producto se conservan.
+ */
+@Service
+public class PurgaProductosService {
+
+    private static final Logger log = LoggerFactory.getLogger(PurgaProductosService.class);
+
+    private static final String PURGAR_LOTE =
+            "DELETE FROM productos WHERE tienda_id = ? AND eliminado_en < ? FETCH FIRST ? ROWS ONLY";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration retencion;
+    private final int tamanoLote;
+    private final Duration pausa;
+    private final Duration tiempoCompactacion;
+
+    @Autowired
+    public PurgaProductosService(JdbcTemplate jdbcTemplate,
+                                 @Value("${tienda.purga.retencion:7d}") Duration retencion,
+                                 @Value("${tienda.purga.lote:500}") int tamanoLote,
+                                 @Value("${tienda.purga.pausa:50ms}") Duration pausa,
+                                 @Value("${tienda.purga.compactar-por:5s}") Duration tiempoCompactacion) {
+        if (tamanoLote <= 0) {
+            throw new IllegalArgumentException("El lote de la purga debe ser mayor a cero");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.retencion = retencion;
+        this.tamanoLote = tamanoLote;
+        this.pausa = pausa;
+        this.tiempoCompactacion = tiempoCompactacion;
+    }
+
+    /**
+     * Purga los productos de la tienda actual eliminados antes de ahora menos la retención
+     *
+     * @return número de productos borrados
+     */
+    public int purgar(LocalDateTime ahora) {
+        String tienda = TiendaContexto.actual();
+        LocalDateTime limite = ahora.minus(retencion);
+        long inicio = System.nanoTime();
+        int total = 0;
+        while (true) {
+            int borrados = jdbcTemplate.update(PURGAR_LOTE, tienda, limite, tamanoLote);
+            total += borrados;
+            if (borrados < tamanoLote) {
+                break;
+            }
+            esperar();
+        }
+        if (total > 0) {
+            log.info("Purgados {} productos eliminados de la tienda {} en {} ms",
+                    total, tienda, (System.nanoTime() - inicio) / 1_000_000);
+        }
+        return total;
+    }
+
+    /**
+     * Reescribe las partes del archivo de H2 que quedaron con poco uso y lo achica.
+     * Solo es posible en el proceso que abrió el archivo (no como cliente de AUTO_SERVER).
+     *
+     * @return bytes que se liberaron, o -1 si la base de datos no es un archivo local
+     */
+    public long compactar() {
+        try (Connection conexion = jdbcTemplate.getDataSource().getConnection()) {
+            if (!(conexion.unwrap(JdbcConnection.class).getSession() instanceof SessionLocal sesion)
+                    || !sesion.getDatabase().isPersistent()) {
+                log.info("La base de datos no es un archivo abierto por este proceso; no se compacta");
+                return -1;
+            }
+            Store almacen = sesion.getDatabase().getStore();
+            long inicio = System.nanoTime();
+            long antes = almacen.getMvStore().getFileStore().size();
+            almacen.compactFile((int) tiempoCompactacion.toMillis());
+            long despues = almacen.getMvStore().getFileStore().size();
+            log.info("Archivo de H2 compactado de {} KB a {} KB en {} ms",
+                    antes / 1024, despues / 1024, (System.nanoTime() - inicio) / 1_000_000);
+            return antes - despues;
+        } catch (SQLException e) {
+            throw new IllegalStateException("No se pudo compactar la base de datos", e);
+        }
+    }
+
+    private void esperar() {
+        try {
+            Thread.sleep(pausa.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Purga interrumpida", e);
+        }
+    }
+}
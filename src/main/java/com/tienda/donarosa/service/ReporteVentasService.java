@@ -0,0 +1,77 @@
+package com.tienda.donarosa.service;
+
+import com.tienda.donarosa.dto.VentaDiaDTO;
+import com.tienda.donarosa.dto.VentaResumenDTO;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import com.tienda.donarosa.repository.VentaDiariaRepository;
+import com.tienda.donarosa.repository.VentaSemanalRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+/**
+ * Reportes de ventas leídos de los resúmenes diarios y semanales,
+ * sin recorrer los movimientos
+ */
+@Service
+@Transactional(readOnly = true)
+public class ReporteVentasService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReporteVentasService.class);
+
+    private final VentaDiariaRepository ventaDiariaRepository;
+    private final VentaSemanalRepository ventaSemanalRepository;
+
+    @Autowired
+    public ReporteVentasService(VentaDiariaRepository ventaDiariaRepository,
+                                VentaSemanalRepository ventaSemanalRepository) {
+        this.ventaDiariaRepository = ventaDiariaRepository;
+        this.ventaSemanalRepository = ventaSemanalRepository;
+    }
+
+    /**
+     * Productos más vendidos en la semana que contiene el día indicado
+     */
+    public List<VentaResumenDTO> obtenerMasVendidosSemana(LocalDate dia, int limite) {
+        return ventaSemanalRepository.findMasVendidos(MovimientoService.inicioDeSemana(dia), Limit.of(limite));
+    }
+
+    /**
+     * Ventas totales por día en el rango (solo los días con ventas)
+     */
+    public List<VentaDiaDTO> obtenerVentasPorDia(LocalDate desde, LocalDate hasta) {
+        return ventaDiariaRepository.totalesPorDia(desde, hasta);
+    }
+
+    /**
+     * Reconstruye los resúmenes de la tienda actual desde los movimientos.
+     * El rango se amplía a semanas completas (de lunes a domingo).
+     *
+     * @return número de filas diarias reconstruidas
+     */
+    @Transactional
+    public int reconstruirResumenes(LocalDate desde, LocalDate hasta) {
+        if (hasta.isBefore(desde)) {
+            throw new ValidacionException("La fecha final no puede ser anterior a la inicial");
+        }
+        String tienda = TiendaContexto.actual();
+        LocalDate lunes = MovimientoService.inicioDeSemana(desde);
+        LocalDate domingo = hasta.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
+
+        ventaSemanalRepository.eliminarRango(tienda, lunes, domingo);
+        ventaDiariaRepository.eliminarRango(tienda, lunes, domingo);
+        int filas = ventaDiariaRepository.reconstruirRango(tienda, lunes.atStartOfDay(), domingo.plusDays(1).atStartOfDay());
+        ventaSemanalRepository.reconstruirRango(tienda, lunes, domingo);
+
+        log.info("Resúmenes de ventas de la tienda {} reconstruidos del {} al {} ({} filas diarias)", tienda, lunes, domingo, filas);
+        return filas;
+    }
+}
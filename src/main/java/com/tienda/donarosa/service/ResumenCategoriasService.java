@@ -0,0 +1,165 @@
+package com.tienda.donarosa.service;
+
+import com.tienda.donarosa.model.AporteCategoria;
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.model.ResumenCategoria;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import com.tienda.donarosa.repository.ProductoRepository;
+import com.tienda.donarosa.repository.ResumenCategoriaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Totales del inventario por categoría (resumen_categorias), mantenidos con cada escritura.
+ *
+ * Cada producto recuerda con qué figura en el resumen (Producto.aporteRegistrado,
+ * tomado al leerlo de la base); registrarCambio acumula la diferencia con su estado
+ * actual y, al confirmar la transacción, se suma una sola vez por categoría. Así la
+ * fila de una categoría queda bloqueada solo mientras se confirma, y en el mismo orden
+ * en todas las transacciones. Las escrituras por SQL (archivo, cambio masivo de
+ * precios, puntos de reorden) pasan por ajustarEscrituraSql, y las altas del catálogo
+ * sintético por registrarAltasSql.
+ */
+@Service
+public class ResumenCategoriasService {
+
+    private static final Logger log = LoggerFactory.getLogger(ResumenCategoriasService.class);
+
+    private final ResumenCategoriaRepository resumenCategoriaRepository;
+    private final ProductoRepository productoRepository;
+
+    @Autowired
+    public ResumenCategoriasService(ResumenCategoriaRepository resumenCategoriaRepository,
+                                    ProductoRepository productoRepository) {
+        this.resumenCategoriaRepository = resumenCategoriaRepository;
+        this.productoRepository = productoRepository;
+    }
+
+    /**
+     * Categorías de la tienda actual con sus totales, en orden alfabético
+     */
+    @Transactional(readOnly = true)
+    public List<ResumenCategoria> obtenerResumen() {
+        return resumenCategoriaRepository.findAllByOrderByCategoriaAsc();
+    }
+
+    /**
+     * Registra el estado actual del producto en el resumen; se escribe al confirmar la transacción
+     */
+    public void registrarCambio(Producto producto) {
+        AporteCategoria antes = producto.aporteRegistrado();
+        AporteCategoria despues = AporteCategoria.de(producto);
+        producto.registrarAporte(despues);
+        if (Objects.equals(antes, despues)) {
+            return;
+        }
+        Map<String, AporteCategoria> pendientes = pendientes();
+        if (antes != null) {
+            pendientes.merge(antes.categoria(), antes.negado(), AporteCategoria::mas);
+        }
+        if (despues != null) {
+            pendientes.merge(despues.categoria(), despues, AporteCategoria::mas);
+        }
+    }
+
+    /**
+     * Para un producto que volvió a productos por SQL (restaurado del archivo) y todavía no suma
+     */
+    public void registrarAlta(Producto producto) {
+        producto.registrarAporte(null);
+        registrarCambio(producto);
+    }
+
+    /**
+     * Ejecuta una escritura por SQL sobre los productos indicados de la tienda actual
+     * y ajusta el resumen: los bloquea, los resta, escribe y vuelve a sumar los que quedan
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void ajustarEscrituraSql(Collection<Long> ids, Runnable escritura) {
+        if (ids.isEmpty()) {
+            escritura.run();
+            return;
+        }
+        String tienda = TiendaContexto.actual();
+        productoRepository.bloquear(tienda, ids);
+        resumenCategoriaRepository.sumarProductos(tienda, ids, -1);
+        escritura.run();
+        resumenCategoriaRepository.sumarProductos(tienda, ids, 1);
+    }
+
+    /**
+     * Suma los productos insertados por SQL en la transacción actual
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarAltasSql(Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            resumenCategoriaRepository.sumarProductos(TiendaContexto.actual(), ids, 1);
+        }
+    }
+
+    /**
+     * Recalcula los totales de la tienda actual desde productos
+     *
+     * @return número de categorías
+     */
+    @Transactional
+    public int reconstruir() {
+        long inicio = System.nanoTime();
+        String tienda = TiendaContexto.actual();
+        int categorias = resumenCategoriaRepository.reconstruir(tienda);
+        log.info("Resumen por categorías de la tienda {} reconstruido: {} categorías en {} ms",
+                tienda, categorias, (System.nanoTime() - inicio) / 1_000_000);
+        return categorias;
+    }
+
+    /**
+     * Diferencias acumuladas de la transacción actual (una suspendida no se ve)
+     */
+    private Map<String, AporteCategoria> pendientes() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("El resumen por categorías se actualiza dentro de una transacción");
+        }
+        for (TransactionSynchronization sincronizacion : TransactionSynchronizationManager.getSynchronizations()) {
+            if (sincronizacion instanceof Pendientes pendientes) {
+                return pendientes.diferencias;
+            }
+        }
+        Pendientes pendientes = new Pendientes(TiendaContexto.actual());
+        TransactionSynchronizationManager.registerSynchronization(pendientes);
+        return pendientes.diferencias;
+    }
+
+    private final class Pendientes implements TransactionSynchronization {
+
+        private final String tienda;
+        // Ordenadas por categoría: todas las transacciones bloquean las filas en el mismo orden
+        private final Map<String, AporteCategoria> diferencias = new TreeMap<>();
+
+        Pendientes(String tienda) {
+            this.tienda = tienda;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            diferencias.values().stream()
+                    .filter(diferencia -> !diferencia.esNulo())
+                    .forEach(diferencia -> resumenCategoriaRepository.sumar(tienda, diferencia.categoria(),
+                            diferencia.productos(), diferencia.unidades(),
+                            BigDecimal.valueOf(diferencia.valorCentavos(), 2), diferencia.agotados(),
+                            diferencia.cercaDeAgotarse()));
+        }
+    }
+}
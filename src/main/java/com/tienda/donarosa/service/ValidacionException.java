@@ -0,0 +1,13 @@
+package com.tienda.donarosa.service;
+
+/**
+ * Datos de una petición que no cumplen una regla de la tienda (límites, cantidades,
+ * unidades disponibles). La API REST la responde con 400 y su mensaje, que debe
+ * poder leerlo el cliente; cualquier otro error queda como error interno.
+ */
+public class ValidacionException extends IllegalArgumentException {
+
+    public ValidacionException(String mensaje) {
+        super(mensaje);
+    }
+}
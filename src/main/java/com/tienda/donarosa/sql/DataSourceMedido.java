@@ -0,0 +1,142 @@
+package com.tienda.donarosa.sql;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Mide el tiempo de cada sentencia que pasa por el DataSource y lo informa a
+ * los ObservadorSql registrados (trazas de peticiones, estadísticas).
+ *
+ * Envuelve las conexiones y sentencias con proxies: los métodos execute* se
+ * cronometran, los set* de las sentencias preparadas se anotan (para poder
+ * repetir la consulta con EXPLAIN ANALYZE) y el resto pasa directo a la
+ * sentencia real.
+ */
+public class DataSourceMedido extends DelegatingDataSource {
+
+    private final ObjectProvider<ObservadorSql> proveedor;
+    private volatile List<ObservadorSql> observadores;
+
+    public DataSourceMedido(DataSource destino, ObjectProvider<ObservadorSql> proveedor) {
+        super(destino);
+        this.proveedor = proveedor;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return medir(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return medir(super.getConnection(username, password));
+    }
+
+    private Connection medir(Connection conexion) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                new ConexionMedida(conexion));
+    }
+
+    private List<ObservadorSql> observadores() {
+        List<ObservadorSql> actuales = observadores;
+        if (actuales == null) {
+            actuales = proveedor.orderedStream().toList();
+            observadores = actuales;
+        }
+        return actuales;
+    }
+
+    private void informar(String sql, Object[] parametros, long desde, long duracion) {
+        for (ObservadorSql observador : observadores()) {
+            observador.ejecutada(sql, parametros, desde, duracion);
+        }
+    }
+
+    private static Object invocar(Object destino, Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ConexionMedida implements InvocationHandler {
+
+        private final Connection conexion;
+
+        private ConexionMedida(Connection conexion) {
+            this.conexion = conexion;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            Object resultado = invocar(conexion, metodo, args);
+            if (resultado instanceof Statement sentencia) {
+                String sql = metodo.getName().startsWith("prepare") ? (String) args[0] : null;
+                Class<?> tipo = sentencia instanceof CallableStatement ? CallableStatement.class
+                        : sentencia instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+                return Proxy.newProxyInstance(DataSourceMedido.class.getClassLoader(), new Class<?>[]{tipo},
+                        new SentenciaMedida(sentencia, sql));
+            }
+            return resultado;
+        }
+    }
+
+    private final class SentenciaMedida implements InvocationHandler {
+
+        private final Statement sentencia;
+        private final String sqlPreparado;
+        private Object[] parametros;
+
+        private SentenciaMedida(Statement sentencia, String sqlPreparado) {
+            this.sentencia = sentencia;
+            this.sqlPreparado = sqlPreparado;
+            this.parametros = sqlPreparado != null ? new Object[8] : null;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            String nombre = metodo.getName();
+            if (!nombre.startsWith("execute")) {
+                if (parametros != null) {
+                    anotar(nombre, args);
+                }
+                return invocar(sentencia, metodo, args);
+            }
+            boolean directa = args != null && args.length > 0 && args[0] instanceof String;
+            String sql = directa ? (String) args[0] : sqlPreparado;
+            long desde = System.nanoTime();
+            try {
+                return invocar(sentencia, metodo, args);
+            } finally {
+                boolean lote = nombre.startsWith("executeBatch") || nombre.startsWith("executeLargeBatch");
+                informar(sql != null ? sql : "(lote)", directa || lote ? null : parametros, desde, System.nanoTime() - desde);
+            }
+        }
+
+        private void anotar(String nombre, Object[] args) {
+            if (nombre.equals("clearParameters")) {
+                Arrays.fill(parametros, null);
+            } else if (nombre.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer posicion
+                    && posicion >= 1) {
+                if (posicion > parametros.length) {
+                    parametros = Arrays.copyOf(parametros, Math.max(posicion, parametros.length * 2));
+                }
+                parametros[posicion - 1] = nombre.equals("setNull") ? null : args[1];
+            }
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.tienda.donarosa.sql;
+
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estadísticas por consulta normalizada (ver NormalizadorSql): ejecuciones,
+ * tiempo total y máximo, y cuántas superaron tienda.sql.umbral-lento.
+ *
+ * De las lentas se obtiene el plan de H2 en un hilo aparte, a lo sumo una vez
+ * por consulta cada tienda.sql.intervalo-plan: las SELECT se repiten con
+ * EXPLAIN ANALYZE (con los mismos parámetros, muestra filas leídas por índice);
+ * las que modifican datos o bloquean filas solo con EXPLAIN, para no ejecutarlas
+ * dos veces.
+ */
+public class EstadisticasSql implements ObservadorSql, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(EstadisticasSql.class);
+
+    private static final String OTRAS = "(otras consultas)";
+    private static final int MAXIMO_CACHE_NORMALIZADAS = 4096;
+
+    private final DataSource dataSource;
+    private final long umbralLentoNanos;
+    private final long intervaloPlanNanos;
+    private final int maximoConsultas;
+    private final Map<String, Estadistica> porConsulta = new ConcurrentHashMap<>();
+    private final Map<String, String> normalizadas = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor planes;
+
+    public EstadisticasSql(DataSource dataSource, Duration umbralLento, Duration intervaloPlan, int maximoConsultas) {
+        this.dataSource = dataSource;
+        this.umbralLentoNanos = umbralLento.toNanos();
+        this.intervaloPlanNanos = intervaloPlan.toNanos();
+        this.maximoConsultas = maximoConsultas;
+        this.planes = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(16), tarea -> {
+            Thread hilo = new Thread(tarea, "sql-planes");
+            hilo.setDaemon(true);
+            return hilo;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @Override
+    public void ejecutada(String sql, Object[] parametros, long desde, long duracion) {
+        if (sql.regionMatches(true, 0, "EXPLAIN", 0, 7)) {
+            return;
+        }
+        Estadistica estadistica = estadistica(normalizar(sql));
+        estadistica.registrar(duracion);
+        if (duracion >= umbralLentoNanos) {
+            estadistica.lentas.increment();
+            log.warn("Sentencia lenta ({} ms): {}", duracion / 1_000_000, sql);
+            if (estadistica.tocaPlan(System.nanoTime(), intervaloPlanNanos)) {
+                Object[] copia = parametros == null ? null : Arrays.copyOf(parametros, contarParametros(sql));
+                String tienda = TiendaContexto.actual();
+                planes.execute(() -> capturarPlan(estadistica, sql, copia, tienda, duracion));
+            }
+        }
+    }
+
+    /**
+     * Consultas ordenadas por tiempo total, la más costosa primero
+     */
+    public List<Estadistica> obtenerConsultas() {
+        List<Estadistica> consultas = new ArrayList<>(porConsulta.values());
+        consultas.sort(Comparator.comparingLong(Estadistica::getTotalNanos).reversed());
+        return consultas;
+    }
+
+    public void reiniciar() {
+        porConsulta.clear();
+    }
+
+    private String normalizar(String sql) {
+        String normalizada = normalizadas.get(sql);
+        if (normalizada == null) {
+            if (normalizadas.size() >= MAXIMO_CACHE_NORMALIZADAS) {
+                normalizadas.clear();
+            }
+            normalizada = NormalizadorSql.normalizar(sql);
+            normalizadas.put(sql, normalizada);
+        }
+        return normalizada;
+    }
+
+    private Estadistica estadistica(String consulta) {
+        Estadistica estadistica = porConsulta.get(consulta);
+        if (estadistica != null) {
+            return estadistica;
+        }
+        // Con SQL armado a mano (literales distintos) la cantidad de consultas no tiene tope
+        String clave = porConsulta.size() < maximoConsultas ? consulta : OTRAS;
+        return porConsulta.computeIfAbsent(clave, Estadistica::new);
+    }
+
+    private void capturarPlan(Estadistica estadistica, String sql, Object[] parametros, String tienda, long duracion) {
+        String inicio = sql.stripLeading().toUpperCase(Locale.ROOT);
+        boolean consulta = (inicio.startsWith("SELECT") || inicio.startsWith("WITH")) && !inicio.contains(" FOR UPDATE");
+        boolean analizar = consulta && (parametros != null || !sql.contains("?"));
+        String explicar = (analizar ? "EXPLAIN ANALYZE " : "EXPLAIN ") + sql;
+        try {
+            String plan = TiendaContexto.ejecutarComo(tienda, () -> consultarPlan(explicar, analizar ? parametros : null));
+            estadistica.plan = new Plan(sql, plan, analizar, duracion, Instant.now());
+        } catch (RuntimeException e) {
+            log.debug("No se pudo obtener el plan de {}", sql, e);
+        }
+    }
+
+    private String consultarPlan(String explicar, Object[] parametros) {
+        try (Connection conexion = dataSource.getConnection();
+             PreparedStatement sentencia = conexion.prepareStatement(explicar)) {
+            if (parametros != null) {
+                for (int i = 0; i < parametros.length; i++) {
+                    sentencia.setObject(i + 1, parametros[i]);
+                }
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet filas = sentencia.executeQuery()) {
+                while (filas.next()) {
+                    plan.append(filas.getString(1)).append('\n');
+                }
+            }
+            return plan.toString().trim();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Cantidad de ? fuera de los textos entre comillas
+     */
+    private static int contarParametros(String sql) {
+        int cantidad = 0;
+        boolean enTexto = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                enTexto = !enTexto;
+            } else if (c == '?' && !enTexto) {
+                cantidad++;
+            }
+        }
+        return cantidad;
+    }
+
+    @Override
+    public void destroy() {
+        planes.shutdownNow();
+    }
+
+    /**
+     * Acumulados de una consulta normalizada
+     */
+    public static final class Estadistica {
+
+        private final String consulta;
+        private final LongAdder ejecuciones = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maximoNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder lentas = new LongAdder();
+        private volatile long ultimoPlanNanos;
+        private volatile boolean conPlan;
+        private volatile Plan plan;
+
+        private Estadistica(String consulta) {
+            this.consulta = consulta;
+        }
+
+        private void registrar(long nanos) {
+            ejecuciones.increment();
+            totalNanos.add(nanos);
+            maximoNanos.accumulate(nanos);
+        }
+
+        private synchronized boolean tocaPlan(long ahora, long intervalo) {
+            if (conPlan && ahora - ultimoPlanNanos < intervalo) {
+                return false;
+            }
+            conPlan = true;
+            ultimoPlanNanos = ahora;
+            return true;
+        }
+
+        public String getConsulta() {
+            return consulta;
+        }
+
+        public long getEjecuciones() {
+            return ejecuciones.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getMaximoNanos() {
+            return maximoNanos.get();
+        }
+
+        public long getLentas() {
+            return lentas.sum();
+        }
+
+        public double getTotalMs() {
+            return getTotalNanos() / 1_000_000.0;
+        }
+
+        public double getPromedioMs() {
+            long cantidad = getEjecuciones();
+            return cantidad == 0 ? 0 : getTotalMs() / cantidad;
+        }
+
+        public double getMaximoMs() {
+            return getMaximoNanos() / 1_000_000.0;
+        }
+
+        /**
+         * Último plan capturado, o null si no tuvo ejecuciones lentas
+         */
+        public Plan getPlan() {
+            return plan;
+        }
+    }
+
+    /**
+     * Plan de H2 de una ejecución lenta
+     *
+     * @param sql       la sentencia tal como se ejecutó
+     * @param analizado true si es de EXPLAIN ANALYZE (con filas leídas), false si solo EXPLAIN
+     * @param duracion  nanosegundos que tardó la ejecución lenta
+     */
+    public record Plan(String sql, String texto, boolean analizado, long duracion, Instant capturado) {
+
+        public double duracionMs() {
+            return duracion / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.tienda.donarosa.sql;
+
+import java.util.regex.Pattern;
+
+/**
+ * Lleva las sentencias a una forma común para agruparlas en las estadísticas:
+ * sin comentarios, con los literales reemplazados por ? y las listas de valores
+ * (IN (?, ?, ?), VALUES (...), (...)) reducidas a una sola entrada.
+ */
+public final class NormalizadorSql {
+
+    private static final Pattern COMENTARIOS = Pattern.compile("/\\*.*?\\*/|--[^\\n]*", Pattern.DOTALL);
+    private static final Pattern TEXTOS = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMEROS = Pattern.compile("(?<![\\w.$])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+    private static final Pattern LISTAS = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern FILAS = Pattern.compile("\\(\\?\\.\\.\\.\\)(?:\\s*,\\s*\\(\\?\\.\\.\\.\\))+");
+
+    private NormalizadorSql() {
+    }
+
+    public static String normalizar(String sql) {
+        String normalizada = COMENTARIOS.matcher(sql).replaceAll(" ");
+        normalizada = TEXTOS.matcher(normalizada).replaceAll("?");
+        normalizada = NUMEROS.matcher(normalizada).replaceAll("?");
+        normalizada = ESPACIOS.matcher(normalizada).replaceAll(" ").trim();
+        normalizada = LISTAS.matcher(normalizada).replaceAll("(?...)");
+        return FILAS.matcher(normalizada).replaceAll("(?...)");
+    }
+}
@@ -0,0 +1,17 @@
+package com.tienda.donarosa.sql;
+
+/**
+ * Recibe cada sentencia ejecutada a través del DataSourceMedido.
+ * Se llama en el hilo que ejecutó la sentencia y debe ser rápido.
+ */
+public interface ObservadorSql {
+
+    /**
+     * @param sql        texto de la sentencia (con ? en lugar de los parámetros)
+     * @param parametros valores de los ? por posición (desde 0), o null si no es una sentencia preparada;
+     *                   la sentencia reutiliza el arreglo, hay que copiarlo para guardarlo
+     * @param desde      System.nanoTime() al empezar
+     * @param duracion   nanosegundos que tardó, incluido el error si falló
+     */
+    void ejecutada(String sql, Object[] parametros, long desde, long duracion);
+}
@@ -0,0 +1,49 @@
+package com.tienda.donarosa.tareas;
+
+import com.tienda.donarosa.existencias.EscrituraDiferidaService;
+import com.tienda.donarosa.multitienda.MultitiendaProperties;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import com.tienda.donarosa.service.ArchivoProductosService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Archiva cada madrugada los productos agotados hace mucho de todas las tiendas
+ * (tienda.archivo.cron, por defecto a las 4:30, después de la purga)
+ */
+@Component
+public class ArchivoProductosTarea {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchivoProductosTarea.class);
+
+    private final ArchivoProductosService archivoProductosService;
+    private final EscrituraDiferidaService escrituraDiferida;
+    private final MultitiendaProperties multitienda;
+
+    @Autowired
+    public ArchivoProductosTarea(ArchivoProductosService archivoProductosService,
+                                 EscrituraDiferidaService escrituraDiferida, MultitiendaProperties multitienda) {
+        this.archivoProductosService = archivoProductosService;
+        this.escrituraDiferida = escrituraDiferida;
+        this.multitienda = multitienda;
+    }
+
+    @Scheduled(cron = "${tienda.archivo.cron:0 30 4 * * *}")
+    public void archivar() {
+        // Las cantidades pendientes de la escritura diferida deciden qué está agotado
+        escrituraDiferida.vaciar();
+        LocalDateTime ahora = LocalDateTime.now();
+        for (String tienda : multitienda.todasLasTiendas()) {
+            try {
+                TiendaContexto.ejecutarComo(tienda, () -> archivoProductosService.archivar(ahora));
+            } catch (RuntimeException e) {
+                log.error("No se pudieron archivar los productos agotados de la tienda {}", tienda, e);
+            }
+        }
+    }
+}
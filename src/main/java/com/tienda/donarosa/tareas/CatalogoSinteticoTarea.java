@@ -0,0 +1,61 @@
+package com.tienda.donarosa.tareas;
+
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import com.tienda.donarosa.repository.ProductoRepository;
+import com.tienda.donarosa.service.CatalogoSinteticoService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Llena una tienda vacía con un catálogo sintético al arrancar, para medir el
+ * rendimiento con catálogos grandes:
+ *
+ *   --tienda.generador.productos=100000 --tienda.generador.tienda=principal
+ *
+ * Si la tienda ya tiene productos no hace nada, así que se puede dejar
+ * activado entre reinicios.
+ */
+@Component
+public class CatalogoSinteticoTarea implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogoSinteticoTarea.class);
+
+    private final CatalogoSinteticoService catalogoSinteticoService;
+    private final ProductoRepository productoRepository;
+    private final int productos;
+    private final String tienda;
+    private final long semilla;
+
+    @Autowired
+    public CatalogoSinteticoTarea(CatalogoSinteticoService catalogoSinteticoService,
+                                  ProductoRepository productoRepository,
+                                  @Value("${tienda.generador.productos:0}") int productos,
+                                  @Value("${tienda.generador.tienda:" + TiendaContexto.TIENDA_POR_DEFECTO + "}") String tienda,
+                                  @Value("${tienda.generador.semilla:42}") long semilla) {
+        this.catalogoSinteticoService = catalogoSinteticoService;
+        this.productoRepository = productoRepository;
+        this.productos = productos;
+        this.tienda = tienda;
+        this.semilla = semilla;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (productos <= 0) {
+            return;
+        }
+        TiendaContexto.ejecutarComo(tienda, () -> {
+            long existentes = productoRepository.count();
+            if (existentes > 0) {
+                log.info("La tienda {} ya tiene {} productos; no se genera el catálogo sintético", tienda, existentes);
+                return;
+            }
+            catalogoSinteticoService.generar(productos, semilla);
+        });
+    }
+}
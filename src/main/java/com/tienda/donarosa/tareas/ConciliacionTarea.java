@@ -0,0 +1,47 @@
+package com.tienda.donarosa.tareas;
+
+import com.tienda.donarosa.existencias.EscrituraDiferidaService;
+import com.tienda.donarosa.multitienda.MultitiendaProperties;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import com.tienda.donarosa.service.ConciliacionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Concilia cada noche el inventario de todas las tiendas, una a la vez
+ * (tienda.conciliacion.cron, por defecto a la 1:00). Una corrida que no
+ * termina se retoma en la siguiente.
+ */
+@Component
+public class ConciliacionTarea {
+
+    private static final Logger log = LoggerFactory.getLogger(ConciliacionTarea.class);
+
+    private final ConciliacionService conciliacionService;
+    private final EscrituraDiferidaService escrituraDiferida;
+    private final MultitiendaProperties multitienda;
+
+    @Autowired
+    public ConciliacionTarea(ConciliacionService conciliacionService, EscrituraDiferidaService escrituraDiferida,
+                             MultitiendaProperties multitienda) {
+        this.conciliacionService = conciliacionService;
+        this.escrituraDiferida = escrituraDiferida;
+        this.multitienda = multitienda;
+    }
+
+    @Scheduled(cron = "${tienda.conciliacion.cron:0 0 1 * * *}")
+    public void conciliar() {
+        // Las cantidades pendientes de la escritura diferida todavía no tienen sus movimientos
+        escrituraDiferida.vaciar();
+        for (String tienda : multitienda.todasLasTiendas()) {
+            try {
+                TiendaContexto.ejecutarComo(tienda, conciliacionService::conciliar);
+            } catch (RuntimeException e) {
+                log.error("No se pudo conciliar el inventario de la tienda {}", tienda, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.tienda.donarosa.tareas;
+
+import com.tienda.donarosa.multitienda.MultitiendaProperties;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import com.tienda.donarosa.service.HistorialPreciosService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Da historia de precios a los productos que no la tienen, en todas las tiendas.
+ *
+ * Con tienda.precios.completar-historial-al-iniciar=true (por defecto) se ejecuta
+ * al arrancar: la primera vez registra todo el catálogo existente con su precio
+ * actual, y después solo lo escrito fuera de la aplicación.
+ */
+@Component
+public class HistorialPreciosTarea implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(HistorialPreciosTarea.class);
+
+    private final HistorialPreciosService historialPrecios;
+    private final MultitiendaProperties multitienda;
+    private final boolean alIniciar;
+
+    @Autowired
+    public HistorialPreciosTarea(HistorialPreciosService historialPrecios, MultitiendaProperties multitienda,
+                                 @Value("${tienda.precios.completar-historial-al-iniciar:true}") boolean alIniciar) {
+        this.historialPrecios = historialPrecios;
+        this.multitienda = multitienda;
+        this.alIniciar = alIniciar;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (alIniciar) {
+            completar();
+        }
+    }
+
+    /**
+     * Completa cada tienda; un error en una tienda no detiene a las demás
+     */
+    public void completar() {
+        for (String tienda : multitienda.todasLasTiendas()) {
+            try {
+                TiendaContexto.ejecutarComo(tienda, historialPrecios::completar);
+            } catch (RuntimeException e) {
+                log.error("No se pudo completar el historial de precios de la tienda {}", tienda, e);
+            }
+        }
+    }
+}
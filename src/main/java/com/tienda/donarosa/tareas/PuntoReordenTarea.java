@@ -0,0 +1,43 @@
+package com.tienda.donarosa.tareas;
+
+import com.tienda.donarosa.multitienda.MultitiendaProperties;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import com.tienda.donarosa.service.PuntoReordenService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Recalcula cada noche los puntos de reorden de todas las tiendas
+ * (tienda.reorden.cron, por defecto a las 2:30)
+ */
+@Component
+public class PuntoReordenTarea {
+
+    private static final Logger log = LoggerFactory.getLogger(PuntoReordenTarea.class);
+
+    private final PuntoReordenService puntoReordenService;
+    private final MultitiendaProperties multitienda;
+
+    @Autowired
+    public PuntoReordenTarea(PuntoReordenService puntoReordenService, MultitiendaProperties multitienda) {
+        this.puntoReordenService = puntoReordenService;
+        this.multitienda = multitienda;
+    }
+
+    @Scheduled(cron = "${tienda.reorden.cron:0 30 2 * * *}")
+    public void recalcular() {
+        LocalDate hoy = LocalDate.now();
+        for (String tienda : multitienda.todasLasTiendas()) {
+            try {
+                TiendaContexto.ejecutarComo(tienda, () -> puntoReordenService.recalcular(hoy));
+            } catch (RuntimeException e) {
+                log.error("No se pudieron recalcular los puntos de reorden de la tienda {}", tienda, e);
+            }
+        }
+    }
+}
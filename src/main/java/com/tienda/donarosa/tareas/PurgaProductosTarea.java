@@ -0,0 +1,52 @@
+package com.tienda.donarosa.tareas;
+
+import com.tienda.donarosa.multitienda.MultitiendaProperties;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import com.tienda.donarosa.service.PurgaProductosService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Purga cada madrugada los productos eliminados de todas las tiendas y, si
+ * borró alguno, compacta el archivo de la base de datos
+ * (tienda.purga.cron, por defecto a las 4:00)
+ */
+@Component
+public class PurgaProductosTarea {
+
+    private static final Logger log = LoggerFactory.getLogger(PurgaProductosTarea.class);
+
+    private final PurgaProductosService purgaProductosService;
+    private final MultitiendaProperties multitienda;
+
+    @Autowired
+    public PurgaProductosTarea(PurgaProductosService purgaProductosService, MultitiendaProperties multitienda) {
+        this.purgaProductosService = purgaProductosService;
+        this.multitienda = multitienda;
+    }
+
+    @Scheduled(cron = "${tienda.purga.cron:0 0 4 * * *}")
+    public void purgar() {
+        LocalDateTime ahora = LocalDateTime.now();
+        int total = 0;
+        for (String tienda : multitienda.todasLasTiendas()) {
+            try {
+                total += TiendaContexto.ejecutarComo(tienda, () -> purgaProductosService.purgar(ahora));
+            } catch (RuntimeException e) {
+                log.error("No se pudieron purgar los productos eliminados de la tienda {}", tienda, e);
+            }
+        }
+        if (total > 0) {
+            try {
+                purgaProductosService.compactar();
+            } catch (RuntimeException e) {
+                log.error("No se pudo compactar la base de datos", e);
+            }
+        }
+    }
+}
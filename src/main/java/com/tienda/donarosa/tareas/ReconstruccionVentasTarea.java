@@ -0,0 +1,61 @@
+package com.tienda.donarosa.tareas;
+
+import com.tienda.donarosa.multitienda.MultitiendaProperties;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import com.tienda.donarosa.service.ReporteVentasService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Reconstruye los resúmenes de ventas de todas las tiendas desde los movimientos.
+ *
+ * Con tienda.ventas.reconstruir-dias=N se ejecuta al arrancar sobre los últimos
+ * N días (por ejemplo después de restaurar un respaldo o de corregir movimientos).
+ * Cada tienda se reconstruye en su propia transacción.
+ */
+@Component
+public class ReconstruccionVentasTarea implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ReconstruccionVentasTarea.class);
+
+    private final ReporteVentasService reporteVentasService;
+    private final MultitiendaProperties multitienda;
+    private final int diasAlIniciar;
+
+    @Autowired
+    public ReconstruccionVentasTarea(ReporteVentasService reporteVentasService,
+                                     MultitiendaProperties multitienda,
+                                     @Value("${tienda.ventas.reconstruir-dias:0}") int diasAlIniciar) {
+        this.reporteVentasService = reporteVentasService;
+        this.multitienda = multitienda;
+        this.diasAlIniciar = diasAlIniciar;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (diasAlIniciar > 0) {
+            LocalDate hoy = LocalDate.now();
+            reconstruir(hoy.minusDays(diasAlIniciar), hoy);
+        }
+    }
+
+    /**
+     * Reconstruye el rango en cada tienda; un error en una tienda no detiene a las demás
+     */
+    public void reconstruir(LocalDate desde, LocalDate hasta) {
+        for (String tienda : multitienda.todasLasTiendas()) {
+            try {
+                TiendaContexto.ejecutarComo(tienda, () -> reporteVentasService.reconstruirResumenes(desde, hasta));
+            } catch (RuntimeException e) {
+                log.error("No se pudieron reconstruir las ventas de la tienda {}", tienda, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.tienda.donarosa.tareas;
+
+import com.tienda.donarosa.respaldo.RespaldoService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Respaldo completo cada madrugada (tienda.respaldo.completo.cron, por defecto a
+ * las 3:00) e incremental cada hora (tienda.respaldo.incremental.cron)
+ */
+@Component
+public class RespaldoTarea {
+
+    private static final Logger log = LoggerFactory.getLogger(RespaldoTarea.class);
+
+    private final RespaldoService respaldoService;
+
+    @Autowired
+    public RespaldoTarea(RespaldoService respaldoService) {
+        this.respaldoService = respaldoService;
+    }
+
+    @Scheduled(cron = "${tienda.respaldo.completo.cron:0 0 3 * * *}")
+    public void respaldarCompleto() {
+        try {
+            respaldoService.respaldarCompleto();
+        } catch (RuntimeException e) {
+            log.error("No se pudo hacer el respaldo completo", e);
+        }
+    }
+
+    @Scheduled(cron = "${tienda.respaldo.incremental.cron:0 15 * * * *}")
+    public void respaldarIncremental() {
+        try {
+            respaldoService.respaldarIncremental();
+        } catch (RuntimeException e) {
+            log.error("No se pudo hacer el respaldo incremental", e);
+        }
+    }
+}
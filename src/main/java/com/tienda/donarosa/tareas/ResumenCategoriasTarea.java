@@ -0,0 +1,58 @@
+package com.tienda.donarosa.tareas;
+
+import com.tienda.donarosa.multitienda.MultitiendaProperties;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import com.tienda.donarosa.service.ResumenCategoriasService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recalcula el resumen por categorías de todas las tiendas al arrancar.
+ *
+ * Con tienda.categorias.reconstruir-al-iniciar=true (por defecto) corrige lo que
+ * haya quedado desfasado por escrituras hechas fuera de la aplicación, por una
+ * restauración o por una base anterior a las categorías. Es una consulta agrupada
+ * por tienda; cada tienda se reconstruye en su propia transacción.
+ */
+@Component
+public class ResumenCategoriasTarea implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ResumenCategoriasTarea.class);
+
+    private final ResumenCategoriasService resumenCategorias;
+    private final MultitiendaProperties multitienda;
+    private final boolean alIniciar;
+
+    @Autowired
+    public ResumenCategoriasTarea(ResumenCategoriasService resumenCategorias, MultitiendaProperties multitienda,
+                                  @Value("${tienda.categorias.reconstruir-al-iniciar:true}") boolean alIniciar) {
+        this.resumenCategorias = resumenCategorias;
+        this.multitienda = multitienda;
+        this.alIniciar = alIniciar;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (alIniciar) {
+            reconstruir();
+        }
+    }
+
+    /**
+     * Reconstruye cada tienda; un error en una tienda no detiene a las demás
+     */
+    public void reconstruir() {
+        for (String tienda : multitienda.todasLasTiendas()) {
+            try {
+                TiendaContexto.ejecutarComo(tienda, resumenCategorias::reconstruir);
+            } catch (RuntimeException e) {
+                log.error("No se pudo reconstruir el resumen por categorías de la tienda {}", tienda, e);
+            }
+        }
+    }
+}
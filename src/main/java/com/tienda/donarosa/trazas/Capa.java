@@ -0,0 +1,14 @@
+package com.tienda.donarosa.trazas;
+
+/**
+ * Capas en las que se reparte el tiempo de una petición
+ */
+public enum Capa {
+    /** Cadena de filtros (seguridad, sesión, admisión) y el DispatcherServlet */
+    FILTROS,
+    CONTROLADOR,
+    SERVICIO,
+    SQL,
+    /** Renderizado de la plantilla Thymeleaf */
+    VISTA
+}
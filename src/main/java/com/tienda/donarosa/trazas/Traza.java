@@ -0,0 +1,183 @@
+package com.tienda.donarosa.trazas;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tiempos de una petición por tramo (controlador, servicios, sentencias SQL, vista).
+ *
+ * Solo la usa el hilo que atiende la petición. Los tramos se anidan según el
+ * orden en que se abren y cierran; la petición completa es el tramo raíz y
+ * cuenta como FILTROS.
+ */
+public final class Traza {
+
+    private static final int MAXIMO_TRAMOS = 256;
+
+    private final long id;
+    private final String metodo;
+    private final long inicioMillis;
+    private final long inicioNanos;
+    private final List<Tramo> tramos = new ArrayList<>();
+    private String ruta;
+    private int nivel;
+    private int omitidos;
+    private int estado;
+    private long duracionNanos;
+
+    Traza(long id, String metodo, String ruta) {
+        this.id = id;
+        this.metodo = metodo;
+        this.ruta = ruta;
+        this.inicioMillis = System.currentTimeMillis();
+        this.inicioNanos = System.nanoTime();
+    }
+
+    /**
+     * Abre un tramo; devuelve el instante de inicio para pasarlo a salir()
+     */
+    public long entrar() {
+        nivel++;
+        return System.nanoTime();
+    }
+
+    /**
+     * Cierra el tramo abierto con entrar()
+     */
+    public void salir(Capa capa, String nombre, long desde) {
+        agregar(capa, nombre, desde, System.nanoTime() - desde, nivel);
+        nivel--;
+    }
+
+    /**
+     * Agrega un tramo ya medido, hijo del tramo abierto en este momento
+     */
+    public void registrar(Capa capa, String nombre, long desde, long duracion) {
+        agregar(capa, nombre, desde, duracion, nivel + 1);
+    }
+
+    private void agregar(Capa capa, String nombre, long desde, long duracion, int nivelTramo) {
+        if (tramos.size() < MAXIMO_TRAMOS) {
+            tramos.add(new Tramo(capa, nombre, desde - inicioNanos, duracion, nivelTramo));
+        } else {
+            omitidos++;
+        }
+    }
+
+    void terminar(int estado) {
+        this.estado = estado;
+        this.duracionNanos = System.nanoTime() - inicioNanos;
+        tramos.sort(Comparator.comparingLong(Tramo::desdeNanos).thenComparingInt(Tramo::nivel));
+    }
+
+    /**
+     * Tiempo propio de cada capa: el de sus tramos menos el de los tramos anidados en ellos
+     */
+    public Map<Capa, Long> tiempoPorCapa() {
+        Map<Capa, Long> porCapa = new EnumMap<>(Capa.class);
+        long[] propio = new long[tramos.size()];
+        long raiz = duracionNanos;
+        Deque<Integer> abiertos = new ArrayDeque<>();
+        for (int i = 0; i < tramos.size(); i++) {
+            Tramo tramo = tramos.get(i);
+            propio[i] = tramo.duracionNanos();
+            while (!abiertos.isEmpty() && !contiene(tramos.get(abiertos.peek()), tramo)) {
+                abiertos.pop();
+            }
+            if (abiertos.isEmpty()) {
+                raiz -= tramo.duracionNanos();
+            } else {
+                propio[abiertos.peek()] -= tramo.duracionNanos();
+            }
+            abiertos.push(i);
+        }
+        porCapa.put(Capa.FILTROS, Math.max(0, raiz));
+        for (int i = 0; i < tramos.size(); i++) {
+            porCapa.merge(tramos.get(i).capa(), Math.max(0, propio[i]), Long::sum);
+        }
+        return porCapa;
+    }
+
+    private static boolean contiene(Tramo padre, Tramo hijo) {
+        return hijo.nivel() > padre.nivel()
+                && hijo.desdeNanos() >= padre.desdeNanos()
+                && hijo.desdeNanos() + hijo.duracionNanos() <= padre.desdeNanos() + padre.duracionNanos();
+    }
+
+    /**
+     * Detalle en varias líneas para el log de peticiones lentas
+     */
+    String detalle() {
+        StringBuilder texto = new StringBuilder()
+                .append(metodo).append(' ').append(ruta).append(" -> ").append(estado)
+                .append(" en ").append(milisegundos(duracionNanos)).append(" ms (");
+        tiempoPorCapa().forEach((capa, nanos) -> texto.append(capa).append(' ').append(milisegundos(nanos)).append(" ms, "));
+        texto.setLength(texto.length() - 2);
+        texto.append(')');
+        for (Tramo tramo : tramos) {
+            texto.append('\n').append("  ".repeat(tramo.nivel()))
+                    .append('+').append(milisegundos(tramo.desdeNanos())).append(" ms ")
+                    .append(tramo.capa()).append(' ').append(tramo.nombre())
+                    .append(": ").append(milisegundos(tramo.duracionNanos())).append(" ms");
+        }
+        if (omitidos > 0) {
+            texto.append("\n  (").append(omitidos).append(" tramos más sin detalle)");
+        }
+        return texto.toString();
+    }
+
+    private static String milisegundos(long nanos) {
+        return String.format("%.2f", nanos / 1_000_000.0);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getMetodo() {
+        return metodo;
+    }
+
+    public String getRuta() {
+        return ruta;
+    }
+
+    /**
+     * El controlador la reemplaza por el patrón de la ruta (p. ej. /productos/editar/{id})
+     */
+    void setRuta(String ruta) {
+        this.ruta = ruta;
+    }
+
+    public long getInicioMillis() {
+        return inicioMillis;
+    }
+
+    public int getEstado() {
+        return estado;
+    }
+
+    public long getDuracionNanos() {
+        return duracionNanos;
+    }
+
+    public int getOmitidos() {
+        return omitidos;
+    }
+
+    public List<Tramo> getTramos() {
+        return Collections.unmodifiableList(tramos);
+    }
+
+    /**
+     * Un tramo medido: desde el inicio de la petición, su duración y su nivel de anidamiento (1 = primer nivel)
+     */
+    public record Tramo(Capa capa, String nombre, long desdeNanos, long duracionNanos, int nivel) {
+    }
+}
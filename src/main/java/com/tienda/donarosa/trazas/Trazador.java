@@ -0,0 +1,88 @@
+package com.tienda.donarosa.trazas;
+
+import com.tienda.donarosa.sql.ObservadorSql;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Trazas de las peticiones, sin colector externo.
+ *
+ * Cada petición lleva su Traza en el hilo que la atiende (TrazasFilter) y cada
+ * capa le agrega sus tramos. Al terminar, una muestra de las trazas
+ * (tienda.trazas.muestreo) y todas las lentas se guardan en un buffer circular
+ * de tienda.trazas.capacidad entradas; las que superan tienda.trazas.umbral-lento
+ * además se escriben en el log con el detalle completo.
+ */
+public class Trazador implements ObservadorSql {
+
+    private static final Logger log = LoggerFactory.getLogger(Trazador.class);
+    private static final ThreadLocal<Traza> ACTUAL = new ThreadLocal<>();
+    private static final int LARGO_SQL = 200;
+
+    private final AtomicReferenceArray<Traza> recientes;
+    private final AtomicLong siguiente = new AtomicLong();
+    private final AtomicLong ids = new AtomicLong();
+    private final double muestreo;
+    private final long umbralLentoNanos;
+
+    public Trazador(int capacidad, double muestreo, Duration umbralLento) {
+        this.recientes = new AtomicReferenceArray<>(capacidad);
+        this.muestreo = muestreo;
+        this.umbralLentoNanos = umbralLento.toNanos();
+    }
+
+    /**
+     * Traza de la petición que atiende el hilo actual, o null si no hay
+     */
+    public static Traza actual() {
+        return ACTUAL.get();
+    }
+
+    public Traza iniciar(String metodo, String ruta) {
+        Traza traza = new Traza(ids.incrementAndGet(), metodo, ruta);
+        ACTUAL.set(traza);
+        return traza;
+    }
+
+    public void terminar(Traza traza, int estado) {
+        ACTUAL.remove();
+        traza.terminar(estado);
+        boolean lenta = traza.getDuracionNanos() >= umbralLentoNanos;
+        if (lenta) {
+            log.warn("Petición lenta: {}", traza.detalle());
+        }
+        if (lenta || ThreadLocalRandom.current().nextDouble() < muestreo) {
+            recientes.set((int) (siguiente.getAndIncrement() % recientes.length()), traza);
+        }
+    }
+
+    @Override
+    public void ejecutada(String sql, Object[] parametros, long desde, long duracion) {
+        Traza traza = ACTUAL.get();
+        if (traza != null) {
+            traza.registrar(Capa.SQL, sql.length() > LARGO_SQL ? sql.substring(0, LARGO_SQL) + "…" : sql, desde, duracion);
+        }
+    }
+
+    /**
+     * Trazas guardadas, de la más reciente a la más antigua, que tardaron al menos minimo
+     */
+    public List<Traza> recientes(int limite, Duration minimo) {
+        List<Traza> encontradas = new ArrayList<>();
+        long ultima = siguiente.get() - 1;
+        for (long i = ultima; i >= 0 && i > ultima - recientes.length() && encontradas.size() < limite; i--) {
+            Traza traza = recientes.get((int) (i % recientes.length()));
+            if (traza != null && traza.getDuracionNanos() >= minimo.toNanos()) {
+                encontradas.add(traza);
+            }
+        }
+        return encontradas;
+    }
+}
@@ -0,0 +1,29 @@
+package com.tienda.donarosa.trazas;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tramos de las llamadas a los servicios (clases @Service de la aplicación).
+ * Sin traza activa (tareas, hilos en segundo plano) solo delega.
+ */
+@Aspect
+@Component
+public class TrazasAspect {
+
+    @Around("within(com.tienda.donarosa..*) && @within(org.springframework.stereotype.Service)")
+    public Object medir(ProceedingJoinPoint llamada) throws Throwable {
+        Traza traza = Trazador.actual();
+        if (traza == null) {
+            return llamada.proceed();
+        }
+        long desde = traza.entrar();
+        try {
+            return llamada.proceed();
+        } finally {
+            traza.salir(Capa.SERVICIO, llamada.getTarget().getClass().getSimpleName() + "." + llamada.getSignature().getName(), desde);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.tienda.donarosa.trazas;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Abre la traza de cada petición antes que los demás filtros y la cierra al final.
+ * Los recursos estáticos no se trazan.
+ */
+public class TrazasFilter extends OncePerRequestFilter {
+
+    private static final String[] SIN_TRAZA = {"/css/", "/js/", "/images/", "/webjars/", "/h2-console", "/favicon.ico"};
+
+    private final Trazador trazador;
+
+    public TrazasFilter(Trazador trazador) {
+        this.trazador = trazador;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String ruta = request.getRequestURI().substring(request.getContextPath().length());
+        for (String prefijo : SIN_TRAZA) {
+            if (ruta.startsWith(prefijo)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Traza traza = trazador.iniciar(request.getMethod(), request.getRequestURI());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            trazador.terminar(traza, response.getStatus());
+        }
+    }
+}
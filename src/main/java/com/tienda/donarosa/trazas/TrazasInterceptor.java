@@ -0,0 +1,68 @@
+package com.tienda.donarosa.trazas;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+
+/**
+ * Tramos del controlador (preHandle a postHandle) y de la vista (postHandle al
+ * final, donde Thymeleaf renderiza la plantilla)
+ */
+public class TrazasInterceptor implements HandlerInterceptor {
+
+    private static final String CONTROLADOR = TrazasInterceptor.class.getName() + ".controlador";
+    private static final String VISTA = TrazasInterceptor.class.getName() + ".vista";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Traza traza = Trazador.actual();
+        if (traza != null) {
+            Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (patron != null) {
+                traza.setRuta(patron.toString());
+            }
+            request.setAttribute(CONTROLADOR, new Abierto(nombre(handler), traza.entrar()));
+        }
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler, ModelAndView vista) {
+        Traza traza = Trazador.actual();
+        if (traza != null && cerrar(request, CONTROLADOR, Capa.CONTROLADOR, traza) && vista != null && vista.getViewName() != null) {
+            request.setAttribute(VISTA, new Abierto(vista.getViewName(), traza.entrar()));
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Traza traza = Trazador.actual();
+        if (traza != null) {
+            // Si el controlador lanzó una excepción, postHandle no se llamó
+            cerrar(request, CONTROLADOR, Capa.CONTROLADOR, traza);
+            cerrar(request, VISTA, Capa.VISTA, traza);
+        }
+    }
+
+    private static boolean cerrar(HttpServletRequest request, String atributo, Capa capa, Traza traza) {
+        if (request.getAttribute(atributo) instanceof Abierto abierto) {
+            request.removeAttribute(atributo);
+            traza.salir(capa, abierto.nombre(), abierto.desde());
+            return true;
+        }
+        return false;
+    }
+
+    private static String nombre(Object handler) {
+        if (handler instanceof HandlerMethod metodo) {
+            return metodo.getBeanType().getSimpleName() + "." + metodo.getMethod().getName();
+        }
+        return handler.getClass().getSimpleName();
+    }
+
+    private record Abierto(String nombre, long desde) {
+    }
+}
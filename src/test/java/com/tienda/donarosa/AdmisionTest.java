@@ -0,0 +1,121 @@
+package com.tienda.donarosa;
+
+import com.tienda.donarosa.admision.AdmisionFilter;
+import com.tienda.donarosa.admision.ClaseEndpoint;
+import com.tienda.donarosa.admision.ControlAdmision;
+import com.tienda.donarosa.admision.LimiteAdaptativo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del control de admisión y del límite adaptativo
+ */
+@DisplayName("Pruebas del Control de Admisión")
+class AdmisionTest {
+
+    @Test
+    @DisplayName("Debe rechazar escrituras con 503 y Retry-After sin afectar a las lecturas")
+    void debeRechazarEscriturasSaturadas() throws Exception {
+        // Given
+        ControlAdmision control = new ControlAdmision(new LimiteAdaptativo(1, 1, 1, 2.0), new LimiteAdaptativo(1, 1, 1, 2.0));
+        AdmisionFilter filtro = new AdmisionFilter(control, 2);
+        assertTrue(control.limite(ClaseEndpoint.ESCRITURA).entrar());
+
+        // When
+        MockHttpServletResponse escritura = atender(filtro, "POST", "/productos/actualizar-cantidad/1");
+        MockHttpServletResponse eliminacion = atender(filtro, "GET", "/productos/eliminar/1");
+        MockHttpServletResponse api = atender(filtro, "POST", "/api/v1/productos");
+        MockHttpServletResponse lectura = atender(filtro, "GET", "/reportes/inventario");
+
+        // Then
+        assertEquals(503, escritura.getStatus());
+        assertEquals("2", escritura.getHeader("Retry-After"));
+        assertEquals(503, eliminacion.getStatus());
+        assertEquals(503, api.getStatus());
+        assertTrue(api.getContentType().startsWith("application/problem+json"));
+        assertEquals(200, lectura.getStatus());
+        assertEquals(3, control.limite(ClaseEndpoint.ESCRITURA).getRechazadas());
+        assertEquals(0, control.limite(ClaseEndpoint.LECTURA).getEnCurso());
+    }
+
+    @Test
+    @DisplayName("No debe limitar los recursos estáticos ni el login")
+    void noDebeLimitarRecursosEstaticos() throws Exception {
+        // Given
+        ControlAdmision control = new ControlAdmision(new LimiteAdaptativo(1, 1, 1, 2.0), new LimiteAdaptativo(1, 1, 1, 2.0));
+        AdmisionFilter filtro = new AdmisionFilter(control, 1);
+        control.limite(ClaseEndpoint.LECTURA).entrar();
+        control.limite(ClaseEndpoint.ESCRITURA).entrar();
+
+        // When & Then
+        assertEquals(200, atender(filtro, "GET", "/css/estilos.css").getStatus());
+        assertEquals(200, atender(filtro, "POST", "/login").getStatus());
+        assertEquals(503, atender(filtro, "GET", "/").getStatus());
+    }
+
+    @Test
+    @DisplayName("Debe subir el límite con latencia estable y bajarlo cuando la latencia crece")
+    void debeAjustarElLimiteSegunLaLatencia() {
+        // Given
+        LimiteAdaptativo limite = new LimiteAdaptativo(10, 2, 100, 2.0);
+
+        // When: carga que usa todo el límite con latencia estable
+        cargar(limite, Duration.ofMillis(2), 100);
+        int conLatenciaEstable = limite.getLimite();
+
+        // y después la latencia se multiplica por diez (se forma cola)
+        cargar(limite, Duration.ofMillis(20), 5);
+        int conCola = limite.getLimite();
+
+        // Then
+        assertTrue(conLatenciaEstable > 10, "El límite debería haber subido: " + conLatenciaEstable);
+        assertTrue(conCola < conLatenciaEstable / 2, "El límite debería haber bajado: " + conLatenciaEstable + " -> " + conCola);
+        assertTrue(conCola >= 2);
+    }
+
+    @Test
+    @DisplayName("No debe subir el límite si la carga no lo usa")
+    void noDebeSubirSinCarga() {
+        // Given
+        LimiteAdaptativo limite = new LimiteAdaptativo(10, 2, 100, 2.0);
+
+        // When: una petición a la vez
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(limite.entrar());
+            limite.salir(Duration.ofMillis(1).toNanos());
+        }
+
+        // Then
+        assertEquals(10, limite.getLimite());
+    }
+
+    /**
+     * Ocupa todo el límite y libera cada lugar con la latencia indicada, tantas rondas como se pida
+     */
+    private static void cargar(LimiteAdaptativo limite, Duration latencia, int rondas) {
+        for (int ronda = 0; ronda < rondas; ronda++) {
+            int lugares = limite.getLimite();
+            for (int i = 0; i < lugares; i++) {
+                assertTrue(limite.entrar());
+            }
+            assertFalse(limite.entrar());
+            for (int i = 0; i < lugares; i++) {
+                limite.salir(latencia.toNanos());
+            }
+        }
+    }
+
+    private static MockHttpServletResponse atender(AdmisionFilter filtro, String metodo, String ruta) throws Exception {
+        MockHttpServletRequest peticion = new MockHttpServletRequest(metodo, ruta);
+        MockHttpServletResponse respuesta = new MockHttpServletResponse();
+        filtro.doFilter(peticion, respuesta, new MockFilterChain());
+        return respuesta;
+    }
+}
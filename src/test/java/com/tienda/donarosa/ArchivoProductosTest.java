@@ -0,0 +1,148 @@
+package com.tienda.donarosa;
+
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.repository.ProductoRepository;
+import com.tienda.donarosa.service.ArchivoProductosService;
+import com.tienda.donarosa.service.ProductoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del archivo de productos agotados hace mucho
+ */
+@PruebaServicioProductos
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Pruebas del Archivo de Productos Agotados")
+class ArchivoProductosTest {
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ArchivoProductosService archivoProductos;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Producto turron;
+    private Producto chicles;
+    private Producto cocadas;
+
+    @BeforeEach
+    void setUp() {
+        limpiar();
+        // Agotado hace meses, agotado hoy y con existencias pero sin movimientos hace meses
+        turron = productoService.guardarProducto(new Producto("Turrón de Maní", new BigDecimal("800.00"), 0));
+        chicles = productoService.guardarProducto(new Producto("Chicles", new BigDecimal("300.00"), 0));
+        cocadas = productoService.guardarProducto(new Producto("Cocadas", new BigDecimal("1200.00"), 15));
+        jdbcTemplate.update("UPDATE productos SET agotado_desde = DATEADD(DAY, -120, CURRENT_TIMESTAMP) WHERE id = ?",
+                turron.getId());
+        jdbcTemplate.update("UPDATE movimientos SET fecha = DATEADD(DAY, -120, CURRENT_TIMESTAMP) WHERE producto_id = ?",
+                cocadas.getId());
+        // Cargar en el caché de segundo nivel el producto que se va a archivar
+        assertTrue(productoService.obtenerProductoPorId(turron.getId()).isPresent());
+    }
+
+    @AfterEach
+    void limpiar() {
+        // Las operaciones se confirman y la base se comparte con otras pruebas
+        for (String tabla : List.of("movimientos", "productos", "productos_archivados")) {
+            jdbcTemplate.update("DELETE FROM " + tabla);
+        }
+    }
+
+    @Test
+    @DisplayName("Debe mover a productos_archivados solo los agotados hace más de la antigüedad configurada")
+    void debeArchivarAgotadosViejos() {
+        // When
+        int archivados = archivoProductos.archivar(LocalDateTime.now());
+
+        // Then: productos guarda solo el inventario activo
+        assertEquals(1, archivados);
+        assertEquals(List.of(chicles.getId(), cocadas.getId()),
+                productoRepository.findAll().stream().map(Producto::getId).sorted().toList());
+        assertEquals(List.of(chicles.getId()),
+                productoService.obtenerProductosAgotados().stream().map(Producto::getId).toList());
+        assertFalse(productoService.obtenerProductoPorId(turron.getId()).isPresent());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM productos_archivados WHERE id = ?", Integer.class, turron.getId()));
+
+        // El archivo se consulta aparte, sin restaurar
+        assertEquals("Turrón de Maní", productoService.buscarProductosArchivados("maní", 10).get(0).getNombre());
+        assertFalse(productoService.obtenerProductoPorId(turron.getId()).isPresent());
+        // Una segunda pasada no encuentra más candidatos
+        assertEquals(0, archivoProductos.archivar(LocalDateTime.now()));
+    }
+
+    @Test
+    @DisplayName("Debe restaurar el producto archivado al reponerlo")
+    void debeRestaurarAlReponer() {
+        // Given
+        archivoProductos.archivar(LocalDateTime.now());
+
+        // When
+        assertFalse(productoService.registrarVenta(turron.getId(), 1));
+        boolean repuesto = productoService.actualizarCantidadProducto(turron.getId(), 24);
+
+        // Then: vuelve con su mismo ID y la reposición queda registrada
+        assertTrue(repuesto);
+        Producto restaurado = productoService.obtenerProductoPorId(turron.getId()).orElseThrow();
+        assertEquals(24, restaurado.getCantidad());
+        assertEquals(0, new BigDecimal("800.00").compareTo(restaurado.getPrecio()));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM productos_archivados", Integer.class));
+        assertEquals(24, jdbcTemplate.queryForObject(
+                "SELECT cantidad FROM movimientos WHERE producto_id = ? AND tipo = 'REPOSICION'", Integer.class,
+                turron.getId()));
+        assertEquals(1, productoService.buscarProductosPorNombre("turrón").size());
+    }
+
+    @Test
+    @DisplayName("Debe restaurar el producto archivado al buscarlo por su nombre exacto")
+    void debeRestaurarAlBuscarPorNombre() {
+        // Given
+        archivoProductos.archivar(LocalDateTime.now());
+
+        // When
+        boolean porParte = productoService.buscarProductosPorNombre("turr").isEmpty();
+        List<Producto> encontrados = productoService.buscarProductosPorNombre("turrón de maní");
+
+        // Then
+        assertTrue(porParte);
+        assertEquals(1, encontrados.size());
+        assertEquals(turron.getId(), encontrados.get(0).getId());
+        assertEquals(0, encontrados.get(0).getCantidad());
+        assertTrue(productoService.obtenerProductoPorId(turron.getId()).isPresent());
+        assertTrue(productoService.existeProductoConNombre("Turrón de Maní"));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM productos_archivados", Integer.class));
+    }
+
+    @Test
+    @DisplayName("Validar un nombre archivado no debe restaurar el producto")
+    void debeValidarNombreArchivadoSinRestaurarlo() {
+        // Given
+        archivoProductos.archivar(LocalDateTime.now());
+
+        // When
+        boolean existe = productoService.existeProductoConNombre("turrón de maní");
+
+        // Then
+        assertTrue(existe);
+        assertTrue(productoService.obtenerProductoPorId(turron.getId()).isEmpty());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM productos_archivados", Integer.class));
+    }
+}
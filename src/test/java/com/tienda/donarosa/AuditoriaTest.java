@@ -0,0 +1,159 @@
+package com.tienda.donarosa;
+
+import com.tienda.donarosa.auditoria.AccionAuditoria;
+import com.tienda.donarosa.auditoria.AuditoriaService;
+import com.tienda.donarosa.auditoria.BufferAuditoria;
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.model.RegistroAuditoria;
+import com.tienda.donarosa.repository.ProductoRepository;
+import com.tienda.donarosa.repository.RegistroAuditoriaRepository;
+import com.tienda.donarosa.service.ProductoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la auditoría asíncrona: el buffer sin bloqueos y la escritura
+ * en segundo plano en la tabla auditoria
+ */
+@PruebaServicioProductos
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Pruebas de la Auditoría")
+class AuditoriaTest {
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private AuditoriaService auditoriaService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private RegistroAuditoriaRepository registroAuditoriaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    @AfterEach
+    void setUp() {
+        productoRepository.deleteAll();
+        esperarBufferVacio();
+        registroAuditoriaRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("No debe perder ni repetir eventos con varios productores a la vez")
+    void noDebePerderEventosConVariosProductores() throws Exception {
+        // Given
+        BufferAuditoria buffer = new BufferAuditoria(1024, BufferAuditoria.PoliticaDesborde.ESPERAR,
+                Duration.ofSeconds(5).toNanos());
+        int productores = 4;
+        int porProductor = 5_000;
+        ExecutorService ejecutor = Executors.newFixedThreadPool(productores);
+        CountDownLatch inicio = new CountDownLatch(1);
+
+        // When
+        for (int p = 0; p < productores; p++) {
+            long base = (long) p * porProductor;
+            ejecutor.submit(() -> {
+                inicio.await();
+                for (int i = 0; i < porProductor; i++) {
+                    buffer.publicar(0, "prueba", "principal", AccionAuditoria.VENTA, base + i, null, null, null);
+                }
+                return null;
+            });
+        }
+        inicio.countDown();
+        Set<Long> recibidos = new HashSet<>();
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        while (recibidos.size() < productores * porProductor && System.nanoTime() < limite) {
+            buffer.drenar(evento -> assertTrue(recibidos.add(evento.getProductoId())), 256);
+        }
+        ejecutor.shutdown();
+
+        // Then
+        assertEquals(productores * porProductor, recibidos.size());
+        assertEquals(productores * porProductor, buffer.getPublicados());
+        assertEquals(0, buffer.getDescartados());
+        assertEquals(0, buffer.getPendientes());
+    }
+
+    @Test
+    @DisplayName("Debe descartar y contar los eventos cuando el buffer está lleno")
+    void debeDescartarEventosConBufferLleno() {
+        // Given
+        BufferAuditoria buffer = new BufferAuditoria(4, BufferAuditoria.PoliticaDesborde.DESCARTAR, 0);
+
+        // When
+        int aceptados = 0;
+        for (long i = 0; i < 6; i++) {
+            if (buffer.publicar(0, "prueba", "principal", AccionAuditoria.VENTA, i, null, null, null)) {
+                aceptados++;
+            }
+        }
+        int drenados = buffer.drenar(evento -> { }, 10);
+
+        // Then
+        assertEquals(4, aceptados);
+        assertEquals(4, drenados);
+        assertEquals(2, buffer.getDescartados());
+        assertTrue(buffer.publicar(0, "prueba", "principal", AccionAuditoria.VENTA, 7L, null, null, null));
+    }
+
+    @Test
+    @DisplayName("Debe escribir en la tabla los cambios confirmados y no los revertidos")
+    void debeEscribirSoloCambiosConfirmados() {
+        // Given
+        Producto peras = productoService.guardarProducto(new Producto("Peras", new BigDecimal("4000.00"), 20));
+        productoService.registrarVenta(peras.getId(), 3);
+
+        // When
+        new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+            auditoriaService.registrar(AccionAuditoria.EDITAR, peras.getId(), 17, 0, "revertido");
+            estado.setRollbackOnly();
+        });
+        esperarBufferVacio();
+
+        // Then
+        List<RegistroAuditoria> registros = auditoriaService.obtenerRecientes(peras.getId(), 10);
+        assertEquals(2, registros.size());
+        RegistroAuditoria venta = registros.get(0);
+        assertEquals("VENTA", venta.getAccion());
+        assertEquals(20, venta.getCantidadAnterior());
+        assertEquals(17, venta.getCantidadNueva());
+        assertEquals("principal", venta.getTiendaId());
+        assertEquals("sistema", venta.getUsuario());
+        assertEquals("CREAR", registros.get(1).getAccion());
+    }
+
+    private void esperarBufferVacio() {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        // Cada evento publicado termina escrito o fallido
+        while (auditoriaService.getEscritos() + auditoriaService.getFallidos() < auditoriaService.getBuffer().getPublicados()
+                && System.nanoTime() < limite) {
+            Thread.onSpinWait();
+        }
+        assertEquals(0, auditoriaService.getFallidos());
+    }
+}
@@ -0,0 +1,202 @@
+package com.tienda.donarosa;
+
+import com.tienda.donarosa.busqueda.AutocompletadoService;
+import com.tienda.donarosa.busqueda.TrieAutocompletado;
+import com.tienda.donarosa.dto.SugerenciaDTO;
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.repository.ProductoRepository;
+import com.tienda.donarosa.service.GeneradorCatalogo;
+import com.tienda.donarosa.service.ProductoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de las sugerencias del buscador (autocompletado por prefijo)
+ */
+@PruebaServicioProductos
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Pruebas del Autocompletado")
+class AutocompletadoTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AutocompletadoTest.class);
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private AutocompletadoService autocompletadoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @AfterEach
+    void limpiar() {
+        // Las operaciones se confirman y la base se comparte con otras pruebas
+        productoRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Debe sugerir por prefijo sin tildes, las mayores existencias primero")
+    void debeSugerirPorPrefijo() {
+        // Given
+        TrieAutocompletado arbol = new TrieAutocompletado(4);
+        arbol.agregar(1, "Peras", 65);
+        arbol.agregar(2, "Pera de Agua", 10);
+        arbol.agregar(3, "Perlas de Tapioca", 80);
+        arbol.agregar(4, "Piñas", 12);
+        arbol.agregar(5, "Uvas", 0);
+
+        // When & Then
+        assertEquals(List.of("Perlas de Tapioca", "Peras", "Piñas", "Pera de Agua"), nombres(arbol.sugerir("p", 10)));
+        assertEquals(List.of("Perlas de Tapioca", "Peras"), nombres(arbol.sugerir("PE", 2)));
+        assertEquals(List.of("Peras", "Pera de Agua"), nombres(arbol.sugerir("pera", 10)));
+        assertEquals(List.of("Pera de Agua"), nombres(arbol.sugerir("pera  d", 10)));
+        assertEquals(List.of("Piñas"), nombres(arbol.sugerir("pin", 10)));
+        assertTrue(arbol.sugerir("perx", 10).isEmpty());
+        assertTrue(arbol.sugerir("  ", 10).isEmpty());
+
+        // When
+        arbol.agregar(2, "Pera de Agua", 100);
+        arbol.agregar(3, "Tapioca", 80);
+        arbol.quitar(1);
+
+        // Then
+        assertEquals(List.of("Pera de Agua", "Piñas"), nombres(arbol.sugerir("p", 10)));
+        assertEquals(List.of("Tapioca"), nombres(arbol.sugerir("t", 10)));
+        assertEquals(4, arbol.tamano());
+    }
+
+    @Test
+    @DisplayName("Debe coincidir con una búsqueda por fuerza bruta tras muchos cambios")
+    void debeCoincidirConFuerzaBruta() {
+        // Given
+        SplittableRandom aleatorio = new SplittableRandom(7);
+        String[] palabras = {"pera", "peras", "piña", "pan", "panela", "papa", "papas fritas", "limón", "lima", "l"};
+        TrieAutocompletado arbol = new TrieAutocompletado(16);
+        Map<Long, String> nombres = new HashMap<>();
+        Map<Long, Integer> cantidades = new HashMap<>();
+
+        // When
+        for (int i = 0; i < 20_000; i++) {
+            long id = 1 + aleatorio.nextInt(300);
+            if (aleatorio.nextInt(5) == 0) {
+                arbol.quitar(id);
+                nombres.remove(id);
+                cantidades.remove(id);
+            } else {
+                String nombre = palabras[aleatorio.nextInt(palabras.length)] + " " + palabras[aleatorio.nextInt(palabras.length)];
+                int cantidad = aleatorio.nextInt(1_000);
+                arbol.agregar(id, nombre, cantidad);
+                nombres.put(id, nombre);
+                cantidades.put(id, cantidad);
+            }
+
+            // Then
+            if (i % 500 == 0) {
+                for (String prefijo : List.of("p", "pe", "pera p", "pan", "l", "lim", "piña l")) {
+                    List<Integer> esperadas = nombres.keySet().stream()
+                            .filter(otro -> normalizar(nombres.get(otro)).startsWith(normalizar(prefijo)))
+                            .map(cantidades::get)
+                            .sorted(Comparator.reverseOrder())
+                            .limit(10)
+                            .toList();
+                    List<SugerenciaDTO> sugeridas = arbol.sugerir(prefijo, 10);
+                    assertEquals(esperadas, sugeridas.stream().map(SugerenciaDTO::getCantidad).toList(), prefijo);
+                    sugeridas.forEach(sugerencia -> assertEquals(nombres.get(sugerencia.getId()), sugerencia.getNombre()));
+                }
+                assertEquals(nombres.size(), arbol.tamano());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Debe seguir las altas, ventas, cambios de nombre y bajas del servicio de productos")
+    void debeSeguirLosCambiosDelServicio() {
+        // Given
+        productoRepository.deleteAll();
+        Producto peras = productoService.guardarProducto(new Producto("Peras", new BigDecimal("4000.00"), 65));
+        Producto pina = productoService.guardarProducto(new Producto("Piñas", new BigDecimal("3000.00"), 30));
+        assertEquals(List.of("Peras", "Piñas"), nombres(autocompletadoService.sugerir("p", 10)));
+
+        // When
+        productoService.registrarVenta(peras.getId(), 60);
+        Producto papas = productoService.guardarProducto(new Producto("Papas", new BigDecimal("2000.00"), 20));
+
+        // Then
+        assertEquals(List.of("Piñas", "Papas", "Peras"), nombres(autocompletadoService.sugerir("p", 10)));
+
+        // When
+        pina.setNombre("Ananás");
+        productoService.actualizarProducto(pina);
+        productoService.eliminarProducto(papas.getId());
+
+        // Then
+        assertEquals(List.of("Peras"), nombres(autocompletadoService.sugerir("p", 10)));
+        assertEquals(List.of("Ananás"), nombres(autocompletadoService.sugerir("anan", 10)));
+    }
+
+    @Test
+    @DisplayName("Debe sugerir en pocos milisegundos con un millón de productos")
+    @Tag("rendimiento")
+    void debeSugerirEnUnMillonDeProductosRapido() {
+        // Given
+        int total = 1_000_000;
+        GeneradorCatalogo generador = new GeneradorCatalogo(42, 0.05, 0.10);
+        TrieAutocompletado arbol = new TrieAutocompletado(total);
+        for (int id = 1; id <= total; id++) {
+            Producto producto = generador.siguiente();
+            arbol.agregar(id, producto.getNombre(), producto.getCantidad());
+        }
+        String[] prefijos = {"p", "pe", "pin", "lim", "a", "ca", "cafe d", "choc", "galletas co", "le", "jabon", "refresco de g"};
+        for (int i = 0; i < 2_000; i++) {
+            arbol.sugerir(prefijos[i % prefijos.length], 10);
+        }
+
+        // When
+        int repeticiones = 1_200;
+        long[] tiempos = new long[repeticiones];
+        for (int i = 0; i < repeticiones; i++) {
+            long inicio = System.nanoTime();
+            List<SugerenciaDTO> sugerencias = arbol.sugerir(prefijos[i % prefijos.length], 10);
+            tiempos[i] = System.nanoTime() - inicio;
+            assertEquals(10, sugerencias.size(), prefijos[i % prefijos.length]);
+        }
+
+        // Then
+        Arrays.sort(tiempos);
+        double p50 = tiempos[repeticiones / 2] / 1e6;
+        double p99 = tiempos[repeticiones * 99 / 100] / 1e6;
+        log.info("Autocompletado en {} productos: p50 {} ms, p99 {} ms", total, String.format("%.3f", p50),
+                String.format("%.3f", p99));
+        assertEquals(total, arbol.tamano());
+        assertTrue(p99 < 20, "El p99 de las sugerencias fue " + p99 + " ms");
+    }
+
+    private static List<String> nombres(List<SugerenciaDTO> sugerencias) {
+        return sugerencias.stream().map(SugerenciaDTO::getNombre).toList();
+    }
+
+    private static String normalizar(String texto) {
+        return Normalizer.normalize(texto, Normalizer.Form.NFD).replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+    }
+}
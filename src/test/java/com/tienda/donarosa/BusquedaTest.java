@@ -0,0 +1,140 @@
+package com.tienda.donarosa;
+
+import com.tienda.donarosa.busqueda.IndiceBusqueda;
+import com.tienda.donarosa.busqueda.TextoBusqueda;
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.repository.ProductoRepository;
+import com.tienda.donarosa.service.GeneradorCatalogo;
+import com.tienda.donarosa.service.ProductoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la búsqueda de productos por nombre
+ */
+@PruebaServicioProductos
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Pruebas de la Búsqueda de Productos")
+class BusquedaTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BusquedaTest.class);
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @BeforeEach
+    void setUp() {
+        productoRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Debe reducir los nombres a términos sin tildes, plurales ni palabras vacías")
+    void debeReducirNombresATerminos() {
+        // When & Then
+        assertEquals(List.of("pin", "don", "ros", "500"), TextoBusqueda.terminos("Piñas de Doña Rosa x 500 g #123456"));
+        assertEquals(TextoBusqueda.terminos("limón"), TextoBusqueda.terminos("LIMONES"));
+        assertEquals(TextoBusqueda.terminos("lápiz"), TextoBusqueda.terminos("lapices"));
+        assertEquals(TextoBusqueda.terminos("dulce"), TextoBusqueda.terminos("Dulces"));
+        assertTrue(TextoBusqueda.terminos("  de la  ").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Debe encontrar sin tildes, en singular y con errores de escritura")
+    void debeEncontrarSinTildesNiPlurales() {
+        // Given
+        productoService.guardarProducto(new Producto("Piñas", new BigDecimal("3000.00"), 10));
+        productoService.guardarProducto(new Producto("Limones", new BigDecimal("1500.00"), 25));
+        productoService.guardarProducto(new Producto("Jabón de Coco", new BigDecimal("4200.00"), 8));
+        productoService.guardarProducto(new Producto("Manzanas Verdes", new BigDecimal("5000.00"), 30));
+
+        // When & Then
+        assertEquals(List.of("Piñas"), nombres("pinas"));
+        assertEquals(List.of("Limones"), nombres("limon"));
+        assertEquals(List.of("Jabón de Coco"), nombres("JABON coco"));
+        assertEquals(List.of("Limones"), nombres("limnes"));
+        assertEquals(List.of("Manzanas Verdes"), nombres("manzanaz verde"));
+        assertEquals(List.of("Manzanas Verdes"), nombres("verde manzana"));
+        // Un pedazo de palabra sigue encontrándose por contenido
+        assertEquals(List.of("Manzanas Verdes"), nombres("anzan"));
+        assertTrue(nombres("jabón de limón").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Debe ordenar por relevancia y seguir los cambios del servicio de productos")
+    void debeOrdenarYSeguirLosCambios() {
+        // Given
+        Producto conCrema = productoService.guardarProducto(new Producto("Fresas con Crema", new BigDecimal("6000.00"), 10));
+        productoService.guardarProducto(new Producto("Fresas", new BigDecimal("4000.00"), 65));
+        productoService.guardarProducto(new Producto("Bebida Fresca", new BigDecimal("3000.00"), 5));
+        Producto uvas = productoService.guardarProducto(new Producto("Uvas", new BigDecimal("2500.00"), 0));
+
+        // When & Then: exactas primero y el nombre más corto antes; "fresca" solo por parecido
+        assertEquals(List.of("Fresas", "Fresas con Crema", "Bebida Fresca"), nombres("fresa"));
+
+        // When
+        uvas.setNombre("Uvas Pasas");
+        productoService.actualizarProducto(uvas);
+        productoService.eliminarProducto(conCrema.getId());
+
+        // Then
+        assertEquals(List.of("Uvas Pasas"), nombres("pasas"));
+        assertEquals(List.of("Fresas", "Bebida Fresca"), nombres("fresa"));
+    }
+
+    @Test
+    @DisplayName("Debe responder en pocos milisegundos con un millón de productos")
+    @Tag("rendimiento")
+    void debeBuscarEnUnMillonDeProductosRapido() {
+        // Given
+        int total = 1_000_000;
+        GeneradorCatalogo generador = new GeneradorCatalogo(42, 0.05, 0.10);
+        IndiceBusqueda indice = new IndiceBusqueda(total);
+        for (int id = 1; id <= total; id++) {
+            indice.agregar(id, generador.siguiente().getNombre());
+        }
+        String[] consultas = {"pinas", "limon", "cafe doña rosa", "arroz 500", "chocolate alpina", "papas frtias",
+                "jabon", "leche", "refresco guanabana", "te frio", "manzana organica", "galletas colombina mini"};
+        for (int i = 0; i < 2_000; i++) {
+            indice.buscar(consultas[i % consultas.length], 50);
+        }
+
+        // When
+        int repeticiones = 1_200;
+        long[] tiempos = new long[repeticiones];
+        for (int i = 0; i < repeticiones; i++) {
+            long inicio = System.nanoTime();
+            long[] ids = indice.buscar(consultas[i % consultas.length], 50);
+            tiempos[i] = System.nanoTime() - inicio;
+            assertEquals(50, ids.length, consultas[i % consultas.length]);
+        }
+
+        // Then
+        Arrays.sort(tiempos);
+        double p50 = tiempos[repeticiones / 2] / 1e6;
+        double p99 = tiempos[repeticiones * 99 / 100] / 1e6;
+        log.info("Búsqueda en {} productos: p50 {} ms, p99 {} ms", total, String.format("%.2f", p50),
+                String.format("%.2f", p99));
+        assertEquals(total, indice.tamano());
+        assertTrue(p99 < 50, "El p99 de la búsqueda fue " + p99 + " ms");
+    }
+
+    private List<String> nombres(String texto) {
+        return productoService.buscarProductosPorNombre(texto).stream().map(Producto::getNombre).toList();
+    }
+}
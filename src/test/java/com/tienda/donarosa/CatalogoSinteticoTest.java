@@ -0,0 +1,119 @@
+package com.tienda.donarosa;
+
+import com.tienda.donarosa.busqueda.AutocompletadoService;
+import com.tienda.donarosa.busqueda.BusquedaService;
+import com.tienda.donarosa.dto.ResumenInventarioDTO;
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import com.tienda.donarosa.service.CatalogoSinteticoService;
+import com.tienda.donarosa.service.GeneradorCatalogo;
+import com.tienda.donarosa.service.HistorialPreciosService;
+import com.tienda.donarosa.service.InventarioColumnarService;
+import com.tienda.donarosa.service.LecturasCompartidas;
+import com.tienda.donarosa.service.ResumenCategoriasService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del generador de catálogos sintéticos para pruebas de rendimiento
+ */
+@DataJpaTest
+@Import({CatalogoSinteticoService.class, InventarioColumnarService.class, LecturasCompartidas.class,
+        BusquedaService.class, AutocompletadoService.class, ResumenCategoriasService.class,
+        HistorialPreciosService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Pruebas del Catálogo Sintético")
+class CatalogoSinteticoTest {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogoSinteticoTest.class);
+
+    private static final String TIENDA = "sintetica";
+
+    @Autowired
+    private CatalogoSinteticoService catalogoSinteticoService;
+
+    @Autowired
+    private InventarioColumnarService inventarioColumnarService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM movimientos WHERE tienda_id = ?", TIENDA);
+        jdbcTemplate.update("DELETE FROM productos WHERE tienda_id = ?", TIENDA);
+    }
+
+    @Test
+    @DisplayName("Debe generar el mismo catálogo con la misma semilla y respetar las proporciones")
+    void debeSerReproducibleYRespetarProporciones() {
+        // Given
+        GeneradorCatalogo primero = new GeneradorCatalogo(7, 0.05, 0.10);
+        GeneradorCatalogo segundo = new GeneradorCatalogo(7, 0.05, 0.10);
+        int total = 20_000;
+
+        // When
+        int agotados = 0;
+        int cercaDeAgotarse = 0;
+        Set<String> nombres = new HashSet<>();
+        for (int i = 0; i < total; i++) {
+            Producto producto = primero.siguiente();
+            Producto otro = segundo.siguiente();
+            assertEquals(producto.getNombre(), otro.getNombre());
+            assertEquals(producto.getPrecio(), otro.getPrecio());
+            assertEquals(producto.getCantidad(), otro.getCantidad());
+
+            assertTrue(producto.getPrecio().signum() > 0);
+            assertTrue(producto.getCantidad() <= producto.getCantidadInicial());
+            nombres.add(producto.getNombre());
+            agotados += producto.getCantidad() == 0 ? 1 : 0;
+            cercaDeAgotarse += producto.estaCercaDeAgotarse() ? 1 : 0;
+        }
+
+        // Then
+        assertEquals(total, nombres.size());
+        assertEquals(0.05, (double) agotados / total, 0.01);
+        assertEquals(0.15, (double) cercaDeAgotarse / total, 0.01);
+    }
+
+    @Test
+    @DisplayName("Debe insertar el catálogo por lotes con sus movimientos de alta")
+    void debeInsertarCatalogoConMovimientos() {
+        // Given
+        int total = 10_000;
+
+        // When
+        long inicio = System.nanoTime();
+        int insertados = TiendaContexto.ejecutarComo(TIENDA, () -> catalogoSinteticoService.generar(total, 42));
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+        log.info("Catálogo sintético de {} productos insertado en {} ms", total, ms);
+
+        // Then
+        assertEquals(total, insertados);
+        assertEquals(total, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM productos WHERE tienda_id = ?", Integer.class, TIENDA));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM productos p WHERE p.tienda_id = ? AND p.cantidad <> " +
+                "(SELECT COALESCE(SUM(m.cantidad), 0) FROM movimientos m WHERE m.tienda_id = p.tienda_id AND m.producto_id = p.id)",
+                Integer.class, TIENDA));
+
+        ResumenInventarioDTO resumen = TiendaContexto.ejecutarComo(TIENDA, () -> inventarioColumnarService.obtenerResumen());
+        assertEquals(total, resumen.getProductos());
+        assertEquals(0.05, (double) resumen.getAgotados() / total, 0.015);
+        assertEquals(0.15, (double) resumen.getCercaDeAgotarse() / total, 0.015);
+    }
+}
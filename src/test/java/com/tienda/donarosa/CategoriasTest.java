@@ -0,0 +1,136 @@
+package com.tienda.donarosa;
+
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.model.ResumenCategoria;
+import com.tienda.donarosa.service.ArchivoProductosService;
+import com.tienda.donarosa.service.ProductoService;
+import com.tienda.donarosa.service.ResumenCategoriasService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del resumen por categorías: lo mantenido con cada escritura debe
+ * coincidir con recalcularlo desde productos
+ */
+@PruebaServicioProductos
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Pruebas del Resumen por Categorías")
+class CategoriasTest {
+
+    // Las filas que quedaron en cero (categorías vaciadas) no cuentan; reconstruir no las crea
+    private static final String RESUMEN = "SELECT categoria || ':' || productos || ':' || unidades || ':' || valor " +
+            "|| ':' || agotados || ':' || cerca_de_agotarse FROM resumen_categorias WHERE productos <> 0 " +
+            "OR unidades <> 0 OR valor <> 0 OR agotados <> 0 OR cerca_de_agotarse <> 0 ORDER BY categoria";
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ResumenCategoriasService resumenCategorias;
+
+    @Autowired
+    private ArchivoProductosService archivoProductos;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Producto fresas;
+    private Producto frunas;
+    private Producto arroz;
+
+    @BeforeEach
+    void setUp() {
+        limpiar();
+        fresas = productoService.guardarProducto(new Producto("Fresas", "Frutas", new BigDecimal("3500.00"), 40));
+        frunas = productoService.guardarProducto(new Producto("Frunas", "dulces", new BigDecimal("200.00"), 100));
+        arroz = productoService.guardarProducto(new Producto("Arroz", " ", new BigDecimal("2800.50"), 30));
+    }
+
+    @AfterEach
+    void limpiar() {
+        // Las operaciones se confirman y la base se comparte con otras pruebas
+        for (String tabla : List.of("movimientos", "productos", "productos_archivados", "resumen_categorias")) {
+            jdbcTemplate.update("DELETE FROM " + tabla);
+        }
+    }
+
+    @Test
+    @DisplayName("Debe normalizar la categoría y sumar cada alta a su categoría")
+    void debeSumarAltasPorCategoria() {
+        // When
+        List<ResumenCategoria> resumen = resumenCategorias.obtenerResumen();
+
+        // Then
+        assertEquals("frutas", fresas.getCategoria());
+        assertEquals(Producto.CATEGORIA_GENERAL, arroz.getCategoria());
+        assertEquals(List.of("dulces", "frutas", "general"),
+                resumen.stream().map(ResumenCategoria::getCategoria).toList());
+        ResumenCategoria frutas = resumen.get(1);
+        assertEquals(1L, frutas.getProductos());
+        assertEquals(40L, frutas.getUnidades());
+        assertEquals(0, new BigDecimal("140000.00").compareTo(frutas.getValor()));
+        assertEquals(0, new BigDecimal("84015.00").compareTo(resumen.get(2).getValor()));
+    }
+
+    @Test
+    @DisplayName("Los totales mantenidos con cada escritura deben coincidir con reconstruirlos")
+    void debeCoincidirConReconstruir() {
+        // Given: ventas, agotamiento, edición con cambio de categoría, baja y archivo
+        productoService.registrarVenta(fresas.getId(), 36);   // queda cerca de agotarse
+        productoService.registrarVenta(frunas.getId(), 100);  // agotado
+        productoService.actualizarCantidadProducto(arroz.getId(), 12);
+        Producto chocolates = productoService.guardarProducto(
+                new Producto("Chocolates", "dulces", new BigDecimal("1200.00"), 50));
+        Producto edicion = new Producto("Chocolatinas", "golosinas", new BigDecimal("1500.00"), 45);
+        edicion.setId(chocolates.getId());
+        productoService.actualizarProducto(edicion);
+        Producto turron = productoService.guardarProducto(new Producto("Turrón", "dulces", new BigDecimal("800.00"), 5));
+        productoService.eliminarProducto(turron.getId());
+        jdbcTemplate.update("UPDATE productos SET agotado_desde = DATEADD(DAY, -120, CURRENT_TIMESTAMP) WHERE id = ?",
+                frunas.getId());
+        assertEquals(1, archivoProductos.archivar(LocalDateTime.now()));
+        List<String> mantenido = jdbcTemplate.queryForList(RESUMEN, String.class);
+
+        // When
+        resumenCategorias.reconstruir();
+
+        // Then
+        assertEquals(jdbcTemplate.queryForList(RESUMEN, String.class), mantenido);
+        assertEquals(List.of("frutas:1:4:14000.00:0:1", "general:1:12:33606.00:0:0", "golosinas:1:45:67500.00:0:0"),
+                mantenido);
+    }
+
+    @Test
+    @DisplayName("Una transacción revertida no debe tocar el resumen")
+    void debeIgnorarTransaccionRevertida() {
+        // Given
+        List<String> antes = jdbcTemplate.queryForList(RESUMEN, String.class);
+
+        // When
+        new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+            productoService.registrarVenta(fresas.getId(), 40);
+            estado.setRollbackOnly();
+        });
+
+        // Then
+        assertEquals(antes, jdbcTemplate.queryForList(RESUMEN, String.class));
+        assertEquals(40, productoService.obtenerProductoPorId(fresas.getId()).orElseThrow().getCantidad());
+    }
+}
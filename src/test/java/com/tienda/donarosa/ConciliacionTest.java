@@ -0,0 +1,207 @@
+package com.tienda.donarosa;
+
+import com.tienda.donarosa.dto.ConciliacionDTO;
+import com.tienda.donarosa.model.DiferenciaConciliacion;
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.model.TipoDiferencia;
+import com.tienda.donarosa.repository.ConciliacionRepository;
+import com.tienda.donarosa.repository.ConciliacionTramoRepository;
+import com.tienda.donarosa.repository.DiferenciaConciliacionRepository;
+import com.tienda.donarosa.service.ConciliacionService;
+import com.tienda.donarosa.service.ProductoService;
+import com.tienda.donarosa.service.ResumenCategoriasService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la conciliación de inventario por tramos
+ */
+@PruebaServicioProductos
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Pruebas de la Conciliación de Inventario")
+class ConciliacionTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ConciliacionTest.class);
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ResumenCategoriasService resumenCategorias;
+
+    @Autowired
+    private ConciliacionRepository conciliacionRepository;
+
+    @Autowired
+    private ConciliacionTramoRepository tramoRepository;
+
+    @Autowired
+    private DiferenciaConciliacionRepository diferenciaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    @AfterEach
+    void limpiar() {
+        // Las operaciones se confirman y la base se comparte con otras pruebas
+        for (String tabla : List.of("conciliacion_diferencias", "conciliacion_tramos", "conciliaciones", "movimientos",
+                "historial_precios", "productos", "productos_archivados", "resumen_categorias", "ventas_diarias",
+                "ventas_semanales")) {
+            jdbcTemplate.update("DELETE FROM " + tabla);
+        }
+    }
+
+    @Test
+    @DisplayName("Debe encontrar cada tipo de diferencia revisando tramos en paralelo")
+    void debeEncontrarDiferencias() {
+        // Given: 40 productos con ventas y una baja, conciliados sin diferencias
+        List<Producto> productos = crearProductos(40);
+        productoService.registrarVenta(productos.get(3).getId(), 4);
+        productoService.actualizarCantidadProducto(productos.get(7).getId(), 25);
+        productoService.eliminarProducto(productos.get(11).getId());
+        ConciliacionService conciliacion = servicio(4, 8, 3, Duration.ofMinutes(1));
+        ConciliacionDTO limpia = conciliacion.conciliar();
+        assertEquals(0, limpia.getDiferencias());
+        assertEquals(0L, limpia.getDiferenciaUnidades());
+        assertEquals(0L, limpia.getCategoriasConDiferencias());
+        assertEquals(0, limpia.getDiferenciaValor().signum());
+
+        // When: escrituras por fuera de la aplicación
+        Long existencias = productos.get(20).getId();
+        Long sinMovimientos = productos.get(30).getId();
+        Long cantidadInicial = productos.get(39).getId();
+        jdbcTemplate.update("UPDATE productos SET cantidad = cantidad + 5 WHERE id = ?", existencias);
+        jdbcTemplate.update("DELETE FROM movimientos WHERE producto_id = ?", sinMovimientos);
+        jdbcTemplate.update("UPDATE productos SET cantidad_inicial = NULL WHERE id = ?", cantidadInicial);
+        ConciliacionDTO reporte = conciliacion.conciliar();
+
+        // Then
+        assertNotEquals(limpia.getId(), reporte.getId());
+        assertTrue(reporte.isTerminada());
+        assertEquals(8, reporte.getTramos());
+        assertEquals(40, reporte.getProductos());
+        assertEquals(1, reporte.getExistencias());
+        assertEquals(1, reporte.getSinMovimientos());
+        assertEquals(1, reporte.getCantidadesIniciales());
+        assertEquals(List.of(existencias, sinMovimientos, cantidadInicial),
+                reporte.getDetalle().stream().map(DiferenciaConciliacion::getProductoId).toList());
+        assertEquals(TipoDiferencia.EXISTENCIAS, reporte.getDetalle().get(0).getTipo());
+        assertEquals(35L, reporte.getDetalle().get(0).getEsperado());
+        assertEquals(30L, reporte.getDetalle().get(0).getEncontrado());
+        // Lo escrito por SQL no pasó por el resumen por categorías
+        assertEquals(1L, reporte.getCategoriasConDiferencias());
+        assertEquals(-5L, reporte.getDiferenciaUnidades());
+        assertEquals(0, new BigDecimal("-5000.00").compareTo(reporte.getDiferenciaValor()));
+        assertEquals(reporte.getId(), conciliacion.obtenerUltima().orElseThrow().getId());
+    }
+
+    @Test
+    @DisplayName("Debe retomar una corrida cortada desde el último lote confirmado")
+    void debeRetomarCorrida() {
+        // Given: una corrida que se corta después del primer lote de 3
+        List<Producto> productos = crearProductos(10);
+        ConciliacionDTO cortada = servicio(1, 1, 3, Duration.ZERO).conciliar();
+        assertFalse(cortada.isTerminada());
+        assertEquals(3, cortada.getProductos());
+        assertEquals(1, cortada.getTramosPendientes());
+
+        // When: cambia un producto ya revisado y uno pendiente, y se retoma
+        jdbcTemplate.update("UPDATE productos SET cantidad = cantidad + 1 WHERE id IN (?, ?)",
+                productos.get(0).getId(), productos.get(8).getId());
+        ConciliacionDTO retomada = servicio(1, 1, 3, Duration.ofMinutes(1)).conciliar();
+
+        // Then: la misma corrida, sin volver a revisar ni contar lo confirmado
+        assertEquals(cortada.getId(), retomada.getId());
+        assertTrue(retomada.isTerminada());
+        assertEquals(10, retomada.getProductos());
+        assertEquals(1, retomada.getExistencias());
+        assertEquals(productos.get(8).getId(), retomada.getDetalle().get(0).getProductoId());
+    }
+
+    @Test
+    @DisplayName("No debe ver diferencias en el resumen por ventas hechas durante la corrida")
+    void debeCompararResumenEnUnaSolaLectura() {
+        // Given: una corrida cortada después de revisar el primer lote
+        List<Producto> productos = crearProductos(10);
+        ConciliacionDTO cortada = servicio(1, 1, 3, Duration.ZERO).conciliar();
+        assertFalse(cortada.isTerminada());
+
+        // When: se vende un producto ya revisado y uno pendiente, y se retoma
+        productoService.registrarVenta(productos.get(0).getId(), 4);
+        productoService.registrarVenta(productos.get(8).getId(), 2);
+        ConciliacionDTO reporte = servicio(1, 1, 3, Duration.ofMinutes(1)).conciliar();
+
+        // Then: la suma de los lotes tiene el primero antes de su venta (300 - 2),
+        // pero productos y resumen leídos juntos cuadran
+        assertTrue(reporte.isTerminada());
+        assertEquals(0, reporte.getDiferencias());
+        assertEquals(298L, reporte.getUnidades());
+        assertEquals(0L, reporte.getCategoriasConDiferencias());
+        assertEquals(0L, reporte.getDiferenciaUnidades());
+        assertEquals(0, reporte.getDiferenciaValor().signum());
+    }
+
+    @Test
+    @DisplayName("Debe conciliar 100 mil productos por lotes con uno y cuatro hilos")
+    @Tag("rendimiento")
+    void debeConciliarCatalogoGrande() {
+        // Given
+        jdbcTemplate.update("INSERT INTO productos (tienda_id, nombre, categoria, precio, cantidad, cantidad_inicial) " +
+                "SELECT 'principal', 'Producto ' || X, 'general', 1000.00, 10, 10 FROM SYSTEM_RANGE(1, 100000)");
+        jdbcTemplate.update("INSERT INTO movimientos (tienda_id, producto_id, tipo, cantidad, precio_unitario, fecha) " +
+                "SELECT tienda_id, id, 'ALTA', 10, 1000.00, LOCALTIMESTAMP FROM productos");
+        resumenCategorias.reconstruir();
+
+        for (int hilos : new int[]{1, 4}) {
+            // When
+            long inicio = System.nanoTime();
+            ConciliacionDTO reporte = servicio(hilos, 16, 1000, Duration.ofMinutes(5)).conciliar();
+            long ms = (System.nanoTime() - inicio) / 1_000_000;
+            log.info("Conciliación de 100000 productos con {} hilos: {} ms", hilos, ms);
+
+            // Then
+            assertTrue(reporte.isTerminada());
+            assertEquals(100_000, reporte.getProductos());
+            assertEquals(0, reporte.getDiferencias());
+            assertEquals(0, reporte.getDiferenciaValor().signum());
+            assertEquals(0, new BigDecimal("1000000000.00").compareTo(reporte.getValor()));
+        }
+    }
+
+    private List<Producto> crearProductos(int cuantos) {
+        List<Producto> productos = new ArrayList<>();
+        for (int i = 0; i < cuantos; i++) {
+            productos.add(productoService.guardarProducto(
+                    new Producto("Conciliado " + i, new BigDecimal("1000.00"), 30)));
+        }
+        return productos;
+    }
+
+    private ConciliacionService servicio(int hilos, int particiones, int lote, Duration duracionMaxima) {
+        return new ConciliacionService(jdbcTemplate, transactionManager, conciliacionRepository, tramoRepository,
+                diferenciaRepository, Optional.empty(), hilos, particiones, lote, 1.0, Duration.ZERO,
+                duracionMaxima, 100);
+    }
+}
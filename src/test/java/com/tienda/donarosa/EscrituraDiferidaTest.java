@@ -0,0 +1,284 @@
+package com.tienda.donarosa;
+
+import com.tienda.donarosa.auditoria.AuditoriaService;
+import com.tienda.donarosa.busqueda.AutocompletadoService;
+import com.tienda.donarosa.existencias.EscrituraDiferidaService;
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.repository.ProductoRepository;
+import com.tienda.donarosa.service.ArchivoProductosService;
+import com.tienda.donarosa.service.InventarioColumnarService;
+import com.tienda.donarosa.service.LecturasCompartidas;
+import com.tienda.donarosa.service.MovimientoService;
+import com.tienda.donarosa.service.ProductoService;
+import com.tienda.donarosa.service.ResumenCategoriasService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la escritura diferida de existencias.
+ * El intervalo es largo para que solo se apliquen los cambios al llamar a vaciar().
+ */
+@PruebaServicioProductos
+@TestPropertySource(properties = {
+        "tienda.existencias.escritura-diferida=true",
+        "tienda.existencias.intervalo=1h",
+        "tienda.existencias.diario=target/pruebas/existencias.diario"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Pruebas de la Escritura Diferida de Existencias")
+class EscrituraDiferidaTest {
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private EscrituraDiferidaService escrituraDiferida;
+
+    @Autowired
+    private MovimientoService movimientoService;
+
+    @Autowired
+    private AuditoriaService auditoriaService;
+
+    @Autowired
+    private InventarioColumnarService inventarioColumnarService;
+
+    @Autowired
+    private AutocompletadoService autocompletadoService;
+
+    @Autowired
+    private LecturasCompartidas lecturasCompartidas;
+
+    @Autowired
+    private ArchivoProductosService archivoProductos;
+
+    @Autowired
+    private ResumenCategoriasService resumenCategorias;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    @AfterEach
+    void setUp() {
+        escrituraDiferida.vaciar();
+        productoRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Debe aplicar muchas ventas de un producto en una sola escritura")
+    void debeAgruparVentasEnUnaEscritura() {
+        // Given
+        Long id = productoRepository.save(new Producto("Galletas", new BigDecimal("1500.00"), 100)).getId();
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            assertTrue(productoService.registrarVenta(id, 1));
+        }
+        assertTrue(productoService.actualizarCantidadProducto(id, 70));
+        int cantidadAntesDeAplicar = cantidad(id);
+        escrituraDiferida.vaciar();
+
+        // Then
+        assertEquals(100, cantidadAntesDeAplicar);
+        assertEquals(70, cantidad(id));
+        assertEquals(0, escrituraDiferida.getPendientes());
+        assertEquals(-50, jdbcTemplate.queryForObject(
+                "SELECT SUM(cantidad) FROM movimientos WHERE producto_id = ? AND tipo = 'VENTA'", Integer.class, id));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM movimientos WHERE producto_id = ? AND tipo = 'VENTA'", Integer.class, id));
+        assertEquals(20, jdbcTemplate.queryForObject(
+                "SELECT SUM(cantidad) FROM movimientos WHERE producto_id = ? AND tipo = 'REPOSICION'", Integer.class, id));
+    }
+
+    @Test
+    @DisplayName("Debe validar las existencias con las ventas aún no aplicadas")
+    void debeValidarExistenciasPendientes() {
+        // Given
+        Long id = productoRepository.save(new Producto("Alfajores", new BigDecimal("900.00"), 3)).getId();
+
+        // When
+        assertTrue(productoService.registrarVenta(id, 2));
+
+        // Then
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> productoService.registrarVenta(id, 2));
+        assertTrue(error.getMessage().contains("Alfajores"));
+        assertFalse(productoService.registrarVenta(999_999L, 1));
+        escrituraDiferida.vaciar();
+        assertEquals(1, cantidad(id));
+    }
+
+    @Test
+    @DisplayName("Debe aplicar las ventas pendientes antes de editar el producto")
+    void debeAplicarPendientesAntesDeEditar() {
+        // Given
+        Producto producto = productoRepository.save(new Producto("Turrones", new BigDecimal("700.00"), 10));
+        productoService.registrarVenta(producto.getId(), 4);
+
+        // When
+        Producto editado = productoRepository.findById(producto.getId()).orElseThrow();
+        editado.setPrecio(new BigDecimal("750.00"));
+        editado.setCantidad(6);
+        productoService.actualizarProducto(editado);
+
+        // Then: la venta quedó registrada y la edición no ve diferencia que ajustar
+        assertEquals(6, cantidad(producto.getId()));
+        assertEquals(0, escrituraDiferida.getPendientes());
+        assertEquals(-4, jdbcTemplate.queryForObject(
+                "SELECT SUM(cantidad) FROM movimientos WHERE producto_id = ? AND tipo = 'VENTA'", Integer.class, producto.getId()));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM movimientos WHERE producto_id = ? AND tipo = 'AJUSTE'", Integer.class, producto.getId()));
+    }
+
+    @Test
+    @DisplayName("Editar un producto debe aplicar solo sus cambios pendientes y dejar los demás al escritor")
+    void debeAplicarSoloElProductoEditado() {
+        // Given
+        Producto editado = productoRepository.save(new Producto("Obleas", new BigDecimal("300.00"), 10));
+        Long otro = productoRepository.save(new Producto("Pastillas", new BigDecimal("150.00"), 10)).getId();
+        productoService.registrarVenta(editado.getId(), 3);
+        productoService.registrarVenta(otro, 2);
+
+        // When
+        Producto cambios = productoRepository.findById(editado.getId()).orElseThrow();
+        cambios.setPrecio(new BigDecimal("320.00"));
+        cambios.setCantidad(7);
+        productoService.actualizarProducto(cambios);
+
+        // Then
+        assertEquals(7, cantidad(editado.getId()));
+        assertEquals(10, cantidad(otro));
+        assertEquals(1, escrituraDiferida.getPendientes());
+        escrituraDiferida.vaciar();
+        assertEquals(8, cantidad(otro));
+    }
+
+    @Test
+    @DisplayName("Una venta confirmada durante una edición debe descontarse de la cantidad editada")
+    void debeDescontarVentaConfirmadaDuranteEdicion() {
+        // Given
+        Producto producto = productoRepository.save(new Producto("Bombones", new BigDecimal("500.00"), 10));
+        Long id = producto.getId();
+
+        // When: mientras la edición no se confirma, otro hilo vende sobre la cantidad anterior
+        new TransactionTemplate(transactionManager).executeWithoutResult(transaccion -> {
+            Producto editado = productoRepository.findById(id).orElseThrow();
+            editado.setCantidad(20);
+            productoService.actualizarProducto(editado);
+            assertTrue(CompletableFuture.supplyAsync(() -> productoService.registrarVenta(id, 3)).join());
+        });
+
+        // Then: la cantidad en memoria parte de la editada, no de la anterior
+        assertTrue(productoService.registrarVenta(id, 17));
+        assertThrows(IllegalArgumentException.class, () -> productoService.registrarVenta(id, 1));
+        escrituraDiferida.vaciar();
+        assertEquals(0, cantidad(id));
+        assertEquals(-20, jdbcTemplate.queryForObject(
+                "SELECT SUM(cantidad) FROM movimientos WHERE producto_id = ? AND tipo = 'VENTA'", Integer.class, id));
+    }
+
+    @Test
+    @DisplayName("No debe perder ventas confirmadas si la cantidad bajó por otra vía")
+    void debeRegistrarAjustePorVentasSinExistencias() {
+        // Given
+        Long id = productoRepository.save(new Producto("Chicles", new BigDecimal("200.00"), 10)).getId();
+        assertTrue(productoService.registrarVenta(id, 8));
+
+        // When: antes de aplicar la venta, la cantidad baja a 3 por fuera de la aplicación
+        jdbcTemplate.update("UPDATE productos SET cantidad = 3 WHERE id = ?", id);
+        escrituraDiferida.vaciar();
+
+        // Then: se registran las 8 vendidas y un ajuste por las 5 que faltaron
+        assertEquals(0, cantidad(id));
+        assertEquals(-8, jdbcTemplate.queryForObject(
+                "SELECT SUM(cantidad) FROM movimientos WHERE producto_id = ? AND tipo = 'VENTA'", Integer.class, id));
+        assertEquals(5, jdbcTemplate.queryForObject(
+                "SELECT SUM(cantidad) FROM movimientos WHERE producto_id = ? AND tipo = 'AJUSTE'", Integer.class, id));
+    }
+
+    @Test
+    @DisplayName("Debe recuperar del diario las ventas confirmadas si la aplicación se cae antes de escribirlas")
+    void debeRecuperarVentasDespuesDeUnaCaida() throws Exception {
+        // Given
+        Path diario = Path.of("target/pruebas/existencias-caida.diario");
+        Files.deleteIfExists(diario);
+        Long id = productoRepository.save(new Producto("Caramelos", new BigDecimal("100.00"), 500)).getId();
+        EscrituraDiferidaService antesDeLaCaida = nuevaInstancia(diario);
+        for (int i = 0; i < 30; i++) {
+            assertTrue(antesDeLaCaida.registrarVenta(id, 2));
+        }
+        assertTrue(antesDeLaCaida.fijarCantidad(id, 450));
+
+        // When: se pierde la memoria sin aplicar nada; otra instancia abre el mismo diario
+        assertEquals(500, cantidad(id));
+        EscrituraDiferidaService despuesDeLaCaida = nuevaInstancia(diario);
+        despuesDeLaCaida.vaciar();
+
+        // Then
+        assertEquals(450, cantidad(id));
+        assertEquals(-60, jdbcTemplate.queryForObject(
+                "SELECT SUM(cantidad) FROM movimientos WHERE producto_id = ? AND tipo = 'VENTA'", Integer.class, id));
+
+        // Y una tercera instancia no vuelve a aplicar lo mismo
+        nuevaInstancia(diario).vaciar();
+        assertEquals(450, cantidad(id));
+    }
+
+    @Test
+    @DisplayName("No debe reaplicar al recuperar el diario lo que ya se aplicó al editar un producto")
+    void debeRecuperarSinRepetirLoAplicadoPorProducto() throws Exception {
+        // Given: ventas de dos productos y solo uno aplicado, como al editarlo
+        Path diario = Path.of("target/pruebas/existencias-producto.diario");
+        Files.deleteIfExists(diario);
+        Long aplicado = productoRepository.save(new Producto("Maníes", new BigDecimal("100.00"), 50)).getId();
+        Long pendiente = productoRepository.save(new Producto("Pasas", new BigDecimal("100.00"), 50)).getId();
+        EscrituraDiferidaService antesDeLaCaida = nuevaInstancia(diario);
+        assertTrue(antesDeLaCaida.registrarVenta(aplicado, 5));
+        assertTrue(antesDeLaCaida.registrarVenta(pendiente, 4));
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                transaccion -> antesDeLaCaida.aplicarProducto(aplicado));
+        assertEquals(45, cantidad(aplicado));
+
+        // When: se pierde la memoria y otra instancia abre el mismo diario
+        nuevaInstancia(diario).vaciar();
+
+        // Then
+        assertEquals(45, cantidad(aplicado));
+        assertEquals(46, cantidad(pendiente));
+    }
+
+    private EscrituraDiferidaService nuevaInstancia(Path diario) {
+        return new EscrituraDiferidaService(productoRepository, movimientoService, auditoriaService,
+                inventarioColumnarService, autocompletadoService, lecturasCompartidas, archivoProductos,
+                resumenCategorias, jdbcTemplate, transactionManager,
+                true, Duration.ofHours(1), diario.toString());
+    }
+
+    private int cantidad(Long id) {
+        return jdbcTemplate.queryForObject("SELECT cantidad FROM productos WHERE id = ?", Integer.class, id);
+    }
+}
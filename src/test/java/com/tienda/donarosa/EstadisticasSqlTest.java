@@ -0,0 +1,111 @@
+package com.tienda.donarosa;
+
+import com.tienda.donarosa.sql.DataSourceMedido;
+import com.tienda.donarosa.sql.EstadisticasSql;
+import com.tienda.donarosa.sql.NormalizadorSql;
+import com.tienda.donarosa.sql.ObservadorSql;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la medición de sentencias SQL y la captura de planes de las lentas
+ */
+@DisplayName("Pruebas de las Estadísticas de SQL")
+class EstadisticasSqlTest {
+
+    private EstadisticasSql estadisticas;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:estadisticas-sql;DB_CLOSE_DELAY=-1");
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        DataSourceMedido medido = new DataSourceMedido(h2, beans.getBeanProvider(ObservadorSql.class));
+        // Umbral cero: todas las sentencias cuentan como lentas
+        estadisticas = new EstadisticasSql(medido, Duration.ZERO, Duration.ofHours(1), 100);
+        beans.addBean("estadisticasSql", estadisticas);
+
+        jdbcTemplate = new JdbcTemplate(medido);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS articulos");
+        jdbcTemplate.execute("CREATE TABLE articulos (id BIGINT PRIMARY KEY, nombre VARCHAR(100), cantidad INT)");
+        jdbcTemplate.update("INSERT INTO articulos SELECT X, 'Artículo ' || X, MOD(X, 50) FROM SYSTEM_RANGE(1, 2000)");
+        estadisticas.reiniciar();
+    }
+
+    @AfterEach
+    void tearDown() {
+        estadisticas.destroy();
+    }
+
+    @Test
+    @DisplayName("Debe agrupar las consultas que solo difieren en sus valores")
+    void debeNormalizarConsultas() {
+        // Then
+        assertEquals("select * from productos p where p.id = ? and p.nombre = ?",
+                NormalizadorSql.normalizar("select *  from productos p\n where p.id = 42 and p.nombre = 'O''Higgins'"));
+        assertEquals("select p1_0.id from productos p1_0 where p1_0.id in (?...)",
+                NormalizadorSql.normalizar("/* consulta */ select p1_0.id from productos p1_0 where p1_0.id in (?, ?, ?)"));
+        assertEquals("insert into t values (?...)",
+                NormalizadorSql.normalizar("insert into t values (1, 'a'), (2, 'b')"));
+    }
+
+    @Test
+    @DisplayName("Debe acumular ejecuciones por consulta y capturar el plan que recorre toda la tabla")
+    void debeCapturarPlanDeConsultaLenta() throws Exception {
+        // When
+        jdbcTemplate.queryForList("SELECT id FROM articulos WHERE cantidad = ?", Long.class, 7);
+        jdbcTemplate.queryForList("SELECT id FROM articulos WHERE cantidad = ?", Long.class, 8);
+        jdbcTemplate.queryForObject("SELECT nombre FROM articulos WHERE id = ?", String.class, 10L);
+
+        // Then
+        EstadisticasSql.Estadistica porCantidad = buscar("SELECT id FROM articulos WHERE cantidad = ?");
+        assertEquals(2, porCantidad.getEjecuciones());
+        assertEquals(2, porCantidad.getLentas());
+        EstadisticasSql.Plan plan = esperarPlan(porCantidad);
+        assertTrue(plan.analizado());
+        assertTrue(plan.texto().contains("tableScan"), plan.texto());
+        assertTrue(plan.texto().contains("scanCount: 2001"), plan.texto());
+
+        EstadisticasSql.Plan porId = esperarPlan(buscar("SELECT nombre FROM articulos WHERE id = ?"));
+        assertFalse(porId.texto().contains("tableScan"), porId.texto());
+    }
+
+    @Test
+    @DisplayName("No debe volver a ejecutar una sentencia que modifica datos para obtener su plan")
+    void noDebeRepetirModificaciones() throws Exception {
+        // When
+        jdbcTemplate.update("UPDATE articulos SET cantidad = cantidad + 1 WHERE id = ?", 1L);
+
+        // Then
+        EstadisticasSql.Plan plan = esperarPlan(buscar("UPDATE articulos SET cantidad = cantidad + ? WHERE id = ?"));
+        assertFalse(plan.analizado());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT cantidad FROM articulos WHERE id = 1", Integer.class));
+    }
+
+    private EstadisticasSql.Estadistica buscar(String consulta) {
+        return estadisticas.obtenerConsultas().stream()
+                .filter(e -> e.getConsulta().equals(consulta))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Sin estadísticas de " + consulta));
+    }
+
+    private static EstadisticasSql.Plan esperarPlan(EstadisticasSql.Estadistica estadistica) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (estadistica.getPlan() == null && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+        assertNotNull(estadistica.getPlan(), "No se capturó el plan de " + estadistica.getConsulta());
+        return estadistica.getPlan();
+    }
+}
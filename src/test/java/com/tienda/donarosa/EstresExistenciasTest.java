@@ -0,0 +1,230 @@
+package com.tienda.donarosa;
+
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.service.ProductoService;
+import com.tienda.donarosa.service.ResumenCategoriasService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de estrés de las existencias: muchos hilos vendiendo, reponiendo,
+ * editando y eliminando los mismos productos a través de ProductoService, sobre
+ * H2 real. Después se comprueban los invariantes (nada negativo, las unidades
+ * cuadran con los movimientos, ninguna venta se pierde) y se informa el
+ * rendimiento por nivel de concurrencia para seguirlo entre versiones.
+ */
+@PruebaServicioProductos
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Pruebas de Estrés de Existencias")
+class EstresExistenciasTest {
+
+    private static final Logger log = LoggerFactory.getLogger(EstresExistenciasTest.class);
+
+    private static final int OPERACIONES = 4_000;
+    // Solo ventas: la demanda supera a las existencias, así que se agotan
+    private static final int VENTAS = 4;
+    private static final int EXISTENCIAS_VENTAS = 300;
+    // Ventas, reposiciones y ediciones de precio con cantidades leídas antes (desactualizadas)
+    private static final int MIXTOS = 2;
+    private static final int EXISTENCIAS_MIXTOS = 500;
+    // Ventas hasta que un hilo los elimina a mitad de la corrida
+    private static final int BAJAS = 2;
+    private static final int EXISTENCIAS_BAJAS = 200;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ResumenCategoriasService resumenCategorias;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> ids = new ArrayList<>();
+    private final List<Throwable> inesperados = Collections.synchronizedList(new ArrayList<>());
+    private final LongAdder sinExistencias = new LongAdder();
+    private final LongAdder rechazadasPorBaja = new LongAdder();
+    private AtomicLongArray vendidas;
+
+    @BeforeEach
+    void setUp() {
+        limpiar();
+        for (int i = 0; i < VENTAS + MIXTOS + BAJAS; i++) {
+            int existencias = i < VENTAS ? EXISTENCIAS_VENTAS : i < VENTAS + MIXTOS ? EXISTENCIAS_MIXTOS : EXISTENCIAS_BAJAS;
+            ids.add(productoService.guardarProducto(new Producto("Estrés " + i, i < VENTAS ? "estres" : "estres-" + i,
+                    new BigDecimal("1000.00"), existencias)).getId());
+        }
+        vendidas = new AtomicLongArray(ids.size());
+    }
+
+    @AfterEach
+    void limpiar() {
+        // Las operaciones se confirman y la base se comparte con otras pruebas
+        for (String tabla : List.of("movimientos", "historial_precios", "productos", "productos_archivados",
+                "resumen_categorias", "ventas_diarias", "ventas_semanales")) {
+            jdbcTemplate.update("DELETE FROM " + tabla);
+        }
+    }
+
+    @ParameterizedTest(name = "{0} hilos")
+    @ValueSource(ints = {1, 4, 16})
+    @DisplayName("Los invariantes de existencias deben cumplirse con operaciones concurrentes")
+    @Tag("rendimiento")
+    void debeConservarInvariantesBajoConcurrencia(int hilos) throws Exception {
+        // Given
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        List<Future<?>> trabajos = new ArrayList<>();
+        for (int hilo = 0; hilo < hilos; hilo++) {
+            int numero = hilo;
+            trabajos.add(ejecutor.submit(() -> {
+                largada.await();
+                trabajar(numero, OPERACIONES / hilos);
+                return null;
+            }));
+        }
+
+        // When
+        long inicio = System.nanoTime();
+        largada.countDown();
+        for (Future<?> trabajo : trabajos) {
+            trabajo.get(2, TimeUnit.MINUTES);
+        }
+        long ms = Math.max(1, (System.nanoTime() - inicio) / 1_000_000);
+        ejecutor.shutdown();
+        log.info("Estrés con {} hilos: {} operaciones en {} ms ({} op/s); {} ventas sin existencias, " +
+                        "{} rechazadas por baja", hilos, OPERACIONES / hilos * hilos, ms,
+                OPERACIONES / hilos * hilos * 1000L / ms, sinExistencias.sum(), rechazadasPorBaja.sum());
+
+        // Then
+        assertTrue(inesperados.isEmpty(), () -> "Errores inesperados: " + inesperados);
+        for (int i = 0; i < ids.size(); i++) {
+            long id = ids.get(i);
+            boolean mixto = i >= VENTAS && i < VENTAS + MIXTOS;
+            boolean eliminado = i >= VENTAS + MIXTOS;
+            int cantidad = jdbcTemplate.queryForObject("SELECT cantidad FROM productos WHERE id = ?", Integer.class, id);
+            long sumaMovimientos = jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(SUM(cantidad), 0) FROM movimientos WHERE producto_id = ?", Long.class, id);
+            long ventasRegistradas = jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(SUM(-cantidad), 0) FROM movimientos WHERE producto_id = ? AND tipo = 'VENTA'",
+                    Long.class, id);
+
+            assertTrue(cantidad >= 0, "Existencias negativas en el producto " + i);
+            // Conservación: la cantidad es la suma de los movimientos (cero si se eliminó)
+            assertEquals(eliminado ? 0 : cantidad, sumaMovimientos, "Movimientos del producto " + i);
+            if (mixto) {
+                // Fijar la cantidad desde una lectura vieja pisa las ventas concurrentes, como en el
+                // formulario, pero la diferencia queda registrada (como venta si es menor)
+                assertTrue(ventasRegistradas >= vendidas.get(i), "Ventas del producto " + i);
+            } else {
+                // Ninguna venta confirmada se pierde ni se registra de más
+                assertEquals(vendidas.get(i), ventasRegistradas, "Ventas del producto " + i);
+            }
+            if (i < VENTAS) {
+                assertEquals(EXISTENCIAS_VENTAS - vendidas.get(i), cantidad, "Existencias del producto " + i);
+            }
+            if (eliminado) {
+                assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM productos WHERE id = ? " +
+                        "AND eliminado_en IS NOT NULL", Integer.class, id));
+                assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM movimientos WHERE producto_id = ? " +
+                        "AND id > (SELECT id FROM movimientos WHERE producto_id = ? AND tipo = 'BAJA')",
+                        Integer.class, id, id), "Movimientos después de la baja del producto " + i);
+            }
+            assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM historial_precios " +
+                    "WHERE producto_id = ? AND hasta IS NULL", Integer.class, id), "Precio vigente del producto " + i);
+        }
+        assertEquals(jdbcTemplate.queryForObject("SELECT COALESCE(SUM(-cantidad), 0) FROM movimientos " +
+                "WHERE tipo = 'VENTA'", Long.class), jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(unidades), 0) FROM ventas_diarias", Long.class));
+        String resumen = "SELECT categoria || ':' || productos || ':' || unidades || ':' || valor || ':' || agotados " +
+                "FROM resumen_categorias WHERE productos <> 0 OR unidades <> 0 ORDER BY categoria";
+        List<String> mantenido = jdbcTemplate.queryForList(resumen, String.class);
+        resumenCategorias.reconstruir();
+        assertEquals(jdbcTemplate.queryForList(resumen, String.class), mantenido);
+    }
+
+    private void trabajar(int hilo, int operaciones) {
+        Random azar = new Random(31L * hilo + operaciones);
+        for (int n = 0; n < operaciones; n++) {
+            if (hilo == 0 && n == operaciones / 2) {
+                for (int i = VENTAS + MIXTOS; i < ids.size(); i++) {
+                    productoService.eliminarProducto(ids.get(i));
+                }
+            }
+            int tipo = azar.nextInt(100);
+            try {
+                if (tipo < 60) {
+                    vender(azar.nextInt(VENTAS), 1 + azar.nextInt(3));
+                } else if (tipo < 75) {
+                    vender(VENTAS + azar.nextInt(MIXTOS), 1 + azar.nextInt(3));
+                } else if (tipo < 85) {
+                    vender(VENTAS + MIXTOS + azar.nextInt(BAJAS), 1 + azar.nextInt(3));
+                } else if (tipo < 93) {
+                    reponer(VENTAS + azar.nextInt(MIXTOS), 1 + azar.nextInt(10));
+                } else {
+                    editarPrecio(VENTAS + azar.nextInt(MIXTOS), new BigDecimal(900 + azar.nextInt(200) + ".00"));
+                }
+            } catch (Throwable e) {
+                inesperados.add(e);
+            }
+        }
+    }
+
+    private void vender(int producto, int unidades) {
+        try {
+            if (productoService.registrarVenta(ids.get(producto), unidades)) {
+                vendidas.addAndGet(producto, unidades);
+            } else {
+                rechazadasPorBaja.increment();
+            }
+        } catch (IllegalArgumentException e) {
+            sinExistencias.increment();
+        }
+    }
+
+    /**
+     * Como el formulario: fija la cantidad a partir de una lectura anterior
+     */
+    private void reponer(int producto, int unidades) {
+        Optional<Producto> leido = productoService.obtenerProductoPorId(ids.get(producto));
+        leido.ifPresent(p -> productoService.actualizarCantidadProducto(p.getId(), p.getCantidad() + unidades));
+    }
+
+    /**
+     * Como el formulario de edición: envía todos los campos leídos, con el precio nuevo
+     */
+    private void editarPrecio(int producto, BigDecimal precio) {
+        Optional<Producto> leido = productoService.obtenerProductoPorId(ids.get(producto));
+        leido.ifPresent(p -> {
+            Producto edicion = new Producto(p.getNombre(), p.getCategoria(), precio, p.getCantidad());
+            edicion.setId(p.getId());
+            productoService.actualizarProducto(edicion);
+        });
+    }
+}
@@ -0,0 +1,156 @@
+package com.tienda.donarosa;
+
+import com.tienda.donarosa.dto.ValoracionDTO;
+import com.tienda.donarosa.model.HistorialPrecio;
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.service.HistorialPreciosService;
+import com.tienda.donarosa.service.ProductoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del historial de precios y de la valoración del inventario a una fecha
+ */
+@PruebaServicioProductos
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Pruebas del Historial de Precios")
+class HistorialPreciosTest {
+
+    private static final Logger log = LoggerFactory.getLogger(HistorialPreciosTest.class);
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private HistorialPreciosService historialPrecios;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    @AfterEach
+    void limpiar() {
+        // Las operaciones se confirman y la base se comparte con otras pruebas
+        for (String tabla : List.of("movimientos", "historial_precios", "productos", "productos_archivados",
+                "resumen_categorias")) {
+            jdbcTemplate.update("DELETE FROM " + tabla);
+        }
+    }
+
+    @Test
+    @DisplayName("Debe cerrar el intervalo vigente solo cuando el precio cambia")
+    void debeRegistrarIntervalosAlCambiarPrecio() throws InterruptedException {
+        // Given
+        Producto galletas = productoService.guardarProducto(new Producto("Galletas", new BigDecimal("500.00"), 400));
+        Thread.sleep(2);
+
+        // When - un cambio de precio y una edición que deja el mismo precio
+        productoService.actualizarProducto(edicion(galletas, "550.00", 400));
+        productoService.actualizarProducto(edicion(galletas, "550.00", 380));
+
+        // Then
+        List<HistorialPrecio> historial = historialPrecios.obtenerHistorial(galletas.getId(), 10);
+        assertEquals(2, historial.size());
+        assertEquals(new BigDecimal("550.00"), historial.get(0).getPrecio());
+        assertNull(historial.get(0).getHasta());
+        assertEquals(new BigDecimal("500.00"), historial.get(1).getPrecio());
+        assertEquals(historial.get(0).getDesde(), historial.get(1).getHasta());
+    }
+
+    @Test
+    @DisplayName("Debe valorar el inventario con las existencias y los precios de cada fecha")
+    void debeValorarALaFecha() throws InterruptedException {
+        // Given
+        LocalDateTime antes = pausa();
+        Producto fresas = productoService.guardarProducto(new Producto("Fresas", "frutas", new BigDecimal("3500.00"), 40));
+        Producto frunas = productoService.guardarProducto(new Producto("Frunas", "dulces", new BigDecimal("200.00"), 100));
+        LocalDateTime altas = pausa();
+        productoService.registrarVenta(fresas.getId(), 10);
+        productoService.actualizarProducto(edicion(frunas, "250.00", 100));
+        LocalDateTime cambios = pausa();
+        productoService.eliminarProducto(frunas.getId());
+        productoService.registrarVenta(fresas.getId(), 30);
+
+        // When
+        ValoracionDTO vacio = historialPrecios.valorar(antes);
+        ValoracionDTO alAlta = historialPrecios.valorar(altas);
+        ValoracionDTO alCambio = historialPrecios.valorar(cambios);
+        ValoracionDTO actual = historialPrecios.valorar(LocalDateTime.now());
+
+        // Then
+        assertEquals(0, vacio.getProductos());
+        assertEquals(0, new BigDecimal("160000.00").compareTo(alAlta.getValor()));   // 40 x 3500 + 100 x 200
+        assertEquals(140L, alAlta.getUnidades());
+        assertEquals(0, new BigDecimal("130000.00").compareTo(alCambio.getValor())); // 30 x 3500 + 100 x 250
+        assertEquals(List.of("dulces", "frutas"),
+                alCambio.getCategorias().stream().map(categoria -> categoria.getCategoria()).toList());
+        assertEquals(0, actual.getProductos()); // frunas eliminado y fresas agotadas
+        assertEquals(0, actual.getSinPrecio());
+    }
+
+    @Test
+    @DisplayName("Debe valorar el cierre de mes de 100 mil productos en una consulta")
+    @Tag("rendimiento")
+    void debeValorarCatalogoGrande() {
+        // Given: alta hace 40 días a $1000, cambio a $1500 hace 20, ventas de los pares hace 5
+        jdbcTemplate.update("INSERT INTO productos (tienda_id, nombre, categoria, precio, cantidad, cantidad_inicial) " +
+                "SELECT 'principal', 'Producto ' || X, CASE WHEN MOD(X, 2) = 0 THEN 'pares' ELSE 'impares' END, " +
+                "1500.00, CASE WHEN MOD(X, 2) = 0 THEN 8 ELSE 10 END, 10 FROM SYSTEM_RANGE(1, 100000)");
+        jdbcTemplate.update("INSERT INTO movimientos (tienda_id, producto_id, tipo, cantidad, precio_unitario, fecha) " +
+                "SELECT tienda_id, id, 'ALTA', 10, 1000.00, DATEADD(DAY, -40, LOCALTIMESTAMP) FROM productos");
+        jdbcTemplate.update("INSERT INTO movimientos (tienda_id, producto_id, tipo, cantidad, precio_unitario, fecha) " +
+                "SELECT tienda_id, id, 'VENTA', -2, 1500.00, DATEADD(DAY, -5, LOCALTIMESTAMP) FROM productos " +
+                "WHERE cantidad = 8");
+        jdbcTemplate.update("INSERT INTO historial_precios (tienda_id, producto_id, precio, desde, hasta) " +
+                "SELECT tienda_id, id, 1000.00, DATEADD(DAY, -40, LOCALTIMESTAMP), DATEADD(DAY, -20, LOCALTIMESTAMP) " +
+                "FROM productos");
+        jdbcTemplate.update("INSERT INTO historial_precios (tienda_id, producto_id, precio, desde) " +
+                "SELECT tienda_id, id, 1500.00, DATEADD(DAY, -20, LOCALTIMESTAMP) FROM productos");
+        LocalDateTime ahora = LocalDateTime.now();
+
+        // When
+        historialPrecios.valorar(ahora.minusDays(10)); // calentamiento
+        ValoracionDTO cierre = historialPrecios.valorar(ahora.minusDays(10));
+        ValoracionDTO mesAnterior = historialPrecios.valorar(ahora.minusDays(30));
+        log.info("Valoración a fecha de 100000 productos: {} ms (cierre) y {} ms (mes anterior)",
+                cierre.getDuracionMs(), mesAnterior.getDuracionMs());
+
+        // Then
+        assertEquals(100_000, cierre.getProductos());
+        assertEquals(1_000_000, cierre.getUnidades());
+        assertEquals(0, new BigDecimal("1500000000.00").compareTo(cierre.getValor()));
+        assertEquals(0, new BigDecimal("1000000000.00").compareTo(mesAnterior.getValor()));
+        assertEquals(2, cierre.getCategorias().size());
+    }
+
+    private static Producto edicion(Producto producto, String precio, int cantidad) {
+        Producto edicion = new Producto(producto.getNombre(), new BigDecimal(precio), cantidad);
+        edicion.setId(producto.getId());
+        return edicion;
+    }
+
+    /**
+     * Instante entre dos grupos de operaciones, separado de ambos
+     */
+    private static LocalDateTime pausa() throws InterruptedException {
+        Thread.sleep(2);
+        LocalDateTime instante = LocalDateTime.now();
+        Thread.sleep(2);
+        return instante;
+    }
+}
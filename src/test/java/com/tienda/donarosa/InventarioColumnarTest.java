@@ -0,0 +1,155 @@
+package com.tienda.donarosa;
+
+import com.tienda.donarosa.dto.ResumenInventarioDTO;
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.repository.ProductoRepository;
+import com.tienda.donarosa.service.InventarioColumnar;
+import com.tienda.donarosa.service.InventarioColumnarService;
+import com.tienda.donarosa.service.ProductoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la copia por columnas del inventario usada por los reportes
+ */
+@PruebaServicioProductos
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Pruebas del Inventario por Columnas")
+class InventarioColumnarTest {
+
+    private static final Logger log = LoggerFactory.getLogger(InventarioColumnarTest.class);
+
+    @Autowired
+    private InventarioColumnarService inventarioColumnarService;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void limpiar() {
+        // Las operaciones se confirman y la base se comparte con otras pruebas
+        productoRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Debe resumir y ordenar por urgencia con las mismas reglas que Producto")
+    void debeResumirYOrdenarPorUrgencia() {
+        // Given
+        InventarioColumnar inventario = new InventarioColumnar(2);
+        inventario.actualizar(3, 400_000, 65, 65, null, null);      // Peras: 100%
+        inventario.actualizar(1, 250_050, 0, 20, null, null);       // Uvas: agotadas
+        inventario.actualizar(2, 300_000, 1, 12, null, null);       // Manzanas: 8.3%
+        inventario.actualizar(4, 150_000, 12, 100, 15, 1.5);        // Galletas: bajo su punto de reorden
+        inventario.actualizar(5, 100_000, 40, 100, 30, 8.0);        // Arroz: sobre su punto de reorden
+
+        // When
+        InventarioColumnar.Resumen resumen = inventario.resumir();
+        long[] ranking = inventario.rankingAgotamiento(10);
+
+        // Then
+        assertEquals(5, resumen.productos());
+        assertEquals(1, resumen.agotados());
+        assertEquals(3, resumen.cercaDeAgotarse());
+        assertEquals(118, resumen.unidades());
+        assertEquals(400_000L * 65 + 300_000 + 150_000L * 12 + 100_000L * 40, resumen.valorCentavos());
+        assertArrayEquals(new long[]{4, 1, 2}, ranking);
+        assertArrayEquals(new long[]{4, 1}, inventario.rankingAgotamiento(2));
+
+        // When
+        inventario.eliminar(1);
+        inventario.actualizar(2, 300_000, 12, 12, null, null);
+
+        // Then
+        assertEquals(4, inventario.resumir().productos());
+        assertArrayEquals(new long[]{4}, inventario.rankingAgotamiento(10));
+    }
+
+    @Test
+    @DisplayName("Debe mantenerse al día con los cambios del servicio de productos")
+    void debeMantenerseAlDiaConElServicio() {
+        // Given
+        productoRepository.deleteAll();
+        Producto peras = productoService.guardarProducto(new Producto("Peras", new BigDecimal("4000.00"), 65));
+        Producto uvas = productoService.guardarProducto(new Producto("Uvas", new BigDecimal("2500.50"), 20));
+        assertEquals(2, inventarioColumnarService.obtenerResumen().getProductos());
+
+        // When
+        productoService.registrarVenta(uvas.getId(), 19);
+        productoService.actualizarCantidadProducto(peras.getId(), 0);
+        Producto limones = productoService.guardarProducto(new Producto("Limones", new BigDecimal("1500.00"), 25));
+        productoService.eliminarProducto(limones.getId());
+
+        // Then
+        ResumenInventarioDTO resumen = inventarioColumnarService.obtenerResumen();
+        assertEquals(2, resumen.getProductos());
+        assertEquals(1, resumen.getAgotados());
+        assertEquals(1, resumen.getDisponibles());
+        assertEquals(2, resumen.getCercaDeAgotarse());
+        assertEquals(0, productoService.calcularValorTotalInventario().compareTo(resumen.getValorTotal()));
+        assertEquals(List.of(peras.getId(), uvas.getId()),
+                inventarioColumnarService.obtenerRankingAgotamiento(10).stream().map(Producto::getId).toList());
+
+        // When: una escritura por SQL, fuera del servicio, y la invalidación
+        jdbcTemplate.update("UPDATE productos SET cantidad = 30 WHERE id = ?", peras.getId());
+        inventarioColumnarService.invalidar();
+
+        // Then
+        assertEquals(0, inventarioColumnarService.obtenerResumen().getAgotados());
+    }
+
+    @Test
+    @DisplayName("Debe resumir un millón de productos en pocos milisegundos")
+    @Tag("rendimiento")
+    void debeResumirUnMillonDeProductosRapido() {
+        // Given
+        int total = 1_000_000;
+        SplittableRandom aleatorio = new SplittableRandom(42);
+        InventarioColumnar inventario = new InventarioColumnar(total);
+        for (int id = 1; id <= total; id++) {
+            int inicial = 10 + aleatorio.nextInt(500);
+            inventario.actualizar(id, 100 + aleatorio.nextInt(1_000_000), aleatorio.nextInt(inicial + 1), inicial, null, null);
+        }
+        for (int i = 0; i < 20; i++) {
+            inventario.resumir();
+        }
+
+        // When
+        int repeticiones = 20;
+        long inicio = System.nanoTime();
+        InventarioColumnar.Resumen resumen = null;
+        for (int i = 0; i < repeticiones; i++) {
+            resumen = inventario.resumir();
+        }
+        double msResumen = (System.nanoTime() - inicio) / 1e6 / repeticiones;
+        inicio = System.nanoTime();
+        long[] ranking = inventario.rankingAgotamiento(200);
+        double msRanking = (System.nanoTime() - inicio) / 1e6;
+
+        // Then
+        log.info("Inventario de {} productos: resumen en {} ms, ranking de 200 en {} ms",
+                total, String.format("%.2f", msResumen), String.format("%.2f", msRanking));
+        assertEquals(total, resumen.productos());
+        assertEquals(200, ranking.length);
+        assertTrue(msResumen < 100, "El resumen tardó " + msResumen + " ms");
+    }
+}
@@ -0,0 +1,196 @@
+package com.tienda.donarosa;
+
+import com.tienda.donarosa.dto.CambioKioscoDTO;
+import com.tienda.donarosa.kiosco.AvisosKiosco;
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.repository.ProductoRepository;
+import com.tienda.donarosa.service.LecturasCompartidas;
+import com.tienda.donarosa.service.ProductoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la API de los kioscos.
+ *
+ * El benchmark deja muchas más esperas abiertas que hilos tiene Tomcat e
+ * imprime cuánto tarda una consulta de precio mientras tanto y cuánto tardan
+ * todas las esperas en recibir el aviso de un cambio.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = "server.tomcat.threads.max=" + KioscoTest.HILOS_TOMCAT)
+@DisplayName("Pruebas de la API de Kioscos")
+class KioscoTest {
+
+    private static final Logger log = LoggerFactory.getLogger(KioscoTest.class);
+
+    static final int HILOS_TOMCAT = 8;
+    private static final int CONEXIONES_BENCHMARK = 500;
+    private static final Pattern VERSION = Pattern.compile("\"version\":(\\d+)");
+
+    @LocalServerPort
+    private int puerto;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private AvisosKiosco avisosKiosco;
+
+    private final HttpClient cliente = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private String sesion;
+    private Producto producto;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        producto = productoRepository.save(new Producto("Kiosco " + System.nanoTime(), new BigDecimal("1250.00"), 40));
+        HttpResponse<Void> login = cliente.send(HttpRequest.newBuilder(uri("/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString("username=dona_rosa&password=tienda123"))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        sesion = login.headers().firstValue("Set-Cookie").orElseThrow().split(";")[0];
+    }
+
+    @AfterEach
+    void tearDown() {
+        productoRepository.deleteById(producto.getId());
+    }
+
+    @Test
+    @DisplayName("Debe avisar a las esperas cuando se confirma una escritura en la tienda")
+    void debeAvisarCambios() {
+        // Given
+        LecturasCompartidas lecturas = new LecturasCompartidas(Duration.ZERO);
+        AvisosKiosco avisos = new AvisosKiosco(lecturas, 1, Duration.ofSeconds(2));
+        DeferredResult<ResponseEntity<CambioKioscoDTO>> esperando = avisos.esperar("principal", 0, Duration.ofMinutes(1));
+
+        // When
+        DeferredResult<ResponseEntity<CambioKioscoDTO>> sobrante = avisos.esperar("principal", 0, Duration.ofMinutes(1));
+        boolean antesDelCambio = esperando.hasResult();
+        lecturas.invalidar();
+
+        // Then
+        assertFalse(antesDelCambio);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, resultado(sobrante).getStatusCode());
+        assertEquals("2", resultado(sobrante).getHeaders().getFirst("Retry-After"));
+        assertEquals(1, resultado(esperando).getBody().getVersion());
+        assertEquals(0, avisos.getEsperando());
+        // Con una versión vieja responde sin esperar
+        assertEquals(1, resultado(avisos.esperar("principal", 0, Duration.ofMinutes(1))).getBody().getVersion());
+        assertFalse(avisos.esperar("norte", 0, Duration.ofMinutes(1)).hasResult());
+    }
+
+    @Test
+    @DisplayName("Debe responder el precio y el estado de las existencias")
+    void debeConsultarPrecio() throws Exception {
+        // When
+        HttpResponse<String> respuesta = get("/api/v1/kiosco/productos/" + producto.getId());
+        HttpResponse<String> inexistente = get("/api/v1/kiosco/productos/999999999");
+        HttpResponse<String> esperaInvalida = get("/api/v1/kiosco/cambios?espera=3600");
+
+        // Then
+        assertEquals(200, respuesta.statusCode());
+        assertTrue(respuesta.body().contains("\"precio\":1250.00"), respuesta.body());
+        assertTrue(respuesta.body().contains("\"estado\":\"DISPONIBLE\""), respuesta.body());
+        assertEquals(404, inexistente.statusCode());
+        assertEquals(400, esperaInvalida.statusCode());
+    }
+
+    @Test
+    @DisplayName("Benchmark: esperas abiertas con pocos hilos de Tomcat")
+    @Tag("rendimiento")
+    void benchmarkEsperasAbiertas() throws Exception {
+        // Given
+        long version = version(get("/api/v1/kiosco/cambios"));
+        int esperandoAntes = avisosKiosco.getEsperando();
+        List<CompletableFuture<HttpResponse<String>>> esperas = new ArrayList<>(CONEXIONES_BENCHMARK);
+        for (int i = 0; i < CONEXIONES_BENCHMARK; i++) {
+            esperas.add(cliente.sendAsync(pedido("/api/v1/kiosco/cambios?espera=30&version=" + version),
+                    HttpResponse.BodyHandlers.ofString()));
+        }
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (avisosKiosco.getEsperando() - esperandoAntes < CONEXIONES_BENCHMARK && System.nanoTime() < limite) {
+            Thread.sleep(20);
+        }
+        assertEquals(CONEXIONES_BENCHMARK, avisosKiosco.getEsperando() - esperandoAntes);
+
+        // When: con todas las esperas abiertas se sigue atendiendo
+        int consultas = 50;
+        long inicio = System.nanoTime();
+        for (int i = 0; i < consultas; i++) {
+            assertEquals(200, get("/api/v1/kiosco/productos/" + producto.getId()).statusCode());
+        }
+        double msPorConsulta = (System.nanoTime() - inicio) / 1e6 / consultas;
+
+        long aviso = System.nanoTime();
+        productoService.actualizarCantidadProducto(producto.getId(), 39);
+        CompletableFuture.allOf(esperas.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+        double msAviso = (System.nanoTime() - aviso) / 1e6;
+
+        // Then
+        for (CompletableFuture<HttpResponse<String>> espera : esperas) {
+            assertEquals(200, espera.get().statusCode());
+            assertTrue(version(espera.get()) > version);
+        }
+        log.info("{} esperas abiertas con {} hilos de Tomcat: {} ms por consulta de precio, {} ms hasta avisar a todas",
+                CONEXIONES_BENCHMARK, HILOS_TOMCAT, String.format("%.2f", msPorConsulta), Math.round(msAviso));
+    }
+
+    private HttpResponse<String> get(String ruta) throws Exception {
+        return cliente.send(pedido(ruta), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest pedido(String ruta) {
+        return HttpRequest.newBuilder(uri(ruta))
+                .header("Cookie", sesion)
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+    }
+
+    private URI uri(String ruta) {
+        return URI.create("http://localhost:" + puerto + ruta);
+    }
+
+    private static long version(HttpResponse<String> respuesta) {
+        Matcher matcher = VERSION.matcher(respuesta.body());
+        assertTrue(matcher.find(), respuesta.body());
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private static ResponseEntity<CambioKioscoDTO> resultado(DeferredResult<ResponseEntity<CambioKioscoDTO>> resultado) {
+        assertTrue(resultado.hasResult());
+        @SuppressWarnings("unchecked")
+        ResponseEntity<CambioKioscoDTO> respuesta = (ResponseEntity<CambioKioscoDTO>) resultado.getResult();
+        return respuesta;
+    }
+}
@@ -0,0 +1,156 @@
+package com.tienda.donarosa;
+
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import com.tienda.donarosa.repository.ProductoRepository;
+import com.tienda.donarosa.service.LecturasCompartidas;
+import com.tienda.donarosa.service.ProductoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de las lecturas del panel compartidas entre peticiones simultáneas
+ */
+@PruebaServicioProductos
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Pruebas de las Lecturas Compartidas")
+class LecturasCompartidasTest {
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @AfterEach
+    void limpiar() {
+        // Las operaciones se confirman y la base se comparte con otras pruebas
+        productoRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Debe ejecutar una sola vez el cálculo pedido por llamadas simultáneas")
+    void debeCompartirElCalculoEnCurso() throws Exception {
+        // Given
+        LecturasCompartidas lecturas = new LecturasCompartidas(Duration.ZERO);
+        int llamadas = 20;
+        AtomicInteger ejecuciones = new AtomicInteger();
+        CountDownLatch liberar = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(llamadas);
+
+        try {
+            // When
+            List<Future<Integer>> resultados = new ArrayList<>();
+            for (int i = 0; i < llamadas; i++) {
+                resultados.add(hilos.submit(() -> lecturas.obtener("valor-total", () -> {
+                    ejecuciones.incrementAndGet();
+                    esperar(liberar);
+                    return 42;
+                })));
+            }
+            while (lecturas.getEjecutadas() + lecturas.getCompartidas() < llamadas) {
+                Thread.sleep(5);
+            }
+            liberar.countDown();
+
+            // Then
+            for (Future<Integer> resultado : resultados) {
+                assertEquals(42, resultado.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, ejecuciones.get());
+            assertEquals(1, lecturas.getEjecutadas());
+            assertEquals(llamadas - 1, lecturas.getCompartidas());
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Debe reutilizar el resultado dentro de la ventana y no después de invalidar ni entre tiendas")
+    void debeReutilizarDentroDeLaVentana() {
+        // Given
+        LecturasCompartidas lecturas = new LecturasCompartidas(Duration.ofMinutes(1));
+        AtomicInteger ejecuciones = new AtomicInteger();
+
+        // When
+        int primera = lecturas.obtener("productos", ejecuciones::incrementAndGet);
+        int segunda = lecturas.obtener("productos", ejecuciones::incrementAndGet);
+        int otraTienda = TiendaContexto.ejecutarComo("norte", () -> lecturas.obtener("productos", ejecuciones::incrementAndGet));
+        lecturas.invalidar();
+        int tercera = lecturas.obtener("productos", ejecuciones::incrementAndGet);
+
+        // Then
+        assertEquals(1, primera);
+        assertEquals(1, segunda);
+        assertEquals(2, otraTienda);
+        assertEquals(3, tercera);
+        assertEquals(3, lecturas.getEjecutadas());
+        assertEquals(1, lecturas.getRecientes());
+    }
+
+    @Test
+    @DisplayName("No debe guardar los errores: cada llamada posterior vuelve a intentar")
+    void noDebeGuardarErrores() {
+        // Given
+        LecturasCompartidas lecturas = new LecturasCompartidas(Duration.ofMinutes(1));
+        AtomicInteger intentos = new AtomicInteger();
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> lecturas.obtener("valor-total", () -> {
+            intentos.incrementAndGet();
+            throw new IllegalStateException("Base de datos no disponible");
+        }));
+        assertEquals("ok", lecturas.obtener("valor-total", () -> {
+            intentos.incrementAndGet();
+            return "ok";
+        }));
+        assertEquals(2, intentos.get());
+    }
+
+    @Test
+    @DisplayName("Debe mostrar en el panel los cambios del servicio de productos sin esperar la ventana")
+    void debeVerLosCambiosDelServicio() {
+        // Given
+        productoRepository.deleteAll();
+        productoService.guardarProducto(new Producto("Peras", new BigDecimal("4000.00"), 10));
+        assertEquals(0, new BigDecimal("40000").compareTo(productoService.calcularValorTotalInventario()));
+        assertEquals(1, productoService.obtenerTodosLosProductos().size());
+        assertTrue(productoService.obtenerProductoMasCercaDeAgotarse().isEmpty());
+
+        // When
+        Producto uvas = new Producto("Uvas", new BigDecimal("2500.00"), 2);
+        uvas.setCantidadInicial(40);
+        productoService.guardarProducto(uvas);
+
+        // Then
+        assertEquals(0, new BigDecimal("45000").compareTo(productoService.calcularValorTotalInventario()));
+        assertEquals(2, productoService.obtenerTodosLosProductos().size());
+        assertEquals(uvas.getId(), productoService.obtenerProductoMasCercaDeAgotarse().orElseThrow().getId());
+    }
+
+    private static void esperar(CountDownLatch liberar) {
+        try {
+            assertTrue(liberar.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.tienda.donarosa;
+
+import com.tienda.donarosa.config.MultitiendaConfig;
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.multitienda.TiendaContexto;
+import com.tienda.donarosa.repository.ProductoRepository;
+import com.tienda.donarosa.service.ProductoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del inventario por tienda (sucursal)
+ * Cada operación corre en su propia transacción con la tienda fijada,
+ * como lo hace una petición de un usuario de esa tienda.
+ */
+@PruebaServicioProductos
+@Import(MultitiendaConfig.class)
+@TestPropertySource(properties = "tienda.multitienda.esquemas.grande=TIENDA_GRANDE")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Pruebas del Inventario por Tienda")
+class MultitiendaTest {
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        for (String tienda : List.of("principal", "norte", "grande")) {
+            TiendaContexto.ejecutarComo(tienda, () -> productoRepository.deleteAll());
+        }
+        TiendaContexto.ejecutarComo("principal", () -> {
+            productoRepository.save(new Producto("Peras", new BigDecimal("4000.00"), 65));
+            productoRepository.save(new Producto("Uvas", new BigDecimal("2500.00"), 0));
+        });
+        TiendaContexto.ejecutarComo("norte", () -> {
+            productoRepository.save(new Producto("Peras", new BigDecimal("4200.00"), 10));
+        });
+    }
+
+    @Test
+    @DisplayName("Debe permitir el mismo nombre en tiendas distintas pero no en la misma")
+    void debePermitirMismoNombreEnTiendasDistintas() {
+        // Then
+        Producto perasNorte = TiendaContexto.ejecutarComo("norte",
+                () -> productoRepository.findByNombreIgnoreCase("peras").orElseThrow());
+        assertEquals("norte", perasNorte.getTiendaId());
+        assertEquals(new BigDecimal("4200.00"), perasNorte.getPrecio());
+
+        assertThrows(Exception.class, () -> TiendaContexto.ejecutarComo("norte",
+                () -> productoRepository.save(new Producto("Peras", new BigDecimal("1.00"), 1))));
+    }
+
+    @Test
+    @DisplayName("Debe limitar las consultas a la tienda actual")
+    void debeLimitarConsultasALaTiendaActual() {
+        // When
+        List<Producto> principal = TiendaContexto.ejecutarComo("principal", () -> productoRepository.findAll());
+        List<Producto> norte = TiendaContexto.ejecutarComo("norte", () -> productoRepository.findAll());
+        List<Producto> agotadosNorte = TiendaContexto.ejecutarComo("norte", () -> productoRepository.findByCantidadEquals(0));
+        Double valorNorte = TiendaContexto.ejecutarComo("norte",
+                () -> productoRepository.calcularValorTotalInventario().orElse(0.0));
+
+        // Then
+        assertEquals(2, principal.size());
+        assertEquals(1, norte.size());
+        assertTrue(agotadosNorte.isEmpty());
+        assertEquals(42000.0, valorNorte, 0.01);
+    }
+
+    @Test
+    @DisplayName("No debe encontrar por ID un producto de otra tienda")
+    void noDebeEncontrarProductoDeOtraTiendaPorId() {
+        // Given
+        Long idPrincipal = TiendaContexto.ejecutarComo("principal",
+                () -> productoRepository.findByNombreIgnoreCase("Uvas").orElseThrow().getId());
+
+        // When & Then
+        assertTrue(TiendaContexto.ejecutarComo("principal", () -> productoService.obtenerProductoPorId(idPrincipal)).isPresent());
+        assertFalse(TiendaContexto.ejecutarComo("norte", () -> productoService.obtenerProductoPorId(idPrincipal)).isPresent());
+        assertFalse(TiendaContexto.ejecutarComo("norte", () -> productoService.actualizarCantidadProducto(idPrincipal, 5)));
+        assertThrows(RuntimeException.class, () -> TiendaContexto.ejecutarComo("norte",
+                () -> productoService.eliminarProducto(idPrincipal)));
+    }
+
+    @Test
+    @DisplayName("Debe guardar los productos de una tienda con esquema propio en ese esquema")
+    void debeEnrutarTiendaGrandeASuEsquema() {
+        // When
+        TiendaContexto.ejecutarComo("grande", () -> {
+            productoRepository.save(new Producto("Peras", new BigDecimal("3900.00"), 500));
+        });
+
+        // Then
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM TIENDA_GRANDE.PRODUCTOS", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM PUBLIC.PRODUCTOS WHERE tienda_id = 'grande'", Integer.class));
+        assertEquals(1, TiendaContexto.ejecutarComo("grande", () -> productoRepository.findAll()).size());
+    }
+}
@@ -0,0 +1,210 @@
+package com.tienda.donarosa;
+
+import com.tienda.donarosa.auditoria.AuditoriaService;
+import com.tienda.donarosa.dto.CambioPreciosDTO;
+import com.tienda.donarosa.dto.PrecioCambiadoDTO;
+import com.tienda.donarosa.dto.ResultadoCambioPreciosDTO;
+import com.tienda.donarosa.model.HistorialPrecio;
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.repository.CambioPreciosRepository;
+import com.tienda.donarosa.repository.ProductoRepository;
+import com.tienda.donarosa.service.HistorialPreciosService;
+import com.tienda.donarosa.service.InventarioColumnarService;
+import com.tienda.donarosa.service.LecturasCompartidas;
+import com.tienda.donarosa.service.PrecioMasivoService;
+import com.tienda.donarosa.service.ResumenCategoriasService;
+import com.tienda.donarosa.service.ValidacionException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del cambio masivo de precios
+ * Se usa un lote de 2 productos para que el cambio pase por varios lotes.
+ */
+@DataJpaTest
+@Import({PrecioMasivoService.class, AuditoriaService.class, InventarioColumnarService.class, LecturasCompartidas.class,
+        ResumenCategoriasService.class, HistorialPreciosService.class})
+@TestPropertySource(properties = "tienda.precios.lote=2")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Pruebas del Cambio Masivo de Precios")
+class PrecioMasivoTest {
+
+    @Autowired
+    private PrecioMasivoService precioMasivoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CambioPreciosRepository cambioPreciosRepository;
+
+    @Autowired
+    private HistorialPreciosService historialPrecios;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM cambios_precios_detalle");
+        jdbcTemplate.update("DELETE FROM historial_precios");
+        cambioPreciosRepository.deleteAll();
+        productoRepository.deleteAll();
+        productoRepository.save(new Producto("Galletas", new BigDecimal("500.00"), 400));
+        productoRepository.save(new Producto("Galletas de Avena", new BigDecimal("730.00"), 0));
+        productoRepository.save(new Producto("Chocolates", new BigDecimal("1200.00"), 500));
+        productoRepository.save(new Producto("Chocolatinas", new BigDecimal("333.00"), 20));
+        productoRepository.save(new Producto("Arroz", new BigDecimal("1200.00"), 60));
+    }
+
+    @Test
+    @DisplayName("La simulación debe mostrar los precios nuevos sin modificar nada")
+    void debeSimularSinModificar() {
+        // Given
+        CambioPreciosDTO cambio = cambio(CambioPreciosDTO.Tipo.PORCENTAJE, "10", CambioPreciosDTO.Redondeo.DECENA);
+        cambio.setPatronNombre("galletas");
+
+        // When
+        ResultadoCambioPreciosDTO resultado = precioMasivoService.simular(cambio);
+
+        // Then
+        assertTrue(resultado.isSimulacion());
+        assertEquals(2, resultado.getAfectados());
+        assertEquals(new BigDecimal("550.00"), resultado.getMuestra().get(0).getPrecioNuevo());
+        assertEquals(new BigDecimal("800.00"), resultado.getMuestra().get(1).getPrecioNuevo()); // 803 -> 800
+        assertEquals(new BigDecimal("500.00"), precio("Galletas"));
+        assertEquals(0, cambioPreciosRepository.count());
+    }
+
+    @Test
+    @DisplayName("Debe aplicar el porcentaje con redondeo por lotes y registrar cada producto")
+    void debeAplicarPorcentajeConRedondeo() {
+        // Given
+        CambioPreciosDTO cambio = cambio(CambioPreciosDTO.Tipo.PORCENTAJE, "12.5", CambioPreciosDTO.Redondeo.CENTENA);
+
+        // When
+        ResultadoCambioPreciosDTO resultado = precioMasivoService.aplicar(cambio);
+
+        // Then
+        assertFalse(resultado.isSimulacion());
+        assertEquals(5, resultado.getAfectados());
+        assertEquals(new BigDecimal("600.00"), precio("Galletas"));       // 562.5
+        assertEquals(new BigDecimal("800.00"), precio("Galletas de Avena")); // 821.25
+        assertEquals(new BigDecimal("1400.00"), precio("Chocolates"));    // 1350 -> 1400
+        assertEquals(new BigDecimal("400.00"), precio("Chocolatinas"));   // 374.6
+
+        List<PrecioCambiadoDTO> detalle = precioMasivoService.obtenerDetalle(resultado.getCambioId(), 100);
+        assertEquals(5, detalle.size());
+        assertEquals(new BigDecimal("500.00"), detalle.get(0).getPrecioAnterior());
+        assertEquals(5L, cambioPreciosRepository.findById(resultado.getCambioId()).orElseThrow().getProductosAfectados());
+    }
+
+    @Test
+    @DisplayName("Debe filtrar por patrón de nombre y estado, y omitir precios que quedarían en cero")
+    void debeFiltrarPorNombreYEstado() {
+        // Given
+        CambioPreciosDTO chocolates = cambio(CambioPreciosDTO.Tipo.MONTO, "-400", CambioPreciosDTO.Redondeo.PESO);
+        chocolates.setPatronNombre("choco*");
+        chocolates.setEstado(CambioPreciosDTO.Estado.DISPONIBLES);
+
+        // When
+        ResultadoCambioPreciosDTO resultado = precioMasivoService.aplicar(chocolates);
+
+        // Then
+        assertEquals(1, resultado.getAfectados());
+        assertEquals(new BigDecimal("800.00"), precio("Chocolates"));
+        assertEquals(new BigDecimal("333.00"), precio("Chocolatinas")); // quedaría negativo
+        assertEquals(new BigDecimal("500.00"), precio("Galletas"));
+    }
+
+    @Test
+    @DisplayName("Debe cerrar el intervalo de precio de cada producto cambiado y abrir el nuevo")
+    void debeRegistrarHistorialDePrecios() {
+        // Given - los productos guardados sin historia la reciben con su precio actual
+        assertEquals(5, historialPrecios.completar());
+        CambioPreciosDTO galletas = cambio(CambioPreciosDTO.Tipo.MONTO, "100", CambioPreciosDTO.Redondeo.PESO);
+        galletas.setPatronNombre("galletas");
+
+        // When
+        precioMasivoService.aplicar(galletas);
+
+        // Then
+        Long id = productoRepository.findByNombreIgnoreCase("Galletas").orElseThrow().getId();
+        List<HistorialPrecio> historial = historialPrecios.obtenerHistorial(id, 10);
+        assertEquals(List.of(new BigDecimal("600.00"), new BigDecimal("500.00")),
+                historial.stream().map(HistorialPrecio::getPrecio).toList());
+        assertNull(historial.get(0).getHasta());
+        assertEquals(historial.get(0).getDesde(), historial.get(1).getHasta());
+        Long arroz = productoRepository.findByNombreIgnoreCase("Arroz").orElseThrow().getId();
+        assertEquals(1, historialPrecios.obtenerHistorial(arroz, 10).size());
+        assertEquals(7, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM historial_precios", Integer.class));
+    }
+
+    @Test
+    @DisplayName("Debe rechazar un porcentaje que deje los precios en cero o negativos")
+    void debeRechazarPorcentajeInvalido() {
+        assertThrows(IllegalArgumentException.class, () -> precioMasivoService.aplicar(
+                cambio(CambioPreciosDTO.Tipo.PORCENTAJE, "-100", CambioPreciosDTO.Redondeo.PESO)));
+    }
+
+    @Test
+    @DisplayName("Debe rechazar un cambio que deje precios de más de 10 dígitos enteros")
+    void debeRechazarPreciosFueraDeLaColumna() {
+        // Given
+        jdbcTemplate.update("UPDATE productos SET precio = 9000000000.00 WHERE nombre = 'Arroz'");
+
+        // When / Then
+        assertThrows(ValidacionException.class, () -> precioMasivoService.aplicar(
+                cambio(CambioPreciosDTO.Tipo.MONTO, "99999999999999", CambioPreciosDTO.Redondeo.PESO)));
+        assertThrows(ValidacionException.class, () -> precioMasivoService.simular(
+                cambio(CambioPreciosDTO.Tipo.PORCENTAJE, "20", CambioPreciosDTO.Redondeo.PESO)));
+        assertThrows(ValidacionException.class, () -> precioMasivoService.aplicar(
+                cambio(CambioPreciosDTO.Tipo.PORCENTAJE, "20", CambioPreciosDTO.Redondeo.PESO)));
+        assertEquals(0, cambioPreciosRepository.count());
+        assertEquals(0, new BigDecimal("500.00").compareTo(precio("Galletas")));
+    }
+
+    @Test
+    @DisplayName("Un cambio que falla a mitad debe quedar registrado con los lotes que se aplicaron")
+    void debeRegistrarCambioInterrumpido() {
+        // Given: la base rechaza precios de 2000 o más, que el tercer producto alcanza en el segundo lote
+        jdbcTemplate.execute("ALTER TABLE productos ADD CONSTRAINT ck_prueba_precio CHECK (precio < 2000)");
+        try {
+            // When
+            assertThrows(RuntimeException.class, () -> precioMasivoService.aplicar(
+                    cambio(CambioPreciosDTO.Tipo.PORCENTAJE, "70", CambioPreciosDTO.Redondeo.PESO)));
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE productos DROP CONSTRAINT ck_prueba_precio");
+        }
+
+        // Then
+        assertEquals(2L, cambioPreciosRepository.findAll().get(0).getProductosAfectados());
+        assertEquals(0, new BigDecimal("850.00").compareTo(precio("Galletas")));
+        assertEquals(0, new BigDecimal("1200.00").compareTo(precio("Chocolates")));
+    }
+
+    private CambioPreciosDTO cambio(CambioPreciosDTO.Tipo tipo, String valor, CambioPreciosDTO.Redondeo redondeo) {
+        CambioPreciosDTO cambio = new CambioPreciosDTO();
+        cambio.setTipo(tipo);
+        cambio.setValor(new BigDecimal(valor));
+        cambio.setRedondeo(redondeo);
+        return cambio;
+    }
+
+    private BigDecimal precio(String nombre) {
+        return productoRepository.findByNombreIgnoreCase(nombre).orElseThrow().getPrecio();
+    }
+}
@@ -0,0 +1,195 @@
+package com.tienda.donarosa;
+
+import com.tienda.donarosa.controller.ProductoApiController;
+import com.tienda.donarosa.dto.ProductoDTO;
+import com.tienda.donarosa.service.ProductoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Pruebas de la API REST de productos
+ * Validan los códigos de estado, la paginación por cursor y la selección de campos
+ * que usan los clientes POS y móviles.
+ */
+@WebMvcTest(ProductoApiController.class)
+@DisplayName("Pruebas de la API REST de Productos")
+class ProductoApiControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ProductoService productoService;
+
+    private ProductoDTO peras;
+    private ProductoDTO limones;
+    private ProductoDTO moras;
+
+    @BeforeEach
+    void setUp() {
+        peras = new ProductoDTO(1L, "Peras", new BigDecimal("4000.00"), 65, 65);
+        limones = new ProductoDTO(2L, "Limones", new BigDecimal("1500.00"), 25, 25);
+        moras = new ProductoDTO(3L, "Moras", new BigDecimal("2000.00"), 30, 30);
+    }
+
+    @Test
+    @DisplayName("Debe paginar productos con cursor")
+    @WithMockUser(username = "dona_rosa", roles = "ADMIN")
+    void debePaginarProductosConCursor() throws Exception {
+        // Given - se piden 2 y el servicio devuelve 3 (hay página siguiente)
+        when(productoService.obtenerPaginaProductos(0L, 3)).thenReturn(Arrays.asList(peras, limones, moras));
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/productos").param("limite", "2"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.datos", hasSize(2)))
+                .andExpect(jsonPath("$.datos[1].nombre").value("Limones"))
+                .andExpect(jsonPath("$.siguiente").isNotEmpty());
+
+        verify(productoService, times(1)).obtenerPaginaProductos(0L, 3);
+    }
+
+    @Test
+    @DisplayName("Debe continuar desde el cursor recibido")
+    @WithMockUser(username = "dona_rosa", roles = "ADMIN")
+    void debeContinuarDesdeElCursor() throws Exception {
+        // Given
+        when(productoService.obtenerPaginaProductos(0L, 3)).thenReturn(Arrays.asList(peras, limones, moras));
+        when(productoService.obtenerPaginaProductos(2L, 3)).thenReturn(List.of(moras));
+
+        String respuesta = mockMvc.perform(get("/api/v1/productos").param("limite", "2"))
+                .andReturn().getResponse().getContentAsString();
+        String cursor = respuesta.replaceAll(".*\"siguiente\":\"([^\"]+)\".*", "$1");
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/productos").param("limite", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.datos", hasSize(1)))
+                .andExpect(jsonPath("$.datos[0].nombre").value("Moras"))
+                .andExpect(jsonPath("$.siguiente").doesNotExist());
+
+        verify(productoService, times(1)).obtenerPaginaProductos(2L, 3);
+    }
+
+    @Test
+    @DisplayName("Debe devolver solo los campos solicitados")
+    @WithMockUser(username = "dona_rosa", roles = "ADMIN")
+    void debeDevolverSoloCamposSolicitados() throws Exception {
+        // Given
+        when(productoService.obtenerProyeccionProducto(1L)).thenReturn(Optional.of(peras));
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/productos/1").param("campos", "id,precio"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.precio").value(4000.00))
+                .andExpect(jsonPath("$.nombre").doesNotExist())
+                .andExpect(jsonPath("$.cantidad").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Debe rechazar campos desconocidos y límites inválidos con 400")
+    @WithMockUser(username = "dona_rosa", roles = "ADMIN")
+    void debeRechazarParametrosInvalidos() throws Exception {
+        mockMvc.perform(get("/api/v1/productos").param("campos", "id,clave"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_PROBLEM_JSON));
+
+        mockMvc.perform(get("/api/v1/productos").param("limite", "0"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/v1/productos").param("cursor", "%%%"))
+                .andExpect(status().isBadRequest());
+
+        verify(productoService, never()).obtenerPaginaProductos(anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Un argumento inválido inesperado debe responder 500 sin mostrar su mensaje")
+    @WithMockUser(username = "dona_rosa", roles = "ADMIN")
+    void debeOcultarArgumentoInvalidoInesperado() throws Exception {
+        // Given
+        when(productoService.obtenerProyeccionProducto(7L)).thenThrow(new IllegalArgumentException("detalle interno"));
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/productos/7"))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.detail").value("Error interno"));
+    }
+
+    @Test
+    @DisplayName("Debe devolver 404 si el producto no existe")
+    @WithMockUser(username = "dona_rosa", roles = "ADMIN")
+    void debeDevolver404SiProductoNoExiste() throws Exception {
+        // Given
+        when(productoService.obtenerProyeccionProducto(999L)).thenReturn(Optional.empty());
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/productos/999"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Debe obtener productos por lote e informar los no encontrados")
+    @WithMockUser(username = "dona_rosa", roles = "ADMIN")
+    void debeObtenerProductosPorLote() throws Exception {
+        // Given
+        when(productoService.obtenerProyeccionesProductos(any())).thenReturn(Arrays.asList(peras, moras));
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/productos/lote").param("ids", "1,3,999"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.datos", hasSize(2)))
+                .andExpect(jsonPath("$.noEncontrados[0]").value(999));
+    }
+
+    @Test
+    @DisplayName("Debe actualizar cantidad con 204 y responder 404 o 400 según el caso")
+    @WithMockUser(username = "dona_rosa", roles = "ADMIN")
+    void debeActualizarCantidadConCodigosDeEstado() throws Exception {
+        // Given
+        when(productoService.actualizarCantidadProducto(1L, 45)).thenReturn(true);
+        when(productoService.actualizarCantidadProducto(999L, 10)).thenReturn(false);
+
+        // When & Then
+        mockMvc.perform(put("/api/v1/productos/1/cantidad").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"cantidad\": 45}"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(put("/api/v1/productos/999/cantidad").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"cantidad\": 10}"))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(put("/api/v1/productos/1/cantidad").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"cantidad\": -5}"))
+                .andExpect(status().isBadRequest());
+
+        verify(productoService, never()).actualizarCantidadProducto(eq(1L), eq(-5));
+    }
+}
@@ -0,0 +1,128 @@
+package com.tienda.donarosa;
+
+import com.tienda.donarosa.config.CacheConfig;
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.repository.ProductoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del caché de segundo nivel y del caché de consultas
+ * Cada operación confirma su propia transacción, como en la aplicación,
+ * para validar que las lecturas repetidas no van a la base de datos
+ * y que toda escritura invalida los resultados guardados.
+ */
+@DataJpaTest
+@Import(CacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Pruebas del Caché de Productos")
+class ProductoCacheTest {
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics estadisticas;
+    private Producto peras;
+    private Producto uvas;
+
+    @BeforeEach
+    void setUp() {
+        productoRepository.deleteAll();
+        peras = productoRepository.save(new Producto("Peras", new BigDecimal("4000.00"), 65));
+        uvas = productoRepository.save(new Producto("Uvas", new BigDecimal("2500.00"), 0));
+
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+    }
+
+    @Test
+    @DisplayName("Debe servir findById desde el caché de segundo nivel")
+    void debeServirFindByIdDesdeCache() {
+        // When
+        productoRepository.findById(peras.getId());
+        long sentenciasTrasPrimeraLectura = estadisticas.getPrepareStatementCount();
+        Producto leido = productoRepository.findById(peras.getId()).orElseThrow();
+
+        // Then
+        assertEquals("Peras", leido.getNombre());
+        assertEquals(sentenciasTrasPrimeraLectura, estadisticas.getPrepareStatementCount());
+        assertTrue(estadisticas.getSecondLevelCacheHitCount() >= 1);
+    }
+
+    @Test
+    @DisplayName("Debe cachear los reportes e invalidarlos al guardar un producto")
+    void debeCachearReportesEInvalidarlosAlGuardar() {
+        // When - dos lecturas del mismo reporte
+        assertEquals(1, productoRepository.findByCantidadEquals(0).size());
+        assertEquals(1, productoRepository.findByCantidadEquals(0).size());
+
+        // Then
+        assertEquals(1, estadisticas.getQueryCacheHitCount());
+
+        // When - se agota otro producto
+        peras.setCantidad(0);
+        productoRepository.save(peras);
+        List<Producto> agotados = productoRepository.findByCantidadEquals(0);
+
+        // Then - el resultado anterior se descarta
+        assertEquals(2, agotados.size());
+        assertEquals(1, estadisticas.getQueryCacheHitCount());
+    }
+
+    @Test
+    @DisplayName("Debe invalidar caché de entidades y de consultas con UPDATE JPQL")
+    void debeInvalidarCacheConUpdateJpql() {
+        // Given - entidad y reporte en caché
+        productoRepository.findById(uvas.getId());
+        productoRepository.findByCantidadEquals(0);
+
+        // When - actualización masiva fuera de las entidades
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                entityManager.createQuery("UPDATE Producto p SET p.cantidad = 10 WHERE p.cantidad = 0")
+                        .executeUpdate());
+
+        // Then
+        assertTrue(productoRepository.findByCantidadEquals(0).isEmpty());
+        assertEquals(10, productoRepository.findById(uvas.getId()).orElseThrow().getCantidad());
+    }
+
+    @Test
+    @DisplayName("Debe invalidar el caché al eliminar un producto")
+    void debeInvalidarCacheAlEliminar() {
+        // Given
+        assertEquals(1, productoRepository.findByCantidadEquals(0).size());
+
+        // When
+        productoRepository.deleteById(uvas.getId());
+
+        // Then
+        assertTrue(productoRepository.findByCantidadEquals(0).isEmpty());
+        assertFalse(productoRepository.findById(uvas.getId()).isPresent());
+    }
+}
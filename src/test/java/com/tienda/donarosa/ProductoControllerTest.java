@@ -190,6 +190,16 @@ class ProductoControllerTest {
                 .andExpect(view().name("productos/formulario"))
                 .andExpect(model().hasErrors());
 
+        // When & Then - Precio con fracciones de centavo (no se redondea)
+        mockMvc.perform(post("/productos/nuevo")
+                        .with(csrf())
+                        .param("nombre", "ProductoTest")
+                        .param("precio", "1.005")
+                        .param("cantidad", "10"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("productos/formulario"))
+                .andExpect(model().attributeHasFieldErrorCode("producto", "precio", "Digits"));
+
         // When & Then - Cantidad negativa
         mockMvc.perform(post("/productos/nuevo")
                         .with(csrf())
@@ -1,5 +1,6 @@
 package com.tienda.donarosa;
 
+import com.tienda.donarosa.dto.ProductoDTO;
 import com.tienda.donarosa.model.Producto;
 import com.tienda.donarosa.repository.ProductoRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,6 +9,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -279,4 +281,35 @@ class ProductoRepositoryTest {
         assertEquals(new BigDecimal("3000.00"), productoAgotandose.getValorTotal()); // 3000 * 1
         assertEquals(new BigDecimal("0.00"), productoAgotado.getValorTotal()); // 2500 * 0
     }
+
+    @Test
+    @DisplayName("Debe paginar proyecciones por cursor en orden de ID")
+    void debePaginarProyeccionesPorCursor() {
+        // When
+        List<ProductoDTO> primeraPagina = productoRepository.findPaginaDespuesDe(0L, Limit.of(2));
+        List<ProductoDTO> segundaPagina = productoRepository.findPaginaDespuesDe(primeraPagina.get(1).getId(), Limit.of(2));
+
+        // Then
+        assertEquals(2, primeraPagina.size());
+        assertEquals("Peras", primeraPagina.get(0).getNombre());
+        assertEquals("Limones", primeraPagina.get(1).getNombre());
+
+        assertEquals(2, segundaPagina.size());
+        assertEquals("Fresas", segundaPagina.get(0).getNombre());
+        assertEquals("Uvas", segundaPagina.get(1).getNombre());
+        assertEquals(new BigDecimal("2500.00"), segundaPagina.get(1).getPrecio());
+    }
+
+    @Test
+    @DisplayName("Debe obtener proyecciones por lote de IDs")
+    void debeObtenerProyeccionesPorLote() {
+        // When
+        List<ProductoDTO> resultado = productoRepository.findProyeccionesByIdIn(
+                List.of(producto2.getId(), productoAgotado.getId(), -1L));
+
+        // Then
+        assertEquals(2, resultado.size());
+        assertEquals("Limones", resultado.get(0).getNombre());
+        assertEquals(0, resultado.get(1).getCantidad());
+    }
 }
@@ -1,24 +1,38 @@
 package com.tienda.donarosa;
 
+import com.tienda.donarosa.auditoria.AuditoriaService;
+import com.tienda.donarosa.busqueda.AutocompletadoService;
+import com.tienda.donarosa.busqueda.BusquedaService;
+import com.tienda.donarosa.existencias.EscrituraDiferidaService;
 import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.model.TipoMovimiento;
 import com.tienda.donarosa.repository.ProductoRepository;
+import com.tienda.donarosa.service.ArchivoProductosService;
+import com.tienda.donarosa.service.HistorialPreciosService;
+import com.tienda.donarosa.service.InventarioColumnarService;
+import com.tienda.donarosa.service.LecturasCompartidas;
+import com.tienda.donarosa.service.MovimientoService;
 import com.tienda.donarosa.service.ProductoService;
 import com.tienda.donarosa.service.ProductoServiceImpl;
+import com.tienda.donarosa.service.ResumenCategoriasService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
@@ -34,6 +48,36 @@ class ProductoServiceTest {
     @Mock
     private ProductoRepository productoRepository;
 
+    @Mock
+    private MovimientoService movimientoService;
+
+    @Mock
+    private AuditoriaService auditoriaService;
+
+    @Mock
+    private InventarioColumnarService inventarioColumnarService;
+
+    @Mock
+    private BusquedaService busquedaService;
+
+    @Mock
+    private AutocompletadoService autocompletadoService;
+
+    @Mock
+    private EscrituraDiferidaService escrituraDiferida;
+
+    @Mock
+    private ArchivoProductosService archivoProductos;
+
+    @Mock
+    private ResumenCategoriasService resumenCategorias;
+
+    @Mock
+    private HistorialPreciosService historialPrecios;
+
+    @Spy
+    private LecturasCompartidas lecturasCompartidas = new LecturasCompartidas(Duration.ZERO);
+
     @InjectMocks
     private ProductoServiceImpl productoService;
 
@@ -116,7 +160,7 @@ class ProductoServiceTest {
         Producto productoActualizado = new Producto("Peras", new BigDecimal("4500.00"), 70);
         productoActualizado.setId(1L);
 
-        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto1));
+        when(productoRepository.findParaActualizar(1L)).thenReturn(Optional.of(producto1));
         when(productoRepository.save(any(Producto.class))).thenReturn(productoActualizado);
 
         // When
@@ -125,8 +169,9 @@ class ProductoServiceTest {
         // Then
         assertNotNull(resultado);
         assertEquals(new BigDecimal("4500.00"), resultado.getPrecio());
-        verify(productoRepository, times(1)).findById(1L);
+        verify(productoRepository, times(1)).findParaActualizar(1L);
         verify(productoRepository, times(1)).save(any(Producto.class));
+        verify(movimientoService, times(1)).registrar(producto1, TipoMovimiento.AJUSTE, 5);
     }
 
     @Test
@@ -135,7 +180,7 @@ class ProductoServiceTest {
         // Given
         Producto productoInexistente = new Producto("Producto Inexistente", new BigDecimal("1000.00"), 10);
         productoInexistente.setId(999L);
-        when(productoRepository.findById(999L)).thenReturn(Optional.empty());
+        when(productoRepository.findParaActualizar(999L)).thenReturn(Optional.empty());
 
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -143,7 +188,7 @@ class ProductoServiceTest {
         });
 
         assertEquals("Producto no encontrado con ID: 999", exception.getMessage());
-        verify(productoRepository, times(1)).findById(999L);
+        verify(productoRepository, times(1)).findParaActualizar(999L);
         verify(productoRepository, never()).save(any(Producto.class));
     }
 
@@ -151,22 +196,24 @@ class ProductoServiceTest {
     @DisplayName("Debe eliminar un producto correctamente")
     void debeEliminarProductoCorrectamente() {
         // Given
-        when(productoRepository.existsById(1L)).thenReturn(true);
-        doNothing().when(productoRepository).deleteById(1L);
+        when(productoRepository.findParaActualizar(1L)).thenReturn(Optional.of(producto1));
 
         // When
         assertDoesNotThrow(() -> productoService.eliminarProducto(1L));
 
         // Then
-        verify(productoRepository, times(1)).existsById(1L);
-        verify(productoRepository, times(1)).deleteById(1L);
+        verify(productoRepository, times(1)).findParaActualizar(1L);
+        verify(productoRepository, times(1)).save(producto1);
+        verify(productoRepository, never()).delete(any(Producto.class));
+        assertTrue(producto1.estaEliminado());
+        verify(movimientoService, times(1)).registrar(producto1, TipoMovimiento.BAJA, -65);
     }
 
     @Test
     @DisplayName("Debe lanzar excepción al eliminar producto inexistente")
     void debeLanzarExcepcionAlEliminarProductoInexistente() {
         // Given
-        when(productoRepository.existsById(999L)).thenReturn(false);
+        when(productoRepository.findParaActualizar(999L)).thenReturn(Optional.empty());
 
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -174,8 +221,8 @@ class ProductoServiceTest {
         });
 
         assertEquals("Producto no encontrado con ID: 999", exception.getMessage());
-        verify(productoRepository, times(1)).existsById(999L);
-        verify(productoRepository, never()).deleteById(anyLong());
+        verify(productoRepository, times(1)).findParaActualizar(999L);
+        verify(productoRepository, never()).delete(any(Producto.class));
     }
 
     @Test
@@ -252,7 +299,7 @@ class ProductoServiceTest {
     @DisplayName("Debe actualizar la cantidad de un producto correctamente")
     void debeActualizarCantidadProducto() {
         // Given
-        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto1));
+        when(productoRepository.findParaActualizar(1L)).thenReturn(Optional.of(producto1));
         when(productoRepository.save(any(Producto.class))).thenReturn(producto1);
 
         // When
@@ -261,8 +308,38 @@ class ProductoServiceTest {
         // Then
         assertTrue(resultado);
         assertEquals(50, producto1.getCantidad());
-        verify(productoRepository, times(1)).findById(1L);
+        verify(productoRepository, times(1)).findParaActualizar(1L);
         verify(productoRepository, times(1)).save(producto1);
+        verify(movimientoService, times(1)).registrar(producto1, TipoMovimiento.VENTA, -15);
+    }
+
+    @Test
+    @DisplayName("Debe registrar una venta y descontar la cantidad")
+    void debeRegistrarVenta() {
+        // Given
+        when(productoRepository.findParaActualizar(2L)).thenReturn(Optional.of(producto2));
+
+        // When
+        boolean resultado = productoService.registrarVenta(2L, 5);
+
+        // Then
+        assertTrue(resultado);
+        assertEquals(20, producto2.getCantidad());
+        verify(movimientoService, times(1)).registrar(producto2, TipoMovimiento.VENTA, -5);
+        verify(productoRepository, times(1)).save(producto2);
+    }
+
+    @Test
+    @DisplayName("Debe rechazar una venta mayor al stock disponible")
+    void debeRechazarVentaMayorAlStock() {
+        // Given
+        when(productoRepository.findParaActualizar(3L)).thenReturn(Optional.of(productoAgotandose));
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> productoService.registrarVenta(3L, 2));
+        assertEquals(1, productoAgotandose.getCantidad());
+        verify(movimientoService, never()).registrar(any(), any(), anyInt());
+        verify(productoRepository, never()).save(any(Producto.class));
     }
 
     @Test
@@ -274,7 +351,7 @@ class ProductoServiceTest {
         });
 
         assertEquals("La cantidad no puede ser negativa", exception.getMessage());
-        verify(productoRepository, never()).findById(anyLong());
+        verify(productoRepository, never()).findParaActualizar(anyLong());
         verify(productoRepository, never()).save(any(Producto.class));
     }
 
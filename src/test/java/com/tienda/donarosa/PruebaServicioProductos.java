@@ -0,0 +1,38 @@
+package com.tienda.donarosa;
+
+import com.tienda.donarosa.auditoria.AuditoriaService;
+import com.tienda.donarosa.busqueda.AutocompletadoService;
+import com.tienda.donarosa.busqueda.BusquedaService;
+import com.tienda.donarosa.existencias.EscrituraDiferidaService;
+import com.tienda.donarosa.service.ArchivoProductosService;
+import com.tienda.donarosa.service.HistorialPreciosService;
+import com.tienda.donarosa.service.InventarioColumnarService;
+import com.tienda.donarosa.service.LecturasCompartidas;
+import com.tienda.donarosa.service.MovimientoService;
+import com.tienda.donarosa.service.ProductoServiceImpl;
+import com.tienda.donarosa.service.ReporteVentasService;
+import com.tienda.donarosa.service.ResumenCategoriasService;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Prueba de JPA con ProductoServiceImpl y todos sus colaboradores reales.
+ * Las clases con esta anotación (y las mismas propiedades) comparten el contexto
+ * de Spring; un colaborador nuevo del servicio se agrega solo aquí.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@DataJpaTest
+@Import({ProductoServiceImpl.class, MovimientoService.class, ReporteVentasService.class, AuditoriaService.class,
+        InventarioColumnarService.class, LecturasCompartidas.class, BusquedaService.class, AutocompletadoService.class,
+        EscrituraDiferidaService.class, ArchivoProductosService.class, ResumenCategoriasService.class,
+        HistorialPreciosService.class})
+public @interface PruebaServicioProductos {
+}
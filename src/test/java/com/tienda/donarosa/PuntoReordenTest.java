@@ -0,0 +1,122 @@
+package com.tienda.donarosa;
+
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.repository.ProductoRepository;
+import com.tienda.donarosa.repository.VentaDiariaRepository;
+import com.tienda.donarosa.service.InventarioColumnarService;
+import com.tienda.donarosa.service.LecturasCompartidas;
+import com.tienda.donarosa.service.PuntoReordenService;
+import com.tienda.donarosa.service.ResumenCategoriasService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del cálculo de puntos de reorden con la demanda real
+ * Se usa un lote pequeño para que el cálculo se guarde en varias transacciones.
+ */
+@DataJpaTest
+@Import({PuntoReordenService.class, InventarioColumnarService.class, LecturasCompartidas.class,
+        ResumenCategoriasService.class})
+@TestPropertySource(properties = {"tienda.reorden.lote=2", "tienda.reorden.paralelismo=2"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Pruebas del Punto de Reorden")
+class PuntoReordenTest {
+
+    private static final LocalDate HOY = LocalDate.of(2024, 3, 29);
+
+    @Autowired
+    private PuntoReordenService puntoReordenService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private VentaDiariaRepository ventaDiariaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Producto galletas;
+    private Producto arroz;
+    private Producto fresas;
+
+    @BeforeEach
+    void setUp() {
+        ventaDiariaRepository.deleteAllInBatch();
+        productoRepository.deleteAll();
+
+        galletas = crear("Galletas", 20, 100);  // 20% restante, pero se venden 8 por día
+        arroz = crear("Arroz", 50, 60);         // se vende 1 por día
+        fresas = crear("Fresas", 5, 100);       // sin ventas: aplica la regla del 10%
+
+        for (int dia = 1; dia <= 28; dia++) {
+            vender(galletas, HOY.minusDays(dia), 8);
+            vender(arroz, HOY.minusDays(dia), 1);
+        }
+        vender(arroz, HOY, 30); // las ventas del día en curso no cuentan
+    }
+
+    @Test
+    @DisplayName("Debe guardar el punto de reorden y los días de cobertura según la demanda")
+    void debeCalcularPuntoDeReorden() {
+        // When
+        int actualizados = puntoReordenService.recalcular(HOY);
+
+        // Then
+        assertEquals(3, actualizados);
+        Producto g = productoRepository.findById(galletas.getId()).orElseThrow();
+        assertEquals(24, g.getPuntoReorden());          // 8 por día x 3 días de entrega, sin variación
+        assertEquals(8.0, g.getDemandaDiaria(), 0.0001);
+        assertEquals(2.5, g.getDiasCobertura(), 0.0001);
+
+        Producto a = productoRepository.findById(arroz.getId()).orElseThrow();
+        assertEquals(3, a.getPuntoReorden());
+        assertEquals(50.0, a.getDiasCobertura(), 0.0001);
+
+        assertNull(productoRepository.findById(fresas.getId()).orElseThrow().getPuntoReorden());
+    }
+
+    @Test
+    @DisplayName("Los reportes de stock bajo deben usar el punto de reorden calculado")
+    void debeUsarPuntoDeReordenEnReportes() {
+        // Given
+        assertEquals(List.of("Fresas"), nombresCercaDeAgotarse());
+
+        // When
+        puntoReordenService.recalcular(HOY);
+
+        // Then
+        assertEquals(List.of("Fresas", "Galletas"), nombresCercaDeAgotarse());
+    }
+
+    private List<String> nombresCercaDeAgotarse() {
+        return productoRepository.findProductosCercaDeAgotarse().stream()
+                .map(Producto::getNombre).sorted().toList();
+    }
+
+    private Producto crear(String nombre, int cantidad, int cantidadInicial) {
+        Producto producto = new Producto(nombre, new BigDecimal("1000.00"), cantidad);
+        producto.setCantidadInicial(cantidadInicial);
+        return productoRepository.save(producto);
+    }
+
+    private void vender(Producto producto, LocalDate dia, long unidades) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(estado -> ventaDiariaRepository.sumarVenta(
+                "principal", producto.getId(), dia, unidades, producto.getPrecio().multiply(BigDecimal.valueOf(unidades))));
+    }
+}
@@ -0,0 +1,146 @@
+package com.tienda.donarosa;
+
+import com.tienda.donarosa.dto.VentaResumenDTO;
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.repository.ProductoRepository;
+import com.tienda.donarosa.service.ProductoService;
+import com.tienda.donarosa.service.PurgaProductosService;
+import com.tienda.donarosa.service.ReporteVentasService;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la baja lógica de productos y de su purga
+ */
+@PruebaServicioProductos
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Pruebas de la Baja Lógica y la Purga de Productos")
+class PurgaProductosTest {
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ReporteVentasService reporteVentasService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    @AfterEach
+    void limpiar() {
+        // Las operaciones se confirman y la base se comparte con otras pruebas
+        for (String tabla : List.of("ventas_semanales", "ventas_diarias", "movimientos", "productos")) {
+            jdbcTemplate.update("DELETE FROM " + tabla);
+        }
+    }
+
+    @Test
+    @DisplayName("Debe ocultar el producto eliminado sin perder su historia ni su nombre")
+    void debeOcultarProductoEliminado() {
+        // Given
+        Producto peras = productoService.guardarProducto(new Producto("Peras", new BigDecimal("4000.00"), 65));
+        productoService.guardarProducto(new Producto("Uvas", new BigDecimal("2500.00"), 10));
+        productoService.registrarVenta(peras.getId(), 5);
+        assertTrue(productoService.obtenerProductoPorId(peras.getId()).isPresent());
+
+        // When
+        productoService.eliminarProducto(peras.getId());
+
+        // Then: ni por ID (caché de segundo nivel), ni en las consultas, ni en la búsqueda
+        assertFalse(productoService.obtenerProductoPorId(peras.getId()).isPresent());
+        assertEquals(1, productoRepository.findAll().size());
+        assertTrue(productoRepository.findByNombreIgnoreCase("peras").isEmpty());
+        assertTrue(productoService.buscarProductosPorNombre("peras").isEmpty());
+        assertFalse(productoService.actualizarCantidadProducto(peras.getId(), 3));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM productos WHERE id = ? AND eliminado_en IS NOT NULL", Integer.class, peras.getId()));
+
+        // Los reportes de historia siguen mostrando el nombre
+        List<VentaResumenDTO> masVendidos = reporteVentasService.obtenerMasVendidosSemana(LocalDate.now(), 10);
+        assertEquals("Peras", masVendidos.get(0).getNombre());
+
+        // Y el nombre se puede volver a usar
+        Producto nuevas = productoService.guardarProducto(new Producto("Peras", new BigDecimal("4100.00"), 20));
+        assertNotEquals(peras.getId(), nuevas.getId());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM productos WHERE eliminado_en IS NOT NULL", Integer.class));
+    }
+
+    @Test
+    @DisplayName("Debe purgar por lotes solo los productos eliminados antes de la retención")
+    void debePurgarPorLotes() {
+        // Given
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Long id = productoService.guardarProducto(new Producto("Producto " + i, new BigDecimal("100.00"), 3)).getId();
+            productoService.eliminarProducto(id);
+            ids.add(id);
+        }
+        jdbcTemplate.update("UPDATE productos SET eliminado_en = DATEADD(DAY, -10, CURRENT_TIMESTAMP) WHERE id IN (?, ?, ?)",
+                ids.get(0), ids.get(1), ids.get(2));
+        PurgaProductosService purga = new PurgaProductosService(jdbcTemplate, Duration.ofDays(7), 2, Duration.ZERO,
+                Duration.ofSeconds(1));
+
+        // When
+        int purgados = purga.purgar(LocalDateTime.now());
+
+        // Then
+        assertEquals(3, purgados);
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM productos", Integer.class));
+        assertEquals(5, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM movimientos WHERE tipo = 'BAJA' AND producto_id IN (?, ?, ?, ?, ?)", Integer.class,
+                ids.toArray()));
+        // La base de pruebas está en memoria: no hay archivo que compactar
+        assertEquals(-1, purga.compactar());
+    }
+
+    @Test
+    @DisplayName("Debe achicar el archivo de H2 después de borrar muchas filas")
+    void debeCompactarArchivo() throws Exception {
+        // Given
+        Path archivo = Path.of("target/pruebas/compactacion.mv.db");
+        Files.deleteIfExists(archivo);
+        JdbcDataSource h2 = new JdbcDataSource();
+        // Abierta hasta el SHUTDOWN: al cerrarse, H2 ya compacta un poco por su cuenta
+        h2.setURL("jdbc:h2:file:./target/pruebas/compactacion;DB_CLOSE_DELAY=-1");
+        JdbcTemplate archivoTemplate = new JdbcTemplate(h2);
+        archivoTemplate.execute("CREATE TABLE relleno (id BIGINT PRIMARY KEY, texto VARCHAR(200))");
+        archivoTemplate.update("INSERT INTO relleno SELECT X, REPEAT('x', 200) FROM SYSTEM_RANGE(1, 100000)");
+        archivoTemplate.update("DELETE FROM relleno");
+        archivoTemplate.execute("CHECKPOINT");
+        PurgaProductosService purga = new PurgaProductosService(archivoTemplate, Duration.ofDays(7), 500, Duration.ZERO,
+                Duration.ofSeconds(5));
+
+        try {
+            // When
+            long liberados = purga.compactar();
+
+            // Then
+            assertTrue(liberados > 0, "Bytes liberados: " + liberados);
+        } finally {
+            archivoTemplate.execute("SHUTDOWN");
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.tienda.donarosa;
+
+import com.tienda.donarosa.config.MonedaDialect;
+import com.tienda.donarosa.controller.ProductoController;
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.service.ProductoService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.thymeleaf.expression.Numbers;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pruebas del costo de mostrar el inventario: los campos calculados de cada
+ * fila (valor total, porcentaje, si está por agotarse) se calculan con
+ * centavos en long y una sola vez por fila.
+ *
+ * El benchmark de renderizado imprime los bytes asignados por fila de la lista
+ * de productos para compararlos entre versiones.
+ */
+@WebMvcTest(ProductoController.class)
+@WithMockUser(username = "dona_rosa", roles = "ADMIN")
+@DisplayName("Pruebas del Renderizado de Productos")
+class RenderizadoProductosTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RenderizadoProductosTest.class);
+
+    private static final int FILAS_BENCHMARK = 2_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ProductoService productoService;
+
+    @Test
+    @DisplayName("Debe calcular los campos derivados una sola vez por fila")
+    void debeCalcularCamposDerivadosUnaVezPorFila() throws Exception {
+        // Given
+        ProductoContado peras = new ProductoContado("Peras", "4000.00", 65);
+        ProductoContado uvas = new ProductoContado("Uvas", "2500.50", 1);
+        uvas.setCantidadInicial(20);
+        when(productoService.obtenerTodosLosProductos()).thenReturn(List.of(peras, uvas));
+
+        // When
+        mockMvc.perform(get("/productos"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("260,000")))
+                .andExpect(content().string(containsString("2,500")));
+
+        // Then
+        for (ProductoContado producto : List.of(peras, uvas)) {
+            assertEquals(1, producto.llamadasCercaDeAgotarse);
+            assertEquals(1, producto.llamadasValorTotal);
+        }
+    }
+
+    @Test
+    @DisplayName("Debe formatear los centavos igual que #numbers.formatDecimal")
+    void debeFormatearIgualQueNumbers() {
+        // Given
+        Numbers numbers = new Numbers(Locale.ROOT);
+        MonedaDialect.Formato moneda = new MonedaDialect.Formato();
+
+        // When & Then
+        for (String valor : List.of("0.00", "0.49", "0.50", "1.50", "2.50", "999.99", "1000.00",
+                "4000.37", "123456.51", "99999999.99", "-1234.56")) {
+            BigDecimal pesos = new BigDecimal(valor);
+            assertEquals(numbers.formatDecimal(pesos, 0, "COMMA", 0, "POINT"),
+                    moneda.pesos(Producto.aCentavos(pesos)), valor);
+        }
+    }
+
+    @Test
+    @DisplayName("No debe asignar memoria al calcular los campos derivados")
+    void noDebeAsignarMemoriaEnCamposDerivados() {
+        // Given
+        Producto producto = crear(1, "Peras", "4000.37", 65, 650);
+        calcularDerivados(producto, 200_000);
+
+        // When
+        long antes = bytesAsignados();
+        long resultado = calcularDerivados(producto, 1_000_000);
+        long asignados = bytesAsignados() - antes;
+
+        // Then
+        assertTrue(resultado > 0);
+        assertTrue(asignados < 16 * 1024, "Se asignaron " + asignados + " bytes");
+    }
+
+    @Test
+    @DisplayName("Benchmark: bytes asignados por fila al mostrar la lista de productos")
+    @Tag("rendimiento")
+    void benchmarkRenderizadoDeLaLista() throws Exception {
+        // Given
+        List<Producto> productos = new ArrayList<>(FILAS_BENCHMARK);
+        for (int i = 1; i <= FILAS_BENCHMARK; i++) {
+            productos.add(crear(i, "Producto " + i, (i % 5000) + ".99", i % 50, 50));
+        }
+        when(productoService.obtenerTodosLosProductos()).thenReturn(productos);
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(get("/productos")).andExpect(status().isOk());
+        }
+
+        // When
+        int repeticiones = 5;
+        long antes = bytesAsignados();
+        long inicio = System.nanoTime();
+        for (int i = 0; i < repeticiones; i++) {
+            mockMvc.perform(get("/productos")).andExpect(status().isOk());
+        }
+        long nanos = System.nanoTime() - inicio;
+        long porFila = (bytesAsignados() - antes) / ((long) repeticiones * FILAS_BENCHMARK);
+
+        // Then
+        log.info("Lista de {} productos: {} bytes asignados por fila, {} ms por página",
+                FILAS_BENCHMARK, porFila, String.format("%.1f", nanos / 1e6 / repeticiones));
+        assertTrue(porFila > 0);
+    }
+
+    /**
+     * Cuenta las llamadas de la plantilla (un spy de Mockito instrumentaría la
+     * clase Producto y alteraría la medición de memoria)
+     */
+    private static class ProductoContado extends Producto {
+
+        int llamadasCercaDeAgotarse;
+        int llamadasValorTotal;
+
+        ProductoContado(String nombre, String precio, int cantidad) {
+            super(nombre, new BigDecimal(precio), cantidad);
+        }
+
+        @Override
+        public boolean estaCercaDeAgotarse() {
+            llamadasCercaDeAgotarse++;
+            return super.estaCercaDeAgotarse();
+        }
+
+        @Override
+        public long getValorTotalCentavos() {
+            llamadasValorTotal++;
+            return super.getValorTotalCentavos();
+        }
+    }
+
+    private static long calcularDerivados(Producto producto, int veces) {
+        long acumulado = 0;
+        for (int i = 0; i < veces; i++) {
+            acumulado += producto.getValorTotalCentavos();
+            acumulado += (long) producto.getPorcentajeRestante();
+            acumulado += producto.estaCercaDeAgotarse() ? 1 : 0;
+        }
+        return acumulado;
+    }
+
+    private static long bytesAsignados() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    private static Producto crear(long id, String nombre, String precio, int cantidad, int cantidadInicial) {
+        Producto producto = new Producto(nombre, new BigDecimal(precio), cantidad);
+        producto.setId(id);
+        producto.setCantidadInicial(cantidadInicial);
+        return producto;
+    }
+}
@@ -0,0 +1,215 @@
+package com.tienda.donarosa;
+
+import com.tienda.donarosa.dto.RespaldoDTO;
+import com.tienda.donarosa.dto.RestauracionDTO;
+import com.tienda.donarosa.multitienda.MultitiendaProperties;
+import com.tienda.donarosa.respaldo.RespaldoService;
+import com.tienda.donarosa.service.ValidacionException;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de los respaldos en línea sobre una base H2 en archivo
+ */
+@DisplayName("Pruebas de los Respaldos")
+class RespaldoTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RespaldoTest.class);
+
+    private static final Path PRUEBAS = Path.of("target/pruebas/respaldo");
+
+    private JdbcTemplate jdbcTemplate;
+    private RespaldoService respaldoService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        borrar(PRUEBAS);
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:file:./" + PRUEBAS + "/base/tienda;DB_CLOSE_DELAY=-1");
+        h2.setUser("sa");
+        h2.setPassword("");
+        jdbcTemplate = new JdbcTemplate(h2);
+        jdbcTemplate.execute("CREATE TABLE productos (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "tienda_id VARCHAR(40) NOT NULL, nombre VARCHAR(100) NOT NULL, precio DECIMAL(12,2), " +
+                "cantidad INT NOT NULL, eliminado_en TIMESTAMP, actualizado_en TIMESTAMP, UNIQUE (tienda_id, nombre))");
+        jdbcTemplate.execute("CREATE TABLE movimientos (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "tienda_id VARCHAR(40) NOT NULL, producto_id BIGINT NOT NULL, cantidad INT NOT NULL, fecha TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE historial_precios (id BIGINT GENERATED BY DEFAULT AS IDENTITY " +
+                "PRIMARY KEY, tienda_id VARCHAR(40) NOT NULL, producto_id BIGINT NOT NULL, precio DECIMAL(12,2) NOT NULL, " +
+                "desde TIMESTAMP NOT NULL, hasta TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE productos_archivados (id BIGINT PRIMARY KEY, tienda_id VARCHAR(40), " +
+                "nombre VARCHAR(100), archivado_en TIMESTAMP NOT NULL)");
+        jdbcTemplate.update("INSERT INTO productos (tienda_id, nombre, precio, cantidad, actualizado_en) " +
+                "SELECT 'principal', 'Producto ' || X, 1000.50, 10, LOCALTIMESTAMP FROM SYSTEM_RANGE(1, 2000)");
+        jdbcTemplate.update("INSERT INTO movimientos (tienda_id, producto_id, cantidad, fecha) " +
+                "SELECT 'principal', id, 10, LOCALTIMESTAMP FROM productos");
+        respaldoService = new RespaldoService(jdbcTemplate, new DataSourceTransactionManager(h2),
+                new MultitiendaProperties(List.of(), Map.of()), PRUEBAS + "/respaldos", 2, Duration.ofMinutes(5),
+                "sa", "");
+    }
+
+    @AfterEach
+    void cerrar() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    @DisplayName("Debe restaurar el respaldo completo más los incrementales sin detener las escrituras")
+    void debeRestaurarCompletoEIncrementales() throws Exception {
+        // Given: una caja vendiendo mientras corre el respaldo completo
+        AtomicBoolean vendiendo = new AtomicBoolean(true);
+        AtomicLong ventas = new AtomicLong();
+        AtomicLong peorEscrituraNanos = new AtomicLong();
+        Thread caja = new Thread(() -> {
+            while (vendiendo.get()) {
+                long inicio = System.nanoTime();
+                long id = 1 + ventas.get() % 2000;
+                jdbcTemplate.update("INSERT INTO movimientos (tienda_id, producto_id, cantidad, fecha) " +
+                        "VALUES ('principal', ?, -1, LOCALTIMESTAMP)", id);
+                jdbcTemplate.update("UPDATE productos SET cantidad = cantidad - 1, actualizado_en = LOCALTIMESTAMP " +
+                        "WHERE id = ?", id);
+                peorEscrituraNanos.accumulateAndGet(System.nanoTime() - inicio, Math::max);
+                ventas.incrementAndGet();
+            }
+        });
+        caja.start();
+
+        // When
+        RespaldoDTO completo;
+        long ventasAlTerminar;
+        try {
+            completo = respaldoService.respaldarCompleto();
+            ventasAlTerminar = ventas.get();
+            Thread.sleep(50);
+        } finally {
+            vendiendo.set(false);
+            caja.join();
+        }
+        log.info("Respaldo completo: {} KB en {} ms; {} ventas durante la copia, la más lenta {} ms",
+                completo.getBytes() / 1024, completo.getDuracionMs(), ventasAlTerminar,
+                String.format("%.1f", peorEscrituraNanos.get() / 1e6));
+        // Cambios después del completo: un producto nuevo, una baja lógica y un nombre reutilizado
+        // (como al guardar, el eliminado se borra antes de dar de alta otro con su nombre)
+        jdbcTemplate.update("UPDATE productos SET eliminado_en = LOCALTIMESTAMP, actualizado_en = LOCALTIMESTAMP " +
+                "WHERE nombre IN ('Producto 7', 'Producto 8')");
+        jdbcTemplate.update("DELETE FROM productos WHERE nombre = 'Producto 7'");
+        jdbcTemplate.update("INSERT INTO productos (tienda_id, nombre, precio, cantidad, actualizado_en) " +
+                "VALUES ('principal', 'Producto 7', 99.90, 3, LOCALTIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO productos (tienda_id, nombre, precio, cantidad, actualizado_en) " +
+                "VALUES ('principal', 'Alfajor ''Triple''', 450.00, 12, LOCALTIMESTAMP)");
+        // Bajas que no dejan fila en productos: la purga de una baja lógica y el archivo de dos agotados
+        jdbcTemplate.update("DELETE FROM productos WHERE nombre = 'Producto 8'");
+        jdbcTemplate.update("INSERT INTO productos_archivados (id, tienda_id, nombre, archivado_en) " +
+                "SELECT id, tienda_id, nombre, LOCALTIMESTAMP FROM productos WHERE nombre IN ('Producto 9', 'Producto 10')");
+        jdbcTemplate.update("DELETE FROM productos WHERE nombre IN ('Producto 9', 'Producto 10')");
+        RespaldoDTO incremental = respaldoService.respaldarIncremental();
+        jdbcTemplate.update("UPDATE productos SET cantidad = 50, actualizado_en = LOCALTIMESTAMP " +
+                "WHERE nombre = 'Alfajor ''Triple'''");
+        RespaldoDTO segundo = respaldoService.respaldarIncremental();
+        Path destino = PRUEBAS.resolve("respaldos/restaurada").toAbsolutePath();
+        RestauracionDTO restauracion = respaldoService.restaurar("restaurada");
+
+        // Then
+        assertTrue(ventasAlTerminar > 0, "Las escrituras no deben esperar al respaldo");
+        assertEquals(completo.getNombre(), incremental.getBase());
+        assertEquals(completo.getNombre(), segundo.getBase());
+        assertEquals(List.of(incremental.getNombre(), segundo.getNombre()), restauracion.getIncrementales());
+        assertTrue(restauracion.isVerificada(), "Diferencias: " + restauracion.getDiferencias());
+        assertEquals(3, respaldoService.listar().size());
+        assertEquals(2, respaldoService.getRealizados(RespaldoService.INCREMENTAL));
+
+        JdbcDataSource restaurada = new JdbcDataSource();
+        restaurada.setURL("jdbc:h2:file:" + destino + "/tienda");
+        restaurada.setUser("sa");
+        JdbcTemplate consulta = new JdbcTemplate(restaurada);
+        try {
+            String original = "SELECT id || ':' || nombre || ':' || cantidad || ':' || precio FROM productos ORDER BY id";
+            assertEquals(jdbcTemplate.queryForList(original, String.class), consulta.queryForList(original, String.class));
+            String archivados = "SELECT id || ':' || nombre FROM productos_archivados ORDER BY id";
+            assertEquals(List.of("9:Producto 9", "10:Producto 10"), consulta.queryForList(archivados, String.class));
+            assertEquals(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM movimientos", Long.class),
+                    consulta.queryForObject("SELECT COUNT(*) FROM movimientos", Long.class));
+            // Las identidades siguen después de las filas restauradas
+            consulta.update("INSERT INTO movimientos (tienda_id, producto_id, cantidad) VALUES ('principal', 1, 1)");
+        } finally {
+            consulta.execute("SHUTDOWN");
+        }
+    }
+
+    @Test
+    @DisplayName("Debe conservar solo los últimos respaldos completos con sus incrementales")
+    void debeBorrarRespaldosViejos() {
+        // Given
+        RespaldoDTO primero = respaldoService.respaldarCompleto();
+        respaldoService.respaldarIncremental();
+
+        // When
+        respaldoService.respaldarCompleto();
+        respaldoService.respaldarCompleto();
+
+        // Then
+        List<RespaldoDTO> respaldos = respaldoService.listar();
+        assertEquals(2, respaldos.size());
+        assertTrue(respaldos.stream().noneMatch(respaldo -> respaldo.getBase().equals(primero.getNombre())));
+        assertTrue(respaldoService.verificar().isVerificada());
+    }
+
+    @Test
+    @DisplayName("Debe restaurar solo dentro del directorio de respaldos")
+    void debeRechazarDestinoFueraDelDirectorio() {
+        // Given
+        respaldoService.respaldarCompleto();
+
+        // When / Then
+        for (String destino : List.of("../fuera", "restaurada/../../fuera", PRUEBAS.resolve("fuera").toAbsolutePath().toString(), " ")) {
+            assertThrows(ValidacionException.class, () -> respaldoService.restaurar(destino), destino);
+        }
+        assertFalse(Files.exists(PRUEBAS.resolve("fuera")));
+    }
+
+    @Test
+    @DisplayName("Debe rechazar respaldar una base de datos en memoria")
+    void debeRechazarBaseEnMemoria() {
+        // Given
+        JdbcDataSource memoria = new JdbcDataSource();
+        memoria.setURL("jdbc:h2:mem:respaldo");
+        RespaldoService enMemoria = new RespaldoService(new JdbcTemplate(memoria),
+                new DataSourceTransactionManager(memoria), new MultitiendaProperties(List.of(), Map.of()),
+                PRUEBAS + "/respaldos", 2, Duration.ofMinutes(5), "sa", "");
+
+        // When / Then
+        assertThrows(IllegalStateException.class, enMemoria::respaldarCompleto);
+        assertEquals(1, enMemoria.getFallidos());
+    }
+
+    private static void borrar(Path raiz) throws IOException {
+        if (!Files.exists(raiz)) {
+            return;
+        }
+        try (Stream<Path> archivos = Files.walk(raiz)) {
+            for (Path archivo : archivos.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(archivo);
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.tienda.donarosa;
+
+import com.tienda.donarosa.trazas.Capa;
+import com.tienda.donarosa.trazas.Traza;
+import com.tienda.donarosa.trazas.Trazador;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pruebas de las trazas de las peticiones por capa
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = "tienda.trazas.muestreo=1.0")
+@DisplayName("Pruebas de las Trazas de Peticiones")
+class TrazasTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private Trazador trazador;
+
+    @Test
+    @DisplayName("Debe repartir el tiempo de la petición en el tiempo propio de cada capa")
+    void debeCalcularTiempoPropioPorCapa() throws Exception {
+        // Given
+        Trazador local = new Trazador(8, 1.0, Duration.ofHours(1));
+        Traza traza = local.iniciar("GET", "/productos");
+
+        // When: controlador > servicio > sentencia de 10 ms
+        long controlador = traza.entrar();
+        long servicio = traza.entrar();
+        Thread.sleep(15);
+        traza.registrar(Capa.SQL, "select * from productos", System.nanoTime() - 10_000_000, 10_000_000);
+        traza.salir(Capa.SERVICIO, "ProductoServiceImpl.obtenerTodosLosProductos", servicio);
+        traza.salir(Capa.CONTROLADOR, "ProductoController.listar", controlador);
+        local.terminar(traza, 200);
+
+        // Then
+        Map<Capa, Long> porCapa = traza.tiempoPorCapa();
+        assertEquals(10_000_000, porCapa.get(Capa.SQL));
+        assertTrue(porCapa.get(Capa.SERVICIO) >= 5_000_000, "Servicio sin la sentencia: " + porCapa.get(Capa.SERVICIO));
+        assertTrue(porCapa.get(Capa.CONTROLADOR) < 5_000_000, "Controlador sin el servicio: " + porCapa.get(Capa.CONTROLADOR));
+        long suma = porCapa.values().stream().mapToLong(Long::longValue).sum();
+        assertEquals(traza.getDuracionNanos(), suma);
+        assertNull(Trazador.actual());
+        assertEquals(List.of(traza), local.recientes(10, Duration.ZERO));
+    }
+
+    @Test
+    @DisplayName("Debe guardar solo las últimas trazas en el buffer circular")
+    void debeGuardarLasUltimasTrazas() {
+        // Given
+        Trazador local = new Trazador(4, 1.0, Duration.ofHours(1));
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            local.terminar(local.iniciar("GET", "/productos/" + i), 200);
+        }
+
+        // Then
+        List<Traza> recientes = local.recientes(10, Duration.ZERO);
+        assertEquals(List.of("/productos/9", "/productos/8", "/productos/7", "/productos/6"),
+                recientes.stream().map(Traza::getRuta).toList());
+        assertTrue(local.recientes(10, Duration.ofSeconds(1)).isEmpty());
+    }
+
+    @Test
+    @WithMockUser(username = "dona_rosa", roles = "ADMIN")
+    @DisplayName("Debe trazar filtros, controlador, servicios, SQL y vista de una página")
+    void debeTrazarTodasLasCapasDeUnaPagina() throws Exception {
+        // When
+        mockMvc.perform(get("/productos")).andExpect(status().isOk());
+
+        // Then
+        Traza traza = trazador.recientes(50, Duration.ZERO).stream()
+                .filter(t -> t.getRuta().equals("/productos"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(200, traza.getEstado());
+        List<Capa> capas = traza.getTramos().stream().map(Traza.Tramo::capa).distinct().toList();
+        assertTrue(capas.containsAll(List.of(Capa.CONTROLADOR, Capa.SERVICIO, Capa.SQL, Capa.VISTA)), "Capas: " + capas);
+        assertTrue(traza.tiempoPorCapa().containsKey(Capa.FILTROS));
+
+        mockMvc.perform(get("/api/v1/admin/trazas").param("limite", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].msPorCapa.FILTROS").exists());
+    }
+
+    @Test
+    @WithMockUser(username = "encargado_norte", roles = "ENCARGADO")
+    @DisplayName("Un encargado de tienda no debe entrar a la administración de toda la base")
+    void debeNegarAdministracionAlEncargado() throws Exception {
+        mockMvc.perform(get("/api/v1/admin/trazas")).andExpect(status().isForbidden());
+        mockMvc.perform(get("/admin/sql")).andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/v1/respaldos/restauracion").param("destino", "copia"))
+                .andExpect(status().isForbidden());
+    }
+}
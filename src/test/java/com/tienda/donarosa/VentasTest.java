@@ -0,0 +1,121 @@
+package com.tienda.donarosa;
+
+import com.tienda.donarosa.dto.VentaDiaDTO;
+import com.tienda.donarosa.dto.VentaResumenDTO;
+import com.tienda.donarosa.model.Producto;
+import com.tienda.donarosa.model.TipoMovimiento;
+import com.tienda.donarosa.repository.MovimientoRepository;
+import com.tienda.donarosa.repository.VentaDiariaRepository;
+import com.tienda.donarosa.repository.VentaSemanalRepository;
+import com.tienda.donarosa.service.ProductoService;
+import com.tienda.donarosa.service.ReporteVentasService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del registro de ventas y de los resúmenes diarios y semanales
+ */
+@PruebaServicioProductos
+@DisplayName("Pruebas de Ventas y Resúmenes")
+class VentasTest {
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ReporteVentasService reporteVentasService;
+
+    @Autowired
+    private MovimientoRepository movimientoRepository;
+
+    @Autowired
+    private VentaDiariaRepository ventaDiariaRepository;
+
+    @Autowired
+    private VentaSemanalRepository ventaSemanalRepository;
+
+    private Producto galletas;
+    private Producto peras;
+
+    @BeforeEach
+    void setUp() {
+        // La base se comparte con pruebas que confirman sus cambios; se limpia dentro de la transacción de la prueba
+        for (var repositorio : List.of(ventaSemanalRepository, ventaDiariaRepository, movimientoRepository)) {
+            repositorio.deleteAllInBatch();
+        }
+        galletas = productoService.guardarProducto(new Producto("Galletas", new BigDecimal("500.00"), 400));
+        peras = productoService.guardarProducto(new Producto("Peras", new BigDecimal("4000.00"), 65));
+    }
+
+    @Test
+    @DisplayName("Debe sumar cada venta a los resúmenes del día y de la semana")
+    void debeSumarVentasALosResumenes() {
+        // When
+        productoService.registrarVenta(galletas.getId(), 10);
+        productoService.registrarVenta(galletas.getId(), 5);
+        productoService.registrarVenta(peras.getId(), 2);
+        productoService.actualizarCantidadProducto(peras.getId(), 60); // vende 3 más
+
+        // Then
+        LocalDate hoy = LocalDate.now();
+        List<VentaResumenDTO> masVendidos = reporteVentasService.obtenerMasVendidosSemana(hoy, 10);
+        assertEquals(2, masVendidos.size());
+        assertEquals("Galletas", masVendidos.get(0).getNombre());
+        assertEquals(15L, masVendidos.get(0).getUnidades());
+        assertEquals(0, new BigDecimal("7500.00").compareTo(masVendidos.get(0).getIngresos()));
+        assertEquals(5L, masVendidos.get(1).getUnidades());
+
+        List<VentaDiaDTO> porDia = reporteVentasService.obtenerVentasPorDia(hoy, hoy);
+        assertEquals(1, porDia.size());
+        assertEquals(20L, porDia.get(0).getUnidades());
+        assertEquals(0, new BigDecimal("27500.00").compareTo(porDia.get(0).getIngresos()));
+        assertEquals(2, ventaDiariaRepository.count());
+    }
+
+    @Test
+    @DisplayName("Debe reconstruir los resúmenes desde los movimientos")
+    void debeReconstruirResumenes() {
+        // Given
+        productoService.registrarVenta(galletas.getId(), 7);
+        productoService.registrarVenta(peras.getId(), 1);
+        productoService.actualizarCantidadProducto(peras.getId(), 80); // reposición, no es venta
+        ventaDiariaRepository.deleteAllInBatch();
+        ventaSemanalRepository.deleteAllInBatch();
+
+        // When
+        LocalDate hoy = LocalDate.now();
+        int filas = reporteVentasService.reconstruirResumenes(hoy, hoy);
+
+        // Then
+        assertEquals(2, filas);
+        List<VentaResumenDTO> masVendidos = reporteVentasService.obtenerMasVendidosSemana(hoy, 10);
+        assertEquals(2, masVendidos.size());
+        assertEquals(7L, masVendidos.get(0).getUnidades());
+        assertEquals(1L, masVendidos.get(1).getUnidades());
+    }
+
+    @Test
+    @DisplayName("La suma de los movimientos debe coincidir con la cantidad del producto")
+    void debeConservarUnidadesEnMovimientos() {
+        // When
+        productoService.registrarVenta(peras.getId(), 5);
+        productoService.actualizarCantidadProducto(peras.getId(), 100);
+        Producto edicion = new Producto("Peras", new BigDecimal("4200.00"), 90);
+        edicion.setId(peras.getId());
+        productoService.actualizarProducto(edicion);
+
+        // Then
+        assertEquals(90L, movimientoRepository.sumarCantidadPorProducto(peras.getId()));
+        assertEquals(List.of(TipoMovimiento.ALTA, TipoMovimiento.VENTA, TipoMovimiento.REPOSICION, TipoMovimiento.AJUSTE),
+                movimientoRepository.findByProductoIdOrderByFechaAscIdAsc(peras.getId()).stream()
+                        .map(m -> m.getTipo()).toList());
+    }
+}